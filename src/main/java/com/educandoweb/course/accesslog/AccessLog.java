@@ -0,0 +1,219 @@
+package com.educandoweb.course.accesslog;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Log de acesso estruturado: uma linha JSON por requisição, no logger {@code access}.
+ *
+ * As threads das requisições apenas copiam os tempos para uma entrada pré-alocada de um buffer circular sem
+ * locks (cada posição tem um número de sequência que indica se está livre ou publicada, e as threads disputam
+ * a próxima posição por CAS). Uma única thread de fundo consome as entradas, formata e escreve as linhas. Com
+ * o buffer cheio a entrada é descartada e contada: o log nunca bloqueia uma requisição.
+ *
+ * Amostragem: requisições lentas ({@code slowThresholdMillis}) e com status 5xx são sempre registradas; as
+ * demais com probabilidade {@code sampleRate}.
+ */
+public class AccessLog {
+
+    private static final Logger log = LoggerFactory.getLogger("access");
+
+    private final Entry[] entries;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+
+    private final double sampleRate;
+    private final long slowThresholdNanos;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder sampledOut = new LongAdder();
+    private final AtomicLong writtenLines = new AtomicLong();
+
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    /**
+     * @param capacity            Quantidade de entradas do buffer (arredondada para potência de dois).
+     * @param sampleRate          Fração (0 a 1) das requisições normais registradas.
+     * @param slowThresholdMillis Requisições com duração igual ou maior são sempre registradas.
+     */
+    public AccessLog(int capacity, double sampleRate, long slowThresholdMillis) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        entries = new Entry[size];
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            entries[i] = new Entry();
+            sequences.set(i, i);
+        }
+        mask = size - 1;
+        this.sampleRate = sampleRate;
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+        writer = new Thread(this::drainLoop, "access-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /** Chamado pela thread da requisição ao final: decide a amostragem e publica a entrada. */
+    void record(RequestTiming timing, String method, String uri, int status, long bytes) {
+        long totalNanos = System.nanoTime() - timing.startNanos;
+        boolean always = totalNanos >= slowThresholdNanos || status >= 500;
+        if (!always && (sampleRate <= 0.0 || (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate))) {
+            sampledOut.increment();
+            return;
+        }
+        long position = claim();
+        if (position < 0) {
+            dropped.increment();
+            return;
+        }
+        Entry e = entries[(int) position & mask];
+        e.epochMillis = System.currentTimeMillis();
+        e.method = method;
+        e.uri = uri;
+        e.status = status;
+        e.bytes = bytes;
+        e.totalNanos = totalNanos;
+        e.controllerNanos = timing.controllerNanos;
+        e.serviceNanos = timing.serviceNanos;
+        e.serializationNanos = timing.serializationNanos();
+        e.jdbcNanos = timing.jdbcNanos;
+        e.statements = timing.statements;
+        e.lazyStatements = timing.lazyStatements;
+        // publica: a partir daqui a entrada pertence ao consumidor
+        sequences.set((int) position & mask, position + 1);
+        published.increment();
+    }
+
+    /** Reserva a próxima posição livre, ou devolve -1 se o buffer estiver cheio. */
+    private long claim() {
+        while (true) {
+            long position = tail.get();
+            long sequence = sequences.get((int) position & mask);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    return position;
+                }
+            } else if (sequence < position) {
+                return -1;
+            }
+            // outra thread reservou esta posição: tenta a seguinte
+        }
+    }
+
+    private void drainLoop() {
+        StringBuilder line = new StringBuilder(256);
+        while (running || sequences.get((int) head & mask) == head + 1) {
+            if (!drain(line)) {
+                LockSupport.parkNanos(1_000_000L);
+            }
+        }
+    }
+
+    /** @return {@code true} se alguma entrada foi consumida. */
+    private boolean drain(StringBuilder line) {
+        boolean any = false;
+        while (sequences.get((int) head & mask) == head + 1) {
+            Entry e = entries[(int) head & mask];
+            line.setLength(0);
+            e.format(line);
+            // libera a posição para a próxima volta do buffer
+            sequences.set((int) head & mask, head + entries.length);
+            head++;
+            any = true;
+            log.info(line.toString());
+            writtenLines.incrementAndGet();
+        }
+        return any;
+    }
+
+    /** Interrompe a thread de escrita depois de consumir o que já foi publicado. */
+    public void close() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    public Map<String, Number> stats() {
+        Map<String, Number> stats = new LinkedHashMap<>();
+        stats.put("published", published.sum());
+        stats.put("written", writtenLines.get());
+        stats.put("dropped", dropped.sum());
+        stats.put("sampledOut", sampledOut.sum());
+        stats.put("capacity", entries.length);
+        stats.put("sampleRate", sampleRate);
+        return stats;
+    }
+
+    /** Entrada reutilizável do buffer. */
+    private static final class Entry {
+        long epochMillis;
+        String method;
+        String uri;
+        int status;
+        long bytes;
+        long totalNanos;
+        long controllerNanos;
+        long serviceNanos;
+        long serializationNanos;
+        long jdbcNanos;
+        int statements;
+        int lazyStatements;
+
+        void format(StringBuilder sb) {
+            sb.append("{\"ts\":\"").append(Instant.ofEpochMilli(epochMillis))
+                    .append("\",\"method\":\"").append(method)
+                    .append("\",\"uri\":");
+            quote(sb, uri);
+            sb.append(",\"status\":").append(status);
+            millis(sb.append(",\"totalMs\":"), totalNanos);
+            millis(sb.append(",\"controllerMs\":"), controllerNanos);
+            millis(sb.append(",\"serviceMs\":"), serviceNanos);
+            millis(sb.append(",\"jdbcMs\":"), jdbcNanos);
+            sb.append(",\"statements\":").append(statements)
+                    .append(",\"lazyStatements\":").append(lazyStatements);
+            millis(sb.append(",\"serializationMs\":"), serializationNanos);
+            sb.append(",\"bytes\":").append(bytes).append('}');
+        }
+
+        /** Milissegundos com três casas decimais. */
+        private static void millis(StringBuilder sb, long nanos) {
+            long micros = nanos / 1_000;
+            sb.append(micros / 1_000).append('.');
+            long fraction = micros % 1_000;
+            if (fraction < 100) {
+                sb.append('0');
+            }
+            if (fraction < 10) {
+                sb.append('0');
+            }
+            sb.append(fraction);
+        }
+
+        private static void quote(StringBuilder sb, String value) {
+            sb.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    sb.append('\\').append(c);
+                } else if (c < 0x20) {
+                    sb.append(String.format("\\u%04x", (int) c));
+                } else {
+                    sb.append(c);
+                }
+            }
+            sb.append('"');
+        }
+    }
+}
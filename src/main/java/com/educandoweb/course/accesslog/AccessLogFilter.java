@@ -0,0 +1,41 @@
+package com.educandoweb.course.accesslog;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Abre a medição de cada requisição ({@link RequestTiming}), conta os bytes da resposta e, ao final, entrega
+ * os tempos ao {@link AccessLog}.
+ */
+public class AccessLogFilter extends OncePerRequestFilter {
+
+    private final AccessLog accessLog;
+
+    public AccessLogFilter(AccessLog accessLog) {
+        this.accessLog = accessLog;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestTiming timing = RequestTiming.begin();
+        CountingResponseWrapper counting = new CountingResponseWrapper(response);
+        int status = -1;
+        try {
+            chain.doFilter(request, counting);
+        } catch (IOException | ServletException | RuntimeException e) {
+            // o contêiner responderá 500
+            status = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+            throw e;
+        } finally {
+            RequestTiming.end();
+            accessLog.record(timing, request.getMethod(), request.getRequestURI(),
+                    status > 0 ? status : counting.getStatus(), counting.written());
+        }
+    }
+}
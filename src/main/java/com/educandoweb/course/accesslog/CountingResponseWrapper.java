@@ -0,0 +1,101 @@
+package com.educandoweb.course.accesslog;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+
+/**
+ * Conta o que é escrito no corpo da resposta: bytes pelo {@link #getOutputStream()} (conversores de mensagem)
+ * e caracteres pelo {@link #getWriter()} (páginas de erro do contêiner).
+ */
+class CountingResponseWrapper extends HttpServletResponseWrapper {
+
+    private long written;
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+
+    CountingResponseWrapper(HttpServletResponse response) {
+        super(response);
+    }
+
+    long written() {
+        return written;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (outputStream == null) {
+            ServletOutputStream target = super.getOutputStream();
+            outputStream = new ServletOutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    target.write(b);
+                    written++;
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    target.write(b, off, len);
+                    written += len;
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    target.flush();
+                }
+
+                @Override
+                public void close() throws IOException {
+                    target.close();
+                }
+
+                @Override
+                public boolean isReady() {
+                    return target.isReady();
+                }
+
+                @Override
+                public void setWriteListener(WriteListener listener) {
+                    target.setWriteListener(listener);
+                }
+            };
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            PrintWriter target = super.getWriter();
+            writer = new PrintWriter(new Writer() {
+                @Override
+                public void write(char[] buf, int off, int len) {
+                    target.write(buf, off, len);
+                    written += len;
+                }
+
+                @Override
+                public void write(String str, int off, int len) {
+                    target.write(str, off, len);
+                    written += len;
+                }
+
+                @Override
+                public void flush() {
+                    target.flush();
+                }
+
+                @Override
+                public void close() {
+                    target.close();
+                }
+            });
+        }
+        return writer;
+    }
+}
@@ -0,0 +1,20 @@
+package com.educandoweb.course.accesslog;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Marca em {@link RequestTiming} o fim do tratamento da requisição pelo Spring MVC. Com {@code @ResponseBody}
+ * o corpo já foi escrito neste ponto (também nas respostas dos tratadores de exceção).
+ */
+public class HandlerCompletionInterceptor implements HandlerInterceptor {
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        RequestTiming timing = RequestTiming.current();
+        if (timing != null) {
+            timing.handlerCompleted();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.educandoweb.course.accesslog;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.autoproxy.AbstractBeanFactoryAwareAdvisingPostProcessor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+
+import java.lang.annotation.Annotation;
+
+/**
+ * Mede, em {@link RequestTiming}, o tempo dos métodos dos beans com a anotação informada (controladores ou
+ * serviços). Os beans que já têm proxy (por exemplo de {@code @Transactional}) recebem o advisor no proxy
+ * existente; os demais ganham um proxy de classe, já que são injetados pela classe concreta.
+ */
+public class PhaseTimingPostProcessor extends AbstractBeanFactoryAwareAdvisingPostProcessor {
+
+    private static final long serialVersionUID = 1L;
+
+    public PhaseTimingPostProcessor(Class<? extends Annotation> annotation, RequestTiming.Phase phase) {
+        MethodInterceptor interceptor = invocation -> {
+            RequestTiming timing = RequestTiming.current();
+            if (timing == null) {
+                return invocation.proceed();
+            }
+            boolean outermost = timing.enter(phase);
+            long start = System.nanoTime();
+            try {
+                return invocation.proceed();
+            } finally {
+                timing.exit(phase, outermost, System.nanoTime() - start);
+            }
+        };
+        this.advisor = new DefaultPointcutAdvisor(new AnnotationMatchingPointcut(annotation, true), interceptor);
+        setBeforeExistingAdvisors(true);
+        setProxyTargetClass(true);
+    }
+}
@@ -0,0 +1,91 @@
+package com.educandoweb.course.accesslog;
+
+/**
+ * Tempos de uma requisição em andamento, por fase. Cada requisição é atendida por uma única thread, portanto
+ * o estado fica em uma {@link ThreadLocal} e não precisa de sincronização.
+ *
+ * <ul>
+ *   <li>controller: execução do método do controlador (inclui os serviços);</li>
+ *   <li>service: execução dos métodos de serviço chamados de fora de outro serviço;</li>
+ *   <li>jdbc: execução de comandos SQL e sua quantidade; os executados depois que o controlador retornou
+ *       (carga lazy durante a serialização) são contados à parte;</li>
+ *   <li>serialization: do retorno do controlador ao fim do tratamento da requisição (escrita do corpo).</li>
+ * </ul>
+ */
+public final class RequestTiming {
+
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+
+    final long startNanos = System.nanoTime();
+    long controllerNanos;
+    long serviceNanos;
+    long jdbcNanos;
+    int statements;
+    int lazyStatements;
+    long controllerEndNanos;
+    long handlerEndNanos;
+    private int controllerDepth;
+    private int serviceDepth;
+
+    private RequestTiming() {
+    }
+
+    static RequestTiming begin() {
+        RequestTiming timing = new RequestTiming();
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    static RequestTiming current() {
+        return CURRENT.get();
+    }
+
+    /** Registra a execução de um comando SQL na requisição corrente, se houver. */
+    public static void statementExecuted(long nanos) {
+        RequestTiming timing = CURRENT.get();
+        if (timing == null) {
+            return;
+        }
+        timing.jdbcNanos += nanos;
+        timing.statements++;
+        if (timing.controllerEndNanos != 0 && timing.controllerDepth == 0) {
+            timing.lazyStatements++;
+        }
+    }
+
+    /** @return {@code true} se esta é a chamada mais externa da fase, a que deve ser medida. */
+    boolean enter(Phase phase) {
+        return phase == Phase.CONTROLLER ? controllerDepth++ == 0 : serviceDepth++ == 0;
+    }
+
+    void exit(Phase phase, boolean outermost, long nanos) {
+        if (phase == Phase.CONTROLLER) {
+            controllerDepth--;
+            if (outermost) {
+                controllerNanos += nanos;
+                controllerEndNanos = System.nanoTime();
+            }
+        } else {
+            serviceDepth--;
+            if (outermost) {
+                serviceNanos += nanos;
+            }
+        }
+    }
+
+    void handlerCompleted() {
+        handlerEndNanos = System.nanoTime();
+    }
+
+    long serializationNanos() {
+        return controllerEndNanos != 0 && handlerEndNanos > controllerEndNanos ? handlerEndNanos - controllerEndNanos : 0L;
+    }
+
+    public enum Phase {
+        CONTROLLER, SERVICE
+    }
+}
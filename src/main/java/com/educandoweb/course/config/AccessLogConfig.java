@@ -0,0 +1,55 @@
+package com.educandoweb.course.config;
+
+import com.educandoweb.course.accesslog.AccessLog;
+import com.educandoweb.course.accesslog.AccessLogFilter;
+import com.educandoweb.course.accesslog.HandlerCompletionInterceptor;
+import com.educandoweb.course.accesslog.PhaseTimingPostProcessor;
+import com.educandoweb.course.accesslog.RequestTiming;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Service;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Log de acesso com o tempo de cada requisição por fase ({@code access-log.enabled}, ligado por padrão). Em
+ * produção use {@code access-log.sample-rate} baixo: as requisições lentas e as falhas são sempre registradas.
+ */
+@Configuration
+@ConditionalOnProperty(name = "access-log.enabled", havingValue = "true", matchIfMissing = true)
+public class AccessLogConfig implements WebMvcConfigurer {
+
+    @Bean(destroyMethod = "close")
+    public AccessLog accessLog(@Value("${access-log.capacity:8192}") int capacity,
+                               @Value("${access-log.sample-rate:1.0}") double sampleRate,
+                               @Value("${access-log.slow-threshold-ms:500}") long slowThresholdMillis) {
+        return new AccessLog(capacity, sampleRate, slowThresholdMillis);
+    }
+
+    @Bean
+    public FilterRegistrationBean<AccessLogFilter> accessLogFilter(AccessLog accessLog) {
+        FilterRegistrationBean<AccessLogFilter> registration = new FilterRegistrationBean<>(new AccessLogFilter(accessLog));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    @Bean
+    public static PhaseTimingPostProcessor controllerTimingPostProcessor() {
+        return new PhaseTimingPostProcessor(RestController.class, RequestTiming.Phase.CONTROLLER);
+    }
+
+    @Bean
+    public static PhaseTimingPostProcessor serviceTimingPostProcessor() {
+        return new PhaseTimingPostProcessor(Service.class, RequestTiming.Phase.SERVICE);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerCompletionInterceptor());
+    }
+}
@@ -0,0 +1,60 @@
+package com.educandoweb.course.config;
+
+import com.educandoweb.course.jdbc.ConnectionMetrics;
+import com.educandoweb.course.jdbc.MeasuredDataSource;
+import com.educandoweb.course.jdbc.SlowQueryLog;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Configuração do DataSource usado pelo JPA e pelo JdbcTemplate.
+ *
+ * O pool configurado pelo Spring Boot é envolvido por duas camadas:
+ * <ul>
+ *     <li>{@link MeasuredDataSource}, que mede o tempo de retenção de cada conexão física e registra os
+ *     comandos lentos no {@link SlowQueryLog};</li>
+ *     <li>{@link LazyConnectionDataSourceProxy}, que só obtém a conexão física quando o primeiro comando SQL é
+ *     executado. Assim, transações somente leitura que não chegam ao banco não ocupam o pool, e as que chegam
+ *     seguram a conexão por menos tempo.</li>
+ * </ul>
+ */
+@Configuration
+public class DataSourceConfig {
+
+    @Bean
+    public ConnectionMetrics connectionMetrics() {
+        return new ConnectionMetrics();
+    }
+
+    @Bean
+    public SlowQueryLog slowQueryLog(@Value("${slow-query.threshold-ms:200}") long thresholdMillis,
+                                     @Value("${slow-query.max-statements:500}") int maxStatements,
+                                     @Value("${slow-query.explain:true}") boolean explain) {
+        return new SlowQueryLog(thresholdMillis, maxStatements, explain);
+    }
+
+    /**
+     * Envolve os DataSources. As métricas e o log de comandos lentos só são obtidos quando o primeiro DataSource
+     * aparece, depois de todos os BeanPostProcessors registrados, para que também passem por eles.
+     */
+    @Bean
+    public static BeanPostProcessor dataSourcePostProcessor(ObjectProvider<ConnectionMetrics> connectionMetrics,
+                                                            ObjectProvider<SlowQueryLog> slowQueryLog) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof LazyConnectionDataSourceProxy)) {
+                    return new LazyConnectionDataSourceProxy(
+                            new MeasuredDataSource(dataSource, connectionMetrics.getObject(), slowQueryLog.getObject()));
+                }
+                return bean;
+            }
+        };
+    }
+}
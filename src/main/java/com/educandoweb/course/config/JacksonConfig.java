@@ -0,0 +1,78 @@
+package com.educandoweb.course.config;
+
+import com.educandoweb.course.resources.fields.FieldSelectionFilter;
+import com.educandoweb.course.resources.json.DirectSerializationModule;
+import com.fasterxml.jackson.databind.AnnotationIntrospector;
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.introspect.AnnotatedClass;
+import com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector;
+import com.fasterxml.jackson.databind.introspect.NopAnnotationIntrospector;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.Entity;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Configuração do Jackson compartilhada por todos os conversores de mensagens.
+ *
+ * Associa o filtro de seleção de campos a todas as entidades JPA. Por padrão o filtro serializa todos
+ * os campos; {@link com.educandoweb.course.resources.fields.FieldSelectionAdvice} o substitui quando a
+ * requisição informa {@code ?fields=}.
+ *
+ * Além do JSON, as respostas podem ser codificadas em Smile ({@code application/x-jackson-smile}) ou
+ * CBOR ({@code application/cbor}) conforme o cabeçalho {@code Accept}. Os conversores binários usam o mesmo
+ * builder do JSON, portanto respeitam os mesmos módulos, formatos de data e filtros. O JSON continua sendo
+ * o formato padrão, pois seu conversor vem antes dos binários na lista de conversores.
+ *
+ * Pedidos, produtos e resumos de pedidos são escritos por serializadores diretos
+ * ({@link DirectSerializationModule}), sem acessores reflexivos.
+ */
+@Configuration
+public class JacksonConfig {
+
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer fieldSelectionCustomizer() {
+        return builder -> builder
+                .annotationIntrospector(existing -> AnnotationIntrospector.pair(new EntityFilterIntrospector(),
+                        existing != null ? existing : new JacksonAnnotationIntrospector()))
+                .filters(new SimpleFilterProvider()
+                        .addFilter(FieldSelectionFilter.ID, SimpleBeanPropertyFilter.serializeAll()));
+    }
+
+    /** Serialização direta do grafo de pedidos; registrado pelo Spring Boot em todos os {@code ObjectMapper}. */
+    @Bean
+    public DirectSerializationModule directSerializationModule() {
+        return new DirectSerializationModule();
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    /** Atribui o filtro de seleção de campos às classes anotadas com {@link Entity} ou {@link Embeddable}. */
+    static class EntityFilterIntrospector extends NopAnnotationIntrospector {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public Object findFilterId(Annotated a) {
+            if (a instanceof AnnotatedClass && (a.hasAnnotation(Entity.class) || a.hasAnnotation(Embeddable.class))) {
+                return FieldSelectionFilter.ID;
+            }
+            return null;
+        }
+    }
+}
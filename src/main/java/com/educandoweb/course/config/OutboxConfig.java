@@ -0,0 +1,34 @@
+package com.educandoweb.course.config;
+
+import com.educandoweb.course.services.outbox.FileOutboxSink;
+import com.educandoweb.course.services.outbox.QueueOutboxSink;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.nio.file.Path;
+
+/**
+ * Configuração do despacho do outbox: habilita o agendamento e escolhe o destino dos eventos pela
+ * propriedade {@code outbox.sink} ({@code file}, o padrão, ou {@code queue}, só para testes: a fila não tem
+ * consumidor na aplicação).
+ */
+@Configuration
+@EnableScheduling
+public class OutboxConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "outbox.sink", havingValue = "queue")
+    public QueueOutboxSink queueOutboxSink(@Value("${outbox.queue.capacity:10000}") int capacity) {
+        return new QueueOutboxSink(capacity);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "outbox.sink", havingValue = "file", matchIfMissing = true)
+    public FileOutboxSink fileOutboxSink(@Value("${outbox.file.path:data/outbox.jsonl}") String path, ObjectMapper objectMapper) {
+        return new FileOutboxSink(Path.of(path), objectMapper);
+    }
+}
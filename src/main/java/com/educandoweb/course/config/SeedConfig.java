@@ -0,0 +1,328 @@
+package com.educandoweb.course.config;
+
+import com.educandoweb.course.entities.Money;
+import com.educandoweb.course.enums.OrderStatus;
+import com.educandoweb.course.sharding.Shards;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Classe de configuração que gera uma massa de dados sintética em escala de produção no perfil "seed".
+ *
+ * Substitui a carga fixa de {@link TestConfig} quando o perfil está ativo (por exemplo
+ * {@code --spring.profiles.active=test,seed} para H2 ou {@code dev,seed} para Postgres). Os volumes e as
+ * distribuições são configurados pelas propriedades {@code seed.*} em {@code application-seed.properties}:
+ * a popularidade dos produtos segue uma distribuição de Zipf, o tamanho dos pedidos é geométrico e o
+ * status segue uma proporção fixa. Os pedidos se espalham por {@code seed.history-days} dias, exceto os que
+ * aguardam pagamento, gerados dentro do prazo de {@code order-expiry.max-age-hours} para que a expiração não
+ * os cancele logo após a carga.
+ *
+ * As linhas são geradas em paralelo em blocos independentes (cada bloco tem seu próprio gerador
+ * aleatório, portanto a massa é reproduzível) e gravadas com lotes JDBC, sem passar pelo JPA.
+ * Os ids são atribuídos explicitamente a partir do maior id existente e as colunas IDENTITY são
+ * reposicionadas ao final, de modo que inserções posteriores continuem funcionando.
+ */
+@Configuration
+@Profile("seed")
+public class SeedConfig implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(SeedConfig.class);
+
+    /** Proporção de cada status, na ordem de {@link OrderStatus#values()}. */
+    private static final double[] STATUS_WEIGHTS = {0.10, 0.20, 0.15, 0.45, 0.10};
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private Shards shards;
+
+    @Value("${seed.users:100000}")
+    private int users;
+
+    @Value("${seed.categories:50}")
+    private int categories;
+
+    @Value("${seed.products:20000}")
+    private int products;
+
+    @Value("${seed.orders:500000}")
+    private int orders;
+
+    @Value("${seed.max-items-per-order:10}")
+    private int maxItemsPerOrder;
+
+    @Value("${seed.product-skew:1.1}")
+    private double productSkew;
+
+    @Value("${seed.history-days:730}")
+    private int historyDays;
+
+    @Value("${order-expiry.max-age-hours:72}")
+    private long expiryHours;
+
+    @Value("${seed.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${seed.threads:0}")
+    private int threads;
+
+    @Value("${seed.random-seed:42}")
+    private long randomSeed;
+
+    private ExecutorService executor;
+
+    /** Preço em centavos de cada produto gerado, indexado pela posição do produto, reaproveitado nos itens de pedido. */
+    private long[] prices;
+
+    /** Recusa na inicialização volumes que os amostradores não conseguem atender, com a propriedade culpada. */
+    @PostConstruct
+    public void validate() {
+        require(users >= 0 && categories >= 0 && products >= 0 && orders >= 0,
+                "seed.users, seed.categories, seed.products and seed.orders must not be negative");
+        require(products == 0 || categories > 0, "seed.categories must be positive when seed.products > 0 (products are linked to categories)");
+        require(orders == 0 || users > 0, "seed.users must be positive when seed.orders > 0 (orders are assigned to users)");
+        require(orders == 0 || products > 0, "seed.products must be positive when seed.orders > 0 (orders contain products)");
+        require(maxItemsPerOrder > 0, "seed.max-items-per-order must be positive, was " + maxItemsPerOrder);
+        require(historyDays > 0, "seed.history-days must be positive, was " + historyDays);
+        require(productSkew >= 0 && Double.isFinite(productSkew), "seed.product-skew must be a non-negative number, was " + productSkew);
+        require(batchSize > 0, "seed.batch-size must be positive, was " + batchSize);
+        require(threads >= 0, "seed.threads must not be negative (0 = number of processors), was " + threads);
+    }
+
+    private static void require(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException("Invalid seed configuration: " + message);
+        }
+    }
+
+    @Override
+    public void run(String... args) throws Exception {
+        if (shards.count() > 1) {
+            // os pedidos gerados têm ids sequenciais e seriam gravados todos no shard 0
+            throw new IllegalStateException("The seed profile does not support sharding.enabled=true");
+        }
+        int poolSize = threads > 0 ? threads : Math.min(Runtime.getRuntime().availableProcessors(), 8);
+        executor = Executors.newFixedThreadPool(poolSize);
+        long start = System.nanoTime();
+        long rows = 0;
+        try {
+            long categoryBase = maxId("tb_category", "id");
+            long productBase = maxId("tb_product", "id");
+            long userBase = maxId("tb_user", "id");
+            long orderBase = Math.max(maxId("tb_order", "id"), maxId("tb_order_archive", "id"));
+
+            rows += seedCategories(categoryBase);
+            rows += seedProducts(productBase, categoryBase);
+            rows += seedUsers(userBase);
+            rows += seedOrders(orderBase, userBase, productBase);
+
+            restartIdentity("tb_category", categoryBase + categories + 1);
+            restartIdentity("tb_product", productBase + products + 1);
+            restartIdentity("tb_user", userBase + users + 1);
+            restartIdentity("tb_order", orderBase + orders + 1);
+        } finally {
+            executor.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        log.info("Seed finished: {} rows in {} s ({} rows/s) using {} threads",
+                rows, String.format("%.1f", seconds), String.format("%.0f", rows / seconds), poolSize);
+    }
+
+    private long seedCategories(long base) throws Exception {
+        return phase("categories", categories, (from, to, random) -> {
+            List<Object[]> batch = new ArrayList<>();
+            for (long i = from; i < to; i++) {
+                batch.add(new Object[]{base + i + 1, "Category " + (i + 1)});
+            }
+            return write("INSERT INTO tb_category (id, name) VALUES (?, ?)", batch);
+        });
+    }
+
+    private long seedProducts(long base, long categoryBase) throws Exception {
+        ZipfSampler categoryPopularity = new ZipfSampler(categories, 1.0);
+        SplittableRandom priceRandom = new SplittableRandom(randomSeed);
+        prices = new long[products];
+        for (int i = 0; i < products; i++) {
+            // preços com distribuição log-normal, em centavos
+            prices[i] = Math.round(Math.exp(4.0 + priceRandom.nextGaussian()) * 100);
+        }
+        return phase("products and category links", products, (from, to, random) -> {
+            List<Object[]> batch = new ArrayList<>();
+            List<Object[]> links = new ArrayList<>();
+            for (long i = from; i < to; i++) {
+                long id = base + i + 1;
+                batch.add(new Object[]{id, "Product " + (i + 1), "Synthetic product " + (i + 1), prices[(int) i],
+                        Money.DEFAULT_CURRENCY, "https://img.example.com/products/" + id + ".jpg"});
+                long[] chosen = distinct(1 + random.nextInt(3), categoryBase, categoryPopularity, random);
+                for (long categoryId : chosen) {
+                    links.add(new Object[]{id, categoryId});
+                }
+            }
+            return write("INSERT INTO tb_product (id, name, description, price_minor, currency, img_url) VALUES (?, ?, ?, ?, ?, ?)", batch)
+                    + write("INSERT INTO tb_product_category (product_id, category_id) VALUES (?, ?)", links);
+        });
+    }
+
+    private long seedUsers(long base) throws Exception {
+        return phase("users", users, (from, to, random) -> {
+            List<Object[]> batch = new ArrayList<>();
+            for (long i = from; i < to; i++) {
+                long id = base + i + 1;
+                batch.add(new Object[]{id, "User " + id, "user" + id + "@example.com",
+                        String.format("9%08d", random.nextInt(100_000_000)), "123456"});
+            }
+            return write("INSERT INTO tb_user (id, name, email, phone, password) VALUES (?, ?, ?, ?, ?)", batch);
+        });
+    }
+
+    private long seedOrders(long base, long userBase, long productBase) throws Exception {
+        ZipfSampler productPopularity = new ZipfSampler(products, productSkew);
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        long historySeconds = historyDays * 86_400L;
+        long waitingSeconds = Math.max(1, Math.min(historySeconds, expiryHours * 3_600));
+        return phase("orders, items and payments", orders, (from, to, random) -> {
+            List<Object[]> orderRows = new ArrayList<>();
+            List<Object[]> itemRows = new ArrayList<>();
+            List<Object[]> paymentRows = new ArrayList<>();
+            for (long i = from; i < to; i++) {
+                long id = base + i + 1;
+                OrderStatus status = OrderStatus.values()[weighted(STATUS_WEIGHTS, random)];
+                Instant moment = now.minusSeconds(random.nextLong(status == OrderStatus.WAITING_PAYMENT ? waitingSeconds : historySeconds));
+                orderRows.add(new Object[]{id, OffsetDateTime.ofInstant(moment, ZoneOffset.UTC), status.getCode(), userBase + 1 + random.nextInt(users)});
+
+                int size = Math.min(maxItemsPerOrder, 1 + geometric(0.45, random));
+                for (long productId : distinct(size, productBase, productPopularity, random)) {
+                    long price = prices[(int) (productId - productBase - 1)];
+                    itemRows.add(new Object[]{id, productId, 1 + geometric(0.7, random), price, Money.DEFAULT_CURRENCY});
+                }
+                if (status != OrderStatus.WAITING_PAYMENT && status != OrderStatus.CANCELED) {
+                    paymentRows.add(new Object[]{id, OffsetDateTime.ofInstant(moment.plusSeconds(60 + random.nextInt(7_200)), ZoneOffset.UTC)});
+                }
+            }
+            return write("INSERT INTO tb_order (id, moment, order_status, client_id) VALUES (?, ?, ?, ?)", orderRows)
+                    + write("INSERT INTO tb_order_item (order_id, product_id, quantity, price_minor, currency) VALUES (?, ?, ?, ?, ?)", itemRows)
+                    + write("INSERT INTO tb_payment (order_id, moment) VALUES (?, ?)", paymentRows);
+        });
+    }
+
+    /** Divide {@code count} linhas em blocos, gera e grava cada bloco em paralelo e registra a vazão. */
+    private long phase(String name, int count, ChunkWriter writer) throws Exception {
+        long start = System.nanoTime();
+        AtomicLong rows = new AtomicLong();
+        List<Future<?>> futures = new ArrayList<>();
+        for (long from = 0; from < count; from += batchSize) {
+            long chunkFrom = from;
+            long chunkTo = Math.min(count, from + batchSize);
+            SplittableRandom random = new SplittableRandom(randomSeed * 31 + name.hashCode() * 17L + chunkFrom);
+            futures.add(executor.submit(() -> rows.addAndGet(writer.write(chunkFrom, chunkTo, random))));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        double seconds = Math.max((System.nanoTime() - start) / 1e9, 1e-9);
+        log.info("Seeded {}: {} rows in {} s ({} rows/s)", name, rows.get(),
+                String.format("%.1f", seconds), String.format("%.0f", rows.get() / seconds));
+        return rows.get();
+    }
+
+    private long write(String sql, List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(sql, rows);
+        return rows.size();
+    }
+
+    private long maxId(String table, String column) {
+        Long max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(" + column + "), 0) FROM " + table, Long.class);
+        return max != null ? max : 0L;
+    }
+
+    private void restartIdentity(String table, long next) {
+        // sintaxe aceita tanto pelo H2 quanto pelo Postgres para colunas IDENTITY
+        jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + next);
+    }
+
+    /** Sorteia até {@code count} ids distintos segundo o amostrador, deslocados por {@code base}. */
+    private static long[] distinct(int count, long base, ZipfSampler sampler, SplittableRandom random) {
+        long[] values = new long[count];
+        int size = 0;
+        for (int attempts = 0; size < count && attempts < count * 20; attempts++) {
+            long candidate = base + sampler.sample(random);
+            boolean seen = false;
+            for (int i = 0; i < size; i++) {
+                if (values[i] == candidate) {
+                    seen = true;
+                    break;
+                }
+            }
+            if (!seen) {
+                values[size++] = candidate;
+            }
+        }
+        return Arrays.copyOf(values, size);
+    }
+
+    private static int weighted(double[] weights, SplittableRandom random) {
+        double r = random.nextDouble();
+        for (int i = 0; i < weights.length - 1; i++) {
+            r -= weights[i];
+            if (r < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    private static int geometric(double p, SplittableRandom random) {
+        return (int) Math.floor(Math.log(1.0 - random.nextDouble()) / Math.log(1.0 - p));
+    }
+
+    @FunctionalInterface
+    private interface ChunkWriter {
+        long write(long from, long to, SplittableRandom random);
+    }
+
+    /** Amostrador de Zipf sobre {@code 1..n} usando a distribuição acumulada pré-calculada e busca binária. */
+    private static final class ZipfSampler {
+        private final double[] cumulative;
+
+        ZipfSampler(int n, double exponent) {
+            cumulative = new double[n];
+            double sum = 0;
+            for (int k = 1; k <= n; k++) {
+                sum += 1.0 / Math.pow(k, exponent);
+                cumulative[k - 1] = sum;
+            }
+            for (int k = 0; k < n; k++) {
+                cumulative[k] /= sum;
+            }
+        }
+
+        long sample(SplittableRandom random) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            return (index >= 0 ? index : -index - 1) + 1L;
+        }
+    }
+}
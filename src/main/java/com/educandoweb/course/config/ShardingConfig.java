@@ -0,0 +1,117 @@
+package com.educandoweb.course.config;
+
+import com.educandoweb.course.sharding.ReferenceChangeListener;
+import com.educandoweb.course.sharding.ReferenceReplicator;
+import com.educandoweb.course.sharding.ShardPools;
+import com.educandoweb.course.sharding.ShardRoutingDataSource;
+import com.educandoweb.course.sharding.Shards;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.flywaydb.core.Flyway;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Particionamento dos pedidos em vários bancos, ativado com {@code sharding.enabled=true}.
+ *
+ * O shard 0 é o banco de {@code spring.datasource} e os demais são listados em {@code sharding.urls} (mesmo
+ * usuário, senha e configuração de pool). O DataSource principal passa a ser um {@link ShardRoutingDataSource},
+ * envolvido pelas mesmas camadas de {@link DataSourceConfig}. Todos os shards recebem as mesmas migrações do
+ * Flyway; em seguida a coluna IDENTITY de {@code tb_order} de cada shard {@code k} passa a gerar apenas ids com
+ * {@code id mod N = k}, o que permite rotear um pedido pelo id. A inicialização falha se algum shard tiver
+ * pedidos fora do lugar (por exemplo, ao ativar o particionamento em um banco que já tem pedidos): eles precisam
+ * ser redistribuídos antes, e alterar a quantidade de shards exige a mesma redistribuição.
+ */
+@Configuration
+@ConditionalOnProperty(name = "sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardingConfig.class);
+
+    @Bean(destroyMethod = "close")
+    public ShardPools shardPools(DataSourceProperties properties, Environment environment,
+                                 @Value("${sharding.urls}") List<String> urls) {
+        List<HikariDataSource> pools = new ArrayList<>();
+        for (int shard = 0; shard <= urls.size(); shard++) {
+            HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+            Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+            if (shard > 0) {
+                pool.setJdbcUrl(urls.get(shard - 1).trim());
+            }
+            pool.setPoolName("shard-" + shard);
+            pools.add(pool);
+        }
+        return new ShardPools(pools);
+    }
+
+    @Bean
+    public DataSource dataSource(ShardPools pools) {
+        return new ShardRoutingDataSource(pools);
+    }
+
+    /** Migra o shard 0 (pelo Flyway do Spring Boot) e depois os demais, com a mesma configuração. */
+    @Bean
+    public FlywayMigrationStrategy shardMigrationStrategy(ShardPools pools) {
+        return flyway -> {
+            flyway.migrate();
+            for (int shard = 1; shard < pools.size(); shard++) {
+                Flyway.configure().configuration(flyway.getConfiguration()).dataSource(pools.get(shard)).load().migrate();
+            }
+            for (int shard = 0; shard < pools.size(); shard++) {
+                interleaveOrderIds(new JdbcTemplate(pools.get(shard)), shard, pools.size());
+            }
+            log.info("{} shards migrated", pools.size());
+        };
+    }
+
+    @Bean
+    public ReferenceReplicator referenceReplicator(Shards shards, NamedParameterJdbcTemplate namedJdbcTemplate) {
+        return new ReferenceReplicator(shards, namedJdbcTemplate);
+    }
+
+    @Bean
+    public ReferenceChangeListener referenceChangeListener(ReferenceReplicator replicator, EntityManagerFactory entityManagerFactory) {
+        return new ReferenceChangeListener(replicator, entityManagerFactory);
+    }
+
+    /** Recoloca em dia as tabelas de referência dos shards, por exemplo depois de acrescentar um shard. */
+    @Bean
+    @ConditionalOnProperty(name = "sharding.replicate-on-startup", havingValue = "true", matchIfMissing = true)
+    public ApplicationListener<ApplicationReadyEvent> referenceReplicationOnStartup(ReferenceReplicator replicator) {
+        return event -> replicator.replicateAll();
+    }
+
+    private static void interleaveOrderIds(JdbcTemplate jdbc, int shard, int count) {
+        Long misplaced = jdbc.queryForObject("SELECT (SELECT COUNT(*) FROM tb_order WHERE MOD(id, ?) <> ? OR MOD(client_id, ?) <> ?) "
+                + "+ (SELECT COUNT(*) FROM tb_order_archive WHERE MOD(id, ?) <> ? OR MOD(client_id, ?) <> ?)",
+                Long.class, count, shard, count, shard, count, shard, count, shard);
+        if (misplaced != null && misplaced > 0) {
+            throw new IllegalStateException("Shard " + shard + " holds " + misplaced + " orders that belong to other shards; "
+                    + "redistribute them by client_id mod " + count + " before starting");
+        }
+        // pedidos arquivados mantêm o id, que não pode ser reutilizado
+        Long max = jdbc.queryForObject("SELECT GREATEST((SELECT COALESCE(MAX(id), 0) FROM tb_order), "
+                + "(SELECT COALESCE(MAX(id), 0) FROM tb_order_archive))", Long.class);
+        // menor id acima do maior existente com id mod count = shard
+        long next = max + 1 + Math.floorMod(shard - (max + 1), count);
+        // sintaxe aceita tanto pelo H2 quanto pelo Postgres para colunas IDENTITY
+        jdbc.execute("ALTER TABLE tb_order ALTER COLUMN id SET INCREMENT BY " + count + " RESTART WITH " + next);
+    }
+}
@@ -3,11 +3,13 @@ package com.educandoweb.course.config;
 import com.educandoweb.course.entities.*;
 import com.educandoweb.course.enums.OrderStatus;
 import com.educandoweb.course.repositories.*;
+import com.educandoweb.course.sharding.Shards;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 
+import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.Arrays;
 
@@ -15,7 +17,8 @@ import java.util.Arrays;
  * Classe de configuração utilizada para inicialização de dados de teste no perfil "test".
  *
  * Esta classe é anotada com @Configuration para indicar que contém configurações específicas do Spring.
- * Além disso, é anotada com @Profile("test") para especificar que essas configurações são aplicáveis apenas ao perfil "test".
+ * Além disso, é anotada com @Profile("test & !seed") para especificar que essas configurações são aplicáveis ao perfil "test",
+ * exceto quando o perfil "seed" também está ativo e {@link SeedConfig} gera a massa de dados.
  * Implementa a interface CommandLineRunner para executar a lógica de inicialização ao iniciar a aplicação.
  *
  * @see org.springframework.context.annotation.Configuration
@@ -23,7 +26,7 @@ import java.util.Arrays;
  * @see org.springframework.boot.CommandLineRunner
  */
 @Configuration
-@Profile("test")
+@Profile("test & !seed")
 public class TestConfig implements CommandLineRunner {
 
     @Autowired
@@ -41,27 +44,30 @@ public class TestConfig implements CommandLineRunner {
     @Autowired
     private OrderItemRepository orderItemRepository;
 
+    @Autowired
+    private Shards shards;
+
     @Override
     public void run(String... args) throws Exception {
         Category cat1 = new Category(null, "Electronics");
         Category cat2 = new Category(null, "Books");
         Category cat3 = new Category(null, "Computers");
 
-        Product p1 = new Product(null, "The Lord of the Rings", "Lorem ipsum dolor sit amet, consectetur.", 90.5, "");
-        Product p2 = new Product(null, "Smart TV", "Nulla eu imperdiet purus. Maecenas ante.", 2190.0, "");
-        Product p3 = new Product(null, "Macbook Pro", "Nam eleifend maximus tortor, at mollis.", 1250.0, "");
-        Product p4 = new Product(null, "PC Gamer", "Donec aliquet odio ac rhoncus cursus.", 1200.0, "");
-        Product p5 = new Product(null, "Rails for Dummies", "Cras fringilla convallis sem vel faucibus.", 100.99, "");
+        Product p1 = new Product(null, "The Lord of the Rings", "Lorem ipsum dolor sit amet, consectetur.", new BigDecimal("90.5"), "");
+        Product p2 = new Product(null, "Smart TV", "Nulla eu imperdiet purus. Maecenas ante.", new BigDecimal("2190.0"), "");
+        Product p3 = new Product(null, "Macbook Pro", "Nam eleifend maximus tortor, at mollis.", new BigDecimal("1250.0"), "");
+        Product p4 = new Product(null, "PC Gamer", "Donec aliquet odio ac rhoncus cursus.", new BigDecimal("1200.0"), "");
+        Product p5 = new Product(null, "Rails for Dummies", "Cras fringilla convallis sem vel faucibus.", new BigDecimal("100.99"), "");
 
         categoryRepository.saveAll(Arrays.asList(cat1, cat2, cat3));
         productRepository.saveAll(Arrays.asList(p1, p2, p3, p4, p5));
 
-        p1.getCategories().add(cat2);
-        p2.getCategories().add(cat1);
-        p2.getCategories().add(cat3);
-        p3.getCategories().add(cat3);
-        p4.getCategories().add(cat3);
-        p5.getCategories().add(cat2);
+        p1.addCategory(cat2);
+        p2.addCategory(cat1);
+        p2.addCategory(cat3);
+        p3.addCategory(cat3);
+        p4.addCategory(cat3);
+        p5.addCategory(cat2);
 
         productRepository.saveAll(Arrays.asList(p1, p2, p3, p4, p5));
 
@@ -74,17 +80,25 @@ public class TestConfig implements CommandLineRunner {
         Order o2 = new Order(null, Instant.parse("2019-07-21T03:42:10Z"), OrderStatus.WAITING_PAYMENT, u2);
         Order o3 = new Order(null, Instant.parse("2019-07-22T15:21:22Z"), OrderStatus.WAITING_PAYMENT, u1);
 
-        orderRepository.saveAll(Arrays.asList(o1, o2, o3));
-
         OrderItem oi1 = new OrderItem(o1, p1, 2, p1.getPrice());
         OrderItem oi2 = new OrderItem(o1, p3, 1, p3.getPrice());
         OrderItem oi3 = new OrderItem(o2, p3, 2, p3.getPrice());
         OrderItem oi4 = new OrderItem(o3, p5, 2, p5.getPrice());
 
-        orderItemRepository.saveAll(Arrays.asList(oi1, oi2, oi3, oi4));
+        saveOnClientShard(o1, oi1, oi2);
+        saveOnClientShard(o2, oi3);
+        saveOnClientShard(o3, oi4);
 
         Payment pay1 = new Payment(null, Instant.parse("2019-06-20T21:53:07Z"), o1);
         o1.setPayment(pay1);
-        orderRepository.save(o1);
+        shards.write(shards.forClient(u1.getId()), () -> orderRepository.save(o1));
+    }
+
+    /** Grava o pedido e seus itens no shard do cliente. */
+    private void saveOnClientShard(Order order, OrderItem... items) {
+        shards.write(shards.forClient(order.getClient().getId()), () -> {
+            orderRepository.save(order);
+            return orderItemRepository.saveAll(Arrays.asList(items));
+        });
     }
 }
@@ -0,0 +1,77 @@
+package com.educandoweb.course.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Resultado de uma busca por vários identificadores.
+ *
+ * Os itens encontrados são devolvidos na ordem em que os ids foram pedidos (ids repetidos aparecem uma vez)
+ * e os ids que não existem são listados em {@code missing}.
+ *
+ * @param <T> Tipo da entidade retornada.
+ */
+public class BatchResult<T> implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** Quantidade máxima de ids aceitos em uma única requisição. */
+    public static final int MAX_IDS = 200;
+
+    private List<T> items;
+    private List<Long> missing;
+
+    public BatchResult() {
+    }
+
+    public BatchResult(List<T> items, List<Long> missing) {
+        this.items = items;
+        this.missing = missing;
+    }
+
+    /**
+     * Monta o resultado na ordem pedida a partir das entidades encontradas em qualquer ordem.
+     *
+     * @param requested Ids pedidos, na ordem da requisição.
+     * @param found     Entidades encontradas.
+     * @param idOf      Função que extrai o id da entidade.
+     */
+    public static <T> BatchResult<T> inRequestOrder(Collection<Long> requested, Collection<T> found, Function<T, Long> idOf) {
+        Map<Long, T> byId = new HashMap<>(found.size() * 2);
+        for (T obj : found) {
+            byId.put(idOf.apply(obj), obj);
+        }
+        List<T> items = new ArrayList<>(found.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(requested)) {
+            T obj = byId.get(id);
+            if (obj != null) {
+                items.add(obj);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new BatchResult<>(items, missing);
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public List<Long> getMissing() {
+        return missing;
+    }
+
+    public void setMissing(List<Long> missing) {
+        this.missing = missing;
+    }
+}
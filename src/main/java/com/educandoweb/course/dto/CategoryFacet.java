@@ -0,0 +1,35 @@
+package com.educandoweb.course.dto;
+
+import java.io.Serializable;
+
+/**
+ * Quantidade de produtos de uma categoria dentro de um conjunto filtrado de produtos.
+ */
+public class CategoryFacet implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private Long id;
+    private String name;
+    private long count;
+
+    public CategoryFacet() {
+    }
+
+    public CategoryFacet(Long id, String name, long count) {
+        this.id = id;
+        this.name = name;
+        this.count = count;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCount() {
+        return count;
+    }
+}
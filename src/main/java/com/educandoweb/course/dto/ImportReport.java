@@ -0,0 +1,102 @@
+package com.educandoweb.course.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado de uma importação: contadores e os erros por linha (limitados a {@code maxErrors}; os demais são
+ * apenas contados em {@code failed}).
+ */
+public class ImportReport implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private long processed;
+    private long inserted;
+    private long updated;
+    private long failed;
+    private long elapsedMillis;
+    private final List<LineError> errors = new ArrayList<>();
+    private boolean errorsTruncated;
+
+    private final transient int maxErrors;
+
+    public ImportReport(int maxErrors) {
+        this.maxErrors = maxErrors;
+    }
+
+    public void processed() {
+        processed++;
+    }
+
+    public void inserted(int count) {
+        inserted += count;
+    }
+
+    public void updated(int count) {
+        updated += count;
+    }
+
+    /** Registra uma linha rejeitada. */
+    public void failed(long line, String message) {
+        failed++;
+        if (errors.size() < maxErrors) {
+            errors.add(new LineError(line, message));
+        } else {
+            errorsTruncated = true;
+        }
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    public long getInserted() {
+        return inserted;
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public List<LineError> getErrors() {
+        return errors;
+    }
+
+    public boolean isErrorsTruncated() {
+        return errorsTruncated;
+    }
+
+    /** Erro de uma linha do arquivo (a primeira linha, o cabeçalho, é 1). */
+    public static class LineError implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final long line;
+        private final String message;
+
+        public LineError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.educandoweb.course.dto;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Página de uma listagem paginada por chave (keyset).
+ *
+ * Em vez de um deslocamento, a próxima página é pedida com o cursor {@code next}, que identifica o último item
+ * desta página: o custo de cada página independe de quantas páginas vieram antes. {@code next} é nulo na
+ * última página.
+ *
+ * @param <T> Tipo dos itens.
+ */
+public class KeysetPage<T> implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** Quantidade máxima de itens por página. */
+    public static final int MAX_SIZE = 100;
+
+    private List<T> items;
+    private String next;
+
+    public KeysetPage() {
+    }
+
+    public KeysetPage(List<T> items, String next) {
+        this.items = items;
+        this.next = next;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public String getNext() {
+        return next;
+    }
+
+    public void setNext(String next) {
+        this.next = next;
+    }
+}
@@ -0,0 +1,73 @@
+package com.educandoweb.course.dto;
+
+import java.time.Instant;
+
+/**
+ * Linha da exportação de pedidos: um item de pedido com os dados do pedido, ou apenas o pedido (campos do item
+ * nulos) quando ele não tem itens. Projeção não gerenciada pelo contexto de persistência.
+ */
+public class OrderExportRow {
+
+    private final Long orderId;
+    private final Instant moment;
+    private final Integer orderStatus;
+    private final Long clientId;
+    private final Long productId;
+    private final String productName;
+    private final Integer quantity;
+    private final Long priceMinor;
+    private final String currency;
+
+    public OrderExportRow(Long orderId, Instant moment, Integer orderStatus, Long clientId, Long productId,
+                          String productName, Integer quantity, Long priceMinor, String currency) {
+        this.orderId = orderId;
+        this.moment = moment;
+        this.orderStatus = orderStatus;
+        this.clientId = clientId;
+        this.productId = productId;
+        this.productName = productName;
+        this.quantity = quantity;
+        this.priceMinor = priceMinor;
+        this.currency = currency;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public Instant getMoment() {
+        return moment;
+    }
+
+    public Integer getOrderStatus() {
+        return orderStatus;
+    }
+
+    public Long getClientId() {
+        return clientId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public Long getPriceMinor() {
+        return priceMinor;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public boolean hasItem() {
+        return productId != null;
+    }
+}
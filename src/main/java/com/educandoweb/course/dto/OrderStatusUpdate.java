@@ -0,0 +1,29 @@
+package com.educandoweb.course.dto;
+
+import com.educandoweb.course.enums.OrderStatus;
+
+import java.io.Serializable;
+
+/**
+ * Corpo de {@code PUT /orders/{id}/status}: apenas o novo estado do pedido.
+ */
+public class OrderStatusUpdate implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private OrderStatus orderStatus;
+
+    public OrderStatusUpdate() {
+    }
+
+    public OrderStatusUpdate(OrderStatus orderStatus) {
+        this.orderStatus = orderStatus;
+    }
+
+    public OrderStatus getOrderStatus() {
+        return orderStatus;
+    }
+
+    public void setOrderStatus(OrderStatus orderStatus) {
+        this.orderStatus = orderStatus;
+    }
+}
@@ -0,0 +1,76 @@
+package com.educandoweb.course.dto;
+
+import com.educandoweb.course.entities.Money;
+import com.educandoweb.course.enums.OrderStatus;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Resumo de um pedido para listagens: dados do pedido e o total, somado no banco sem carregar os itens.
+ */
+@JsonPropertyOrder({"id", "moment", "orderStatus", "total", "currency"})
+public class OrderSummary implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private Long id;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss'Z'", timezone = "GMT")
+    private Instant moment;
+
+    private Integer orderStatus;
+
+    private long totalMinor;
+
+    private String currency = Money.DEFAULT_CURRENCY;
+
+    public OrderSummary() {
+    }
+
+    public OrderSummary(Long id, Instant moment, Integer orderStatus) {
+        this.id = id;
+        this.moment = moment;
+        this.orderStatus = orderStatus;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Instant getMoment() {
+        return moment;
+    }
+
+    public OrderStatus getOrderStatus() {
+        return OrderStatus.valueOf(orderStatus);
+    }
+
+    public BigDecimal getTotal() {
+        return Money.toDecimal(totalMinor, currency);
+    }
+
+    /** Total em unidades menores da moeda. */
+    @JsonIgnore
+    public long getTotalMinor() {
+        return totalMinor;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    /**
+     * Define o total do pedido.
+     *
+     * @param totalMinor Soma dos subtotais dos itens, em unidades menores da moeda.
+     * @param currency   Código ISO 4217 da moeda dos itens.
+     */
+    public void setTotal(long totalMinor, String currency) {
+        this.totalMinor = totalMinor;
+        this.currency = currency;
+    }
+}
@@ -0,0 +1,60 @@
+package com.educandoweb.course.dto;
+
+import java.io.Serializable;
+
+/**
+ * Agregado das execuções lentas de um comando SQL normalizado (literais e listas {@code IN} trocados por
+ * {@code ?}).
+ */
+public class SlowQuery implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private String sql;
+    private long count;
+    private double totalMillis;
+    private double maxMillis;
+    private String parameters;
+    private String plan;
+
+    public SlowQuery() {
+    }
+
+    public SlowQuery(String sql, long count, double totalMillis, double maxMillis, String parameters, String plan) {
+        this.sql = sql;
+        this.count = count;
+        this.totalMillis = totalMillis;
+        this.maxMillis = maxMillis;
+        this.parameters = parameters;
+        this.plan = plan;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getTotalMillis() {
+        return totalMillis;
+    }
+
+    public double getMeanMillis() {
+        return count == 0 ? 0.0 : totalMillis / count;
+    }
+
+    public double getMaxMillis() {
+        return maxMillis;
+    }
+
+    /** Tipos dos parâmetros da última execução lenta, por exemplo {@code [Long, String, null]}. */
+    public String getParameters() {
+        return parameters;
+    }
+
+    /** Saída do {@code EXPLAIN} capturada na primeira execução lenta; {@code null} se não capturada. */
+    public String getPlan() {
+        return plan;
+    }
+}
@@ -0,0 +1,32 @@
+package com.educandoweb.course.dto;
+
+import java.io.Serializable;
+
+/**
+ * Estoque de um produto: unidades disponíveis para reserva e unidades já reservadas.
+ */
+public class StockLevel implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final Long productId;
+    private final long available;
+    private final long reserved;
+
+    public StockLevel(Long productId, long available, long reserved) {
+        this.productId = productId;
+        this.available = available;
+        this.reserved = reserved;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public long getAvailable() {
+        return available;
+    }
+
+    public long getReserved() {
+        return reserved;
+    }
+}
@@ -0,0 +1,79 @@
+package com.educandoweb.course.entities;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+
+/**
+ * Operações sobre valores monetários representados em ponto fixo: um {@code long} com a quantidade de
+ * unidades menores da moeda (centavos, no caso do real) acompanhado do código ISO 4217 da moeda.
+ *
+ * As entidades guardam apenas o {@code long} e o código da moeda; somas e multiplicações são feitas sobre
+ * primitivos, sem alocação e sem erro de arredondamento, e lançam {@link ArithmeticException} em caso de
+ * estouro. A conversão para {@link BigDecimal} acontece somente na fronteira (JSON e entrada de dados).
+ *
+ * @author Pierri Alexander Vidmar
+ * @version 1.0
+ * @since 2023-01-01
+ */
+public final class Money {
+
+    /** Moeda usada quando nenhuma é informada. */
+    public static final String DEFAULT_CURRENCY = "BRL";
+
+    private Money() {
+    }
+
+    /**
+     * Converte um valor decimal para unidades menores da moeda, arredondando pelo método bancário (HALF_EVEN).
+     *
+     * @param amount   Valor decimal, por exemplo {@code 90.5}.
+     * @param currency Código ISO 4217 da moeda.
+     * @return Quantidade de unidades menores, por exemplo {@code 9050}.
+     */
+    public static long toMinor(BigDecimal amount, String currency) {
+        return amount.setScale(fractionDigits(currency), RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Converte unidades menores da moeda para um valor decimal com a escala da moeda.
+     *
+     * @param minor    Quantidade de unidades menores.
+     * @param currency Código ISO 4217 da moeda.
+     * @return Valor decimal correspondente.
+     */
+    public static BigDecimal toDecimal(long minor, String currency) {
+        return BigDecimal.valueOf(minor, fractionDigits(currency));
+    }
+
+    /**
+     * Converte uma quantidade de unidades menores para a escala de outra moeda, mantendo o valor decimal e
+     * arredondando pelo método bancário (HALF_EVEN) quando a nova moeda tem menos casas decimais.
+     *
+     * @param minor Quantidade de unidades menores na moeda {@code from}.
+     * @param from  Código ISO 4217 da moeda atual.
+     * @param to    Código ISO 4217 da nova moeda.
+     * @return Quantidade de unidades menores na moeda {@code to}, por exemplo {@code 1050} BRL para {@code 10} JPY.
+     */
+    public static long rescale(long minor, String from, String to) {
+        if (fractionDigits(from) == fractionDigits(to)) {
+            return minor;
+        }
+        return toMinor(toDecimal(minor, from), to);
+    }
+
+    /** Multiplica um preço unitário pela quantidade. */
+    public static long times(long unitMinor, int quantity) {
+        return Math.multiplyExact(unitMinor, quantity);
+    }
+
+    /** Soma dois valores na mesma moeda. */
+    public static long plus(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    /** Número de casas decimais da moeda (2 para BRL, USD e EUR; 0 para JPY). */
+    public static int fractionDigits(String currency) {
+        return Math.max(Currency.getInstance(currency).getDefaultFractionDigits(), 0);
+    }
+}
@@ -2,9 +2,11 @@ package com.educandoweb.course.entities;
 
 import com.educandoweb.course.enums.OrderStatus;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
 import java.io.Serializable;
+import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.HashSet;
 import java.util.Objects;
@@ -51,8 +53,9 @@ public class Order implements Serializable {
     /**
      * Usuário associado a este objeto, representando o cliente relacionado ao pedido.
      * Este atributo estabelece uma relação muitos-para-um com a entidade User, usando a chave estrangeira "client_id".
+     * É carregado sob demanda, apenas quando a resposta inclui o cliente.
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "client_id")
     private User client;
 
@@ -63,7 +66,11 @@ public class Order implements Serializable {
     @OneToMany(mappedBy = "id.order")
     private Set<OrderItem> items = new HashSet<>();
 
-    @OneToOne(mappedBy = "order", cascade = CascadeType.ALL)
+    /**
+     * Pagamento do pedido. Do lado inverso da relação, só pode ser lazy com o enhancement de bytecode; sem ele o
+     * Hibernate volta a buscá-lo junto com o pedido.
+     */
+    @OneToOne(mappedBy = "order", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private Payment payment;
 
     /**
@@ -169,6 +176,17 @@ public class Order implements Serializable {
         return items;
     }
 
+    /**
+     * Adiciona um item ao pedido, apontando também a chave do item ({@code OrderItemPK.order}) para este pedido.
+     * O produto do item deve estar definido antes, pois faz parte da identidade do item.
+     *
+     * @param item Item a ser adicionado.
+     */
+    public void addItem(OrderItem item) {
+        item.setOrder(this);
+        items.add(item);
+    }
+
     /**
      * Obtém o pagamento associado a este pedido.
      *
@@ -190,16 +208,45 @@ public class Order implements Serializable {
     /**
      * Calcula e retorna o valor total do pedido, somando os subtotais de todos os itens.
      *
-     * @return O valor total do pedido.
+     * @return O valor total do pedido, na escala da moeda.
      */
-    public Double getTotal() {
-        double sum = 0.0;
+    public BigDecimal getTotal() {
+        return Money.toDecimal(getTotalMinor(), getCurrency());
+    }
+
+    /**
+     * Calcula o valor total do pedido em unidades menores da moeda, somando primitivos sem alocação.
+     *
+     * @return O valor total do pedido em unidades menores.
+     * @throws IllegalStateException se os itens estiverem em moedas diferentes.
+     */
+    @JsonIgnore
+    public long getTotalMinor() {
+        String currency = null;
+        long sum = 0L;
         for (OrderItem x : items) {
-            sum += x.getSubTotal();
+            if (currency == null) {
+                currency = x.getCurrency();
+            } else if (!currency.equals(x.getCurrency())) {
+                throw new IllegalStateException("Order " + id + " mixes currencies " + currency + " and " + x.getCurrency());
+            }
+            sum = Money.plus(sum, x.getSubTotalMinor());
         }
         return sum;
     }
 
+    /**
+     * Obtém a moeda do pedido, que é a moeda dos seus itens (ou a moeda padrão se não houver itens).
+     *
+     * @return O código ISO 4217 da moeda.
+     */
+    public String getCurrency() {
+        for (OrderItem x : items) {
+            return x.getCurrency();
+        }
+        return Money.DEFAULT_CURRENCY;
+    }
+
     /**
      * Sobrescreve o método equals para comparar objetos Order por seus identificadores únicos.
      *
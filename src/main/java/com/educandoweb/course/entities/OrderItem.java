@@ -2,11 +2,14 @@ package com.educandoweb.course.entities;
 
 import com.educandoweb.course.entities.pk.OrderItemPK;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import jakarta.persistence.Column;
 import jakarta.persistence.EmbeddedId;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
 
 import java.io.Serializable;
+import java.math.BigDecimal;
 import java.util.Objects;
 
 /**
@@ -18,6 +21,7 @@ import java.util.Objects;
  * @since 2023-01-01
  */
 @Entity
+@JsonPropertyOrder({"quantity", "price", "currency", "product", "subTotal"})
 @Table(name = "tb_order_item")
 public class OrderItem implements Serializable {
 
@@ -39,9 +43,15 @@ public class OrderItem implements Serializable {
     private Integer quantity;
 
     /**
-     * Preço unitário do produto associado a este item de pedido.
+     * Preço unitário do produto associado a este item de pedido, em unidades menores da moeda (ver {@link Money}).
      */
-    private Double price;
+    private long priceMinor;
+
+    /**
+     * Código ISO 4217 da moeda do preço unitário.
+     */
+    @Column(length = 3, nullable = false)
+    private String currency = Money.DEFAULT_CURRENCY;
 
     /**
      * Construtor padrão sem argumentos.
@@ -55,13 +65,16 @@ public class OrderItem implements Serializable {
      * @param order    Pedido associado a este item.
      * @param product  Produto associado a este item.
      * @param quantity Quantidade de produtos.
-     * @param price    Preço unitário do produto.
+     * @param price    Preço unitário do produto, na moeda do produto.
      */
-    public OrderItem(Order order, Product product, Integer quantity, Double price) {
+    public OrderItem(Order order, Product product, Integer quantity, BigDecimal price) {
         id.setOrder(order);
         id.setProduct(product);
         this.quantity = quantity;
-        this.price = price;
+        if (product != null) {
+            this.currency = product.getCurrency();
+        }
+        this.priceMinor = Money.toMinor(price, currency);
     }
 
     /**
@@ -122,28 +135,75 @@ public class OrderItem implements Serializable {
     /**
      * Obtém o preço unitário do produto associado a este item.
      *
-     * @return O preço unitário do produto.
+     * @return O preço unitário do produto, na escala da moeda.
      */
-    public Double getPrice() {
-        return price;
+    public BigDecimal getPrice() {
+        return Money.toDecimal(priceMinor, currency);
     }
 
     /**
      * Define o preço unitário do produto associado a este item.
      *
-     * @param price O novo preço unitário do produto.
+     * @param price O novo preço unitário do produto, na moeda do item.
+     */
+    public void setPrice(BigDecimal price) {
+        this.priceMinor = Money.toMinor(price, currency);
+    }
+
+    /**
+     * Obtém o preço unitário em unidades menores da moeda.
+     *
+     * @return O preço unitário em unidades menores.
+     */
+    @JsonIgnore
+    public long getPriceMinor() {
+        return priceMinor;
+    }
+
+    /**
+     * Define o preço unitário em unidades menores da moeda.
+     *
+     * @param priceMinor O novo preço unitário em unidades menores.
+     */
+    public void setPriceMinor(long priceMinor) {
+        this.priceMinor = priceMinor;
+    }
+
+    /**
+     * Obtém o código ISO 4217 da moeda do item.
+     *
+     * @return O código da moeda.
      */
-    public void setPrice(Double price) {
-        this.price = price;
+    public String getCurrency() {
+        return currency;
+    }
+
+    /**
+     * Define o código ISO 4217 da moeda do item.
+     *
+     * @param currency O código da moeda.
+     */
+    public void setCurrency(String currency) {
+        this.currency = currency;
     }
 
     /**
      * Calcula e retorna o subtotal do item, multiplicando a quantidade pelo preço unitário.
      *
-     * @return O subtotal do item.
+     * @return O subtotal do item, na escala da moeda.
      */
-    public Double getSubTotal() {
-        return price * quantity;
+    public BigDecimal getSubTotal() {
+        return Money.toDecimal(getSubTotalMinor(), currency);
+    }
+
+    /**
+     * Calcula o subtotal do item em unidades menores da moeda, sem alocação.
+     *
+     * @return O subtotal do item em unidades menores.
+     */
+    @JsonIgnore
+    public long getSubTotalMinor() {
+        return Money.times(priceMinor, quantity);
     }
 
     /**
@@ -0,0 +1,117 @@
+package com.educandoweb.course.entities;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Classe que representa um evento de domínio pendente de entrega aos sistemas externos (outbox transacional).
+ *
+ * O evento é gravado na mesma transação que altera o pedido ou cria o pagamento, portanto existe se e somente
+ * se a alteração foi confirmada. O despachante entrega os eventos em ordem de id, o que preserva a ordem dos
+ * eventos de um mesmo pedido, e os remove depois da entrega.
+ *
+ * @author Pierri Alexander Vidmar
+ * @version 1.0
+ * @since 2023-01-01
+ */
+@Entity
+@Table(name = "tb_outbox")
+public class OutboxEvent implements Serializable {
+
+    /** Identificador de versão serial para garantir a compatibilidade durante a serialização. */
+    private static final long serialVersionUID = 1L;
+
+    /** Identificador único do evento; também define a ordem de entrega. */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** Identificador do pedido ao qual o evento se refere. */
+    @Column(nullable = false)
+    private Long aggregateId;
+
+    /** Tipo do evento, por exemplo {@code OrderStatusChanged}. */
+    @Column(length = 64, nullable = false)
+    private String type;
+
+    /** Conteúdo do evento em JSON. */
+    @Column(length = 4000, nullable = false)
+    private String payload;
+
+    /** Momento em que o evento foi gravado. */
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    /** Construtor padrão sem argumentos. */
+    public OutboxEvent() {
+    }
+
+    /**
+     * Construtor que inicializa os atributos da classe.
+     *
+     * @param id          Identificador único do evento.
+     * @param aggregateId Identificador do pedido.
+     * @param type        Tipo do evento.
+     * @param payload     Conteúdo do evento em JSON.
+     * @param createdAt   Momento em que o evento foi gravado.
+     */
+    public OutboxEvent(Long id, Long aggregateId, String type, String payload, Instant createdAt) {
+        this.id = id;
+        this.aggregateId = aggregateId;
+        this.type = type;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+
+    /** Obtém o identificador único do evento. */
+    public Long getId() {
+        return id;
+    }
+
+    /** Obtém o identificador do pedido ao qual o evento se refere. */
+    public Long getAggregateId() {
+        return aggregateId;
+    }
+
+    /** Obtém o tipo do evento. */
+    public String getType() {
+        return type;
+    }
+
+    /** Obtém o conteúdo do evento em JSON. */
+    public String getPayload() {
+        return payload;
+    }
+
+    /** Obtém o momento em que o evento foi gravado. */
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Sobrescreve o método equals para comparar objetos OutboxEvent por seus identificadores únicos.
+     *
+     * @param o Objeto a ser comparado.
+     * @return true se os objetos são iguais, false caso contrário.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        OutboxEvent that = (OutboxEvent) o;
+        return Objects.equals(id, that.id);
+    }
+
+    /**
+     * Sobrescreve o método hashCode para gerar um código de hash baseado no identificador único do evento.
+     *
+     * @return O código de hash.
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+}
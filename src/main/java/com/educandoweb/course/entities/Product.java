@@ -2,9 +2,11 @@ package com.educandoweb.course.entities;
 
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import jakarta.persistence.*;
 
 import java.io.Serializable;
+import java.math.BigDecimal;
 import java.util.*;
 
 /**
@@ -17,6 +19,7 @@ import java.util.*;
  * @since 2023-01-01
  */
 @Entity
+@JsonPropertyOrder({"id", "name", "description", "price", "currency", "imgUrl"})
 @Table(name = "tb_product")
 public class Product implements Serializable {
 
@@ -31,13 +34,19 @@ public class Product implements Serializable {
     /** Nome do produto. */
     private String name;
 
-    /** Descrição do produto. */
+    /** Descrição do produto. Carregada sob demanda (requer o enhancement de bytecode do Hibernate). */
+    @Basic(fetch = FetchType.LAZY)
     private String description;
 
-    /** Preço do produto. */
-    private Double price;
+    /** Preço do produto em unidades menores da moeda (centavos), ver {@link Money}. */
+    private long priceMinor;
 
-    /** URL da imagem do produto. */
+    /** Código ISO 4217 da moeda do preço. */
+    @Column(length = 3, nullable = false)
+    private String currency = Money.DEFAULT_CURRENCY;
+
+    /** URL da imagem do produto. Carregada sob demanda, junto com a descrição. */
+    @Basic(fetch = FetchType.LAZY)
     private String imgUrl;
 
     /**
@@ -64,14 +73,14 @@ public class Product implements Serializable {
      * @param id          Identificador único do produto.
      * @param name        Nome do produto.
      * @param description Descrição do produto.
-     * @param price       Preço do produto.
+     * @param price       Preço do produto, na moeda padrão.
      * @param imgUrl      URL da imagem do produto.
      */
-    public Product(Long id, String name, String description, Double price, String imgUrl) {
+    public Product(Long id, String name, String description, BigDecimal price, String imgUrl) {
         this.id = id;
         this.name = name;
         this.description = description;
-        this.price = price;
+        this.priceMinor = Money.toMinor(price, currency);
         this.imgUrl = imgUrl;
     }
 
@@ -105,14 +114,39 @@ public class Product implements Serializable {
         this.description = description;
     }
 
-    /** Obtém o preço do produto. */
-    public Double getPrice() {
-        return price;
+    /** Obtém o preço do produto como valor decimal, na escala da moeda. */
+    public BigDecimal getPrice() {
+        return Money.toDecimal(priceMinor, currency);
+    }
+
+    /** Define o preço do produto a partir de um valor decimal na moeda atual. */
+    public void setPrice(BigDecimal price) {
+        this.priceMinor = Money.toMinor(price, currency);
+    }
+
+    /** Obtém o preço do produto em unidades menores da moeda. */
+    @JsonIgnore
+    public long getPriceMinor() {
+        return priceMinor;
     }
 
-    /** Define o preço do produto. */
-    public void setPrice(Double price) {
-        this.price = price;
+    /** Define o preço do produto em unidades menores da moeda. */
+    public void setPriceMinor(long priceMinor) {
+        this.priceMinor = priceMinor;
+    }
+
+    /** Obtém o código ISO 4217 da moeda do preço. */
+    public String getCurrency() {
+        return currency;
+    }
+
+    /**
+     * Define o código ISO 4217 da moeda do preço. O preço decimal é mantido: {@code priceMinor} é convertido para
+     * as casas decimais da nova moeda (de BRL para JPY, {@code 10.50} passa a {@code 10}).
+     */
+    public void setCurrency(String currency) {
+        this.priceMinor = Money.rescale(priceMinor, this.currency, currency);
+        this.currency = currency;
     }
 
     /** Obtém a URL da imagem do produto. */
@@ -139,6 +173,27 @@ public class Product implements Serializable {
         return categories;
     }
 
+    /**
+     * Associa uma categoria ao produto, atualizando também o lado inverso ({@link Category#getProducts()}).
+     * Se o conjunto de produtos da categoria ainda não foi carregado, o Hibernate apenas enfileira a inclusão.
+     *
+     * @param category Categoria a ser associada.
+     */
+    public void addCategory(Category category) {
+        categories.add(category);
+        category.getProducts().add(this);
+    }
+
+    /**
+     * Remove a associação com uma categoria nos dois lados do relacionamento.
+     *
+     * @param category Categoria a ser removida.
+     */
+    public void removeCategory(Category category) {
+        categories.remove(category);
+        category.getProducts().remove(this);
+    }
+
     /**
      * Sobrescreve o método equals para comparar objetos Product por seus identificadores únicos.
      *
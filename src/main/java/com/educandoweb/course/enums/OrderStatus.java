@@ -40,6 +40,23 @@ public enum OrderStatus {
         return code;
     }
 
+    /**
+     * Indica se um pedido neste estado pode passar ao estado informado. O pagamento só é registrado por
+     * {@code POST /orders/{id}/payment}; depois dele o pedido é despachado e entregue, e pode ser cancelado até o
+     * despacho. Pedidos entregues ou cancelados não mudam mais de estado.
+     *
+     * @param next O estado pretendido.
+     * @return {@code true} se a transição é permitida.
+     */
+    public boolean canChangeTo(OrderStatus next) {
+        return switch (this) {
+            case WAITING_PAYMENT -> next == CANCELED;
+            case PAID -> next == SHIPPED || next == CANCELED;
+            case SHIPPED -> next == DELIVERED;
+            case DELIVERED, CANCELED -> false;
+        };
+    }
+
     /**
      * Obtém o estado de pedido associado ao código especificado.
      *
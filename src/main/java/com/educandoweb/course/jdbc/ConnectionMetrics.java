@@ -0,0 +1,58 @@
+package com.educandoweb.course.jdbc;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas de uso das conexões físicas do pool: quantas foram obtidas, por quanto tempo ficaram retidas
+ * e quantas estão em uso no momento.
+ *
+ * O tempo de retenção vai da obtenção da conexão no pool até a sua devolução ({@code close()}), que é o
+ * recurso disputado quando o open-in-view ou transações longas seguram a conexão durante a resposta.
+ */
+public class ConnectionMetrics {
+
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder holdNanos = new LongAdder();
+    private final LongAccumulator maxHoldNanos = new LongAccumulator(Math::max, 0);
+    private final AtomicInteger inUse = new AtomicInteger();
+
+    void onAcquire() {
+        acquired.increment();
+        inUse.incrementAndGet();
+    }
+
+    void onRelease(long nanos) {
+        holdNanos.add(nanos);
+        maxHoldNanos.accumulate(nanos);
+        inUse.decrementAndGet();
+    }
+
+    /** Conexões físicas em uso no momento. */
+    public int inUse() {
+        return inUse.get();
+    }
+
+    /** Zera os contadores acumulados, permitindo comparar dois cenários (por exemplo, antes e depois). */
+    public void reset() {
+        acquired.reset();
+        holdNanos.reset();
+        maxHoldNanos.reset();
+    }
+
+    /** Retorna uma fotografia das métricas, com tempos em microssegundos. */
+    public Map<String, Number> snapshot() {
+        long count = acquired.sum();
+        long total = holdNanos.sum();
+        Map<String, Number> map = new LinkedHashMap<>();
+        map.put("acquired", count);
+        map.put("inUse", inUse.get());
+        map.put("totalHoldMicros", total / 1_000);
+        map.put("meanHoldMicros", count == 0 ? 0 : total / count / 1_000);
+        map.put("maxHoldMicros", maxHoldNanos.get() / 1_000);
+        return map;
+    }
+}
@@ -0,0 +1,119 @@
+package com.educandoweb.course.jdbc;
+
+import com.educandoweb.course.accesslog.RequestTiming;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * DataSource que registra em {@link ConnectionMetrics} o tempo em que cada conexão física fica retida, em
+ * {@link RequestTiming} o tempo de execução de cada comando SQL da requisição corrente e, no
+ * {@link SlowQueryLog} (opcional), os comandos lentos.
+ */
+public class MeasuredDataSource extends DelegatingDataSource {
+
+    private static final Set<String> STATEMENT_FACTORIES = Set.of("createStatement", "prepareStatement", "prepareCall");
+
+    private final ConnectionMetrics metrics;
+
+    private final SlowQueryLog slowQueryLog;
+
+    public MeasuredDataSource(DataSource target, ConnectionMetrics metrics, SlowQueryLog slowQueryLog) {
+        super(target);
+        this.metrics = metrics;
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return measure(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return measure(super.getConnection(username, password));
+    }
+
+    private Connection measure(Connection target) {
+        long start = System.nanoTime();
+        metrics.onAcquire();
+        boolean[] closed = new boolean[1];
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close") && !closed[0]) {
+                        closed[0] = true;
+                        metrics.onRelease(System.nanoTime() - start);
+                    }
+                    Object result = invoke(target, method, args);
+                    if (result instanceof Statement statement && STATEMENT_FACTORIES.contains(method.getName())) {
+                        String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+                        return timed(target, statement, method.getReturnType(), sql);
+                    }
+                    return result;
+                });
+    }
+
+    /**
+     * Envolve o comando para medir os métodos {@code execute*}. Os valores dos parâmetros são guardados (apenas as
+     * referências) para que uma execução lenta possa ser registrada com eles no {@link SlowQueryLog}.
+     */
+    private Object timed(Connection connection, Statement target, Class<?> type, String preparedSql) {
+        return Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{type}, new InvocationHandler() {
+            private Object[] binds;
+            private int bindCount;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                String name = method.getName();
+                if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                    bind(index, name.equals("setNull") ? null : args[1]);
+                } else if (name.equals("clearParameters")) {
+                    bindCount = 0;
+                }
+                if (!name.startsWith("execute")) {
+                    return MeasuredDataSource.invoke(target, method, args);
+                }
+                long start = System.nanoTime();
+                try {
+                    return MeasuredDataSource.invoke(target, method, args);
+                } finally {
+                    long nanos = System.nanoTime() - start;
+                    RequestTiming.statementExecuted(nanos);
+                    if (slowQueryLog != null && slowQueryLog.isSlow(nanos)) {
+                        String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : preparedSql;
+                        if (sql != null) {
+                            slowQueryLog.record(sql, binds, bindCount, nanos, connection);
+                        }
+                    }
+                }
+            }
+
+            private void bind(int index, Object value) {
+                if (binds == null) {
+                    binds = new Object[Math.max(8, index)];
+                } else if (index > binds.length) {
+                    binds = Arrays.copyOf(binds, Math.max(index, binds.length * 2));
+                }
+                binds[index - 1] = value;
+                bindCount = Math.max(bindCount, index);
+            }
+        });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
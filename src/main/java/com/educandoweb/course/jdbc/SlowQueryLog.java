@@ -0,0 +1,227 @@
+package com.educandoweb.course.jdbc;
+
+import com.educandoweb.course.dto.SlowQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Registro dos comandos SQL lentos, alimentado por {@link MeasuredDataSource}.
+ *
+ * Execuções com duração igual ou maior que o limite são agregadas pelo SQL normalizado (contagem, tempo total
+ * e máximo, tipos dos parâmetros da última execução). Na primeira execução lenta de cada comando o plano é
+ * capturado com {@code EXPLAIN} (sintaxe comum ao Postgres e ao H2) na mesma conexão e com os mesmos
+ * parâmetros, dentro de um savepoint para que uma falha não aborte a transação da aplicação; o resultado é
+ * também escrito no logger {@code slow-query}. Execuções abaixo do limite custam apenas uma comparação.
+ *
+ * A quantidade de comandos distintos é limitada: os que chegam com o mapa cheio são ignorados.
+ */
+public class SlowQueryLog {
+
+    private static final Logger log = LoggerFactory.getLogger("slow-query");
+
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin ?\\(\\?(?:, ?\\?)*\\)");
+
+    private final long thresholdNanos;
+    private final int maxStatements;
+    private final boolean explain;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * @param thresholdMillis Duração a partir da qual a execução é considerada lenta.
+     * @param maxStatements   Quantidade máxima de comandos normalizados distintos mantidos.
+     * @param explain         Se o plano deve ser capturado na primeira execução lenta de cada comando.
+     */
+    public SlowQueryLog(long thresholdMillis, int maxStatements, boolean explain) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.maxStatements = maxStatements;
+        this.explain = explain;
+    }
+
+    boolean isSlow(long nanos) {
+        return nanos >= thresholdNanos;
+    }
+
+    /**
+     * Registra uma execução lenta.
+     *
+     * @param connection Conexão física em que o comando foi executado, usada para o {@code EXPLAIN}.
+     * @param binds      Valores dos parâmetros (posição 0 = parâmetro 1); pode ser {@code null}.
+     */
+    void record(String sql, Object[] binds, int bindCount, long nanos, Connection connection) {
+        String normalized = normalize(sql);
+        Entry entry = entries.get(normalized);
+        if (entry == null) {
+            if (entries.size() >= maxStatements) {
+                return;
+            }
+            entry = entries.computeIfAbsent(normalized, k -> new Entry());
+        }
+        entry.count.increment();
+        entry.totalNanos.add(nanos);
+        entry.maxNanos.accumulate(nanos);
+        entry.parameters = shapes(binds, bindCount);
+        if (explain && entry.planClaimed.compareAndSet(false, true)) {
+            entry.plan = explain(connection, sql, binds, bindCount);
+            log.warn("Slow query ({} ms, parameters {}): {}\n{}", TimeUnit.NANOSECONDS.toMillis(nanos),
+                    entry.parameters, normalized, entry.plan);
+        }
+    }
+
+    /** Os comandos lentos com maior tempo total, em ordem decrescente. */
+    public List<SlowQuery> top(int limit) {
+        return entries.entrySet().stream()
+                .map(e -> e.getValue().toSlowQuery(e.getKey()))
+                .sorted(Comparator.comparingDouble(SlowQuery::getTotalMillis).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    /** Descarta os agregados; os planos voltam a ser capturados. */
+    public void reset() {
+        entries.clear();
+    }
+
+    /**
+     * Normaliza o SQL para agregação: comentários são removidos, literais de texto e numéricos viram {@code ?},
+     * espaços são colapsados e listas {@code IN (?, ?, ...)} de qualquer tamanho viram {@code IN (?...)}.
+     */
+    public static String normalize(String sql) {
+        StringBuilder sb = new StringBuilder(sql.length());
+        int n = sql.length();
+        for (int i = 0; i < n; i++) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                // literal de texto; '' é um apóstrofo escapado
+                i++;
+                while (i < n && !(sql.charAt(i) == '\'' && (i + 1 >= n || sql.charAt(i + 1) != '\''))) {
+                    i += sql.charAt(i) == '\'' ? 2 : 1;
+                }
+                sb.append('?');
+            } else if (c == '-' && i + 1 < n && sql.charAt(i + 1) == '-') {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? n : end - 1;
+            } else if (c == '/' && i + 1 < n && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? n : end + 1;
+            } else if (c == '"') {
+                int end = sql.indexOf('"', i + 1);
+                end = end < 0 ? n - 1 : end;
+                sb.append(sql, i, end + 1);
+                i = end;
+            } else if (Character.isWhitespace(c)) {
+                while (i + 1 < n && Character.isWhitespace(sql.charAt(i + 1))) {
+                    i++;
+                }
+                char last = sb.isEmpty() ? '(' : sb.charAt(sb.length() - 1);
+                if (last != '(' && last != ' ' && i + 1 < n && sql.charAt(i + 1) != ')') {
+                    sb.append(' ');
+                }
+            } else if (Character.isDigit(c) && (sb.isEmpty() || !isIdentifierPart(sb.charAt(sb.length() - 1)))) {
+                while (i + 1 < n && (Character.isDigit(sql.charAt(i + 1)) || sql.charAt(i + 1) == '.')) {
+                    i++;
+                }
+                sb.append('?');
+            } else {
+                sb.append(c);
+            }
+        }
+        return IN_LIST.matcher(sb.toString().trim()).replaceAll("in (?...)");
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '.';
+    }
+
+    private static String shapes(Object[] binds, int bindCount) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < bindCount; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            Object value = binds[i];
+            sb.append(value == null ? "null" : value.getClass().getSimpleName());
+        }
+        return sb.append(']').toString();
+    }
+
+    private static String explain(Connection connection, String sql, Object[] binds, int bindCount) {
+        String verb = sql.stripLeading();
+        verb = verb.substring(0, Math.min(verb.length(), 6)).toLowerCase(Locale.ROOT);
+        if (!(verb.startsWith("select") || verb.startsWith("with") || verb.startsWith("insert")
+                || verb.startsWith("update") || verb.startsWith("delete"))) {
+            return null;
+        }
+        for (int i = 0; i < bindCount; i++) {
+            if (binds[i] instanceof InputStream || binds[i] instanceof Reader) {
+                // fluxos já foram consumidos pela execução original
+                return null;
+            }
+        }
+        Savepoint savepoint = null;
+        try {
+            if (!connection.getAutoCommit()) {
+                savepoint = connection.setSavepoint();
+            }
+            StringBuilder plan = new StringBuilder();
+            // EXPLAIN sem ANALYZE não executa o comando, nem mesmo os de escrita
+            try (PreparedStatement ps = connection.prepareStatement("EXPLAIN " + sql)) {
+                for (int i = 0; i < bindCount; i++) {
+                    ps.setObject(i + 1, binds[i]);
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        if (!plan.isEmpty()) {
+                            plan.append('\n');
+                        }
+                        plan.append(rs.getString(1));
+                    }
+                }
+            }
+            if (savepoint != null) {
+                connection.releaseSavepoint(savepoint);
+            }
+            return plan.toString();
+        } catch (SQLException e) {
+            if (savepoint != null) {
+                try {
+                    connection.rollback(savepoint);
+                } catch (SQLException ignored) {
+                    // a transação já estava perdida; a aplicação verá o erro no próximo comando
+                }
+            }
+            return "EXPLAIN failed: " + e.getMessage();
+        }
+    }
+
+    private static final class Entry {
+        final LongAdder count = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        final AtomicBoolean planClaimed = new AtomicBoolean();
+        volatile String parameters;
+        volatile String plan;
+
+        SlowQuery toSlowQuery(String sql) {
+            return new SlowQuery(sql, count.sum(), totalNanos.sum() / 1e6, maxNanos.get() / 1e6, parameters, plan);
+        }
+    }
+}
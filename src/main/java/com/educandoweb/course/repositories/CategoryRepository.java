@@ -3,6 +3,9 @@ package com.educandoweb.course.repositories;
 import com.educandoweb.course.entities.Category;
 import com.educandoweb.course.entities.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
 
 /**
  * Interface que define um repositório para a entidade Category.
@@ -19,4 +22,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
  */
 public interface CategoryRepository extends JpaRepository<Category, Long> {
 
+    /** Retorna apenas os identificadores persistidos, usados para carregar o filtro de existência. */
+    @Query("SELECT obj.id FROM Category obj")
+    List<Long> findAllIds();
 }
\ No newline at end of file
@@ -2,6 +2,10 @@ package com.educandoweb.course.repositories;
 
 import com.educandoweb.course.entities.OrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Interface que define um repositório para a entidade OrderItem.
@@ -18,4 +22,13 @@ import org.springframework.data.jpa.repository.JpaRepository;
  */
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
 
+    /**
+     * Soma os subtotais dos itens de cada pedido no banco, sem carregar os itens.
+     *
+     * @return Linhas {@code [id do pedido, moeda, total em unidades menores]}; um pedido com itens em mais de
+     *         uma moeda aparece em mais de uma linha.
+     */
+    @Query("SELECT obj.id.order.id, obj.currency, SUM(obj.quantity * obj.priceMinor) FROM OrderItem obj "
+            + "WHERE obj.id.order.id IN :orderIds GROUP BY obj.id.order.id, obj.currency")
+    List<Object[]> sumTotalsByOrder(Collection<Long> orderIds);
 }
\ No newline at end of file
@@ -1,7 +1,21 @@
 package com.educandoweb.course.repositories;
 
+import com.educandoweb.course.dto.OrderExportRow;
+import com.educandoweb.course.dto.OrderSummary;
 import com.educandoweb.course.entities.Order;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Interface que define um repositório para a entidade Order.
@@ -18,4 +32,45 @@ import org.springframework.data.jpa.repository.JpaRepository;
  */
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
-}
\ No newline at end of file
+    /** Retorna apenas os identificadores persistidos, usados para carregar o filtro de existência. */
+    @Query("SELECT obj.id FROM Order obj")
+    List<Long> findAllIds();
+
+    boolean existsByClientId(Long clientId);
+
+    /**
+     * Busca o pedido com bloqueio de escrita. Alterações concorrentes do mesmo pedido são serializadas, o que
+     * garante que os eventos do outbox de um pedido recebam ids na ordem em que as alterações são confirmadas.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT obj FROM Order obj WHERE obj.id = :id")
+    Optional<Order> findByIdForUpdate(Long id);
+
+    /**
+     * Primeira página dos pedidos do cliente, do mais recente para o mais antigo. Lê apenas colunas de
+     * {@code idx_order_client_moment}.
+     */
+    @Query("SELECT new com.educandoweb.course.dto.OrderSummary(obj.id, obj.moment, obj.orderStatus) FROM Order obj "
+            + "WHERE obj.client.id = :clientId ORDER BY obj.moment DESC, obj.id DESC")
+    List<OrderSummary> findSummariesByClient(Long clientId, Limit limit);
+
+    /**
+     * Página seguinte à do pedido ({@code moment}, {@code id}). A condição redundante {@code moment <= :moment}
+     * delimita a faixa do índice; a disjunção apenas desempata pedidos do mesmo instante.
+     */
+    @Query("SELECT new com.educandoweb.course.dto.OrderSummary(obj.id, obj.moment, obj.orderStatus) FROM Order obj "
+            + "WHERE obj.client.id = :clientId AND obj.moment <= :moment AND (obj.moment < :moment OR obj.id < :id) "
+            + "ORDER BY obj.moment DESC, obj.id DESC")
+    List<OrderSummary> findSummariesByClientAfter(Long clientId, Instant moment, Long id, Limit limit);
+
+    /**
+     * Linhas da exportação dos pedidos com {@code from <= moment < to}, em ordem de ({@code moment}, {@code id}),
+     * lidas por um cursor somente para frente ({@code idx_order_moment_id}). Deve ser consumido dentro de uma
+     * transação e fechado ao final; no Postgres o tamanho de busca só vale com a transação aberta.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.educandoweb.course.dto.OrderExportRow(obj.id, obj.moment, obj.orderStatus, c.id, p.id, p.name, "
+            + "i.quantity, i.priceMinor, i.currency) FROM Order obj LEFT JOIN obj.client c LEFT JOIN obj.items i "
+            + "LEFT JOIN i.id.product p WHERE obj.moment >= :from AND obj.moment < :to ORDER BY obj.moment, obj.id")
+    Stream<OrderExportRow> streamExportRows(Instant from, Instant to);
+}
@@ -1,7 +1,15 @@
 package com.educandoweb.course.repositories;
 
+import com.educandoweb.course.dto.CategoryFacet;
+import com.educandoweb.course.entities.Order;
 import com.educandoweb.course.entities.Product;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Interface que define um repositório para a entidade Product.
@@ -18,4 +26,58 @@ import org.springframework.data.jpa.repository.JpaRepository;
  */
 public interface ProductRepository extends JpaRepository<Product, Long> {
 
-}
\ No newline at end of file
+    /** Retorna apenas os identificadores persistidos, usados para carregar o filtro de existência. */
+    @Query("SELECT obj.id FROM Product obj")
+    List<Long> findAllIds();
+
+    /**
+     * Busca todos os produtos já com os atributos lazy (descrição e URL da imagem) na mesma consulta.
+     * Os métodos herdados de JpaRepository não carregam esses atributos.
+     */
+    @EntityGraph(attributePaths = {"description", "imgUrl"})
+    @Query("SELECT obj FROM Product obj")
+    List<Product> findAllWithDetails();
+
+    /** Busca os produtos informados já com os atributos lazy (descrição e URL da imagem). */
+    @EntityGraph(attributePaths = {"description", "imgUrl"})
+    @Query("SELECT obj FROM Product obj WHERE obj.id IN :ids")
+    List<Product> findAllWithDetailsById(Collection<Long> ids);
+
+    /**
+     * Busca, com os atributos lazy, os produtos dos itens dos pedidos informados. Deve ser chamado antes de
+     * inicializar os itens, para que os itens referenciem instâncias já completas no contexto de persistência.
+     */
+    @EntityGraph(attributePaths = {"description", "imgUrl"})
+    @Query("SELECT obj FROM Product obj WHERE obj.id IN (SELECT i.id.product.id FROM OrderItem i WHERE i.id.order IN :orders)")
+    List<Product> findAllWithDetailsByOrders(Collection<Order> orders);
+
+    /**
+     * Quantidade de produtos por categoria entre os produtos filtrados, usada quando o catálogo em memória não
+     * está disponível. Parâmetros nulos não filtram; {@code namePattern} deve estar em minúsculas.
+     */
+    @Query("SELECT new com.educandoweb.course.dto.CategoryFacet(c.id, c.name, COUNT(obj.id)) FROM Product obj JOIN obj.categories c "
+            + "WHERE (:namePattern IS NULL OR LOWER(obj.name) LIKE :namePattern) "
+            + "AND (:currency IS NULL OR obj.currency = :currency) "
+            + "AND (:minPriceMinor IS NULL OR obj.priceMinor >= :minPriceMinor) "
+            + "AND (:maxPriceMinor IS NULL OR obj.priceMinor <= :maxPriceMinor) "
+            + "GROUP BY c.id, c.name ORDER BY c.id")
+    List<CategoryFacet> countByCategory(String namePattern, String currency, Long minPriceMinor, Long maxPriceMinor);
+
+    /**
+     * Ids da próxima página de produtos na moeda informada, em ordem de (preço, id), a partir do produto
+     * ({@code afterPrice}, {@code afterId}). Percorre apenas a faixa de {@code idx_product_currency_price};
+     * {@code lower} deve ser o maior entre o preço mínimo e {@code afterPrice}.
+     */
+    @Query("SELECT obj.id FROM Product obj WHERE obj.currency = :currency AND obj.priceMinor >= :lower AND obj.priceMinor <= :upper "
+            + "AND (obj.priceMinor > :afterPrice OR obj.id > :afterId) ORDER BY obj.priceMinor, obj.id")
+    List<Long> findIdsByPrice(String currency, long lower, long upper, long afterPrice, long afterId, Limit limit);
+
+    /**
+     * Ids da próxima página de produtos em ordem de (nome, id), a partir do produto ({@code afterName},
+     * {@code afterId}), opcionalmente restritos a uma faixa de preço na moeda informada.
+     */
+    @Query("SELECT obj.id FROM Product obj WHERE (:currency IS NULL OR obj.currency = :currency) "
+            + "AND obj.priceMinor >= :lower AND obj.priceMinor <= :upper "
+            + "AND obj.name >= :afterName AND (obj.name > :afterName OR obj.id > :afterId) ORDER BY obj.name, obj.id")
+    List<Long> findIdsByName(String currency, long lower, long upper, String afterName, long afterId, Limit limit);
+}
@@ -2,6 +2,9 @@ package com.educandoweb.course.repositories;
 
 import com.educandoweb.course.entities.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
 
 /**
  * Interface que define um repositório para a entidade User.
@@ -18,4 +21,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
  */
 public interface UserRepository extends JpaRepository<User, Long> {
 
+    /** Retorna apenas os identificadores persistidos, usados para carregar o filtro de existência. */
+    @Query("SELECT obj.id FROM User obj")
+    List<Long> findAllIds();
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.educandoweb.course.resources;
 
 
+import com.educandoweb.course.dto.BatchResult;
 import com.educandoweb.course.entities.Category;
 import com.educandoweb.course.services.CategoryService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,6 +9,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
@@ -42,6 +44,12 @@ public class CategoryResource {
         return ResponseEntity.ok().body(list);
     }
 
+    @GetMapping(params = "ids")
+    public ResponseEntity<BatchResult<Category>> findAllById(@RequestParam List<Long> ids) {
+        BatchResult<Category> result = service.findAllById(ids);
+        return ResponseEntity.ok().body(result);
+    }
+
     @GetMapping(value = "/{id}")
     public ResponseEntity<Category> findById(@PathVariable Long id) {
         Category obj = service.findById(id);
@@ -0,0 +1,138 @@
+package com.educandoweb.course.resources;
+
+import com.educandoweb.course.accesslog.AccessLog;
+import com.educandoweb.course.dto.SlowQuery;
+import com.educandoweb.course.jdbc.ConnectionMetrics;
+import com.educandoweb.course.jdbc.SlowQueryLog;
+import com.educandoweb.course.resources.exceptions.ResourceExceptionHandler;
+import com.educandoweb.course.services.archive.OrderArchiver;
+import com.educandoweb.course.services.audit.OrderAuditLog;
+import com.educandoweb.course.services.catalog.Catalog;
+import com.educandoweb.course.services.expiry.OrderExpirer;
+import com.educandoweb.course.services.inventory.Inventory;
+import com.educandoweb.course.services.outbox.OutboxDispatcher;
+import com.educandoweb.course.sharding.ReferenceReplicator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Classe que representa um controlador REST que expõe métricas operacionais da aplicação.
+ *
+ * Os recursos são acessíveis através do caminho "/metrics".
+ *
+ * @see RestController
+ * @see RequestMapping
+ */
+@RestController
+@RequestMapping(value = "/metrics")
+public class MetricsResource {
+
+    @Autowired
+    private ConnectionMetrics connectionMetrics;
+
+    @Autowired
+    private Catalog catalog;
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    @Autowired
+    private OrderAuditLog orderAuditLog;
+
+    @Autowired
+    private ResourceExceptionHandler resourceExceptionHandler;
+
+    @Autowired(required = false)
+    private AccessLog accessLog;
+
+    @Autowired
+    private SlowQueryLog slowQueryLog;
+
+    @Autowired(required = false)
+    private ReferenceReplicator referenceReplicator;
+
+    @Autowired
+    private OrderArchiver orderArchiver;
+
+    @Autowired
+    private OrderExpirer orderExpirer;
+
+    @Autowired
+    private Inventory inventory;
+
+    @GetMapping(value = "/connections")
+    public ResponseEntity<Map<String, Number>> connections() {
+        return ResponseEntity.ok().body(connectionMetrics.snapshot());
+    }
+
+    @DeleteMapping(value = "/connections")
+    public ResponseEntity<Void> resetConnections() {
+        connectionMetrics.reset();
+        return ResponseEntity.noContent().build();
+    }
+
+    /** Comandos SQL lentos agregados, em ordem decrescente de tempo total. */
+    @GetMapping(value = "/slow-queries")
+    public ResponseEntity<List<SlowQuery>> slowQueries(@RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok().body(slowQueryLog.top(Math.max(1, Math.min(limit, 500))));
+    }
+
+    @DeleteMapping(value = "/slow-queries")
+    public ResponseEntity<Void> resetSlowQueries() {
+        slowQueryLog.reset();
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping(value = "/catalog")
+    public ResponseEntity<Map<String, Number>> catalog() {
+        return ResponseEntity.ok().body(catalog.stats());
+    }
+
+    @GetMapping(value = "/outbox")
+    public ResponseEntity<Map<String, Number>> outbox() {
+        return ResponseEntity.ok().body(outboxDispatcher.stats());
+    }
+
+    @GetMapping(value = "/errors")
+    public ResponseEntity<Map<String, Number>> errors() {
+        return ResponseEntity.ok().body(resourceExceptionHandler.stats());
+    }
+
+    @GetMapping(value = "/access-log")
+    public ResponseEntity<Map<String, Number>> accessLog() {
+        return ResponseEntity.ok().body(accessLog != null ? accessLog.stats() : Map.of());
+    }
+
+    @GetMapping(value = "/sharding")
+    public ResponseEntity<Map<String, Number>> sharding() {
+        return ResponseEntity.ok().body(referenceReplicator != null ? referenceReplicator.stats() : Map.of("shards", 1));
+    }
+
+    @GetMapping(value = "/archive")
+    public ResponseEntity<Map<String, Number>> archive() {
+        return ResponseEntity.ok().body(orderArchiver.stats());
+    }
+
+    @GetMapping(value = "/expiry")
+    public ResponseEntity<Map<String, Number>> expiry() {
+        return ResponseEntity.ok().body(orderExpirer.stats());
+    }
+
+    @GetMapping(value = "/inventory")
+    public ResponseEntity<Map<String, Number>> inventory() {
+        return ResponseEntity.ok().body(inventory.stats());
+    }
+
+    @GetMapping(value = "/audit")
+    public ResponseEntity<Map<String, Number>> audit() {
+        return ResponseEntity.ok().body(orderAuditLog.stats());
+    }
+}
@@ -1,15 +1,32 @@
 package com.educandoweb.course.resources;
 
 
+import com.educandoweb.course.dto.BatchResult;
+import com.educandoweb.course.dto.OrderStatusUpdate;
 import com.educandoweb.course.entities.Order;
 import com.educandoweb.course.services.OrderService;
+import com.educandoweb.course.services.audit.AuditRecord;
+import com.educandoweb.course.services.export.ExportFormat;
+import com.educandoweb.course.services.export.OrderExporter;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.List;
 
 
@@ -33,19 +50,72 @@ import java.util.List;
 @RequestMapping(value="/orders")
 public class OrderResource {
 
+    private static final Instant EXPORT_UPPER_BOUND = Instant.parse("9999-12-31T23:59:59Z");
+
     @Autowired
     private OrderService service;
 
+    @Autowired
+    private OrderExporter exporter;
+
     @GetMapping
     public ResponseEntity<List<Order>> findAll() {
         List<Order> list = service.findAll();
         return ResponseEntity.ok().body(list);
     }
 
+    /**
+     * Exporta os pedidos do período {@code [from, to)} em NDJSON ou CSV, escrevendo diretamente na resposta à
+     * medida que as linhas são lidas do banco. Sem limites, exporta todos os pedidos; os arquivados apenas com
+     * {@code archived=true}.
+     */
+    @GetMapping(value = "/export")
+    public void export(@RequestParam(defaultValue = "ndjson") String format,
+                       @RequestParam(required = false) String from,
+                       @RequestParam(required = false) String to,
+                       @RequestParam(defaultValue = "false") boolean archived,
+                       HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = ExportFormat.parse(format);
+        Instant start = OrderExporter.parseBound(from, Instant.EPOCH);
+        Instant end = OrderExporter.parseBound(to, EXPORT_UPPER_BOUND);
+        response.setContentType(exportFormat.getContentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("orders." + exportFormat.getExtension()).build().toString());
+        exporter.export(start, end, archived, exportFormat, response.getOutputStream());
+    }
+
+    @GetMapping(params = "ids")
+    public ResponseEntity<BatchResult<Order>> findAllById(@RequestParam List<Long> ids) {
+        BatchResult<Order> result = service.findAllById(ids);
+        return ResponseEntity.ok().body(result);
+    }
+
     @GetMapping(value = "/{id}")
     public ResponseEntity<Order> findById(@PathVariable Long id) {
         Order obj = service.findById(id);
         return ResponseEntity.ok().body(obj);
     }
 
+    @GetMapping(value = "/{id}/history")
+    public ResponseEntity<List<AuditRecord>> history(@PathVariable Long id) {
+        List<AuditRecord> list = service.history(id);
+        return ResponseEntity.ok().body(list);
+    }
+
+    @PutMapping(value = "/{id}/status")
+    public ResponseEntity<Order> updateStatus(@PathVariable Long id, @RequestBody OrderStatusUpdate body) {
+        Order obj = service.updateStatus(id, body.getOrderStatus());
+        return ResponseEntity.ok().body(obj);
+    }
+
+    @PostMapping(value = "/{id}/payment")
+    public ResponseEntity<Order> createPayment(@PathVariable Long id) {
+        Order obj = service.createPayment(id);
+        URI uri = ServletUriComponentsBuilder
+                .fromCurrentContextPath().path("/orders/{id}")
+                .buildAndExpand(obj.getId()).toUri();
+        return ResponseEntity.created(uri).body(obj);
+    }
+
 }
@@ -1,15 +1,31 @@
 package com.educandoweb.course.resources;
 
 
+import com.educandoweb.course.dto.BatchResult;
+import com.educandoweb.course.dto.CategoryFacet;
+import com.educandoweb.course.dto.ImportReport;
+import com.educandoweb.course.dto.KeysetPage;
+import com.educandoweb.course.dto.StockLevel;
 import com.educandoweb.course.entities.Product;
 import com.educandoweb.course.services.ProductService;
+import com.educandoweb.course.services.importer.ProductImporter;
+import com.educandoweb.course.services.inventory.Inventory;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
 import java.util.List;
 
 
@@ -36,9 +52,52 @@ public class ProductResource {
     @Autowired
     private ProductService service;
 
+    @Autowired
+    private ProductImporter importer;
+
+    @Autowired
+    private Inventory inventory;
+
+    /**
+     * Sem parâmetros, todos os produtos. Com faixa de preço ({@code minPrice}, {@code maxPrice}, na moeda
+     * {@code currency}), {@code sort} ({@code price} ou {@code name}) ou {@code cursor}, uma página de produtos
+     * paginada por chave: a próxima página é indicada no corpo ({@code next}) e no cabeçalho {@code Link}.
+     */
     @GetMapping
-    public ResponseEntity<List<Product>> findAll() {
-        List<Product> list = service.findAll();
+    public ResponseEntity<?> findAll(@RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice, @RequestParam(required = false) String currency,
+            @RequestParam(required = false) String sort, @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        if (minPrice == null && maxPrice == null && sort == null && cursor == null) {
+            List<Product> list = service.findAll();
+            return ResponseEntity.ok().body(list);
+        }
+        KeysetPage<Product> page = service.findPage(service.filter(null, minPrice, maxPrice, currency), sort, cursor, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNext() != null) {
+            URI next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("cursor", page.getNext())
+                    .replaceQueryParam("limit", limit)
+                    .build().toUri();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(page);
+    }
+
+    @GetMapping(params = "ids")
+    public ResponseEntity<BatchResult<Product>> findAllById(@RequestParam List<Long> ids) {
+        BatchResult<Product> result = service.findAllById(ids);
+        return ResponseEntity.ok().body(result);
+    }
+
+    /**
+     * Quantidade de produtos por categoria entre os produtos filtrados por nome ({@code q}) e faixa de preço.
+     */
+    @GetMapping(value = "/facets")
+    public ResponseEntity<List<CategoryFacet>> facets(@RequestParam(required = false) String q,
+            @RequestParam(required = false) BigDecimal minPrice, @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) String currency) {
+        List<CategoryFacet> list = service.facets(service.filter(q, minPrice, maxPrice, currency));
         return ResponseEntity.ok().body(list);
     }
 
@@ -48,4 +107,39 @@ public class ProductResource {
         return ResponseEntity.ok().body(obj);
     }
 
+    /**
+     * Importa produtos de um CSV enviado no corpo da requisição, lido à medida que chega. Linhas com {@code id}
+     * atualizam o produto; as demais inserem. O relatório traz os contadores e os erros por linha.
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "text/plain"})
+    public ResponseEntity<ImportReport> importCsv(HttpServletRequest request) throws IOException {
+        ImportReport report = importer.importCsv(request.getInputStream());
+        return ResponseEntity.ok().body(report);
+    }
+
+    @GetMapping(value = "/{id}/stock")
+    public ResponseEntity<StockLevel> stock(@PathVariable Long id) {
+        return ResponseEntity.ok().body(inventory.stock(id));
+    }
+
+    /** Acrescenta {@code quantity} unidades ao estoque disponível do produto. */
+    @PostMapping(value = "/{id}/stock")
+    public ResponseEntity<StockLevel> addStock(@PathVariable Long id, @RequestParam long quantity) {
+        return ResponseEntity.ok().body(inventory.addStock(id, quantity));
+    }
+
+    /** Reserva {@code quantity} unidades do produto; 409 se não há unidades suficientes. */
+    @PostMapping(value = "/{id}/reservations")
+    public ResponseEntity<Void> reserve(@PathVariable Long id, @RequestParam long quantity) {
+        inventory.reserve(id, quantity);
+        return ResponseEntity.noContent().build();
+    }
+
+    /** Devolve ao estoque disponível {@code quantity} unidades reservadas do produto. */
+    @DeleteMapping(value = "/{id}/reservations")
+    public ResponseEntity<Void> release(@PathVariable Long id, @RequestParam long quantity) {
+        inventory.release(id, quantity);
+        return ResponseEntity.noContent().build();
+    }
+
 }
@@ -2,13 +2,18 @@ package com.educandoweb.course.resources;
 
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.net.URI;
 import java.util.List;
 
+import com.educandoweb.course.dto.BatchResult;
+import com.educandoweb.course.dto.KeysetPage;
+import com.educandoweb.course.dto.OrderSummary;
 import com.educandoweb.course.entities.User;
+import com.educandoweb.course.services.OrderService;
 import com.educandoweb.course.services.UserService;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
@@ -36,18 +41,46 @@ public class UserResource {
     @Autowired
     private UserService service;
 
+    @Autowired
+    private OrderService orderService;
+
     @GetMapping
     public ResponseEntity<List<User>> findAll() {
         List<User> list = service.findAll();
         return ResponseEntity.ok().body(list);
     }
 
+    @GetMapping(params = "ids")
+    public ResponseEntity<BatchResult<User>> findAllById(@RequestParam List<Long> ids) {
+        BatchResult<User> result = service.findAllById(ids);
+        return ResponseEntity.ok().body(result);
+    }
+
     @GetMapping(value = "/{id}")
     public ResponseEntity<User> findById(@PathVariable Long id) {
         User obj = service.findById(id);
         return ResponseEntity.ok().body(obj);
     }
 
+    /**
+     * Pedidos do usuário, do mais recente para o mais antigo. A próxima página é indicada no corpo
+     * ({@code next}) e no cabeçalho {@code Link} ({@code rel="next"}).
+     */
+    @GetMapping(value = "/{id}/orders")
+    public ResponseEntity<KeysetPage<OrderSummary>> findOrders(@PathVariable Long id,
+            @RequestParam(required = false) String after, @RequestParam(defaultValue = "20") int limit) {
+        KeysetPage<OrderSummary> page = orderService.findByClient(id, after, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNext() != null) {
+            URI next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("after", page.getNext())
+                    .replaceQueryParam("limit", limit)
+                    .build().toUri();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(page);
+    }
+
     @PostMapping
     public ResponseEntity<User> insert(@RequestBody User obj) {
         obj = service.insert(obj);
@@ -0,0 +1,198 @@
+package com.educandoweb.course.resources.exceptions;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Corpo JSON pré-codificado de um tipo de erro, no mesmo formato de {@link StandardError}.
+ *
+ * As partes fixas (status e descrição do erro) são codificadas uma única vez; a cada resposta só são escritos
+ * o momento, a mensagem e o caminho, sem passar pelo Jackson. O momento sai como o Jackson escreve um
+ * {@link Instant} (ISO-8601 com a fração de segundo do relógio, em grupos de três dígitos); a data e a hora são
+ * formatadas no máximo uma vez por segundo. O modelo só é usado quando o JSON é o formato negociado pelo
+ * {@code Accept}; quando Smile ou CBOR é preferido, a resposta é um {@link StandardError} pelos conversores
+ * normais.
+ */
+final class ErrorTemplate {
+
+    private static final byte[] TIMESTAMP = "{\"timestamp\":\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] MESSAGE = ",\"message\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PATH = ",\"path\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] END = "}".getBytes(StandardCharsets.US_ASCII);
+
+    private static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+
+    /** Formatos das respostas, na ordem de preferência do servidor em caso de empate. */
+    private static final List<MediaType> PRODUCIBLE =
+            List.of(MediaType.APPLICATION_JSON, SMILE, MediaType.APPLICATION_CBOR);
+
+    private static volatile Second lastSecond = new Second(Long.MIN_VALUE, null);
+
+    private final HttpStatus status;
+    private final String error;
+    private final byte[] statusAndError;
+    private final LongAdder count = new LongAdder();
+
+    ErrorTemplate(HttpStatus status, String error) {
+        this.status = status;
+        this.error = error;
+        this.statusAndError = ("\",\"status\":" + status.value() + ",\"error\":" + quote(error)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    String error() {
+        return error;
+    }
+
+    long count() {
+        return count.sum();
+    }
+
+    ResponseEntity<?> render(String message, HttpServletRequest request) {
+        count.increment();
+        Timestamp now = timestamp();
+        if (!prefersJson(request.getHeader(HttpHeaders.ACCEPT))) {
+            return ResponseEntity.status(status)
+                    .body(new StandardError(now.instant, status.value(), error, message, request.getRequestURI()));
+        }
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON)
+                .body(encode(now.iso, message, request.getRequestURI()));
+    }
+
+    byte[] encode(byte[] timestamp, String message, String path) {
+        byte[] quotedMessage = quote(message).getBytes(StandardCharsets.UTF_8);
+        byte[] quotedPath = quote(path).getBytes(StandardCharsets.UTF_8);
+        byte[] body = new byte[TIMESTAMP.length + timestamp.length + statusAndError.length + MESSAGE.length
+                + quotedMessage.length + PATH.length + quotedPath.length + END.length];
+        int n = put(body, 0, TIMESTAMP);
+        n = put(body, n, timestamp);
+        n = put(body, n, statusAndError);
+        n = put(body, n, MESSAGE);
+        n = put(body, n, quotedMessage);
+        n = put(body, n, PATH);
+        n = put(body, n, quotedPath);
+        put(body, n, END);
+        return body;
+    }
+
+    static Timestamp timestamp() {
+        Instant instant = Instant.now();
+        Second second = lastSecond;
+        if (second.epochSecond != instant.getEpochSecond()) {
+            String iso = DateTimeFormatter.ISO_INSTANT.format(Instant.ofEpochSecond(instant.getEpochSecond()));
+            second = new Second(instant.getEpochSecond(), iso.substring(0, iso.length() - 1));
+            lastSecond = second;
+        }
+        return new Timestamp(instant, (second.dateTime + fraction(instant.getNano()) + 'Z').getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /** Fração de segundo como {@link DateTimeFormatter#ISO_INSTANT}: nenhuma, 3, 6 ou 9 dígitos. */
+    private static String fraction(int nanos) {
+        if (nanos == 0) {
+            return "";
+        }
+        String digits = Integer.toString(1_000_000_000 + nanos).substring(1);
+        if (nanos % 1_000_000 == 0) {
+            return "." + digits.substring(0, 3);
+        }
+        if (nanos % 1_000 == 0) {
+            return "." + digits.substring(0, 6);
+        }
+        return "." + digits;
+    }
+
+    /**
+     * Indica se o JSON é o formato negociado pelo cabeçalho {@code Accept}: para cada formato produzido vale o
+     * intervalo mais específico que o inclui, e ganha o de maior qualidade; nos empates, o pedido de forma mais
+     * específica e depois a ordem de {@link #PRODUCIBLE}. Sem cabeçalho, JSON.
+     */
+    static boolean prefersJson(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return true;
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            // os conversores normais respondem ao cabeçalho inválido
+            return false;
+        }
+        MediaType best = null;
+        double bestQuality = 0;
+        int bestSpecificity = -1;
+        for (MediaType producible : PRODUCIBLE) {
+            int specificity = -1;
+            double quality = 0;
+            for (MediaType range : accepted) {
+                if (range.includes(producible)) {
+                    int rangeSpecificity = range.isWildcardType() ? 0 : range.isWildcardSubtype() ? 1 : 2;
+                    if (rangeSpecificity > specificity) {
+                        specificity = rangeSpecificity;
+                        quality = range.getQualityValue();
+                    }
+                }
+            }
+            if (quality > bestQuality || quality == bestQuality && quality > 0 && specificity > bestSpecificity) {
+                best = producible;
+                bestQuality = quality;
+                bestSpecificity = specificity;
+            }
+        }
+        return MediaType.APPLICATION_JSON.equals(best);
+    }
+
+    /** Literal de string JSON (com aspas), ou {@code null}. */
+    static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    private static int put(byte[] target, int offset, byte[] part) {
+        System.arraycopy(part, 0, target, offset, part.length);
+        return offset + part.length;
+    }
+
+    /** Momento e sua forma ISO-8601 já codificada. */
+    static final class Timestamp {
+        final Instant instant;
+        final byte[] iso;
+
+        Timestamp(Instant instant, byte[] iso) {
+            this.instant = instant;
+            this.iso = iso;
+        }
+    }
+
+    /** Data e hora (sem a fração nem o {@code Z}) de um segundo, formatadas uma única vez. */
+    private static final class Second {
+        final long epochSecond;
+        final String dateTime;
+
+        Second(long epochSecond, String dateTime) {
+            this.epochSecond = epochSecond;
+            this.dateTime = dateTime;
+        }
+    }
+}
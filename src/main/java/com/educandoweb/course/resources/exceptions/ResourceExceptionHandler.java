@@ -1,6 +1,8 @@
 package com.educandoweb.course.resources.exceptions;
 
+import com.educandoweb.course.services.exceptions.BadRequestException;
 import com.educandoweb.course.services.exceptions.DatabaseException;
+import com.educandoweb.course.services.exceptions.OutOfStockException;
 import com.educandoweb.course.services.exceptions.ResourceNotFoundException;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.HttpStatus;
@@ -8,24 +10,52 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
-import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
+/**
+ * Traduz as exceções de domínio em respostas {@link StandardError}. As exceções não capturam stack trace e os
+ * corpos JSON são montados a partir de modelos pré-codificados ({@link ErrorTemplate}), de modo que uma rajada
+ * de erros custe menos que as respostas de sucesso. As respostas de cada tipo de erro são contadas
+ * ({@link #stats()}).
+ */
 @ControllerAdvice
 public class ResourceExceptionHandler {
 
+    private final ErrorTemplate notFound = new ErrorTemplate(HttpStatus.NOT_FOUND, "Resource not found");
+
+    private final ErrorTemplate database = new ErrorTemplate(HttpStatus.BAD_REQUEST, "Database Error");
+
+    private final ErrorTemplate badRequest = new ErrorTemplate(HttpStatus.BAD_REQUEST, "Bad request");
+
+    private final ErrorTemplate outOfStock = new ErrorTemplate(HttpStatus.CONFLICT, "Out of stock");
+
     @ExceptionHandler(ResourceNotFoundException.class)
-    public ResponseEntity<StandardError> resourceNotFound(ResourceNotFoundException e, HttpServletRequest request)  {
-        String error = "Resource not found";
-        HttpStatus status = HttpStatus.NOT_FOUND;
-        StandardError err = new StandardError(Instant.now(), status.value(), error, e.getMessage(), request.getRequestURI());
-        return ResponseEntity.status(status).body(err);
+    public ResponseEntity<?> resourceNotFound(ResourceNotFoundException e, HttpServletRequest request)  {
+        return notFound.render(e.getMessage(), request);
     }
 
     @ExceptionHandler(DatabaseException.class)
-    public ResponseEntity<StandardError> resourceNotFound(DatabaseException e, HttpServletRequest request)  {
-        String error = "Database Error";
-        HttpStatus status = HttpStatus.BAD_REQUEST;
-        StandardError err = new StandardError(Instant.now(), status.value(), error, e.getMessage(), request.getRequestURI());
-        return ResponseEntity.status(status).body(err);
+    public ResponseEntity<?> database(DatabaseException e, HttpServletRequest request)  {
+        return database.render(e.getMessage(), request);
+    }
+
+    @ExceptionHandler(BadRequestException.class)
+    public ResponseEntity<?> badRequest(BadRequestException e, HttpServletRequest request)  {
+        return badRequest.render(e.getMessage(), request);
+    }
+
+    @ExceptionHandler(OutOfStockException.class)
+    public ResponseEntity<?> outOfStock(OutOfStockException e, HttpServletRequest request)  {
+        return outOfStock.render(e.getMessage(), request);
+    }
+
+    /** Quantidade de respostas de erro por tipo desde a inicialização. */
+    public Map<String, Number> stats() {
+        Map<String, Number> stats = new LinkedHashMap<>();
+        for (ErrorTemplate template : new ErrorTemplate[] {notFound, database, badRequest, outOfStock}) {
+            stats.put(template.error(), template.count());
+        }
+        return stats;
     }
 }
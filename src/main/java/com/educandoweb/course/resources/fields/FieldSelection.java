@@ -0,0 +1,144 @@
+package com.educandoweb.course.resources.fields;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Árvore de campos pedidos pelo cliente através do parâmetro {@code ?fields=}.
+ *
+ * Exemplo: {@code fields=id,moment,total,client.name} seleciona três propriedades do pedido e apenas
+ * o nome do cliente. Um campo pedido sem filhos (por exemplo {@code client}) inclui o objeto inteiro.
+ * Sem o parâmetro, a seleção é {@link #ALL} e a serialização não é alterada.
+ */
+public final class FieldSelection {
+
+    /** Nome do parâmetro de requisição. */
+    public static final String PARAMETER = "fields";
+
+    /** Seleção que inclui todos os campos. */
+    public static final FieldSelection ALL = new FieldSelection(true, Collections.emptyMap());
+
+    private static final String ATTRIBUTE = FieldSelection.class.getName();
+
+    private final boolean all;
+    private final Map<String, FieldSelection> children;
+
+    private FieldSelection(boolean all, Map<String, FieldSelection> children) {
+        this.all = all;
+        this.children = children;
+    }
+
+    /**
+     * Interpreta uma lista de caminhos separados por vírgula.
+     *
+     * @param fields Valor do parâmetro, por exemplo {@code id,client.name}.
+     * @return A seleção correspondente, ou {@link #ALL} quando o valor está vazio.
+     */
+    public static FieldSelection parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+        Builder root = new Builder();
+        for (String path : fields.split(",")) {
+            path = path.trim();
+            if (path.isEmpty()) {
+                continue;
+            }
+            Builder node = root;
+            for (String name : path.split("\\.")) {
+                node = node.children.computeIfAbsent(name.trim(), k -> new Builder());
+            }
+            node.leaf = true;
+        }
+        return root.children.isEmpty() ? ALL : root.build();
+    }
+
+    /**
+     * Seleção da requisição atual, lida do parâmetro {@code fields} e guardada nos atributos da requisição.
+     * Fora de uma requisição HTTP retorna {@link #ALL}.
+     */
+    public static FieldSelection current() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servletAttributes)) {
+            return ALL;
+        }
+        Object cached = attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (cached instanceof FieldSelection selection) {
+            return selection;
+        }
+        FieldSelection selection = parse(servletAttributes.getRequest().getParameter(PARAMETER));
+        attributes.setAttribute(ATTRIBUTE, selection, RequestAttributes.SCOPE_REQUEST);
+        return selection;
+    }
+
+    /** Indica se todos os campos estão incluídos. */
+    public boolean isAll() {
+        return all;
+    }
+
+    /**
+     * Seleção aplicada ao campo filho.
+     *
+     * @param name Nome da propriedade.
+     * @return A seleção do filho, ou {@code null} quando o campo não foi pedido.
+     */
+    public FieldSelection child(String name) {
+        if (all) {
+            return ALL;
+        }
+        return children.get(name);
+    }
+
+    /**
+     * Indica se o caminho (separado por pontos) será serializado, e portanto carregado.
+     *
+     * @param path Caminho da propriedade, por exemplo {@code items.product.categories}.
+     */
+    public boolean includes(String path) {
+        FieldSelection node = this;
+        for (String name : path.split("\\.")) {
+            node = node.child(name);
+            if (node == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Posiciona esta seleção dentro de um envelope, mantendo os campos próprios do envelope.
+     *
+     * @param property        Propriedade do envelope que contém os objetos selecionados.
+     * @param envelopeFields  Demais propriedades do envelope, sempre incluídas.
+     */
+    public FieldSelection nestedIn(String property, String... envelopeFields) {
+        if (all) {
+            return ALL;
+        }
+        Map<String, FieldSelection> map = new LinkedHashMap<>();
+        map.put(property, this);
+        for (String field : envelopeFields) {
+            map.put(field, ALL);
+        }
+        return new FieldSelection(false, map);
+    }
+
+    private static final class Builder {
+        private final Map<String, Builder> children = new LinkedHashMap<>();
+        private boolean leaf;
+
+        private FieldSelection build() {
+            if (leaf) {
+                return ALL;
+            }
+            Map<String, FieldSelection> map = new LinkedHashMap<>();
+            children.forEach((name, child) -> map.put(name, child.build()));
+            return new FieldSelection(false, map);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.educandoweb.course.resources.fields;
+
+import com.educandoweb.course.dto.BatchResult;
+import com.educandoweb.course.dto.KeysetPage;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+
+/**
+ * Aplica o parâmetro {@code ?fields=} a todas as respostas serializadas pelo Jackson.
+ */
+@ControllerAdvice
+public class FieldSelectionAdvice extends AbstractMappingJacksonResponseBodyAdvice {
+
+    @Override
+    protected void beforeBodyWriteInternal(MappingJacksonValue bodyContainer, MediaType contentType,
+                                           MethodParameter returnType, ServerHttpRequest request, ServerHttpResponse response) {
+        FieldSelection selection = FieldSelection.current();
+        if (selection.isAll()) {
+            return;
+        }
+        if (bodyContainer.getValue() instanceof BatchResult) {
+            selection = selection.nestedIn("items", "missing");
+        } else if (bodyContainer.getValue() instanceof KeysetPage) {
+            selection = selection.nestedIn("items", "next");
+        }
+        bodyContainer.setFilters(new SimpleFilterProvider()
+                .addFilter(FieldSelectionFilter.ID, new FieldSelectionFilter(selection)));
+    }
+}
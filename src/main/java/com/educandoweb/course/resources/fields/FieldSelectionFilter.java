@@ -0,0 +1,56 @@
+package com.educandoweb.course.resources.fields;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Filtro de propriedades do Jackson que escreve apenas os campos de uma {@link FieldSelection}.
+ *
+ * O caminho da propriedade é obtido do contexto de saída do gerador, de modo que o mesmo filtro atende
+ * objetos aninhados e listas. Propriedades excluídas nunca têm o getter chamado, portanto associações
+ * lazy que não foram pedidas não são inicializadas.
+ */
+public class FieldSelectionFilter extends SimpleBeanPropertyFilter {
+
+    /** Identificador do filtro registrado para as entidades. */
+    public static final String ID = "fieldSelection";
+
+    private final FieldSelection selection;
+
+    public FieldSelectionFilter(FieldSelection selection) {
+        this.selection = selection;
+    }
+
+    @Override
+    public void serializeAsField(Object pojo, JsonGenerator gen, SerializerProvider provider, PropertyWriter writer) throws Exception {
+        FieldSelection current = selectionAt(gen.getOutputContext());
+        if (current != null && current.child(writer.getName()) != null) {
+            writer.serializeAsField(pojo, gen, provider);
+        } else if (!gen.canOmitFields()) {
+            writer.serializeAsOmittedField(pojo, gen, provider);
+        }
+    }
+
+    private FieldSelection selectionAt(JsonStreamContext context) {
+        Deque<String> path = new ArrayDeque<>();
+        for (JsonStreamContext ctx = context.getParent(); ctx != null; ctx = ctx.getParent()) {
+            if (ctx.inObject()) {
+                path.addFirst(ctx.getCurrentName());
+            }
+        }
+        FieldSelection node = selection;
+        for (String name : path) {
+            node = node.child(name);
+            if (node == null) {
+                return null;
+            }
+        }
+        return node;
+    }
+}
@@ -0,0 +1,42 @@
+package com.educandoweb.course.resources.json;
+
+import com.educandoweb.course.dto.OrderSummary;
+import com.educandoweb.course.entities.Order;
+import com.educandoweb.course.entities.Product;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+
+/**
+ * Módulo do Jackson que troca o serializador de beans de {@link Order}, {@link Product} e {@link OrderSummary}
+ * (e de subclasses, como os proxies do Hibernate) por um {@link DirectSerializer}.
+ */
+public class DirectSerializationModule extends SimpleModule {
+
+    private static final long serialVersionUID = 1L;
+
+    public DirectSerializationModule() {
+        super(DirectSerializationModule.class.getSimpleName());
+        setSerializerModifier(new BeanSerializerModifier() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public JsonSerializer<?> modifySerializer(SerializationConfig config, BeanDescription beanDesc,
+                                                      JsonSerializer<?> serializer) {
+                Class<?> type = beanDesc.getBeanClass();
+                if (Order.class.isAssignableFrom(type)) {
+                    return new DirectSerializer<>(Order.class, EntityWriters::writeOrder, serializer);
+                }
+                if (Product.class.isAssignableFrom(type)) {
+                    return new DirectSerializer<>(Product.class, EntityWriters::writeProduct, serializer);
+                }
+                if (type == OrderSummary.class) {
+                    return new DirectSerializer<>(OrderSummary.class, EntityWriters::writeSummary, serializer);
+                }
+                return serializer;
+            }
+        });
+    }
+}
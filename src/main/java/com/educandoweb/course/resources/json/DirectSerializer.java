@@ -0,0 +1,77 @@
+package com.educandoweb.course.resources.json;
+
+import com.educandoweb.course.resources.fields.FieldSelectionFilter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Serializador que escreve o valor com um {@link Writer} direto, sem introspecção nem acessores reflexivos.
+ *
+ * Quando a requisição seleciona campos ({@code ?fields=}) o serializador de beans original é usado, pois é ele
+ * que aplica o {@link FieldSelectionFilter}.
+ */
+class DirectSerializer<T> extends StdSerializer<T> implements ResolvableSerializer, ContextualSerializer {
+
+    private static final long serialVersionUID = 1L;
+
+    @FunctionalInterface
+    interface Writer<T> {
+        void write(T value, JsonGenerator gen, char[] buf) throws IOException;
+    }
+
+    private final transient Writer<T> writer;
+
+    private final JsonSerializer<Object> fallback;
+
+    @SuppressWarnings("unchecked")
+    DirectSerializer(Class<T> type, Writer<T> writer, JsonSerializer<?> fallback) {
+        super(type);
+        this.writer = writer;
+        this.fallback = (JsonSerializer<Object>) fallback;
+    }
+
+    @Override
+    public void serialize(T value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        FilterProvider filters = provider.getFilterProvider();
+        if (filters != null && filters.findPropertyFilter(FieldSelectionFilter.ID, value) instanceof FieldSelectionFilter) {
+            fallback.serialize(value, gen, provider);
+            return;
+        }
+        writer.write(value, gen, new char[JsonText.BUFFER_SIZE]);
+    }
+
+    @Override
+    public void serializeWithType(T value, JsonGenerator gen, SerializerProvider provider, TypeSerializer typeSer)
+            throws IOException {
+        fallback.serializeWithType(value, gen, provider, typeSer);
+    }
+
+    @Override
+    public void resolve(SerializerProvider provider) throws JsonMappingException {
+        if (fallback instanceof ResolvableSerializer resolvable) {
+            resolvable.resolve(provider);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public JsonSerializer<?> createContextual(SerializerProvider provider, BeanProperty property) throws JsonMappingException {
+        if (fallback instanceof ContextualSerializer contextual) {
+            JsonSerializer<?> resolved = contextual.createContextual(provider, property);
+            if (resolved != fallback) {
+                return new DirectSerializer<>((Class<T>) handledType(), writer, resolved);
+            }
+        }
+        return this;
+    }
+}
@@ -0,0 +1,203 @@
+package com.educandoweb.course.resources.json;
+
+import com.educandoweb.course.dto.OrderSummary;
+import com.educandoweb.course.entities.Category;
+import com.educandoweb.course.entities.Money;
+import com.educandoweb.course.entities.Order;
+import com.educandoweb.course.entities.OrderItem;
+import com.educandoweb.course.entities.Payment;
+import com.educandoweb.course.entities.Product;
+import com.educandoweb.course.entities.User;
+import com.educandoweb.course.enums.OrderStatus;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+
+/**
+ * Escritores diretos, com chamadas explícitas aos getters, para o grafo de pedidos e os DTOs mais servidos.
+ *
+ * Produzem exatamente o JSON do serializador de beans do Jackson para as mesmas classes (nomes, ordem das
+ * propriedades, nulos e formatos), o que é verificado por {@code DirectSerializationTests}: qualquer nova
+ * propriedade nessas classes precisa ser acrescentada aqui também. O total do pedido é somado na mesma
+ * passagem que escreve os itens, em vez de percorrer os itens de novo em {@link Order#getTotal()}.
+ */
+final class EntityWriters {
+
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString NAME = new SerializedString("name");
+    private static final SerializedString MOMENT = new SerializedString("moment");
+    private static final SerializedString ORDER_STATUS = new SerializedString("orderStatus");
+    private static final SerializedString CLIENT = new SerializedString("client");
+    private static final SerializedString ITEMS = new SerializedString("items");
+    private static final SerializedString PAYMENT = new SerializedString("payment");
+    private static final SerializedString CURRENCY = new SerializedString("currency");
+    private static final SerializedString TOTAL = new SerializedString("total");
+    private static final SerializedString EMAIL = new SerializedString("email");
+    private static final SerializedString PHONE = new SerializedString("phone");
+    private static final SerializedString PASSWORD = new SerializedString("password");
+    private static final SerializedString QUANTITY = new SerializedString("quantity");
+    private static final SerializedString PRICE = new SerializedString("price");
+    private static final SerializedString PRODUCT = new SerializedString("product");
+    private static final SerializedString SUB_TOTAL = new SerializedString("subTotal");
+    private static final SerializedString DESCRIPTION = new SerializedString("description");
+    private static final SerializedString IMG_URL = new SerializedString("imgUrl");
+    private static final SerializedString CATEGORIES = new SerializedString("categories");
+
+    private EntityWriters() {
+    }
+
+    static void writeOrder(Order order, JsonGenerator gen, char[] buf) throws IOException {
+        gen.writeStartObject(order);
+        gen.writeFieldName(ID);
+        writeLong(gen, order.getId());
+        gen.writeFieldName(MOMENT);
+        JsonText.writeInstant(gen, order.getMoment(), buf);
+        gen.writeFieldName(ORDER_STATUS);
+        writeStatus(gen, order.getOrderStatus());
+        gen.writeFieldName(CLIENT);
+        writeUser(order.getClient(), gen);
+
+        gen.writeFieldName(ITEMS);
+        gen.writeStartArray();
+        String currency = null;
+        long total = 0L;
+        boolean mixed = false;
+        for (OrderItem item : order.getItems()) {
+            long subTotal = writeItem(item, gen, buf);
+            if (currency == null) {
+                currency = item.getCurrency();
+            } else if (!currency.equals(item.getCurrency())) {
+                mixed = true;
+            }
+            total = mixed ? 0L : Money.plus(total, subTotal);
+        }
+        gen.writeEndArray();
+
+        gen.writeFieldName(PAYMENT);
+        writePayment(order.getPayment(), gen, buf);
+        if (mixed || currency == null) {
+            // moedas misturadas: getTotalMinor() lança a mesma exceção do serializador padrão
+            total = order.getTotalMinor();
+            currency = order.getCurrency();
+        }
+        gen.writeFieldName(CURRENCY);
+        gen.writeString(currency);
+        gen.writeFieldName(TOTAL);
+        JsonText.writeMoney(gen, total, currency, buf);
+        gen.writeEndObject();
+    }
+
+    static void writeProduct(Product product, JsonGenerator gen, char[] buf) throws IOException {
+        if (product == null) {
+            gen.writeNull();
+            return;
+        }
+        gen.writeStartObject(product);
+        gen.writeFieldName(ID);
+        writeLong(gen, product.getId());
+        gen.writeFieldName(NAME);
+        gen.writeString(product.getName());
+        gen.writeFieldName(DESCRIPTION);
+        gen.writeString(product.getDescription());
+        gen.writeFieldName(PRICE);
+        JsonText.writeMoney(gen, product.getPriceMinor(), product.getCurrency(), buf);
+        gen.writeFieldName(CURRENCY);
+        gen.writeString(product.getCurrency());
+        gen.writeFieldName(IMG_URL);
+        gen.writeString(product.getImgUrl());
+        gen.writeFieldName(CATEGORIES);
+        gen.writeStartArray();
+        for (Category category : product.getCategories()) {
+            writeCategory(category, gen);
+        }
+        gen.writeEndArray();
+        gen.writeEndObject();
+    }
+
+    static void writeSummary(OrderSummary summary, JsonGenerator gen, char[] buf) throws IOException {
+        gen.writeStartObject(summary);
+        gen.writeFieldName(ID);
+        writeLong(gen, summary.getId());
+        gen.writeFieldName(MOMENT);
+        JsonText.writeInstant(gen, summary.getMoment(), buf);
+        gen.writeFieldName(ORDER_STATUS);
+        writeStatus(gen, summary.getOrderStatus());
+        gen.writeFieldName(TOTAL);
+        JsonText.writeMoney(gen, summary.getTotalMinor(), summary.getCurrency(), buf);
+        gen.writeFieldName(CURRENCY);
+        gen.writeString(summary.getCurrency());
+        gen.writeEndObject();
+    }
+
+    /** @return Subtotal do item em unidades menores. */
+    private static long writeItem(OrderItem item, JsonGenerator gen, char[] buf) throws IOException {
+        long subTotal = item.getSubTotalMinor();
+        gen.writeStartObject(item);
+        gen.writeFieldName(QUANTITY);
+        gen.writeNumber(item.getQuantity());
+        gen.writeFieldName(PRICE);
+        JsonText.writeMoney(gen, item.getPriceMinor(), item.getCurrency(), buf);
+        gen.writeFieldName(CURRENCY);
+        gen.writeString(item.getCurrency());
+        gen.writeFieldName(PRODUCT);
+        writeProduct(item.getProduct(), gen, buf);
+        gen.writeFieldName(SUB_TOTAL);
+        JsonText.writeMoney(gen, subTotal, item.getCurrency(), buf);
+        gen.writeEndObject();
+        return subTotal;
+    }
+
+    private static void writeUser(User user, JsonGenerator gen) throws IOException {
+        if (user == null) {
+            gen.writeNull();
+            return;
+        }
+        gen.writeStartObject(user);
+        gen.writeFieldName(ID);
+        writeLong(gen, user.getId());
+        gen.writeFieldName(NAME);
+        gen.writeString(user.getName());
+        gen.writeFieldName(EMAIL);
+        gen.writeString(user.getEmail());
+        gen.writeFieldName(PHONE);
+        gen.writeString(user.getPhone());
+        gen.writeFieldName(PASSWORD);
+        gen.writeString(user.getPassword());
+        gen.writeEndObject();
+    }
+
+    private static void writePayment(Payment payment, JsonGenerator gen, char[] buf) throws IOException {
+        if (payment == null) {
+            gen.writeNull();
+            return;
+        }
+        gen.writeStartObject(payment);
+        gen.writeFieldName(ID);
+        writeLong(gen, payment.getId());
+        gen.writeFieldName(MOMENT);
+        JsonText.writeInstant(gen, payment.getMoment(), buf);
+        gen.writeEndObject();
+    }
+
+    private static void writeCategory(Category category, JsonGenerator gen) throws IOException {
+        gen.writeStartObject(category);
+        gen.writeFieldName(ID);
+        writeLong(gen, category.getId());
+        gen.writeFieldName(NAME);
+        gen.writeString(category.getName());
+        gen.writeEndObject();
+    }
+
+    private static void writeStatus(JsonGenerator gen, OrderStatus status) throws IOException {
+        gen.writeString(status.name());
+    }
+
+    private static void writeLong(JsonGenerator gen, Long value) throws IOException {
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value);
+        }
+    }
+}
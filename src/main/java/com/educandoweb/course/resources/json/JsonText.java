@@ -0,0 +1,102 @@
+package com.educandoweb.course.resources.json;
+
+import com.educandoweb.course.entities.Money;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.json.JsonGeneratorImpl;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Escrita sem alocação dos valores mais frequentes do grafo de pedidos: instantes no formato
+ * {@code yyyy-MM-dd'T'HH:mm:ss'Z'} (UTC, truncado em segundos, o mesmo do {@code @JsonFormat} das entidades) e
+ * valores monetários a partir das unidades menores. O texto é montado em um buffer de caracteres reaproveitado
+ * durante a serialização de um objeto.
+ */
+final class JsonText {
+
+    /** Tamanho suficiente para um instante (20) e para um {@code long} com sinal e ponto decimal (21). */
+    static final int BUFFER_SIZE = 24;
+
+    private static final long MAX_FAST_SECOND = 253402300799L; // 9999-12-31T23:59:59Z
+
+    private JsonText() {
+    }
+
+    static void writeInstant(JsonGenerator gen, Instant instant, char[] buf) throws IOException {
+        if (instant == null) {
+            gen.writeNull();
+            return;
+        }
+        long seconds = instant.getEpochSecond();
+        if (seconds < 0 || seconds > MAX_FAST_SECOND) {
+            gen.writeString(DateTimeFormatter.ISO_INSTANT.format(instant.truncatedTo(ChronoUnit.SECONDS)));
+            return;
+        }
+        long days = seconds / 86_400;
+        int secondOfDay = (int) (seconds % 86_400);
+        // conversão de dias desde a época para data civil (algoritmo "days_from_civil" invertido, de H. Hinnant)
+        long z = days + 719_468;
+        long era = z / 146_097;
+        int dayOfEra = (int) (z - era * 146_097);
+        int yearOfEra = (dayOfEra - dayOfEra / 1_460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int mp = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        int year = (int) (yearOfEra + era * 400) + (month <= 2 ? 1 : 0);
+
+        digits(buf, 0, year, 4);
+        buf[4] = '-';
+        digits(buf, 5, month, 2);
+        buf[7] = '-';
+        digits(buf, 8, day, 2);
+        buf[10] = 'T';
+        digits(buf, 11, secondOfDay / 3_600, 2);
+        buf[13] = ':';
+        digits(buf, 14, secondOfDay / 60 % 60, 2);
+        buf[16] = ':';
+        digits(buf, 17, secondOfDay % 60, 2);
+        buf[19] = 'Z';
+        gen.writeString(buf, 0, 20);
+    }
+
+    /**
+     * Escreve um valor monetário como número com a escala da moeda, com o mesmo texto de
+     * {@link Money#toDecimal(long, String)}. Formatos binários recebem o {@code BigDecimal}.
+     */
+    static void writeMoney(JsonGenerator gen, long minor, String currency, char[] buf) throws IOException {
+        if (!(gen instanceof JsonGeneratorImpl) || minor == Long.MIN_VALUE) {
+            gen.writeNumber(Money.toDecimal(minor, currency));
+            return;
+        }
+        int scale = Money.fractionDigits(currency);
+        boolean negative = minor < 0;
+        long value = negative ? -minor : minor;
+        int pos = buf.length;
+        for (int i = 0; i < scale; i++) {
+            buf[--pos] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        if (scale > 0) {
+            buf[--pos] = '.';
+        }
+        do {
+            buf[--pos] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        if (negative) {
+            buf[--pos] = '-';
+        }
+        gen.writeNumber(buf, pos, buf.length - pos);
+    }
+
+    private static void digits(char[] buf, int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            buf[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
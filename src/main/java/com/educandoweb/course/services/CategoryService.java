@@ -1,10 +1,19 @@
 package com.educandoweb.course.services;
 
+import com.educandoweb.course.dto.BatchResult;
 import com.educandoweb.course.entities.Category;
 import com.educandoweb.course.repositories.CategoryRepository;
+import com.educandoweb.course.services.exceptions.BadRequestException;
+import com.educandoweb.course.services.exceptions.ResourceNotFoundException;
+import com.educandoweb.course.services.catalog.Catalog;
+import com.educandoweb.course.services.catalog.CatalogSnapshot;
+import com.educandoweb.course.services.lookup.IdFilters;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,13 +23,62 @@ public class CategoryService {
     @Autowired
     private CategoryRepository repository;
 
+    @Autowired
+    private IdFilters idFilters;
+
+    @Autowired
+    private Catalog catalog;
+
+    @Transactional(readOnly = true)
     public List<Category> findAll() {
+        CatalogSnapshot snapshot = catalog.current();
+        if (snapshot != null) {
+            return snapshot.categories();
+        }
         return repository.findAll();
     }
 
+    @Transactional(readOnly = true)
+    public BatchResult<Category> findAllById(List<Long> ids) {
+        if (ids == null) {
+            throw new BadRequestException("Ids are required");
+        }
+        if (ids.size() > BatchResult.MAX_IDS) {
+            throw new BadRequestException("At most " + BatchResult.MAX_IDS + " ids are allowed per request");
+        }
+        if (ids.stream().anyMatch(id -> id == null)) {
+            throw new BadRequestException("Ids must not be empty");
+        }
+        CatalogSnapshot snapshot = catalog.current();
+        if (snapshot != null) {
+            List<Category> found = new ArrayList<>();
+            for (Long id : new LinkedHashSet<>(ids)) {
+                Category category = snapshot.category(id);
+                if (category != null) {
+                    found.add(category);
+                }
+            }
+            return BatchResult.inRequestOrder(ids, found, Category::getId);
+        }
+        List<Category> found = repository.findAllById(idFilters.categories().candidates(ids));
+        return BatchResult.inRequestOrder(ids, found, Category::getId);
+    }
+
+    @Transactional(readOnly = true)
     public Category findById(Long id) {
+        CatalogSnapshot snapshot = catalog.current();
+        if (snapshot != null) {
+            Category category = id != null ? snapshot.category(id) : null;
+            if (category == null) {
+                throw new ResourceNotFoundException(id);
+            }
+            return category;
+        }
+        if (!idFilters.categories().mightContain(id)) {
+            throw new ResourceNotFoundException(id);
+        }
         Optional<Category> obj = repository.findById(id);
-        return obj.get();
+        return obj.orElseThrow(() -> new ResourceNotFoundException(id));
     }
 
 }
@@ -1,12 +1,44 @@
 package com.educandoweb.course.services;
 
+import com.educandoweb.course.dto.BatchResult;
+import com.educandoweb.course.dto.KeysetPage;
+import com.educandoweb.course.dto.OrderSummary;
 import com.educandoweb.course.entities.Order;
+import com.educandoweb.course.entities.OrderItem;
+import com.educandoweb.course.entities.Payment;
+import com.educandoweb.course.enums.OrderStatus;
+import com.educandoweb.course.repositories.OrderItemRepository;
 import com.educandoweb.course.repositories.OrderRepository;
+import com.educandoweb.course.repositories.ProductRepository;
+import com.educandoweb.course.repositories.UserRepository;
+import com.educandoweb.course.resources.fields.FieldSelection;
+import com.educandoweb.course.services.archive.OrderArchive;
+import com.educandoweb.course.services.audit.AuditRecord;
+import com.educandoweb.course.services.audit.OrderAuditLog;
+import com.educandoweb.course.services.exceptions.BadRequestException;
+import com.educandoweb.course.services.exceptions.ResourceNotFoundException;
+import com.educandoweb.course.services.lookup.IdFilters;
+import com.educandoweb.course.services.outbox.Outbox;
+import com.educandoweb.course.sharding.Shards;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 
 @Service
 public class OrderService {
@@ -14,13 +46,267 @@ public class OrderService {
     @Autowired
     private OrderRepository repository;
 
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private IdFilters idFilters;
+
+    @Autowired
+    private Outbox outbox;
+
+    @Autowired
+    private OrderAuditLog auditLog;
+
+    @Autowired
+    private Shards shards;
+
+    @Autowired
+    private OrderArchive archive;
+
+    /** Todos os pedidos ativos (sem os arquivados), lidos de todos os shards em paralelo e ordenados por id. */
     public List<Order> findAll() {
-        return repository.findAll();
+        FieldSelection fields = FieldSelection.current();
+        List<Order> list = new ArrayList<>();
+        for (List<Order> orders : shards.readAll(shard -> {
+            List<Order> found = repository.findAll();
+            initialize(found, fields);
+            return found;
+        })) {
+            list.addAll(orders);
+        }
+        if (shards.count() > 1) {
+            list.sort(Comparator.comparing(Order::getId));
+        }
+        return list;
+    }
+
+    /**
+     * Pedidos pelos ids, agrupados por shard e buscados em paralelo, um comando por shard. Os ids não encontrados
+     * entre os pedidos ativos são procurados no arquivo.
+     */
+    public BatchResult<Order> findAllById(List<Long> ids) {
+        if (ids == null) {
+            throw new BadRequestException("Ids are required");
+        }
+        if (ids.size() > BatchResult.MAX_IDS) {
+            throw new BadRequestException("At most " + BatchResult.MAX_IDS + " ids are allowed per request");
+        }
+        if (ids.stream().anyMatch(id -> id == null)) {
+            throw new BadRequestException("Ids must not be empty");
+        }
+        Map<Integer, List<Long>> byShard = new TreeMap<>();
+        for (Long id : idFilters.orders().candidates(ids)) {
+            byShard.computeIfAbsent(shards.forOrder(id), k -> new ArrayList<>()).add(id);
+        }
+        FieldSelection fields = FieldSelection.current();
+        List<Order> found = new ArrayList<>();
+        for (List<Order> orders : shards.readEach(byShard.keySet(), shard -> {
+            List<Long> shardIds = byShard.get(shard);
+            List<Order> shardOrders = repository.findAllById(shardIds);
+            initialize(shardOrders, fields);
+            if (shardOrders.size() < shardIds.size()) {
+                Set<Long> missing = new HashSet<>(shardIds);
+                shardOrders.forEach(order -> missing.remove(order.getId()));
+                shardOrders = new ArrayList<>(shardOrders);
+                shardOrders.addAll(archive.findAllById(missing, fields));
+            }
+            return shardOrders;
+        })) {
+            found.addAll(orders);
+        }
+        return BatchResult.inRequestOrder(ids, found, Order::getId);
     }
 
+    /** Pedido pelo id, procurado no arquivo quando não está entre os pedidos ativos. */
     public Order findById(Long id) {
-        Optional<Order> obj = repository.findById(id);
-        return obj.get();
+        if (!idFilters.orders().mightContain(id)) {
+            throw new ResourceNotFoundException(id);
+        }
+        FieldSelection fields = FieldSelection.current();
+        return shards.read(shards.forOrder(id), () -> {
+            Optional<Order> obj = repository.findById(id);
+            if (obj.isEmpty()) {
+                return archive.findAllById(List.of(id), fields).stream().findFirst()
+                        .orElseThrow(() -> new ResourceNotFoundException(id));
+            }
+            Order entity = obj.get();
+            initialize(List.of(entity), fields);
+            return entity;
+        });
+    }
+
+    public Order updateStatus(Long id, OrderStatus status) {
+        if (status == null) {
+            throw new BadRequestException("orderStatus is required");
+        }
+        FieldSelection fields = FieldSelection.current();
+        return shards.write(shards.forOrder(id), () -> {
+            Order order = lock(id);
+            OrderStatus previous = order.getOrderStatus();
+            if (previous != status) {
+                if (!previous.canChangeTo(status)) {
+                    throw new BadRequestException("Order " + id + " cannot change from " + previous + " to " + status);
+                }
+                order.setOrderStatus(status);
+                outbox.orderStatusChanged(order, previous);
+                auditLog.statusChanged(id, previous, status);
+            }
+            initialize(List.of(order), fields);
+            return order;
+        });
+    }
+
+    public Order createPayment(Long id) {
+        FieldSelection fields = FieldSelection.current();
+        return shards.write(shards.forOrder(id), () -> {
+            Order order = lock(id);
+            if (order.getOrderStatus() != OrderStatus.WAITING_PAYMENT || order.getPayment() != null) {
+                throw new BadRequestException("Order " + id + " is not waiting for payment");
+            }
+            order.setPayment(new Payment(null, Instant.now(), order));
+            order.setOrderStatus(OrderStatus.PAID);
+            // antes do evento, que soma os itens: os produtos da resposta precisam ser carregados primeiro
+            initialize(List.of(order), fields);
+            outbox.paymentCreated(order);
+            outbox.orderStatusChanged(order, OrderStatus.WAITING_PAYMENT);
+            auditLog.statusChanged(id, OrderStatus.WAITING_PAYMENT, OrderStatus.PAID);
+            return order;
+        });
+    }
+
+    /**
+     * Pedidos do cliente, do mais recente para o mais antigo, paginados por chave. Lidos apenas do shard do cliente.
+     *
+     * @param clientId Id do usuário.
+     * @param after    Cursor {@code next} da página anterior, ou {@code null} para a primeira página.
+     * @param limit    Quantidade de pedidos por página (1 a {@value KeysetPage#MAX_SIZE}).
+     */
+    public KeysetPage<OrderSummary> findByClient(Long clientId, String after, int limit) {
+        if (limit < 1 || limit > KeysetPage.MAX_SIZE) {
+            throw new BadRequestException("limit must be between 1 and " + KeysetPage.MAX_SIZE);
+        }
+        if (!idFilters.users().mightContain(clientId)) {
+            throw new ResourceNotFoundException(clientId);
+        }
+        return shards.read(shards.forClient(clientId), () -> clientPage(clientId, after, limit));
+    }
+
+    private KeysetPage<OrderSummary> clientPage(Long clientId, String after, int limit) {
+        // um item a mais indica se existe próxima página
+        List<OrderSummary> items;
+        if (after == null) {
+            items = repository.findSummariesByClient(clientId, Limit.of(limit + 1));
+        } else {
+            OrderSummary last = decodeCursor(after);
+            items = repository.findSummariesByClientAfter(clientId, last.getMoment(), last.getId(), Limit.of(limit + 1));
+        }
+        if (items.isEmpty() && after == null && !userRepository.existsById(clientId)) {
+            throw new ResourceNotFoundException(clientId);
+        }
+        String next = null;
+        if (items.size() > limit) {
+            items = items.subList(0, limit);
+            next = encodeCursor(items.get(limit - 1));
+        }
+        setTotals(items);
+        return new KeysetPage<>(items, next);
+    }
+
+    /**
+     * Busca o pedido com bloqueio de escrita, serializando as alterações concorrentes do mesmo pedido. Pedidos
+     * arquivados não podem ser alterados.
+     */
+    private Order lock(Long id) {
+        if (!idFilters.orders().mightContain(id)) {
+            throw new ResourceNotFoundException(id);
+        }
+        return repository.findByIdForUpdate(id).orElseThrow(() -> archive.contains(id)
+                ? new BadRequestException("Order " + id + " is archived and cannot be changed")
+                : new ResourceNotFoundException(id));
+    }
+
+    public List<AuditRecord> history(Long id) {
+        return auditLog.history(id);
+    }
+
+    /** Preenche o total de cada resumo com uma única consulta agregada sobre os itens dos pedidos. */
+    private void setTotals(List<OrderSummary> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        Map<Long, OrderSummary> byId = new HashMap<>(orders.size() * 2);
+        for (OrderSummary order : orders) {
+            byId.put(order.getId(), order);
+        }
+        Set<Long> seen = new HashSet<>();
+        for (Object[] row : orderItemRepository.sumTotalsByOrder(byId.keySet())) {
+            Long id = (Long) row[0];
+            if (!seen.add(id)) {
+                throw new IllegalStateException("Order " + id + " mixes currencies");
+            }
+            byId.get(id).setTotal(((Number) row[2]).longValue(), (String) row[1]);
+        }
+    }
+
+    /** Cursor opaco com o momento (em microssegundos, a precisão da coluna) e o id do último pedido da página. */
+    private static String encodeCursor(OrderSummary last) {
+        Instant moment = last.getMoment();
+        long micros = Math.addExact(Math.multiplyExact(moment.getEpochSecond(), 1_000_000L), moment.getNano() / 1_000);
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((micros + ":" + last.getId()).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static OrderSummary decodeCursor(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            int separator = value.indexOf(':');
+            long micros = Long.parseLong(value.substring(0, separator));
+            long id = Long.parseLong(value.substring(separator + 1));
+            return new OrderSummary(id, Instant.EPOCH.plus(micros, ChronoUnit.MICROS), null);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | ArithmeticException e) {
+            throw new BadRequestException("Invalid cursor: " + cursor);
+        }
+    }
+
+    /**
+     * Inicializa dentro da transação as associações lazy (cliente, pagamento, itens) que serão serializadas,
+     * conforme o parâmetro {@code ?fields=}. O total do pedido é calculado a partir dos itens, portanto também exige
+     * os itens.
+     */
+    private void initialize(Collection<Order> orders, FieldSelection fields) {
+        boolean client = fields.includes("client");
+        boolean payment = fields.includes("payment");
+        for (Order order : orders) {
+            if (client) {
+                Hibernate.initialize(order.getClient());
+            }
+            if (payment) {
+                Hibernate.initialize(order.getPayment());
+            }
+        }
+        if (!fields.includes("items") && !fields.includes("total")) {
+            return;
+        }
+        boolean categories = fields.includes("items.product.categories");
+        if ((fields.includes("items.product.description") || fields.includes("items.product.imgUrl")) && !orders.isEmpty()) {
+            // carrega antes dos itens, em uma única consulta, os produtos com descrição e imagem
+            productRepository.findAllWithDetailsByOrders(orders);
+        }
+        for (Order order : orders) {
+            Hibernate.initialize(order.getItems());
+            if (categories) {
+                for (OrderItem item : order.getItems()) {
+                    Hibernate.initialize(item.getProduct().getCategories());
+                }
+            }
+        }
     }
 
 }
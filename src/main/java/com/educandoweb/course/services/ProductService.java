@@ -1,11 +1,32 @@
 package com.educandoweb.course.services;
 
+import com.educandoweb.course.dto.BatchResult;
+import com.educandoweb.course.dto.CategoryFacet;
+import com.educandoweb.course.dto.KeysetPage;
+import com.educandoweb.course.entities.Money;
 import com.educandoweb.course.entities.Product;
 import com.educandoweb.course.repositories.ProductRepository;
+import com.educandoweb.course.resources.fields.FieldSelection;
+import com.educandoweb.course.services.exceptions.BadRequestException;
+import com.educandoweb.course.services.exceptions.ResourceNotFoundException;
+import com.educandoweb.course.services.catalog.Catalog;
+import com.educandoweb.course.services.catalog.CatalogSnapshot;
+import com.educandoweb.course.services.catalog.ProductFilter;
+import com.educandoweb.course.services.lookup.IdFilters;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 
 @Service
@@ -14,13 +35,243 @@ public class ProductService {
     @Autowired
     private ProductRepository repository;
 
+    @Autowired
+    private IdFilters idFilters;
+
+    @Autowired
+    private Catalog catalog;
+
+    @Transactional(readOnly = true)
     public List<Product> findAll() {
-        return repository.findAll();
+        CatalogSnapshot snapshot = catalog.current();
+        if (snapshot != null) {
+            return snapshot.products();
+        }
+        List<Product> list = includesDetails() ? repository.findAllWithDetails() : repository.findAll();
+        initialize(list);
+        return list;
     }
 
+    @Transactional(readOnly = true)
+    public BatchResult<Product> findAllById(List<Long> ids) {
+        if (ids == null) {
+            throw new BadRequestException("Ids are required");
+        }
+        if (ids.size() > BatchResult.MAX_IDS) {
+            throw new BadRequestException("At most " + BatchResult.MAX_IDS + " ids are allowed per request");
+        }
+        if (ids.stream().anyMatch(id -> id == null)) {
+            throw new BadRequestException("Ids must not be empty");
+        }
+        CatalogSnapshot snapshot = catalog.current();
+        if (snapshot != null) {
+            List<Product> found = new ArrayList<>();
+            for (Long id : new LinkedHashSet<>(ids)) {
+                Product product = snapshot.product(id);
+                if (product != null) {
+                    found.add(product);
+                }
+            }
+            return BatchResult.inRequestOrder(ids, found, Product::getId);
+        }
+        List<Long> candidates = idFilters.products().candidates(ids);
+        List<Product> found = includesDetails()
+                ? repository.findAllWithDetailsById(candidates)
+                : repository.findAllById(candidates);
+        initialize(found);
+        return BatchResult.inRequestOrder(ids, found, Product::getId);
+    }
+
+    @Transactional(readOnly = true)
     public Product findById(Long id) {
-        Optional<Product> obj = repository.findById(id);
-        return obj.get();
+        CatalogSnapshot snapshot = catalog.current();
+        if (snapshot != null) {
+            Product product = id != null ? snapshot.product(id) : null;
+            if (product == null) {
+                throw new ResourceNotFoundException(id);
+            }
+            return product;
+        }
+        if (!idFilters.products().mightContain(id)) {
+            throw new ResourceNotFoundException(id);
+        }
+        Optional<Product> obj = includesDetails()
+                ? repository.findAllWithDetailsById(List.of(id)).stream().findFirst()
+                : repository.findById(id);
+        Product entity = obj.orElseThrow(() -> new ResourceNotFoundException(id));
+        initialize(List.of(entity));
+        return entity;
+    }
+
+    /**
+     * Monta o filtro de produtos a partir dos parâmetros da requisição. Os limites de preço são convertidos
+     * para unidades menores da moeda informada (padrão {@value Money#DEFAULT_CURRENCY}).
+     */
+    public ProductFilter filter(String name, BigDecimal minPrice, BigDecimal maxPrice, String currency) {
+        String code = currency != null ? currency.toUpperCase(Locale.ROOT) : Money.DEFAULT_CURRENCY;
+        try {
+            Long min = minPrice != null ? Money.toMinor(minPrice, code) : null;
+            Long max = maxPrice != null ? Money.toMinor(maxPrice, code) : null;
+            if ((min != null && min < 0) || (min != null && max != null && min > max)) {
+                throw new BadRequestException("Invalid price range: " + minPrice + " to " + maxPrice);
+            }
+            return new ProductFilter(name, code, min, max);
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            throw new BadRequestException("Invalid price or currency: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Página de produtos filtrados por faixa de preço, em ordem de preço ou de nome, paginada por chave.
+     *
+     * A ordem por preço só compara preços de uma mesma moeda, portanto devolve apenas os produtos na moeda do
+     * filtro. Com o catálogo em memória a página vem dos seus índices ordenados; sem ele, de uma varredura de
+     * faixa nos índices de {@code tb_product} que lê apenas ids, seguida da carga dos produtos da página.
+     *
+     * @param sort   {@code price} ou {@code name}; {@code null} ordena por preço quando há faixa de preço.
+     * @param cursor Cursor {@code next} da página anterior, ou {@code null} para a primeira página.
+     * @param limit  Quantidade de produtos por página (1 a {@value KeysetPage#MAX_SIZE}).
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<Product> findPage(ProductFilter filter, String sort, String cursor, int limit) {
+        if (limit < 1 || limit > KeysetPage.MAX_SIZE) {
+            throw new BadRequestException("limit must be between 1 and " + KeysetPage.MAX_SIZE);
+        }
+        boolean byPrice;
+        if (sort == null) {
+            byPrice = filter.hasPriceRange();
+        } else if (sort.equals("price") || sort.equals("name")) {
+            byPrice = sort.equals("price");
+        } else {
+            throw new BadRequestException("sort must be price or name");
+        }
+        String[] after = cursor != null ? decodeCursor(cursor, byPrice ? 'p' : 'n') : null;
+        long afterId = after != null ? parseCursorId(after[0], cursor) : 0L;
+
+        // um item a mais indica se existe próxima página
+        CatalogSnapshot snapshot = catalog.current();
+        List<Product> items;
+        if (byPrice) {
+            long afterPrice = after != null ? parseCursorId(after[1], cursor) : Long.MIN_VALUE;
+            items = snapshot != null
+                    ? snapshot.pageByPrice(filter, afterPrice, afterId, limit + 1)
+                    : loadPage(repository.findIdsByPrice(filter.getCurrency(), Math.max(lower(filter), afterPrice),
+                            upper(filter), afterPrice, afterId, Limit.of(limit + 1)));
+        } else {
+            String afterName = after != null ? after[1] : "";
+            items = snapshot != null
+                    ? snapshot.pageByName(filter, afterName, afterId, limit + 1)
+                    : loadPage(repository.findIdsByName(filter.hasPriceRange() ? filter.getCurrency() : null,
+                            lower(filter), upper(filter), afterName, afterId, Limit.of(limit + 1)));
+        }
+        String next = null;
+        if (items.size() > limit) {
+            items = items.subList(0, limit);
+            Product last = items.get(limit - 1);
+            next = byPrice ? encodeCursor('p', last.getId(), Long.toString(last.getPriceMinor()))
+                    : encodeCursor('n', last.getId(), last.getName());
+        }
+        return new KeysetPage<>(new ArrayList<>(items), next);
+    }
+
+    /** Carrega os produtos da página, na ordem dos ids, com os atributos pedidos em {@code ?fields=}. */
+    private List<Product> loadPage(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Product> found = includesDetails() ? repository.findAllWithDetailsById(ids) : repository.findAllById(ids);
+        initialize(found);
+        return BatchResult.inRequestOrder(ids, found, Product::getId).getItems();
+    }
+
+    private static long lower(ProductFilter filter) {
+        return filter.getMinPriceMinor() != null ? filter.getMinPriceMinor() : Long.MIN_VALUE;
+    }
+
+    private static long upper(ProductFilter filter) {
+        return filter.getMaxPriceMinor() != null ? filter.getMaxPriceMinor() : Long.MAX_VALUE;
+    }
+
+    /** Cursor opaco com o tipo de ordenação, o id e o valor ordenado (preço ou nome) do último produto. */
+    private static String encodeCursor(char kind, long id, String value) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((kind + ":" + id + ":" + value).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** @return {@code [id, valor]} do cursor. */
+    private static String[] decodeCursor(String cursor, char kind) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = value.split(":", 3);
+            if (parts.length == 3 && parts[0].length() == 1 && parts[0].charAt(0) == kind) {
+                return new String[] {parts[1], parts[2]};
+            }
+        } catch (IllegalArgumentException e) {
+            // tratado abaixo
+        }
+        throw new BadRequestException("Invalid cursor for this sort: " + cursor);
+    }
+
+    private static long parseCursorId(String value, String cursor) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Invalid cursor: " + cursor);
+        }
+    }
+
+    /**
+     * Facetas de categoria dos produtos que atendem ao filtro: quantos deles há em cada categoria. Categorias
+     * sem nenhum produto selecionado não aparecem.
+     */
+    @Transactional(readOnly = true)
+    public List<CategoryFacet> facets(ProductFilter filter) {
+        CatalogSnapshot snapshot = catalog.current();
+        if (snapshot == null) {
+            String pattern = filter.getName() != null
+                    ? "%" + likeEscape(filter.getName().toLowerCase(Locale.ROOT)) + "%" : null;
+            return repository.countByCategory(pattern, filter.hasPriceRange() ? filter.getCurrency() : null,
+                    filter.getMinPriceMinor(), filter.getMaxPriceMinor());
+        }
+        int[] counts = snapshot.facets(filter.isEmpty() ? null : snapshot.select(filter));
+        List<CategoryFacet> facets = new ArrayList<>();
+        for (int id = 1; id < counts.length; id++) {
+            if (counts[id] > 0) {
+                facets.add(new CategoryFacet((long) id, snapshot.categoryName(id), counts[id]));
+            }
+        }
+        return facets;
+    }
+
+    private static String likeEscape(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * Indica se a resposta inclui a descrição ou a imagem, atributos lazy que então são buscados na própria
+     * consulta principal em vez de uma consulta por produto.
+     */
+    private boolean includesDetails() {
+        FieldSelection fields = FieldSelection.current();
+        return fields.includes("description") || fields.includes("imgUrl");
+    }
+
+    /**
+     * Inicializa dentro da transação as associações lazy que serão serializadas, conforme o parâmetro
+     * {@code ?fields=}. Com open-in-view desligado a sessão já está fechada quando a resposta é escrita.
+     */
+    private void initialize(Collection<Product> products) {
+        FieldSelection fields = FieldSelection.current();
+        if (fields.includes("description") || fields.includes("imgUrl")) {
+            for (Product product : products) {
+                product.getDescription();
+            }
+        }
+        if (fields.includes("categories")) {
+            for (Product product : products) {
+                Hibernate.initialize(product.getCategories());
+            }
+        }
     }
 
 }
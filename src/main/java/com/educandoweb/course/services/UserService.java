@@ -1,15 +1,22 @@
 package com.educandoweb.course.services;
 
+import com.educandoweb.course.dto.BatchResult;
 import com.educandoweb.course.entities.User;
+import com.educandoweb.course.repositories.OrderRepository;
 import com.educandoweb.course.repositories.UserRepository;
+import com.educandoweb.course.services.archive.OrderArchive;
+import com.educandoweb.course.services.exceptions.BadRequestException;
 import com.educandoweb.course.services.exceptions.DatabaseException;
 import com.educandoweb.course.services.exceptions.ResourceNotFoundException;
+import com.educandoweb.course.services.lookup.IdFilters;
+import com.educandoweb.course.sharding.Shards;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -20,22 +27,66 @@ public class UserService {
     @Autowired
     private UserRepository repository;
 
+    @Autowired
+    private IdFilters idFilters;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderArchive orderArchive;
+
+    @Autowired
+    private Shards shards;
+
+    @Transactional(readOnly = true)
     public List<User> findAll() {
         return repository.findAll();
     }
 
+    @Transactional(readOnly = true)
+    public BatchResult<User> findAllById(List<Long> ids) {
+        if (ids == null) {
+            throw new BadRequestException("Ids are required");
+        }
+        if (ids.size() > BatchResult.MAX_IDS) {
+            throw new BadRequestException("At most " + BatchResult.MAX_IDS + " ids are allowed per request");
+        }
+        if (ids.stream().anyMatch(id -> id == null)) {
+            throw new BadRequestException("Ids must not be empty");
+        }
+        List<User> found = repository.findAllById(idFilters.users().candidates(ids));
+        return BatchResult.inRequestOrder(ids, found, User::getId);
+    }
+
+    @Transactional(readOnly = true)
     public User findById(Long id) {
+        if (!idFilters.users().mightContain(id)) {
+            throw new ResourceNotFoundException(id);
+        }
         Optional<User> obj = repository.findById(id);
         return obj.orElseThrow(() -> new ResourceNotFoundException(id));
     }
 
+    @Transactional
     public User insert(User obj) {
         return repository.save(obj);
     }
 
+    @Transactional
     public void delete(Long id) {
+        if (!idFilters.users().mightContain(id)) {
+            throw new ResourceNotFoundException(id);
+        }
+        if (shards.count() > 1 && shards.read(shards.forClient(id),
+                () -> orderRepository.existsByClientId(id) || orderArchive.existsByClient(id))) {
+            // os pedidos ficam em outro shard, onde a chave estrangeira não é verificada por esta transação
+            throw new DatabaseException("User " + id + " has orders and cannot be deleted");
+        }
         try {
             repository.deleteById(id);
+            // força o DELETE dentro do try para que violações de integridade sejam traduzidas aqui
+            repository.flush();
         } catch (EmptyResultDataAccessException e) {
             throw new ResourceNotFoundException(id);
         } catch (DataIntegrityViolationException e) {
@@ -43,7 +94,11 @@ public class UserService {
         }
     }
 
+    @Transactional
     public User update(Long id, User obj) {
+        if (!idFilters.users().mightContain(id)) {
+            throw new ResourceNotFoundException(id);
+        }
         try {
             User entity = repository.getReferenceById(id);
             updateData(entity, obj);
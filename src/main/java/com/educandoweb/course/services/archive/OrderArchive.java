@@ -0,0 +1,199 @@
+package com.educandoweb.course.services.archive;
+
+import com.educandoweb.course.dto.OrderExportRow;
+import com.educandoweb.course.entities.Order;
+import com.educandoweb.course.entities.OrderItem;
+import com.educandoweb.course.entities.Payment;
+import com.educandoweb.course.entities.Product;
+import com.educandoweb.course.entities.User;
+import com.educandoweb.course.enums.OrderStatus;
+import com.educandoweb.course.repositories.ProductRepository;
+import com.educandoweb.course.repositories.UserRepository;
+import com.educandoweb.course.resources.fields.FieldSelection;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Leitura dos pedidos arquivados pelo {@link OrderArchiver}.
+ *
+ * As tabelas de arquivo não são mapeadas pelo JPA: os pedidos são montados como entidades não gerenciadas, com
+ * o cliente e os produtos lidos do contexto de persistência, e por isso não podem ser alterados. Como na
+ * leitura dos pedidos ativos, os itens, os detalhes dos produtos e o pagamento só são lidos quando a seleção de
+ * campos os inclui. Todos os métodos devem ser chamados dentro de uma transação no shard dos pedidos.
+ */
+@Component
+public class OrderArchive {
+
+    /**
+     * Exportação dos pedidos ativos e arquivados do período, em um único comando (e portanto em um único
+     * instantâneo do banco): um pedido arquivado durante a exportação não aparece duas vezes nem some.
+     */
+    private static final String EXPORT_SQL = "SELECT o.id AS order_id, o.moment AS moment, o.order_status, o.client_id, "
+            + "p.id AS product_id, p.name, i.quantity, i.price_minor, i.currency FROM tb_order o "
+            + "LEFT JOIN tb_order_item i ON i.order_id = o.id LEFT JOIN tb_product p ON p.id = i.product_id "
+            + "WHERE o.moment >= ? AND o.moment < ? "
+            + "UNION ALL SELECT o.id, o.moment, o.order_status, o.client_id, "
+            + "p.id, p.name, i.quantity, i.price_minor, i.currency FROM tb_order_archive o "
+            + "LEFT JOIN tb_order_item_archive i ON i.order_id = o.id LEFT JOIN tb_product p ON p.id = i.product_id "
+            + "WHERE o.moment >= ? AND o.moment < ? "
+            + "ORDER BY moment, order_id";
+
+    private static final RowMapper<OrderExportRow> EXPORT_ROW = (rs, rowNum) -> new OrderExportRow(
+            rs.getLong(1), instant(rs, 2), rs.getInt(3), nullableLong(rs, 4), nullableLong(rs, 5), rs.getString(6),
+            (Integer) rs.getObject(7), nullableLong(rs, 8), rs.getString(9));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    /**
+     * Pedidos arquivados com os ids informados, em ordem de id.
+     *
+     * @param fields Seleção de campos que será serializada.
+     */
+    public List<Order> findAllById(Collection<Long> ids, FieldSelection fields) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Object> params = Map.of("ids", ids);
+        Map<Long, Order> orders = new LinkedHashMap<>();
+        Map<Long, Long> clients = new HashMap<>();
+        namedJdbcTemplate.query("SELECT id, moment, order_status, client_id FROM tb_order_archive WHERE id IN (:ids) ORDER BY id",
+                params, rs -> {
+                    Order order = new Order(rs.getLong(1), instant(rs, 2), OrderStatus.valueOf(rs.getInt(3)), null);
+                    orders.put(order.getId(), order);
+                    Long clientId = nullableLong(rs, 4);
+                    if (clientId != null) {
+                        clients.put(order.getId(), clientId);
+                    }
+                });
+        if (orders.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, User> users = new HashMap<>();
+        for (User user : userRepository.findAllById(new HashSet<>(clients.values()))) {
+            users.put(user.getId(), user);
+        }
+        clients.forEach((orderId, clientId) -> orders.get(orderId).setClient(users.get(clientId)));
+        if (fields.includes("items") || fields.includes("total")) {
+            addItems(orders, fields);
+        }
+        if (fields.includes("payment")) {
+            namedJdbcTemplate.query("SELECT order_id, moment FROM tb_payment_archive WHERE order_id IN (:ids)", params, rs -> {
+                Order order = orders.get(rs.getLong(1));
+                order.setPayment(new Payment(order.getId(), instant(rs, 2), order));
+            });
+        }
+        return new ArrayList<>(orders.values());
+    }
+
+    /** Indica se o pedido está arquivado. */
+    public boolean contains(Long id) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) > 0 FROM tb_order_archive WHERE id = ?", Boolean.class, id));
+    }
+
+    /** Indica se o usuário tem pedidos arquivados. */
+    public boolean existsByClient(Long clientId) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) > 0 FROM tb_order_archive WHERE client_id = ?", Boolean.class, clientId));
+    }
+
+    /** Ids dos pedidos arquivados, usados para carregar o filtro de existência de pedidos. */
+    public List<Long> findAllIds() {
+        return jdbcTemplate.queryForList("SELECT id FROM tb_order_archive", Long.class);
+    }
+
+    /** Quantidade de pedidos arquivados. */
+    public long count() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tb_order_archive", Long.class);
+        return count != null ? count : 0L;
+    }
+
+    /**
+     * Linhas da exportação dos pedidos ativos e arquivados com {@code from <= moment < to}, em ordem de
+     * ({@code moment}, {@code id}), no mesmo formato de {@code OrderRepository#streamExportRows}. Deve ser
+     * consumido dentro de uma transação e fechado ao final.
+     */
+    public Stream<OrderExportRow> streamExportRows(Instant from, Instant to) {
+        OffsetDateTime start = from.atOffset(ZoneOffset.UTC);
+        OffsetDateTime end = to.atOffset(ZoneOffset.UTC);
+        return jdbcTemplate.queryForStream(connection -> {
+            PreparedStatement statement = connection.prepareStatement(EXPORT_SQL);
+            statement.setFetchSize(500);
+            statement.setObject(1, start);
+            statement.setObject(2, end);
+            statement.setObject(3, start);
+            statement.setObject(4, end);
+            return statement;
+        }, EXPORT_ROW);
+    }
+
+    private void addItems(Map<Long, Order> orders, FieldSelection fields) {
+        List<Object[]> rows = namedJdbcTemplate.query(
+                "SELECT order_id, product_id, quantity, price_minor, currency FROM tb_order_item_archive WHERE order_id IN (:ids)",
+                Map.of("ids", orders.keySet()), (rs, rowNum) -> new Object[]{
+                        rs.getLong(1), rs.getLong(2), rs.getObject(3), rs.getLong(4), rs.getString(5)});
+        if (rows.isEmpty()) {
+            return;
+        }
+        Set<Long> productIds = new HashSet<>();
+        for (Object[] row : rows) {
+            productIds.add((Long) row[1]);
+        }
+        boolean details = fields.includes("items.product.description") || fields.includes("items.product.imgUrl");
+        Map<Long, Product> products = new HashMap<>();
+        for (Product product : details ? productRepository.findAllWithDetailsById(productIds) : productRepository.findAllById(productIds)) {
+            products.put(product.getId(), product);
+            if (fields.includes("items.product.categories")) {
+                Hibernate.initialize(product.getCategories());
+            }
+        }
+        for (Object[] row : rows) {
+            OrderItem item = new OrderItem();
+            item.setProduct(products.get((Long) row[1]));
+            item.setQuantity((Integer) row[2]);
+            item.setPriceMinor((Long) row[3]);
+            item.setCurrency((String) row[4]);
+            orders.get((Long) row[0]).addItem(item);
+        }
+    }
+
+    private static Instant instant(ResultSet rs, int column) throws SQLException {
+        OffsetDateTime value = rs.getObject(column, OffsetDateTime.class);
+        return value != null ? value.toInstant() : null;
+    }
+
+    private static Long nullableLong(ResultSet rs, int column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
+}
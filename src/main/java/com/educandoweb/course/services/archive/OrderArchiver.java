@@ -0,0 +1,218 @@
+package com.educandoweb.course.services.archive;
+
+import com.educandoweb.course.enums.OrderStatus;
+import com.educandoweb.course.jdbc.ConnectionMetrics;
+import com.educandoweb.course.services.scheduling.LeaderLock;
+import com.educandoweb.course.sharding.Shards;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Move periodicamente para as tabelas de arquivo os pedidos {@code DELIVERED} ou {@code CANCELED} com mais de
+ * {@code order-archive.min-age-days} dias, junto com os itens e o pagamento, em transações curtas de até
+ * {@code order-archive.batch-size} pedidos. Os pedidos mantêm o id e continuam visíveis por
+ * {@link OrderArchive}; os eventos do outbox e o histórico de auditoria não dependem das linhas movidas.
+ *
+ * O arquivador cede lugar ao tráfego de pedidos:
+ * <ul>
+ *     <li>os pedidos de cada bloco são selecionados com {@code FOR UPDATE SKIP LOCKED}: os que estão sendo
+ *     alterados ficam para a próxima execução, e nenhuma transação espera pelo arquivador além de um bloco;</li>
+ *     <li>antes de cada bloco, se mais de {@code order-archive.max-busy-connections} conexões estiverem em uso,
+ *     ele espera; se o banco continuar ocupado por {@code order-archive.busy-wait-ms}, desiste até a próxima
+ *     execução;</li>
+ *     <li>depois de cada bloco ele pausa pelo menos o tempo que o bloco levou, e nunca menos que
+ *     {@code order-archive.pause-ms}, ocupando no máximo metade do tempo de uma conexão.</li>
+ * </ul>
+ *
+ * Apenas uma instância executa a tarefa por vez, a que obtém a {@link LeaderLock} {@value #LOCK}; a trava é
+ * renovada a cada bloco e liberada ao final.
+ */
+@Component
+public class OrderArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderArchiver.class);
+
+    static final String LOCK = "order-archive";
+
+    private static final List<Integer> FINAL_STATUSES = List.of(OrderStatus.DELIVERED.getCode(), OrderStatus.CANCELED.getCode());
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private Shards shards;
+
+    @Autowired
+    private OrderArchive archive;
+
+    @Autowired
+    private ConnectionMetrics connectionMetrics;
+
+    @Autowired
+    private LeaderLock leaderLock;
+
+    @Value("${order-archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${order-archive.min-age-days:365}")
+    private int minAgeDays;
+
+    @Value("${order-archive.batch-size:500}")
+    private int batchSize;
+
+    @Value("${order-archive.pause-ms:200}")
+    private long pauseMillis;
+
+    @Value("${order-archive.max-busy-connections:4}")
+    private int maxBusyConnections;
+
+    @Value("${order-archive.busy-wait-ms:30000}")
+    private long busyWaitMillis;
+
+    @Value("${order-archive.lock-lease-ms:300000}")
+    private long leaseMillis;
+
+    private final LongAdder notLeaderRuns = new LongAdder();
+    private final LongAdder archived = new LongAdder();
+    private final LongAdder chunks = new LongAdder();
+    private final LongAdder yieldedRuns = new LongAdder();
+    private final LongAdder throttledMillis = new LongAdder();
+    private final AtomicLong lastRunMillis = new AtomicLong();
+
+    @Scheduled(fixedDelayString = "${order-archive.interval-ms:600000}", initialDelayString = "${order-archive.interval-ms:600000}")
+    public void run() {
+        if (enabled) {
+            archive();
+        }
+    }
+
+    /**
+     * Arquiva os pedidos elegíveis de todos os shards, um shard por vez, se esta instância obtiver a trava.
+     *
+     * @return Quantidade de pedidos arquivados, ou {@code -1} se outra instância está executando a tarefa.
+     */
+    public long archive() {
+        Duration lease = Duration.ofMillis(leaseMillis);
+        if (!leaderLock.tryAcquire(LOCK, lease)) {
+            notLeaderRuns.increment();
+            return -1;
+        }
+        long start = System.nanoTime();
+        Instant cutoff = Instant.now().minus(minAgeDays, ChronoUnit.DAYS);
+        long before = archived.sum();
+        try {
+            for (int shard = 0; shard < shards.count(); shard++) {
+                if (!archiveShard(shard, cutoff, lease)) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            leaderLock.release(LOCK);
+            lastRunMillis.set((System.nanoTime() - start) / 1_000_000);
+        }
+        long moved = archived.sum() - before;
+        if (moved > 0) {
+            log.info("Archived {} orders older than {} in {} ms", moved, cutoff, lastRunMillis.get());
+        }
+        return moved;
+    }
+
+    /**
+     * Arquiva os pedidos elegíveis de um shard, bloco a bloco.
+     *
+     * @return {@code false} se a trava foi perdida e a execução deve parar.
+     */
+    private boolean archiveShard(int shard, Instant cutoff, Duration lease) throws InterruptedException {
+        int size;
+        do {
+            if (!awaitIdle()) {
+                yieldedRuns.increment();
+                log.info("Order archiving on shard {} postponed: more than {} connections busy for {} ms",
+                        shard, maxBusyConnections, busyWaitMillis);
+                return true;
+            }
+            long chunkStart = System.nanoTime();
+            size = shards.write(shard, () -> moveChunk(cutoff));
+            long elapsed = (System.nanoTime() - chunkStart) / 1_000_000;
+            archived.add(size);
+            chunks.increment();
+            if (size == batchSize) {
+                Thread.sleep(Math.max(pauseMillis, elapsed));
+                if (!leaderLock.tryAcquire(LOCK, lease)) {
+                    log.warn("Lost the {} lock while archiving shard {}; stopping this run", LOCK, shard);
+                    return false;
+                }
+            }
+        } while (size == batchSize);
+        return true;
+    }
+
+    /** Espera até que no máximo {@code maxBusyConnections} conexões estejam em uso, por até {@code busyWaitMillis}. */
+    private boolean awaitIdle() throws InterruptedException {
+        long waited = 0;
+        while (connectionMetrics.inUse() > maxBusyConnections) {
+            if (waited >= busyWaitMillis) {
+                return false;
+            }
+            long pause = Math.max(pauseMillis, 10);
+            Thread.sleep(pause);
+            waited += pause;
+            throttledMillis.add(pause);
+        }
+        return true;
+    }
+
+    /** Move um bloco de pedidos na transação atual. */
+    private int moveChunk(Instant cutoff) {
+        List<Long> ids = namedJdbcTemplate.queryForList("SELECT id FROM tb_order WHERE order_status IN (:statuses) "
+                        + "AND moment < :cutoff FETCH FIRST " + batchSize + " ROWS ONLY FOR UPDATE SKIP LOCKED",
+                Map.of("statuses", FINAL_STATUSES, "cutoff", cutoff.atOffset(ZoneOffset.UTC)), Long.class);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        Map<String, Object> params = Map.of("ids", ids);
+        namedJdbcTemplate.update("INSERT INTO tb_order_archive (id, moment, order_status, client_id, archived_at) "
+                + "SELECT id, moment, order_status, client_id, CURRENT_TIMESTAMP FROM tb_order WHERE id IN (:ids)", params);
+        namedJdbcTemplate.update("INSERT INTO tb_order_item_archive (order_id, product_id, quantity, price_minor, currency) "
+                + "SELECT order_id, product_id, quantity, price_minor, currency FROM tb_order_item WHERE order_id IN (:ids)", params);
+        namedJdbcTemplate.update("INSERT INTO tb_payment_archive (order_id, moment) "
+                + "SELECT order_id, moment FROM tb_payment WHERE order_id IN (:ids)", params);
+        namedJdbcTemplate.update("DELETE FROM tb_payment WHERE order_id IN (:ids)", params);
+        namedJdbcTemplate.update("DELETE FROM tb_order_item WHERE order_id IN (:ids)", params);
+        namedJdbcTemplate.update("DELETE FROM tb_order WHERE id IN (:ids)", params);
+        return ids.size();
+    }
+
+    /**
+     * Métricas do arquivador. {@code stored} é a quantidade de pedidos nas tabelas de arquivo de todos os
+     * shards, lida do banco no momento da chamada.
+     */
+    public Map<String, Number> stats() {
+        Map<String, Number> stats = new LinkedHashMap<>();
+        stats.put("notLeaderRuns", notLeaderRuns.sum());
+        stats.put("archived", archived.sum());
+        stats.put("chunks", chunks.sum());
+        stats.put("yieldedRuns", yieldedRuns.sum());
+        stats.put("throttledMillis", throttledMillis.sum());
+        stats.put("lastRunMillis", lastRunMillis.get());
+        stats.put("stored", shards.readAll(shard -> archive.count()).stream().mapToLong(Long::longValue).sum());
+        return stats;
+    }
+}
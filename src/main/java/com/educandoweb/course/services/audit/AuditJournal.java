@@ -0,0 +1,357 @@
+package com.educandoweb.course.services.audit;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Diário somente de acréscimo das transições de status de pedidos, gravado em segmentos mapeados em memória.
+ *
+ * Cada registro ocupa {@value #RECORD_BYTES} bytes com layout fixo (big-endian):
+ * <pre>
+ *  0  long  id do pedido
+ *  8  long  momento, em microssegundos desde a época
+ * 16  long  número de sequência global
+ * 24  byte  código do status anterior (0 = nenhum)
+ * 25  byte  código do novo status
+ * 26  byte  versão do formato ({@value #VERSION}; 0 marca o fim dos dados em um segmento pré-alocado)
+ * 27  byte  reservado
+ * 28  int   CRC32 dos bytes 0..27
+ * </pre>
+ *
+ * Os segmentos ativos ({@code segment-<primeira sequência>.log}) são pré-alocados com tamanho fixo e gravados
+ * pelo mapeamento; ao encher, o segmento é sincronizado e um novo é aberto. {@link #force()} sincroniza o
+ * segmento ativo com o disco e deve ser chamado periodicamente: registros ainda não sincronizados podem ser
+ * perdidos se a máquina (não apenas o processo) cair. Na abertura todos os segmentos são lidos, registros
+ * rasgados no final do último segmento são descartados e um índice em memória (id do pedido → posições) é
+ * reconstruído para {@link #history(long)}.
+ *
+ * Arquivos {@code compacted-<última sequência>.log} são produzidos offline por {@link AuditJournalCompactor}.
+ * O diretório é protegido por um lock de arquivo, portanto apenas um processo o abre por vez.
+ */
+public final class AuditJournal implements Closeable {
+
+    static final int RECORD_BYTES = 32;
+
+    static final byte VERSION = 1;
+
+    static final String SEGMENT_PREFIX = "segment-";
+
+    static final String COMPACTED_PREFIX = "compacted-";
+
+    static final String SUFFIX = ".log";
+
+    private final Path directory;
+
+    private final int recordsPerSegment;
+
+    private final FileChannel lockChannel;
+
+    private final FileLock lock;
+
+    private final List<Segment> segments = new ArrayList<>();
+
+    private final Map<Long, Postings> index = new HashMap<>();
+
+    private final byte[] scratch = new byte[RECORD_BYTES];
+
+    private final CRC32 crc = new CRC32();
+
+    private Segment active;
+
+    private long nextSequence;
+
+    private long records;
+
+    private boolean dirty;
+
+    private boolean closed;
+
+    private AuditJournal(Path directory, int segmentBytes) throws IOException {
+        if (segmentBytes < RECORD_BYTES) {
+            throw new IllegalArgumentException("Segment size must hold at least one record");
+        }
+        this.directory = directory;
+        this.recordsPerSegment = segmentBytes / RECORD_BYTES;
+        Files.createDirectories(directory);
+        lockChannel = FileChannel.open(directory.resolve(".lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        lock = tryLock(lockChannel);
+        if (lock == null) {
+            lockChannel.close();
+            throw new IOException("Audit journal " + directory + " is in use by another process");
+        }
+    }
+
+    /**
+     * Abre (ou cria) o diário no diretório informado.
+     *
+     * @param directory    Diretório dos segmentos.
+     * @param segmentBytes Tamanho de cada novo segmento, em bytes (arredondado para baixo em registros inteiros).
+     */
+    public static AuditJournal open(Path directory, int segmentBytes) throws IOException {
+        AuditJournal journal = new AuditJournal(directory, segmentBytes);
+        try {
+            journal.recover();
+        } catch (IOException | RuntimeException e) {
+            journal.close();
+            throw e;
+        }
+        return journal;
+    }
+
+    /**
+     * Acrescenta uma transição ao diário. O registro fica visível para {@link #history(long)} imediatamente e
+     * durável a partir do próximo {@link #force()}.
+     *
+     * @return Número de sequência atribuído ao registro.
+     */
+    public synchronized long append(long orderId, int previousCode, int newCode, long epochMicros) throws IOException {
+        ensureOpen();
+        if (active == null || active.size == active.capacity) {
+            roll();
+        }
+        long sequence = nextSequence++;
+        encode(scratch, crc, orderId, epochMicros, sequence, previousCode, newCode);
+        int slot = active.size;
+        active.buffer.put(slot * RECORD_BYTES, scratch);
+        active.size++;
+        index.computeIfAbsent(orderId, k -> new Postings()).add(location(active.ordinal, slot));
+        records++;
+        dirty = true;
+        return sequence;
+    }
+
+    /**
+     * Retorna todas as transições do pedido, em ordem de sequência.
+     *
+     * @param orderId Id do pedido.
+     * @return Registros do pedido; lista vazia se não houver nenhum.
+     */
+    public List<AuditRecord> history(long orderId) {
+        long[] locations;
+        Segment[] snapshot;
+        synchronized (this) {
+            ensureOpen();
+            Postings postings = index.get(orderId);
+            if (postings == null) {
+                return List.of();
+            }
+            locations = Arrays.copyOf(postings.locations, postings.size);
+            snapshot = segments.toArray(new Segment[0]);
+        }
+        List<AuditRecord> result = new ArrayList<>(locations.length);
+        for (long location : locations) {
+            result.add(decode(snapshot[(int) (location >>> 32)].buffer, (int) location * RECORD_BYTES));
+        }
+        result.sort((a, b) -> Long.compare(a.getSequence(), b.getSequence()));
+        return result;
+    }
+
+    /** Sincroniza com o disco os registros gravados desde a última chamada. */
+    public synchronized void force() {
+        if (dirty && active != null && !closed) {
+            active.buffer.force();
+            dirty = false;
+        }
+    }
+
+    /** Quantidade de registros no diário. */
+    public synchronized long records() {
+        return records;
+    }
+
+    /** Quantidade de arquivos de segmento (ativos e compactados). */
+    public synchronized int segmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        force();
+        closed = true;
+        for (Segment segment : segments) {
+            segment.channel.close();
+        }
+        if (lock != null) {
+            lock.release();
+        }
+        lockChannel.close();
+    }
+
+    private void recover() throws IOException {
+        List<Path> compacted = list(directory, COMPACTED_PREFIX);
+        List<Path> live = list(directory, SEGMENT_PREFIX);
+        // cada compactação incorpora as anteriores e todos os segmentos existentes; arquivos já cobertos pelo
+        // compactado mais recente são restos de uma compactação interrompida antes da remoção das entradas
+        long covered = -1;
+        if (!compacted.isEmpty()) {
+            Path newest = compacted.get(compacted.size() - 1);
+            covered = sequenceOf(newest);
+            load(newest, false);
+        }
+        for (int i = 0; i < live.size(); i++) {
+            if (sequenceOf(live.get(i)) <= covered) {
+                continue;
+            }
+            Segment segment = load(live.get(i), true);
+            if (i == live.size() - 1 && segment.size < segment.capacity) {
+                active = segment;
+            }
+        }
+    }
+
+    private Segment load(Path path, boolean writable) throws IOException {
+        FileChannel channel = writable
+                ? FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(path, StandardOpenOption.READ);
+        long length = channel.size();
+        int capacity = (int) (length / RECORD_BYTES);
+        MappedByteBuffer buffer = channel.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY,
+                0, (long) capacity * RECORD_BYTES);
+        Segment segment = new Segment(segments.size(), channel, buffer, capacity);
+        byte[] record = new byte[RECORD_BYTES];
+        CRC32 check = new CRC32();
+        int slot = 0;
+        for (; slot < capacity; slot++) {
+            buffer.get(slot * RECORD_BYTES, record);
+            if (!valid(record, check)) {
+                break;
+            }
+            ByteBuffer view = ByteBuffer.wrap(record);
+            long orderId = view.getLong(0);
+            long sequence = view.getLong(16);
+            index.computeIfAbsent(orderId, k -> new Postings()).add(location(segment.ordinal, slot));
+            nextSequence = Math.max(nextSequence, sequence + 1);
+            records++;
+        }
+        segment.size = slot;
+        if (writable && slot < capacity) {
+            // descarta um registro rasgado (escrita interrompida) para que o próximo append o sobrescreva limpo
+            buffer.put(slot * RECORD_BYTES, new byte[RECORD_BYTES]);
+        }
+        segments.add(segment);
+        return segment;
+    }
+
+    private void roll() throws IOException {
+        if (active != null) {
+            active.buffer.force();
+        }
+        Path path = directory.resolve(segmentName(SEGMENT_PREFIX, nextSequence));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) recordsPerSegment * RECORD_BYTES);
+        active = new Segment(segments.size(), channel, buffer, recordsPerSegment);
+        segments.add(active);
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Audit journal is closed");
+        }
+    }
+
+    static void encode(byte[] target, CRC32 crc, long orderId, long epochMicros, long sequence, int previousCode, int newCode) {
+        ByteBuffer view = ByteBuffer.wrap(target);
+        view.putLong(0, orderId);
+        view.putLong(8, epochMicros);
+        view.putLong(16, sequence);
+        view.put(24, (byte) previousCode);
+        view.put(25, (byte) newCode);
+        view.put(26, VERSION);
+        view.put(27, (byte) 0);
+        crc.reset();
+        crc.update(target, 0, 28);
+        view.putInt(28, (int) crc.getValue());
+    }
+
+    static boolean valid(byte[] record, CRC32 crc) {
+        if (record[26] != VERSION) {
+            return false;
+        }
+        crc.reset();
+        crc.update(record, 0, 28);
+        return ByteBuffer.wrap(record).getInt(28) == (int) crc.getValue();
+    }
+
+    static AuditRecord decode(ByteBuffer buffer, int offset) {
+        return new AuditRecord(buffer.getLong(offset), buffer.getLong(offset + 16), buffer.get(offset + 24),
+                buffer.get(offset + 25), buffer.getLong(offset + 8));
+    }
+
+    static List<Path> list(Path directory, String prefix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            // nomes com sequência de largura fixa: a ordem lexicográfica é a ordem de sequência
+            return files.filter(p -> {
+                String name = p.getFileName().toString();
+                return name.startsWith(prefix) && name.endsWith(SUFFIX);
+            }).sorted().toList();
+        }
+    }
+
+    static long sequenceOf(Path path) {
+        String name = path.getFileName().toString();
+        int start = name.indexOf('-') + 1;
+        return Long.parseLong(name.substring(start, name.length() - SUFFIX.length()));
+    }
+
+    static String segmentName(String prefix, long sequence) {
+        return String.format("%s%020d%s", prefix, sequence, SUFFIX);
+    }
+
+    static FileLock tryLock(FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            return null;
+        }
+    }
+
+    private static long location(int segment, int slot) {
+        return ((long) segment << 32) | (slot & 0xFFFFFFFFL);
+    }
+
+    private static final class Segment {
+        final int ordinal;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        final int capacity;
+        int size;
+
+        Segment(int ordinal, FileChannel channel, MappedByteBuffer buffer, int capacity) {
+            this.ordinal = ordinal;
+            this.channel = channel;
+            this.buffer = buffer;
+            this.capacity = capacity;
+        }
+    }
+
+    /** Posições (segmento, registro) dos registros de um pedido. */
+    private static final class Postings {
+        long[] locations = new long[2];
+        int size;
+
+        void add(long location) {
+            if (size == locations.length) {
+                locations = Arrays.copyOf(locations, size * 2);
+            }
+            locations[size++] = location;
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.educandoweb.course.services.audit;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.zip.CRC32;
+
+/**
+ * Ferramenta offline que compacta o diário de auditoria: junta o compactado anterior e todos os segmentos em um
+ * único arquivo {@code compacted-<última sequência>.log}, sem o espaço pré-alocado dos segmentos, sem registros
+ * rasgados e ordenado por pedido (e por sequência dentro de cada pedido), de modo que o histórico de um pedido
+ * fique contíguo no disco. Nenhum registro válido é descartado.
+ *
+ * A ordenação é externa: os registros válidos dos segmentos são lidos em blocos de até
+ * {@value #DEFAULT_RUN_RECORDS} registros, cada bloco é ordenado em memória e gravado em um arquivo temporário,
+ * e o compactado anterior (já ordenado) e os blocos são intercalados no arquivo final. A memória usada depende
+ * apenas do tamanho do bloco, não do tamanho do histórico nem do espaço pré-alocado dos segmentos.
+ *
+ * Deve ser executada com a aplicação parada (o lock do diretório impede o contrário). Execução a partir do jar
+ * da aplicação:
+ * <pre>
+ * java -cp course.jar -Dloader.main=com.educandoweb.course.services.audit.AuditJournalCompactor \
+ *      org.springframework.boot.loader.launch.PropertiesLauncher data/audit
+ * </pre>
+ */
+public final class AuditJournalCompactor {
+
+    /** Registros por bloco ordenado em memória (32 MB). */
+    static final int DEFAULT_RUN_RECORDS = 1 << 20;
+
+    private static final String RUN_PREFIX = "run-";
+
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    /** Ordem do arquivo compactado: id do pedido e, dentro do pedido, sequência. */
+    private static final Comparator<ByteBuffer> ORDER = Comparator.<ByteBuffer>comparingLong(r -> r.getLong(0))
+            .thenComparingLong(r -> r.getLong(16));
+
+    private AuditJournalCompactor() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("usage: AuditJournalCompactor <journal directory>");
+            System.exit(2);
+        }
+        long start = System.nanoTime();
+        Path output = compact(Path.of(args[0]));
+        System.out.printf("compacted into %s in %d ms%n", output, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Compacta o diário do diretório informado.
+     *
+     * @return Arquivo compactado gerado, ou {@code null} se não havia registros.
+     */
+    public static Path compact(Path directory) throws IOException {
+        return compact(directory, DEFAULT_RUN_RECORDS);
+    }
+
+    /**
+     * Compacta o diário do diretório informado, ordenando em memória blocos de até {@code runRecords} registros.
+     *
+     * @return Arquivo compactado gerado, ou {@code null} se não havia registros.
+     */
+    public static Path compact(Path directory, int runRecords) throws IOException {
+        if (runRecords < 1 || runRecords > Integer.MAX_VALUE / AuditJournal.RECORD_BYTES) {
+            throw new IllegalArgumentException("Invalid runRecords: " + runRecords);
+        }
+        try (FileChannel lockChannel = FileChannel.open(directory.resolve(".lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            FileLock lock = AuditJournal.tryLock(lockChannel);
+            if (lock == null) {
+                throw new IOException("Audit journal " + directory + " is in use; stop the application first");
+            }
+            try {
+                return compactLocked(directory, runRecords);
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    private static Path compactLocked(Path directory, int runRecords) throws IOException {
+        List<Path> compacted = AuditJournal.list(directory, AuditJournal.COMPACTED_PREFIX);
+        List<Path> live = AuditJournal.list(directory, AuditJournal.SEGMENT_PREFIX);
+        long covered = compacted.isEmpty() ? -1 : AuditJournal.sequenceOf(compacted.get(compacted.size() - 1));
+
+        // o compactado mais recente já está ordenado e entra direto na intercalação
+        List<Path> sorted = new ArrayList<>();
+        if (!compacted.isEmpty()) {
+            sorted.add(compacted.get(compacted.size() - 1));
+        }
+        List<Path> runs = new ArrayList<>();
+        Path temporary = directory.resolve(AuditJournal.COMPACTED_PREFIX + "next.log" + TEMPORARY_SUFFIX);
+        try {
+            writeRuns(directory, live, covered, runRecords, runs);
+            sorted.addAll(runs);
+            long[] result = merge(sorted, temporary);
+            long count = result[0];
+            long lastSequence = result[1];
+            if (count == 0) {
+                Files.deleteIfExists(temporary);
+                return null;
+            }
+            Path target = directory.resolve(AuditJournal.segmentName(AuditJournal.COMPACTED_PREFIX, lastSequence));
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            // o novo compactado cobre tudo: os arquivos antigos podem ser removidos (se a remoção for interrompida,
+            // a abertura do diário os ignora)
+            for (Path path : compacted) {
+                if (!path.equals(target)) {
+                    Files.deleteIfExists(path);
+                }
+            }
+            for (Path path : live) {
+                Files.deleteIfExists(path);
+            }
+            return target;
+        } finally {
+            for (Path run : runs) {
+                Files.deleteIfExists(run);
+            }
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Lê os registros válidos dos segmentos ainda não cobertos, em blocos de até {@code runRecords}, e grava cada
+     * bloco ordenado em um arquivo temporário.
+     */
+    private static void writeRuns(Path directory, List<Path> live, long covered, int runRecords, List<Path> runs)
+            throws IOException {
+        byte[] run = null;
+        int n = 0;
+        byte[] record = new byte[AuditJournal.RECORD_BYTES];
+        for (Path path : live) {
+            if (AuditJournal.sequenceOf(path) <= covered) {
+                continue;
+            }
+            try (RecordReader reader = new RecordReader(path)) {
+                while (reader.next(record)) {
+                    if (run == null) {
+                        // só o necessário para os segmentos, que em geral têm muito menos registros válidos que espaço
+                        long upperBound = 0;
+                        for (Path segment : live) {
+                            upperBound += Files.size(segment) / AuditJournal.RECORD_BYTES;
+                        }
+                        run = new byte[(int) Math.min(runRecords, upperBound) * AuditJournal.RECORD_BYTES];
+                    }
+                    System.arraycopy(record, 0, run, n * AuditJournal.RECORD_BYTES, AuditJournal.RECORD_BYTES);
+                    if (++n * AuditJournal.RECORD_BYTES == run.length) {
+                        runs.add(writeRun(directory, run, n, runs.size()));
+                        n = 0;
+                    }
+                }
+            }
+        }
+        if (n > 0) {
+            runs.add(writeRun(directory, run, n, runs.size()));
+        }
+    }
+
+    private static Path writeRun(Path directory, byte[] run, int n, int index) throws IOException {
+        ByteBuffer view = ByteBuffer.wrap(run);
+        ByteBuffer[] records = new ByteBuffer[n];
+        for (int i = 0; i < n; i++) {
+            records[i] = view.slice(i * AuditJournal.RECORD_BYTES, AuditJournal.RECORD_BYTES);
+        }
+        Arrays.sort(records, ORDER);
+        Path path = directory.resolve(RUN_PREFIX + index + TEMPORARY_SUFFIX);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path), 1 << 16)) {
+            for (ByteBuffer record : records) {
+                out.write(run, record.arrayOffset(), AuditJournal.RECORD_BYTES);
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Intercala os arquivos ordenados no destino e sincroniza-o com o disco.
+     *
+     * @return Quantidade de registros gravados e maior sequência encontrada.
+     */
+    private static long[] merge(List<Path> sorted, Path target) throws IOException {
+        PriorityQueue<Head> heads = new PriorityQueue<>(Math.max(1, sorted.size()), (a, b) -> ORDER.compare(a.view, b.view));
+        long count = 0;
+        long lastSequence = -1;
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            try {
+                for (Path path : sorted) {
+                    Head head = new Head(new RecordReader(path));
+                    if (head.advance()) {
+                        heads.add(head);
+                    } else {
+                        head.reader.close();
+                    }
+                }
+                OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+                while (!heads.isEmpty()) {
+                    Head head = heads.poll();
+                    out.write(head.record);
+                    count++;
+                    lastSequence = Math.max(lastSequence, head.view.getLong(16));
+                    if (head.advance()) {
+                        heads.add(head);
+                    } else {
+                        head.reader.close();
+                    }
+                }
+                out.flush();
+            } finally {
+                for (Head head : heads) {
+                    head.reader.close();
+                }
+            }
+            channel.force(true);
+        }
+        return new long[]{count, lastSequence};
+    }
+
+    /** Registro corrente de um arquivo ordenado, durante a intercalação. */
+    private static final class Head {
+        final RecordReader reader;
+        final byte[] record = new byte[AuditJournal.RECORD_BYTES];
+        final ByteBuffer view = ByteBuffer.wrap(record);
+
+        Head(RecordReader reader) {
+            this.reader = reader;
+        }
+
+        boolean advance() throws IOException {
+            return reader.next(record);
+        }
+    }
+
+    /** Lê em sequência os registros válidos de um arquivo, parando no primeiro inválido (pré-alocado ou rasgado). */
+    private static final class RecordReader implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(AuditJournal.RECORD_BYTES * 2048);
+        private final CRC32 crc = new CRC32();
+        private boolean done;
+
+        RecordReader(Path path) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            buffer.limit(0);
+        }
+
+        boolean next(byte[] record) throws IOException {
+            if (done) {
+                return false;
+            }
+            if (buffer.remaining() < AuditJournal.RECORD_BYTES) {
+                buffer.compact();
+                while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+                    // lê até encher o buffer ou chegar ao fim do arquivo
+                }
+                buffer.flip();
+            }
+            if (buffer.remaining() < AuditJournal.RECORD_BYTES) {
+                done = true;
+                return false;
+            }
+            buffer.get(record);
+            if (!AuditJournal.valid(record, crc)) {
+                done = true;
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
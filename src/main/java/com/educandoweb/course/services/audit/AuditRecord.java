@@ -0,0 +1,49 @@
+package com.educandoweb.course.services.audit;
+
+import com.educandoweb.course.enums.OrderStatus;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Uma transição de status de pedido lida do {@link AuditJournal}.
+ */
+@JsonPropertyOrder({"sequence", "orderId", "previousStatus", "orderStatus", "moment"})
+public class AuditRecord {
+
+    private final long orderId;
+    private final long sequence;
+    private final int previousCode;
+    private final int newCode;
+    private final long epochMicros;
+
+    public AuditRecord(long orderId, long sequence, int previousCode, int newCode, long epochMicros) {
+        this.orderId = orderId;
+        this.sequence = sequence;
+        this.previousCode = previousCode;
+        this.newCode = newCode;
+        this.epochMicros = epochMicros;
+    }
+
+    public long getOrderId() {
+        return orderId;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    /** Status anterior, ou {@code null} se o registro marca o status inicial. */
+    public OrderStatus getPreviousStatus() {
+        return previousCode == 0 ? null : OrderStatus.valueOf(previousCode);
+    }
+
+    public OrderStatus getOrderStatus() {
+        return OrderStatus.valueOf(newCode);
+    }
+
+    public Instant getMoment() {
+        return Instant.EPOCH.plus(epochMicros, ChronoUnit.MICROS);
+    }
+}
@@ -0,0 +1,121 @@
+package com.educandoweb.course.services.audit;
+
+import com.educandoweb.course.enums.OrderStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registra no {@link AuditJournal} as transições de status de pedidos confirmadas e expõe o histórico.
+ *
+ * A transição é gravada depois do commit da transação que alterou o pedido, portanto transações desfeitas não
+ * aparecem no histórico. O diário é sincronizado com o disco a cada {@code audit.journal.fsync-interval-ms}.
+ */
+@Component
+public class OrderAuditLog {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderAuditLog.class);
+
+    @Value("${audit.journal.dir:data/audit}")
+    private String directory;
+
+    @Value("${audit.journal.segment-bytes:67108864}")
+    private int segmentBytes;
+
+    private AuditJournal journal;
+
+    private final LongAdder failures = new LongAdder();
+
+    @PostConstruct
+    public void open() throws IOException {
+        long start = System.nanoTime();
+        journal = AuditJournal.open(Path.of(directory), segmentBytes);
+        log.info("Audit journal opened at {}: {} records in {} segments ({} ms)", directory, journal.records(),
+                journal.segmentCount(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        journal.close();
+    }
+
+    @Scheduled(fixedDelayString = "${audit.journal.fsync-interval-ms:1000}")
+    public void force() {
+        journal.force();
+    }
+
+    /**
+     * Registra a transição quando a transação corrente for confirmada (ou imediatamente, se não houver transação).
+     *
+     * @param orderId  Id do pedido.
+     * @param previous Status anterior, ou {@code null} para o status inicial.
+     * @param current  Novo status.
+     */
+    public void statusChanged(Long orderId, OrderStatus previous, OrderStatus current) {
+        long micros = ChronoUnit.MICROS.between(Instant.EPOCH, Instant.now());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            append(orderId, previous, current, micros);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                append(orderId, previous, current, micros);
+            }
+        });
+    }
+
+    /** Registra a mesma transição para vários pedidos, com uma única sincronização na transação corrente. */
+    public void statusChanged(Collection<Long> orderIds, OrderStatus previous, OrderStatus current) {
+        long micros = ChronoUnit.MICROS.between(Instant.EPOCH, Instant.now());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            orderIds.forEach(orderId -> append(orderId, previous, current, micros));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                orderIds.forEach(orderId -> append(orderId, previous, current, micros));
+            }
+        });
+    }
+
+    /** Histórico de transições do pedido, em ordem cronológica. */
+    public List<AuditRecord> history(Long orderId) {
+        return journal.history(orderId);
+    }
+
+    public Map<String, Number> stats() {
+        Map<String, Number> stats = new LinkedHashMap<>();
+        stats.put("records", journal.records());
+        stats.put("segments", journal.segmentCount());
+        stats.put("failures", failures.sum());
+        return stats;
+    }
+
+    private void append(Long orderId, OrderStatus previous, OrderStatus current, long micros) {
+        try {
+            journal.append(orderId, previous != null ? previous.getCode() : 0, current.getCode(), micros);
+        } catch (IOException | RuntimeException e) {
+            // a alteração já foi confirmada: a falha do diário não pode desfazê-la
+            failures.increment();
+            log.error("Could not append status change of order {} to the audit journal", orderId, e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.educandoweb.course.services.catalog;
+
+import java.util.Arrays;
+
+/**
+ * Operações sobre conjuntos de ids representados como bitsets em {@code long[]} (o bit {@code id} do
+ * conjunto está em {@code words[id >>> 6]}). Arrays de tamanhos diferentes são tratados como se o menor
+ * fosse completado com zeros.
+ */
+final class Bitsets {
+
+    static final long[] EMPTY = new long[0];
+
+    private Bitsets() {
+    }
+
+    /** Quantidade de palavras necessária para guardar o bit {@code id}. */
+    static int words(int id) {
+        return (id >>> 6) + 1;
+    }
+
+    static boolean get(long[] bits, int id) {
+        int word = id >>> 6;
+        return word < bits.length && (bits[word] & (1L << id)) != 0;
+    }
+
+    /**
+     * Liga o bit {@code id}, aumentando o array quando necessário.
+     *
+     * @return O próprio array, ou uma cópia maior.
+     */
+    static long[] set(long[] bits, int id) {
+        int word = id >>> 6;
+        if (word >= bits.length) {
+            bits = Arrays.copyOf(bits, Math.max(word + 1, bits.length + (bits.length >> 1)));
+        }
+        bits[word] |= 1L << id;
+        return bits;
+    }
+
+    static void clear(long[] bits, int id) {
+        int word = id >>> 6;
+        if (word < bits.length) {
+            bits[word] &= ~(1L << id);
+        }
+    }
+
+    static int cardinality(long[] bits) {
+        int n = 0;
+        for (long word : bits) {
+            n += Long.bitCount(word);
+        }
+        return n;
+    }
+
+    /** Tamanho da interseção, sem materializá-la. */
+    static int andCardinality(long[] a, long[] b) {
+        int words = Math.min(a.length, b.length);
+        int n = 0;
+        for (int i = 0; i < words; i++) {
+            n += Long.bitCount(a[i] & b[i]);
+        }
+        return n;
+    }
+}
@@ -0,0 +1,245 @@
+package com.educandoweb.course.services.catalog;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Mantém a {@link CatalogSnapshot} corrente, usada para servir as leituras de produtos e categorias sem
+ * acessar o banco.
+ *
+ * A fotografia é carregada por JDBC quando a aplicação fica pronta. Depois de cada transação que altera
+ * produtos, categorias ou suas ligações ({@link CatalogChangeListener}), apenas as linhas afetadas são relidas
+ * e uma nova fotografia é publicada atomicamente. Leitores nunca bloqueiam: obtêm a fotografia corrente e
+ * trabalham sobre ela. Escritas feitas fora do JPA (JDBC direto) devem chamar {@link #refresh}.
+ *
+ * Se uma atualização falhar, a fotografia anterior continua servindo (possivelmente desatualizada nas linhas
+ * afetadas) e uma carga completa é agendada; enquanto ela falhar, as novas tentativas são espaçadas em
+ * intervalos crescentes, de {@code catalog.reload.initial-delay-ms} até {@code catalog.reload.max-delay-ms}.
+ *
+ * Com {@code catalog.enabled=false} ou antes da carga, {@link #current()} devolve {@code null} e os serviços
+ * consultam o banco. Assim como o filtro de ids, o catálogo só enxerga as escritas desta instância; por isso o
+ * perfil {@code prd}, com várias instâncias, o desliga.
+ */
+@Component
+public class Catalog {
+
+    private static final Logger log = LoggerFactory.getLogger(Catalog.class);
+
+    /** Maior id suportado pelos arrays indexados por id. */
+    static final long MAX_ID = 1L << 22;
+
+    private static final int CHUNK = 500;
+
+    private static final String PRODUCT_COLUMNS = "SELECT id, name, description, price_minor, currency, img_url FROM tb_product";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Value("${catalog.enabled:true}")
+    private boolean enabled;
+
+    private final AtomicReference<CatalogSnapshot> current = new AtomicReference<>();
+
+    private final AtomicLong version = new AtomicLong();
+
+    private final AtomicLong lastRefreshNanos = new AtomicLong();
+
+    @Value("${catalog.reload.initial-delay-ms:1000}")
+    private long reloadInitialDelayMillis;
+
+    @Value("${catalog.reload.max-delay-ms:60000}")
+    private long reloadMaxDelayMillis;
+
+    /** Carga completa pendente depois de uma atualização que falhou. */
+    private volatile boolean reloadPending;
+
+    // protegidos pelo monitor deste objeto
+    private long reloadDelayMillis;
+
+    private long nextReloadMillis;
+
+    private final AtomicLong refreshFailures = new AtomicLong();
+
+    private final AtomicLong reloadFailures = new AtomicLong();
+
+    /** Fotografia corrente, ou {@code null} quando o catálogo não está disponível. */
+    public CatalogSnapshot current() {
+        return current.get();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        long maxId = Math.max(maxId("tb_product"), maxId("tb_category"));
+        if (maxId > MAX_ID) {
+            log.warn("Catalog disabled: id {} exceeds the supported range ({})", maxId, MAX_ID);
+            current.set(null);
+            reloadPending = false;
+            return;
+        }
+        CatalogSnapshot.Builder builder = new CatalogSnapshot.Builder(null);
+        jdbcTemplate.query("SELECT id, name FROM tb_category", rs -> {
+            builder.putCategory(rs.getLong(1), rs.getString(2));
+        });
+        Map<Long, int[]> links = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT product_id, category_id FROM tb_product_category", rs -> {
+            link(links, rs.getLong(1), rs.getLong(2));
+        });
+        jdbcTemplate.query(PRODUCT_COLUMNS, rs -> {
+            put(builder, rs, links);
+        });
+        publish(builder.build(), start);
+        reloadPending = false;
+        log.info("Catalog loaded: {} products, {} categories in {} ms", current.get().productCount(),
+                current.get().categoryCount(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Relê do banco os produtos e categorias informados e publica uma nova fotografia. Ids que não existem
+     * mais são removidos. Deve ser chamado depois do commit das alterações.
+     *
+     * @param productIds  Produtos alterados (dados ou categorias associadas).
+     * @param categoryIds Categorias alteradas.
+     */
+    public void refresh(Collection<Long> productIds, Collection<Long> categoryIds) {
+        if (productIds.isEmpty() && categoryIds.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            CatalogSnapshot base = current.get();
+            if (base == null) {
+                return;
+            }
+            long start = System.nanoTime();
+            try {
+                CatalogSnapshot.Builder builder = new CatalogSnapshot.Builder(base);
+                for (List<Long> chunk : chunks(categoryIds)) {
+                    chunk.forEach(builder::removeCategory);
+                    namedJdbcTemplate.query("SELECT id, name FROM tb_category WHERE id IN (:ids)", Map.of("ids", chunk), rs -> {
+                        builder.putCategory(rs.getLong(1), rs.getString(2));
+                    });
+                }
+                for (List<Long> chunk : chunks(productIds)) {
+                    chunk.forEach(builder::removeProduct);
+                    Map<Long, int[]> links = new LinkedHashMap<>();
+                    namedJdbcTemplate.query("SELECT product_id, category_id FROM tb_product_category WHERE product_id IN (:ids)",
+                            Map.of("ids", chunk), rs -> {
+                                link(links, rs.getLong(1), rs.getLong(2));
+                            });
+                    namedJdbcTemplate.query(PRODUCT_COLUMNS + " WHERE id IN (:ids)", Map.of("ids", chunk), rs -> {
+                        put(builder, rs, links);
+                    });
+                }
+                publish(builder.build(), start);
+            } catch (DataAccessException | IllegalArgumentException e) {
+                // a fotografia anterior continua servindo até que uma carga completa a substitua
+                refreshFailures.incrementAndGet();
+                if (!reloadPending) {
+                    reloadPending = true;
+                    reloadDelayMillis = reloadInitialDelayMillis;
+                    nextReloadMillis = System.currentTimeMillis() + reloadDelayMillis;
+                }
+                log.error("Catalog refresh failed, serving the previous snapshot until a full reload succeeds", e);
+            }
+        }
+    }
+
+    /**
+     * Executa a carga completa pendente, se houver uma e o intervalo desde a última tentativa tiver passado. Se a
+     * carga falhar, o intervalo até a próxima tentativa dobra, até {@code catalog.reload.max-delay-ms}.
+     */
+    @Scheduled(fixedDelayString = "${catalog.reload.check-interval-ms:500}")
+    public void reloadIfPending() {
+        if (!reloadPending) {
+            return;
+        }
+        synchronized (this) {
+            if (!reloadPending || System.currentTimeMillis() < nextReloadMillis) {
+                return;
+            }
+            try {
+                load();
+            } catch (DataAccessException | IllegalArgumentException e) {
+                reloadFailures.incrementAndGet();
+                reloadDelayMillis = Math.min(reloadDelayMillis * 2, reloadMaxDelayMillis);
+                nextReloadMillis = System.currentTimeMillis() + reloadDelayMillis;
+                log.warn("Catalog reload failed, retrying in {} ms: {}", reloadDelayMillis, e.getMessage());
+            }
+        }
+    }
+
+    /** Estatísticas da fotografia corrente. */
+    public Map<String, Number> stats() {
+        CatalogSnapshot snapshot = current.get();
+        Map<String, Number> stats = new LinkedHashMap<>();
+        stats.put("version", version.get());
+        stats.put("products", snapshot != null ? snapshot.productCount() : 0);
+        stats.put("categories", snapshot != null ? snapshot.categoryCount() : 0);
+        stats.put("lastBuildMicros", lastRefreshNanos.get() / 1_000);
+        stats.put("refreshFailures", refreshFailures.get());
+        stats.put("reloadFailures", reloadFailures.get());
+        stats.put("reloadPending", reloadPending ? 1 : 0);
+        return stats;
+    }
+
+    private void publish(CatalogSnapshot snapshot, long start) {
+        current.set(snapshot);
+        version.incrementAndGet();
+        lastRefreshNanos.set(System.nanoTime() - start);
+    }
+
+    private static void put(CatalogSnapshot.Builder builder, ResultSet rs, Map<Long, int[]> links) throws SQLException {
+        long id = rs.getLong(1);
+        builder.putProduct(id, rs.getString(2), rs.getString(3), rs.getLong(4), rs.getString(5), rs.getString(6), links.get(id));
+    }
+
+    private static void link(Map<Long, int[]> links, long productId, long categoryId) {
+        if (categoryId > MAX_ID) {
+            throw new IllegalArgumentException("Id out of catalog range: " + categoryId);
+        }
+        int[] ids = links.get(productId);
+        ids = ids == null ? new int[1] : Arrays.copyOf(ids, ids.length + 1);
+        ids[ids.length - 1] = (int) categoryId;
+        links.put(productId, ids);
+    }
+
+    private long maxId(String table) {
+        Long max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+        return max != null ? max : 0L;
+    }
+
+    private static List<List<Long>> chunks(Collection<Long> ids) {
+        List<Long> list = new ArrayList<>(ids);
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < list.size(); from += CHUNK) {
+            chunks.add(list.subList(from, Math.min(list.size(), from + CHUNK)));
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,156 @@
+package com.educandoweb.course.services.catalog;
+
+import com.educandoweb.course.entities.Category;
+import com.educandoweb.course.entities.Product;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionRemoveEvent;
+import org.hibernate.event.spi.PostCollectionRemoveEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Observa, pelos eventos do Hibernate, as escritas em {@link Product}, {@link Category} e na coleção de
+ * categorias dos produtos, acumula os ids alterados em cada transação e, depois do commit, pede ao
+ * {@link Catalog} que releia somente esses ids. Transações desfeitas não alteram o catálogo. Sem transação
+ * gerenciada pelo Spring, a releitura é registrada no fim da transação do próprio Hibernate.
+ */
+@Component
+public class CatalogChangeListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener,
+        PostCollectionRecreateEventListener, PostCollectionUpdateEventListener, PostCollectionRemoveEventListener {
+
+    @Autowired
+    private Catalog catalog;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_RECREATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_UPDATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_REMOVE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        entityChanged(event.getSession(), event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        entityChanged(event.getSession(), event.getEntity());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        entityChanged(event.getSession(), event.getEntity());
+    }
+
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+        collectionChanged(event);
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+        collectionChanged(event);
+    }
+
+    @Override
+    public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+        collectionChanged(event);
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private void entityChanged(EventSource session, Object entity) {
+        if (entity instanceof Product product) {
+            changed(session, product.getId(), null);
+        } else if (entity instanceof Category category) {
+            changed(session, null, category.getId());
+        }
+    }
+
+    private void collectionChanged(AbstractCollectionEvent event) {
+        // Product.items pertence aos pedidos; coleções desreferenciadas já não têm papel e são tratadas como categorias
+        String role = event.getCollection().getRole();
+        if (event.getAffectedOwnerOrNull() instanceof Product product && (role == null || role.endsWith(".categories"))) {
+            changed(event.getSession(), product.getId(), null);
+        }
+    }
+
+    private void changed(EventSource session, Long productId, Long categoryId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            // o evento ocorre no flush, antes do commit: relê somente se a transação do Hibernate for confirmada
+            session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, completed) -> {
+                if (success) {
+                    catalog.refresh(idList(productId), idList(categoryId));
+                }
+            });
+            return;
+        }
+        Changes changes = (Changes) TransactionSynchronizationManager.getResource(this);
+        if (changes == null) {
+            changes = new Changes();
+            TransactionSynchronizationManager.bindResource(this, changes);
+            TransactionSynchronizationManager.registerSynchronization(changes);
+        }
+        if (productId != null) {
+            changes.products.add(productId);
+        }
+        if (categoryId != null) {
+            changes.categories.add(categoryId);
+        }
+    }
+
+    private static List<Long> idList(Long id) {
+        return id != null ? List.of(id) : List.of();
+    }
+
+    private final class Changes implements TransactionSynchronization {
+        private final Set<Long> products = new LinkedHashSet<>();
+        private final Set<Long> categories = new LinkedHashSet<>();
+
+        @Override
+        public void afterCommit() {
+            catalog.refresh(products, categories);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(CatalogChangeListener.this);
+        }
+    }
+}
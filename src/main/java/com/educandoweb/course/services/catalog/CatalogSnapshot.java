@@ -0,0 +1,495 @@
+package com.educandoweb.course.services.catalog;
+
+import com.educandoweb.course.entities.Category;
+import com.educandoweb.course.entities.Product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Fotografia imutável do catálogo (produtos, categorias e a tabela de ligação entre eles).
+ *
+ * Os dados ficam em arrays primitivos indexados diretamente pelo id, já que os ids são densos (IDENTITY):
+ * uma posição nula em {@code productNames} significa que o produto não existe. Cada produto guarda apenas os
+ * ids das suas categorias, guardadas uma única vez, de modo que renomear uma categoria não exige tocar nos
+ * produtos. Os leitores recebem sempre cópias desanexadas ({@link #product(long)}, {@link #category(long)}):
+ * alterar uma delas não afeta a fotografia nem os demais leitores.
+ *
+ * Para as facetas, cada categoria guarda também o conjunto dos seus produtos como bitset indexado pelo id do
+ * produto ({@link #facets(long[])}). O {@link Builder} mantém esses bitsets incrementalmente conforme as
+ * ligações de cada produto mudam, copiando apenas os bitsets das categorias afetadas.
+ *
+ * Os produtos também ficam em dois índices ordenados, por (moeda, preço, id) e por (nome, id), usados na
+ * paginação por chave ({@link #pageByPrice}, {@link #pageByName}). O {@link Builder} os atualiza retirando
+ * os produtos alterados e intercalando-os de volta, sem reordenar o catálogo inteiro.
+ *
+ * Uma fotografia nunca é alterada depois de construída; mudanças geram uma nova fotografia via {@link Builder},
+ * que copia os arrays e reaproveita os valores que não mudaram.
+ */
+public final class CatalogSnapshot {
+
+    private static final int[] NO_CATEGORIES = new int[0];
+
+    private final String[] productNames;
+    private final String[] descriptions;
+    private final String[] imgUrls;
+    private final long[] prices;
+    private final String[] currencies;
+    private final int[][] productCategories;
+    private final int productCount;
+
+    private final Category[] categories;
+    private final int categoryCount;
+    private final long[][] categoryProducts;
+    private final int[] categoryProductCounts;
+    private final int[] byPrice;
+    private final int[] byName;
+
+    private CatalogSnapshot(Builder b) {
+        productNames = b.productNames;
+        descriptions = b.descriptions;
+        imgUrls = b.imgUrls;
+        prices = b.prices;
+        currencies = b.currencies;
+        productCategories = b.productCategories;
+        categories = b.categories;
+        categoryProducts = b.categoryProducts;
+        categoryProductCounts = b.categoryProductCounts;
+        byPrice = b.byPrice;
+        byName = b.byName;
+        productCount = count(productNames);
+        categoryCount = count(categories);
+    }
+
+    /** Fotografia vazia, ponto de partida da carga completa. */
+    public static CatalogSnapshot empty() {
+        return new Builder(null).build();
+    }
+
+    /** Quantidade de produtos na fotografia. */
+    public int productCount() {
+        return productCount;
+    }
+
+    /** Quantidade de categorias na fotografia. */
+    public int categoryCount() {
+        return categoryCount;
+    }
+
+    /** Indica se o produto existe na fotografia. */
+    public boolean containsProduct(long id) {
+        return id > 0 && id < productNames.length && productNames[(int) id] != null;
+    }
+
+    /**
+     * Cria um {@link Product} desanexado com os dados da fotografia, ou {@code null} se o produto não existir.
+     * As categorias do produto também são cópias.
+     */
+    public Product product(long id) {
+        if (!containsProduct(id)) {
+            return null;
+        }
+        int i = (int) id;
+        Product p = new Product();
+        p.setId(id);
+        p.setName(productNames[i]);
+        p.setDescription(descriptions[i]);
+        p.setImgUrl(imgUrls[i]);
+        p.setCurrency(currencies[i]);
+        p.setPriceMinor(prices[i]);
+        for (int categoryId : productCategories[i]) {
+            Category category = categories[categoryId];
+            if (category != null) {
+                p.getCategories().add(copy(category));
+            }
+        }
+        return p;
+    }
+
+    /** Todos os produtos, em ordem de id. */
+    public List<Product> products() {
+        List<Product> list = new ArrayList<>(productCount);
+        for (int i = 1; i < productNames.length; i++) {
+            if (productNames[i] != null) {
+                list.add(product(i));
+            }
+        }
+        return list;
+    }
+
+    /** Cópia desanexada da categoria, ou {@code null} se não existir. */
+    public Category category(long id) {
+        return id > 0 && id < categories.length && categories[(int) id] != null ? copy(categories[(int) id]) : null;
+    }
+
+    /** Nome da categoria, ou {@code null} se não existir; evita a cópia quando só o nome interessa. */
+    public String categoryName(long id) {
+        return id > 0 && id < categories.length && categories[(int) id] != null ? categories[(int) id].getName() : null;
+    }
+
+    /** Todas as categorias, em ordem de id. */
+    public List<Category> categories() {
+        List<Category> list = new ArrayList<>(categoryCount);
+        for (Category category : categories) {
+            if (category != null) {
+                list.add(copy(category));
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Seleciona os produtos que atendem ao filtro.
+     *
+     * @return Bitset com os ids selecionados, para {@link #facets(long[])}.
+     */
+    public long[] select(ProductFilter filter) {
+        long[] selected = new long[Bitsets.words(productNames.length)];
+        for (int i = 1; i < productNames.length; i++) {
+            if (productNames[i] != null && filter.matches(productNames[i], prices[i], currencies[i])) {
+                selected[i >>> 6] |= 1L << i;
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Conta, por categoria, quantos produtos da seleção pertencem a ela. Cada contagem é a cardinalidade da
+     * interseção do bitset da categoria com a seleção.
+     *
+     * @param selected Bitset de produtos (ver {@link #select}), ou {@code null} para todos os produtos.
+     * @return Contagens indexadas pelo id da categoria; categorias sem produtos selecionados ficam com zero.
+     */
+    public int[] facets(long[] selected) {
+        int[] counts = new int[categories.length];
+        for (int c = 1; c < categories.length; c++) {
+            if (categories[c] == null || c >= categoryProducts.length || categoryProducts[c] == null) {
+                continue;
+            }
+            counts[c] = selected == null ? categoryProductCounts[c] : Bitsets.andCardinality(categoryProducts[c], selected);
+        }
+        return counts;
+    }
+
+    /**
+     * Próxima página de produtos na moeda do filtro, em ordem de (preço, id), depois do produto
+     * ({@code afterPrice}, {@code afterId}). Localiza o início da faixa por busca binária no índice de preços.
+     *
+     * @param filter Filtro com a moeda e a faixa de preço (limites ausentes não restringem).
+     * @param limit  Quantidade máxima de produtos.
+     */
+    public List<Product> pageByPrice(ProductFilter filter, long afterPrice, long afterId, int limit) {
+        String currency = filter.getCurrency();
+        long lower = filter.getMinPriceMinor() != null ? filter.getMinPriceMinor() : Long.MIN_VALUE;
+        long upper = filter.getMaxPriceMinor() != null ? filter.getMaxPriceMinor() : Long.MAX_VALUE;
+        int from = afterPrice >= lower ? firstAfterPrice(currency, afterPrice, afterId) : firstAfterPrice(currency, lower, 0);
+        List<Product> page = new ArrayList<>(Math.min(limit, 64));
+        for (int i = from; i < byPrice.length && page.size() < limit; i++) {
+            int id = byPrice[i];
+            if (!currency.equals(currencies[id]) || prices[id] > upper) {
+                break;
+            }
+            page.add(product(id));
+        }
+        return page;
+    }
+
+    /**
+     * Próxima página de produtos que atendem ao filtro, em ordem de (nome, id), depois do produto
+     * ({@code afterName}, {@code afterId}).
+     */
+    public List<Product> pageByName(ProductFilter filter, String afterName, long afterId, int limit) {
+        List<Product> page = new ArrayList<>(Math.min(limit, 64));
+        for (int i = firstAfterName(afterName, afterId); i < byName.length && page.size() < limit; i++) {
+            int id = byName[i];
+            if (filter.matches(productNames[id], prices[id], currencies[id])) {
+                page.add(product(id));
+            }
+        }
+        return page;
+    }
+
+    /** Primeira posição de {@code byPrice} com (moeda, preço, id) maior que a chave informada. */
+    private int firstAfterPrice(String currency, long price, long id) {
+        int low = 0;
+        int high = byPrice.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int p = byPrice[mid];
+            int c = currencies[p].compareTo(currency);
+            if (c == 0) {
+                c = Long.compare(prices[p], price);
+            }
+            if (c == 0) {
+                c = Long.compare(p, id);
+            }
+            if (c <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /** Primeira posição de {@code byName} com (nome, id) maior que a chave informada. */
+    private int firstAfterName(String name, long id) {
+        int low = 0;
+        int high = byName.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int p = byName[mid];
+            int c = productNames[p].compareTo(name);
+            if (c == 0) {
+                c = Long.compare(p, id);
+            }
+            if (c <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int count(Object[] values) {
+        int n = 0;
+        for (Object value : values) {
+            if (value != null) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    private static Category copy(Category category) {
+        return new Category(category.getId(), category.getName());
+    }
+
+    /**
+     * Monta uma nova fotografia a partir de outra (ou do zero). Os arrays da base são copiados na criação do
+     * builder, portanto a base continua intacta para os leitores que ainda a usam.
+     */
+    public static final class Builder {
+
+        private String[] productNames;
+        private String[] descriptions;
+        private String[] imgUrls;
+        private long[] prices;
+        private String[] currencies;
+        private int[][] productCategories;
+        private Category[] categories;
+        private long[][] categoryProducts;
+        private int[] categoryProductCounts;
+        // bitsets já copiados por este builder, que podem ser alterados no lugar
+        private boolean[] ownedBits;
+        private int[] byPrice;
+        private int[] byName;
+        // produtos alterados desde a base, a reposicionar nos índices ordenados
+        private final BitSet changed = new BitSet();
+
+        public Builder(CatalogSnapshot base) {
+            if (base == null) {
+                productNames = new String[1];
+                descriptions = new String[1];
+                imgUrls = new String[1];
+                prices = new long[1];
+                currencies = new String[1];
+                productCategories = new int[1][];
+                categories = new Category[1];
+                categoryProducts = new long[1][];
+                categoryProductCounts = new int[1];
+                byPrice = new int[0];
+                byName = new int[0];
+            } else {
+                productNames = base.productNames.clone();
+                descriptions = base.descriptions.clone();
+                imgUrls = base.imgUrls.clone();
+                prices = base.prices.clone();
+                currencies = base.currencies.clone();
+                productCategories = base.productCategories.clone();
+                categories = base.categories.clone();
+                categoryProducts = base.categoryProducts.clone();
+                categoryProductCounts = base.categoryProductCounts.clone();
+                // substituídos (não alterados) em build()
+                byPrice = base.byPrice;
+                byName = base.byName;
+            }
+            ownedBits = new boolean[categoryProducts.length];
+        }
+
+        public Builder putCategory(long id, String name) {
+            int i = index(id);
+            if (i >= categories.length) {
+                categories = Arrays.copyOf(categories, capacity(i, categories.length));
+            }
+            categories[i] = new Category(id, name);
+            return this;
+        }
+
+        public Builder removeCategory(long id) {
+            if (id > 0 && id < categories.length) {
+                categories[(int) id] = null;
+            }
+            return this;
+        }
+
+        public Builder putProduct(long id, String name, String description, long priceMinor, String currency,
+                                  String imgUrl, int[] categoryIds) {
+            int i = index(id);
+            if (i >= productNames.length) {
+                int n = capacity(i, productNames.length);
+                productNames = Arrays.copyOf(productNames, n);
+                descriptions = Arrays.copyOf(descriptions, n);
+                imgUrls = Arrays.copyOf(imgUrls, n);
+                prices = Arrays.copyOf(prices, n);
+                currencies = Arrays.copyOf(currencies, n);
+                productCategories = Arrays.copyOf(productCategories, n);
+            }
+            int[] linked = categoryIds != null && categoryIds.length > 0 ? categoryIds : NO_CATEGORIES;
+            int[] previous = productCategories[i] != null ? productCategories[i] : NO_CATEGORIES;
+            for (int categoryId : previous) {
+                if (!contains(linked, categoryId)) {
+                    unlink(categoryId, i);
+                }
+            }
+            for (int categoryId : linked) {
+                if (!contains(previous, categoryId)) {
+                    link(categoryId, i);
+                }
+            }
+            changed.set(i);
+            // nulo marcaria o produto como inexistente
+            productNames[i] = name != null ? name : "";
+            descriptions[i] = description;
+            imgUrls[i] = imgUrl;
+            prices[i] = priceMinor;
+            currencies[i] = currency != null ? currency.intern() : null;
+            productCategories[i] = linked;
+            return this;
+        }
+
+        public Builder removeProduct(long id) {
+            if (id > 0 && id < productNames.length) {
+                int i = (int) id;
+                if (productCategories[i] != null) {
+                    for (int categoryId : productCategories[i]) {
+                        unlink(categoryId, i);
+                    }
+                }
+                changed.set(i);
+                productNames[i] = null;
+                descriptions[i] = null;
+                imgUrls[i] = null;
+                prices[i] = 0L;
+                currencies[i] = null;
+                productCategories[i] = null;
+            }
+            return this;
+        }
+
+        public CatalogSnapshot build() {
+            if (!changed.isEmpty()) {
+                byPrice = reindex(byPrice, this::comparePrice);
+                byName = reindex(byName, this::compareName);
+                changed.clear();
+            }
+            return new CatalogSnapshot(this);
+        }
+
+        /**
+         * Retira do índice os produtos alterados e intercala de volta, ordenados, os que ainda existem: custo
+         * linear no tamanho do índice mais a ordenação apenas dos alterados.
+         */
+        private int[] reindex(int[] index, IntBinaryOperator order) {
+            int[] added = changed.stream().filter(id -> productNames[id] != null).boxed()
+                    .sorted(order::applyAsInt).mapToInt(Integer::intValue).toArray();
+            int[] result = new int[index.length + added.length];
+            int n = 0;
+            int a = 0;
+            for (int id : index) {
+                if (changed.get(id)) {
+                    continue;
+                }
+                while (a < added.length && order.applyAsInt(added[a], id) < 0) {
+                    result[n++] = added[a++];
+                }
+                result[n++] = id;
+            }
+            while (a < added.length) {
+                result[n++] = added[a++];
+            }
+            return n == result.length ? result : Arrays.copyOf(result, n);
+        }
+
+        private int comparePrice(int a, int b) {
+            int c = currencies[a].compareTo(currencies[b]);
+            if (c == 0) {
+                c = Long.compare(prices[a], prices[b]);
+            }
+            return c != 0 ? c : Integer.compare(a, b);
+        }
+
+        private int compareName(int a, int b) {
+            int c = productNames[a].compareTo(productNames[b]);
+            return c != 0 ? c : Integer.compare(a, b);
+        }
+
+        private void link(int categoryId, int productId) {
+            if (categoryId >= categoryProducts.length) {
+                int n = capacity(categoryId, categoryProducts.length);
+                categoryProducts = Arrays.copyOf(categoryProducts, n);
+                categoryProductCounts = Arrays.copyOf(categoryProductCounts, n);
+                ownedBits = Arrays.copyOf(ownedBits, n);
+            }
+            long[] bits = ownedBits(categoryId);
+            if (!Bitsets.get(bits, productId)) {
+                categoryProducts[categoryId] = Bitsets.set(bits, productId);
+                categoryProductCounts[categoryId]++;
+            }
+        }
+
+        private void unlink(int categoryId, int productId) {
+            if (categoryId >= categoryProducts.length || categoryProducts[categoryId] == null
+                    || !Bitsets.get(categoryProducts[categoryId], productId)) {
+                return;
+            }
+            Bitsets.clear(ownedBits(categoryId), productId);
+            categoryProductCounts[categoryId]--;
+        }
+
+        /** Bitset da categoria que este builder pode alterar: copiado da base na primeira alteração. */
+        private long[] ownedBits(int categoryId) {
+            long[] bits = categoryProducts[categoryId];
+            if (!ownedBits[categoryId]) {
+                bits = bits != null ? bits.clone() : Bitsets.EMPTY;
+                categoryProducts[categoryId] = bits;
+                ownedBits[categoryId] = true;
+            }
+            return bits;
+        }
+
+        private static boolean contains(int[] ids, int id) {
+            for (int value : ids) {
+                if (value == id) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static int index(long id) {
+            if (id <= 0 || id > Catalog.MAX_ID) {
+                throw new IllegalArgumentException("Id out of catalog range: " + id);
+            }
+            return (int) id;
+        }
+
+        private static int capacity(int index, int current) {
+            return (int) Math.min(Math.max(index + 1L, current + (current >> 1)), Catalog.MAX_ID + 1L);
+        }
+    }
+}
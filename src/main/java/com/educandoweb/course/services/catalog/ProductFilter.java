@@ -0,0 +1,78 @@
+package com.educandoweb.course.services.catalog;
+
+/**
+ * Critérios de seleção de produtos. Os limites de preço são inclusivos, em unidades menores de
+ * {@code currency}, e só selecionam produtos nessa moeda; sem limites de preço a moeda é ignorada.
+ */
+public final class ProductFilter {
+
+    /** Filtro que aceita todos os produtos. */
+    public static final ProductFilter ALL = new ProductFilter(null, null, null, null);
+
+    private final String name;
+    private final String currency;
+    private final Long minPriceMinor;
+    private final Long maxPriceMinor;
+
+    /**
+     * @param name          Trecho do nome, sem diferenciar maiúsculas; {@code null} ou vazio aceita qualquer nome.
+     * @param currency      Moeda dos limites de preço.
+     * @param minPriceMinor Preço mínimo, ou {@code null}.
+     * @param maxPriceMinor Preço máximo, ou {@code null}.
+     */
+    public ProductFilter(String name, String currency, Long minPriceMinor, Long maxPriceMinor) {
+        this.name = name == null || name.isBlank() ? null : name.strip();
+        this.currency = currency;
+        this.minPriceMinor = minPriceMinor;
+        this.maxPriceMinor = maxPriceMinor;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public Long getMinPriceMinor() {
+        return minPriceMinor;
+    }
+
+    public Long getMaxPriceMinor() {
+        return maxPriceMinor;
+    }
+
+    public boolean hasPriceRange() {
+        return minPriceMinor != null || maxPriceMinor != null;
+    }
+
+    public boolean isEmpty() {
+        return name == null && !hasPriceRange();
+    }
+
+    boolean matches(String productName, long priceMinor, String productCurrency) {
+        if (name != null && !containsIgnoreCase(productName, name)) {
+            return false;
+        }
+        if (hasPriceRange()) {
+            if (!currency.equals(productCurrency)) {
+                return false;
+            }
+            if (minPriceMinor != null && priceMinor < minPriceMinor) {
+                return false;
+            }
+            return maxPriceMinor == null || priceMinor <= maxPriceMinor;
+        }
+        return true;
+    }
+
+    private static boolean containsIgnoreCase(String text, String part) {
+        for (int i = 0, last = text.length() - part.length(); i <= last; i++) {
+            if (text.regionMatches(true, i, part, 0, part.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,10 @@
+package com.educandoweb.course.services.exceptions;
+
+public class BadRequestException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public BadRequestException(String msg) {
+        // sem stack trace: parâmetros inválidos são respostas esperadas, não falhas a serem depuradas
+        super(msg, null, false, false);
+    }
+}
@@ -4,6 +4,7 @@ public class DatabaseException extends RuntimeException {
     private static final long serialVersionUID = 1L;
 
     public DatabaseException(String msg) {
-        super(msg);
+        // sem stack trace: a violação de integridade já foi traduzida e vira uma resposta 400
+        super(msg, null, false, false);
     }
 }
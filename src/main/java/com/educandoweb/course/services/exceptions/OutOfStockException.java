@@ -0,0 +1,10 @@
+package com.educandoweb.course.services.exceptions;
+
+public class OutOfStockException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public OutOfStockException(Long productId, long requested) {
+        // sem stack trace: em uma promoção a maioria das reservas pode ser recusada, e isso é esperado
+        super("Product " + productId + " does not have " + requested + " units available", null, false, false);
+    }
+}
@@ -4,6 +4,7 @@ public class ResourceNotFoundException extends RuntimeException {
     private static final long serialVersionUID = 1L;
 
     public ResourceNotFoundException(Object id) {
-        super("Resource not found. Id " + id);
+        // sem stack trace: um id inexistente é uma resposta esperada, não uma falha a ser depurada
+        super("Resource not found. Id " + id, null, false, false);
     }
 }
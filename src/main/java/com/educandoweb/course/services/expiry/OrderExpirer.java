@@ -0,0 +1,161 @@
+package com.educandoweb.course.services.expiry;
+
+import com.educandoweb.course.enums.OrderStatus;
+import com.educandoweb.course.services.audit.OrderAuditLog;
+import com.educandoweb.course.services.outbox.Outbox;
+import com.educandoweb.course.services.scheduling.LeaderLock;
+import com.educandoweb.course.sharding.Shards;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cancela periodicamente os pedidos que aguardam pagamento há mais de {@code order-expiry.max-age-hours} horas.
+ *
+ * Os pedidos não são carregados como entidades: cada bloco seleciona até {@code order-expiry.batch-size} ids pelo
+ * índice {@code idx_order_status_moment}, bloqueando-os com {@code FOR UPDATE SKIP LOCKED} (um pedido sendo pago
+ * no momento fica para a próxima execução), e os cancela com um único {@code UPDATE}. Na mesma transação são
+ * gravados os eventos {@code OrderStatusChanged} do outbox e, depois do commit, as transições no diário de
+ * auditoria, como em uma alteração de status pela API. Entre os blocos há uma pausa de
+ * {@code order-expiry.pause-ms}.
+ *
+ * Apenas uma instância executa a tarefa por vez, a que obtém a {@link LeaderLock} {@value #LOCK}; a trava é
+ * renovada a cada bloco e liberada ao final.
+ */
+@Component
+public class OrderExpirer {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderExpirer.class);
+
+    static final String LOCK = "order-expiry";
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private Shards shards;
+
+    @Autowired
+    private LeaderLock leaderLock;
+
+    @Autowired
+    private Outbox outbox;
+
+    @Autowired
+    private OrderAuditLog auditLog;
+
+    @Value("${order-expiry.enabled:true}")
+    private boolean enabled;
+
+    @Value("${order-expiry.max-age-hours:72}")
+    private long maxAgeHours;
+
+    @Value("${order-expiry.batch-size:500}")
+    private int batchSize;
+
+    @Value("${order-expiry.pause-ms:100}")
+    private long pauseMillis;
+
+    @Value("${order-expiry.lock-lease-ms:300000}")
+    private long leaseMillis;
+
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder notLeaderRuns = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder chunks = new LongAdder();
+    private final AtomicLong lastRunExpired = new AtomicLong();
+    private final AtomicLong lastRunMillis = new AtomicLong();
+
+    @Scheduled(fixedDelayString = "${order-expiry.interval-ms:60000}", initialDelayString = "${order-expiry.interval-ms:60000}")
+    public void run() {
+        if (enabled) {
+            expire();
+        }
+    }
+
+    /**
+     * Cancela os pedidos vencidos de todos os shards, se esta instância obtiver a trava.
+     *
+     * @return Quantidade de pedidos cancelados, ou {@code -1} se outra instância está executando a tarefa.
+     */
+    public long expire() {
+        Duration lease = Duration.ofMillis(leaseMillis);
+        if (!leaderLock.tryAcquire(LOCK, lease)) {
+            notLeaderRuns.increment();
+            return -1;
+        }
+        long start = System.nanoTime();
+        Instant cutoff = Instant.now().minus(maxAgeHours, ChronoUnit.HOURS);
+        long count = 0;
+        try {
+            for (int shard = 0; shard < shards.count(); shard++) {
+                int size;
+                do {
+                    size = shards.write(shard, () -> expireChunk(cutoff));
+                    count += size;
+                    expired.add(size);
+                    chunks.increment();
+                    if (size == batchSize) {
+                        Thread.sleep(pauseMillis);
+                        if (!leaderLock.tryAcquire(LOCK, lease)) {
+                            log.warn("Lost the {} lock after expiring {} orders; stopping this run", LOCK, count);
+                            return count;
+                        }
+                    }
+                } while (size == batchSize);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            leaderLock.release(LOCK);
+            runs.increment();
+            lastRunExpired.set(count);
+            lastRunMillis.set((System.nanoTime() - start) / 1_000_000);
+        }
+        if (count > 0) {
+            log.info("Expired {} orders waiting for payment since before {} in {} ms", count, cutoff, lastRunMillis.get());
+        }
+        return count;
+    }
+
+    /** Cancela um bloco de pedidos vencidos na transação atual. */
+    private int expireChunk(Instant cutoff) {
+        List<Long> ids = namedJdbcTemplate.queryForList("SELECT id FROM tb_order WHERE order_status = :waiting AND moment < :cutoff "
+                        + "FETCH FIRST " + batchSize + " ROWS ONLY FOR UPDATE SKIP LOCKED",
+                Map.of("waiting", OrderStatus.WAITING_PAYMENT.getCode(), "cutoff", cutoff.atOffset(ZoneOffset.UTC)), Long.class);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        namedJdbcTemplate.update("UPDATE tb_order SET order_status = :canceled WHERE id IN (:ids) AND order_status = :waiting",
+                Map.of("canceled", OrderStatus.CANCELED.getCode(), "ids", ids, "waiting", OrderStatus.WAITING_PAYMENT.getCode()));
+        outbox.orderStatusChanged(ids, OrderStatus.WAITING_PAYMENT, OrderStatus.CANCELED);
+        auditLog.statusChanged(ids, OrderStatus.WAITING_PAYMENT, OrderStatus.CANCELED);
+        return ids.size();
+    }
+
+    /** Métricas da expiração: execuções, pedidos cancelados no total e na última execução. */
+    public Map<String, Number> stats() {
+        Map<String, Number> stats = new LinkedHashMap<>();
+        stats.put("runs", runs.sum());
+        stats.put("notLeaderRuns", notLeaderRuns.sum());
+        stats.put("expired", expired.sum());
+        stats.put("chunks", chunks.sum());
+        stats.put("lastRunExpired", lastRunExpired.get());
+        stats.put("lastRunMillis", lastRunMillis.get());
+        return stats;
+    }
+}
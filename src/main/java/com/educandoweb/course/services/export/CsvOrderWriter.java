@@ -0,0 +1,78 @@
+package com.educandoweb.course.services.export;
+
+import com.educandoweb.course.dto.OrderExportRow;
+import com.educandoweb.course.entities.Money;
+import com.educandoweb.course.enums.OrderStatus;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+/** Exportação em CSV (RFC 4180): uma linha por item, com os dados do pedido repetidos. */
+class CsvOrderWriter implements OrderRowWriter {
+
+    static final String HEADER = "order_id,moment,order_status,client_id,product_id,product_name,quantity,unit_price,currency,subtotal";
+
+    private final BufferedWriter out;
+
+    CsvOrderWriter(OutputStream target) throws IOException {
+        out = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), 1 << 16);
+        out.write(HEADER);
+        out.write("\r\n");
+    }
+
+    @Override
+    public void write(OrderExportRow row) throws IOException {
+        out.write(Long.toString(row.getOrderId()));
+        out.write(',');
+        out.write(row.getMoment().toString());
+        out.write(',');
+        out.write(OrderStatus.valueOf(row.getOrderStatus()).name());
+        out.write(',');
+        if (row.getClientId() != null) {
+            out.write(Long.toString(row.getClientId()));
+        }
+        out.write(',');
+        if (row.hasItem()) {
+            out.write(Long.toString(row.getProductId()));
+            out.write(',');
+            quote(row.getProductName());
+            out.write(',');
+            out.write(Integer.toString(row.getQuantity()));
+            out.write(',');
+            out.write(Money.toDecimal(row.getPriceMinor(), row.getCurrency()).toPlainString());
+            out.write(',');
+            out.write(row.getCurrency());
+            out.write(',');
+            out.write(Money.toDecimal(Money.times(row.getPriceMinor(), row.getQuantity()), row.getCurrency()).toPlainString());
+        } else {
+            out.write(",,,,,");
+        }
+        out.write("\r\n");
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.flush();
+    }
+
+    private void quote(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean needsQuotes = false;
+        for (int i = 0; i < value.length() && !needsQuotes; i++) {
+            char c = value.charAt(i);
+            needsQuotes = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!needsQuotes) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+}
@@ -0,0 +1,40 @@
+package com.educandoweb.course.services.export;
+
+import com.educandoweb.course.services.exceptions.BadRequestException;
+
+import java.util.Locale;
+
+/** Formatos da exportação de pedidos. */
+public enum ExportFormat {
+
+    /** Um objeto JSON por pedido e por linha, com os itens aninhados. */
+    NDJSON("application/x-ndjson", "ndjson"),
+
+    /** Uma linha por item de pedido (ou por pedido sem itens), com cabeçalho. */
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static ExportFormat parse(String value) {
+        for (ExportFormat format : values()) {
+            if (format.extension.equals(value.toLowerCase(Locale.ROOT))) {
+                return format;
+            }
+        }
+        throw new BadRequestException("Unsupported export format '" + value + "', expected ndjson or csv");
+    }
+}
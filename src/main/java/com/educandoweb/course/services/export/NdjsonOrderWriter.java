@@ -0,0 +1,101 @@
+package com.educandoweb.course.services.export;
+
+import com.educandoweb.course.dto.OrderExportRow;
+import com.educandoweb.course.entities.Money;
+import com.educandoweb.course.enums.OrderStatus;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Exportação em NDJSON: um pedido por linha, com os itens aninhados. Os itens são escritos à medida que chegam
+ * e o total vem depois deles, portanto nada do pedido fica retido além da soma corrente.
+ */
+class NdjsonOrderWriter implements OrderRowWriter {
+
+    private final JsonGenerator gen;
+
+    private Long orderId;
+    private String currency;
+    private long totalMinor;
+    private boolean mixedCurrencies;
+
+    NdjsonOrderWriter(JsonFactory factory, OutputStream target) throws IOException {
+        gen = factory.createGenerator(target);
+        gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        gen.setRootValueSeparator(new SerializedString("\n"));
+    }
+
+    @Override
+    public void write(OrderExportRow row) throws IOException {
+        if (!row.getOrderId().equals(orderId)) {
+            if (orderId != null) {
+                endOrder();
+            }
+            startOrder(row);
+        }
+        if (!row.hasItem()) {
+            return;
+        }
+        long subTotal = Money.times(row.getPriceMinor(), row.getQuantity());
+        if (currency == null) {
+            currency = row.getCurrency();
+        } else if (!currency.equals(row.getCurrency())) {
+            mixedCurrencies = true;
+        }
+        totalMinor = Money.plus(totalMinor, subTotal);
+
+        gen.writeStartObject();
+        gen.writeNumberField("productId", row.getProductId());
+        gen.writeStringField("productName", row.getProductName());
+        gen.writeNumberField("quantity", row.getQuantity());
+        gen.writeNumberField("price", Money.toDecimal(row.getPriceMinor(), row.getCurrency()));
+        gen.writeStringField("currency", row.getCurrency());
+        gen.writeNumberField("subTotal", Money.toDecimal(subTotal, row.getCurrency()));
+        gen.writeEndObject();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (orderId != null) {
+            endOrder();
+            // encerra a última linha
+            gen.writeRaw('\n');
+        }
+        gen.close();
+    }
+
+    private void startOrder(OrderExportRow row) throws IOException {
+        orderId = row.getOrderId();
+        currency = null;
+        totalMinor = 0L;
+        mixedCurrencies = false;
+        gen.writeStartObject();
+        gen.writeNumberField("id", orderId);
+        gen.writeStringField("moment", row.getMoment().toString());
+        gen.writeStringField("orderStatus", OrderStatus.valueOf(row.getOrderStatus()).name());
+        if (row.getClientId() != null) {
+            gen.writeNumberField("clientId", row.getClientId());
+        } else {
+            gen.writeNullField("clientId");
+        }
+        gen.writeArrayFieldStart("items");
+    }
+
+    private void endOrder() throws IOException {
+        gen.writeEndArray();
+        if (mixedCurrencies) {
+            // um total somando moedas diferentes não tem significado
+            gen.writeNullField("currency");
+            gen.writeNullField("total");
+        } else {
+            String orderCurrency = currency != null ? currency : Money.DEFAULT_CURRENCY;
+            gen.writeStringField("currency", orderCurrency);
+            gen.writeNumberField("total", Money.toDecimal(totalMinor, orderCurrency));
+        }
+        gen.writeEndObject();
+    }
+}
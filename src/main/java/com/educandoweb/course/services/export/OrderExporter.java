@@ -0,0 +1,111 @@
+package com.educandoweb.course.services.export;
+
+import com.educandoweb.course.dto.OrderExportRow;
+import com.educandoweb.course.repositories.OrderRepository;
+import com.educandoweb.course.services.archive.OrderArchive;
+import com.educandoweb.course.services.exceptions.BadRequestException;
+import com.educandoweb.course.sharding.Shards;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Exporta os pedidos de um período diretamente para um fluxo de saída, com memória constante: as linhas vêm de
+ * um cursor somente para frente ({@link OrderRepository#streamExportRows}) e são escritas assim que lidas, sem
+ * materializar pedidos nem listas. O contexto de persistência é limpo a cada {@code order-export.clear-interval}
+ * linhas, para que nada carregado durante a exportação se acumule na sessão. Com vários shards, cada shard é lido
+ * por um cursor próprio, em paralelo, e as linhas são intercaladas na ordem de ({@code moment}, {@code id}).
+ * Os pedidos arquivados só entram quando pedidos explicitamente ({@link OrderArchive#streamExportRows}).
+ */
+@Service
+public class OrderExporter {
+
+    /** Ordem da exportação; as linhas de um pedido são consecutivas porque todas vêm do mesmo shard. */
+    private static final Comparator<OrderExportRow> EXPORT_ORDER =
+            Comparator.comparing(OrderExportRow::getMoment).thenComparing(OrderExportRow::getOrderId);
+
+    @Autowired
+    private OrderRepository repository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private OrderArchive archive;
+
+    @Autowired
+    private Shards shards;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${order-export.clear-interval:1000}")
+    private int clearInterval;
+
+    /**
+     * Interpreta um limite do período, informado como instante ISO-8601 ({@code 2019-06-20T19:53:07Z}) ou data
+     * ({@code 2019-06-20}, meia-noite UTC).
+     *
+     * @param fallback Valor usado quando o limite não é informado.
+     */
+    public static Instant parseBound(String value, Instant fallback) {
+        if (value == null || value.isBlank()) {
+            return fallback;
+        }
+        try {
+            return value.length() == 10 ? LocalDate.parse(value).atStartOfDay(ZoneOffset.UTC).toInstant() : Instant.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Invalid date '" + value + "', expected ISO-8601 such as 2019-06-20 or 2019-06-20T19:53:07Z");
+        }
+    }
+
+    /**
+     * Escreve os pedidos com {@code from <= moment < to} em ordem de momento.
+     *
+     * @param archived Inclui os pedidos arquivados.
+     * @return Quantidade de linhas lidas do banco.
+     */
+    @Transactional(readOnly = true)
+    public long export(Instant from, Instant to, boolean archived, ExportFormat format, OutputStream out) throws IOException {
+        if (!from.isBefore(to)) {
+            throw new BadRequestException("'from' must be before 'to'");
+        }
+        long rows = 0;
+        try (Stream<OrderExportRow> stream = shards.merge(EXPORT_ORDER, shard -> archived
+                ? archive.streamExportRows(from, to)
+                : clearing(repository.streamExportRows(from, to)));
+             OrderRowWriter writer = format == ExportFormat.CSV
+                     ? new CsvOrderWriter(out)
+                     : new NdjsonOrderWriter(objectMapper.getFactory(), out)) {
+            Iterator<OrderExportRow> it = stream.iterator();
+            while (it.hasNext()) {
+                writer.write(it.next());
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    /** Limpa o contexto de persistência da transação que lê o cursor, na thread que o lê. */
+    private Stream<OrderExportRow> clearing(Stream<OrderExportRow> rows) {
+        long[] read = new long[1];
+        return rows.peek(row -> {
+            if (++read[0] % clearInterval == 0) {
+                entityManager.clear();
+            }
+        });
+    }
+}
@@ -0,0 +1,15 @@
+package com.educandoweb.course.services.export;
+
+import com.educandoweb.course.dto.OrderExportRow;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Escreve as linhas da exportação, recebidas em ordem de pedido, assim que chegam. {@link #close()} conclui o
+ * último pedido e descarrega o buffer sem fechar o fluxo de destino.
+ */
+interface OrderRowWriter extends Closeable {
+
+    void write(OrderExportRow row) throws IOException;
+}
@@ -0,0 +1,485 @@
+package com.educandoweb.course.services.importer;
+
+import com.educandoweb.course.dto.ImportReport;
+import com.educandoweb.course.entities.Category;
+import com.educandoweb.course.entities.Money;
+import com.educandoweb.course.repositories.CategoryRepository;
+import com.educandoweb.course.services.catalog.Catalog;
+import com.educandoweb.course.services.exceptions.BadRequestException;
+import com.educandoweb.course.services.lookup.IdFilters;
+import com.educandoweb.course.sharding.ReferenceReplicator;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Importa produtos de um CSV lido incrementalmente, gravando em lotes com JDBC.
+ *
+ * Colunas (cabeçalho obrigatório, em qualquer ordem): {@code name} e {@code price} obrigatórias;
+ * {@code id}, {@code description}, {@code currency} (padrão {@value Money#DEFAULT_CURRENCY}), {@code img_url} e
+ * {@code categories} (nomes separados por {@code |}) opcionais. Linhas com {@code id} atualizam o produto
+ * existente e, se a coluna {@code categories} estiver presente, substituem suas categorias; linhas sem
+ * {@code id} inserem um produto novo. Nomes de categoria são resolvidos por um mapa em memória carregado no
+ * início; categorias desconhecidas rejeitam a linha.
+ *
+ * Cada lote de {@code product-import.batch-size} linhas é gravado em uma transação própria, com comandos em
+ * lote. Se um lote falhar no banco, suas linhas são regravadas uma a uma para isolar as que causaram o erro. As
+ * linhas inválidas são relatadas com o número da linha e não interrompem a importação.
+ *
+ * As escritas não passam pelo Hibernate: o filtro de ids de produtos e a cópia dos produtos nos demais shards são
+ * atualizados a cada lote, e o catálogo em memória ao final (relendo os produtos alterados, ou tudo quando são
+ * muitos).
+ */
+@Service
+public class ProductImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductImporter.class);
+
+    private static final String INSERT_PRODUCT =
+            "INSERT INTO tb_product (name, description, price_minor, currency, img_url) VALUES (?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_PRODUCT =
+            "UPDATE tb_product SET name = ?, description = ?, price_minor = ?, currency = ?, img_url = ? WHERE id = ?";
+
+    private static final String INSERT_LINK = "INSERT INTO tb_product_category (category_id, product_id) VALUES (?, ?)";
+
+    private static final int MAX_TEXT = 255;
+
+    /** Acima desta quantidade de produtos alterados o catálogo é recarregado inteiro. */
+    private static final int MAX_CATALOG_REFRESH = 10_000;
+
+    private static final int PROGRESS_INTERVAL = 100_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private Catalog catalog;
+
+    @Autowired
+    private IdFilters idFilters;
+
+    @Autowired(required = false)
+    private ReferenceReplicator replicator;
+
+    @Value("${product-import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${product-import.max-errors:1000}")
+    private int maxErrors;
+
+    private TransactionTemplate transaction;
+
+    @PostConstruct
+    public void init() {
+        transaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Importa o CSV lido do fluxo informado, em UTF-8.
+     *
+     * @throws BadRequestException se o cabeçalho for inválido ou o arquivo estiver malformado.
+     */
+    public ImportReport importCsv(InputStream in) throws IOException {
+        long start = System.nanoTime();
+        CsvReader reader = new CsvReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+        Columns columns;
+        try {
+            columns = Columns.of(reader.next());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+        Map<String, Long> categories = new HashMap<>();
+        for (Category category : categoryRepository.findAll()) {
+            categories.putIfAbsent(key(category.getName()), category.getId());
+        }
+
+        ImportReport report = new ImportReport(maxErrors);
+        Touched touched = new Touched();
+        List<Row> chunk = new ArrayList<>(batchSize);
+        Set<Long> chunkIds = new HashSet<>();
+        List<String> record;
+        try {
+            while ((record = reader.next()) != null) {
+                if (record.size() == 1 && record.get(0).isBlank()) {
+                    continue;
+                }
+                report.processed();
+                long line = reader.recordLine();
+                try {
+                    Row row = columns.parse(line, record, categories);
+                    if (row.id != null && !chunkIds.add(row.id)) {
+                        // a segunda atualização do mesmo produto vai para o próximo lote
+                        flush(chunk, report, touched);
+                        chunkIds.clear();
+                        chunkIds.add(row.id);
+                    }
+                    chunk.add(row);
+                } catch (IllegalArgumentException e) {
+                    report.failed(line, e.getMessage());
+                }
+                if (chunk.size() == batchSize) {
+                    flush(chunk, report, touched);
+                    chunkIds.clear();
+                }
+                if (report.getProcessed() % PROGRESS_INTERVAL == 0) {
+                    log.info("Product import: {} rows processed ({} inserted, {} updated, {} failed)",
+                            report.getProcessed(), report.getInserted(), report.getUpdated(), report.getFailed());
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // arquivo malformado (aspas sem fechamento): o que foi lido até aqui é gravado e o erro relatado
+            report.failed(reader.recordLine(), e.getMessage());
+        } finally {
+            flush(chunk, report, touched);
+            touched.refresh(catalog);
+        }
+        report.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+        log.info("Product import finished: {} rows, {} inserted, {} updated, {} failed in {} ms", report.getProcessed(),
+                report.getInserted(), report.getUpdated(), report.getFailed(), report.getElapsedMillis());
+        return report;
+    }
+
+    private void flush(List<Row> chunk, ImportReport report, Touched touched) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            Written written = transaction.execute(status -> write(chunk));
+            for (Row row : written.missing) {
+                report.failed(row.line, "Product " + row.id + " not found");
+            }
+            report.inserted(written.inserted.size());
+            report.updated(written.updated.size());
+            written.inserted.forEach(idFilters.products()::add);
+            touched.addAll(written.inserted);
+            touched.addAll(written.updated);
+            if (replicator != null) {
+                List<Long> changed = new ArrayList<>(written.inserted);
+                changed.addAll(written.updated);
+                replicator.replicate(List.of(), changed, List.of());
+            }
+        } catch (DataAccessException | TransactionException e) {
+            if (chunk.size() == 1) {
+                report.failed(chunk.get(0).line, NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+            } else {
+                for (Row row : chunk) {
+                    flush(new ArrayList<>(List.of(row)), report, touched);
+                }
+            }
+        }
+        chunk.clear();
+    }
+
+    private Written write(List<Row> chunk) {
+        Written written = new Written();
+        List<Row> inserts = new ArrayList<>();
+        List<Row> updates = new ArrayList<>();
+        Set<Long> existing = new HashSet<>();
+        List<Long> ids = chunk.stream().filter(r -> !r.insert).map(r -> r.id).toList();
+        if (!ids.isEmpty()) {
+            existing.addAll(namedJdbcTemplate.queryForList("SELECT id FROM tb_product WHERE id IN (:ids)",
+                    Map.of("ids", ids), Long.class));
+        }
+        for (Row row : chunk) {
+            if (row.insert) {
+                inserts.add(row);
+            } else if (existing.contains(row.id)) {
+                updates.add(row);
+            } else {
+                written.missing.add(row);
+            }
+        }
+
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_PRODUCT, updates, updates.size(), (ps, row) -> {
+                bindProduct(ps, row);
+                ps.setLong(6, row.id);
+            });
+            List<Long> relinked = updates.stream().filter(r -> r.categoryIds != null).map(r -> r.id).toList();
+            if (!relinked.isEmpty()) {
+                namedJdbcTemplate.update("DELETE FROM tb_product_category WHERE product_id IN (:ids)", Map.of("ids", relinked));
+            }
+            updates.forEach(r -> written.updated.add(r.id));
+        }
+        if (!inserts.isEmpty()) {
+            insert(inserts);
+            inserts.forEach(r -> written.inserted.add(r.id));
+        }
+
+        List<Object[]> links = new ArrayList<>();
+        for (Row row : chunk) {
+            if (row.categoryIds != null && row.id != null && !written.missing.contains(row)) {
+                for (long categoryId : row.categoryIds) {
+                    links.add(new Object[]{categoryId, row.id});
+                }
+            }
+        }
+        if (!links.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_LINK, links);
+        }
+        return written;
+    }
+
+    /** Insere em lote e atribui a cada linha o id gerado, na ordem do lote. */
+    private void insert(List<Row> inserts) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_PRODUCT, new String[]{"id"})) {
+                for (Row row : inserts) {
+                    bindProduct(ps, row);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    for (Row row : inserts) {
+                        if (!keys.next()) {
+                            throw new IllegalStateException("Driver returned fewer generated keys than inserted rows");
+                        }
+                        row.id = keys.getLong(1);
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    private static void bindProduct(PreparedStatement ps, Row row) throws SQLException {
+        ps.setString(1, row.name);
+        setNullableString(ps, 2, row.description);
+        ps.setLong(3, row.priceMinor);
+        ps.setString(4, row.currency);
+        setNullableString(ps, 5, row.imgUrl);
+    }
+
+    private static void setNullableString(PreparedStatement ps, int index, String value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.VARCHAR);
+        } else {
+            ps.setString(index, value);
+        }
+    }
+
+    private static String key(String name) {
+        return name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /** Posição de cada coluna conhecida no cabeçalho, ou -1. */
+    private static final class Columns {
+        int id = -1;
+        int name = -1;
+        int description = -1;
+        int price = -1;
+        int currency = -1;
+        int imgUrl = -1;
+        int categories = -1;
+        int count;
+
+        static Columns of(List<String> header) {
+            if (header == null) {
+                throw new IllegalArgumentException("Empty file: a header line is required");
+            }
+            Columns c = new Columns();
+            c.count = header.size();
+            for (int i = 0; i < header.size(); i++) {
+                String column = header.get(i).trim().toLowerCase(Locale.ROOT);
+                if (i == 0 && !column.isEmpty() && column.charAt(0) == '\uFEFF') {
+                    column = column.substring(1);
+                }
+                switch (column) {
+                    case "id" -> c.id = c.set(c.id, i, column);
+                    case "name" -> c.name = c.set(c.name, i, column);
+                    case "description" -> c.description = c.set(c.description, i, column);
+                    case "price" -> c.price = c.set(c.price, i, column);
+                    case "currency" -> c.currency = c.set(c.currency, i, column);
+                    case "img_url", "imgurl" -> c.imgUrl = c.set(c.imgUrl, i, column);
+                    case "categories" -> c.categories = c.set(c.categories, i, column);
+                    default -> throw new IllegalArgumentException("Unknown column '" + header.get(i) + "'");
+                }
+            }
+            if (c.name < 0 || c.price < 0) {
+                throw new IllegalArgumentException("Columns 'name' and 'price' are required");
+            }
+            return c;
+        }
+
+        private int set(int current, int index, String column) {
+            if (current >= 0) {
+                throw new IllegalArgumentException("Duplicate column '" + column + "'");
+            }
+            return index;
+        }
+
+        Row parse(long line, List<String> record, Map<String, Long> categoryIds) {
+            if (record.size() != count) {
+                throw new IllegalArgumentException("Expected " + count + " fields but found " + record.size());
+            }
+            Row row = new Row(line);
+            String id = optional(record, this.id);
+            row.insert = id == null;
+            if (id != null) {
+                try {
+                    row.id = Long.valueOf(id);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid id '" + id + "'");
+                }
+                if (row.id <= 0) {
+                    throw new IllegalArgumentException("Invalid id '" + id + "'");
+                }
+            }
+            row.name = text(optional(record, name), "name");
+            if (row.name == null) {
+                throw new IllegalArgumentException("Name is required");
+            }
+            row.description = text(optional(record, description), "description");
+            row.imgUrl = text(optional(record, imgUrl), "img_url");
+
+            String code = optional(record, currency);
+            row.currency = code != null ? code.toUpperCase(Locale.ROOT) : Money.DEFAULT_CURRENCY;
+            try {
+                Currency.getInstance(row.currency);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid currency '" + code + "'");
+            }
+            String amount = optional(record, price);
+            if (amount == null) {
+                throw new IllegalArgumentException("Price is required");
+            }
+            BigDecimal value;
+            try {
+                value = new BigDecimal(amount);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid price '" + amount + "'");
+            }
+            if (value.signum() < 0 || value.stripTrailingZeros().scale() > Money.fractionDigits(row.currency)) {
+                throw new IllegalArgumentException("Invalid price '" + amount + "' for " + row.currency);
+            }
+            try {
+                row.priceMinor = Money.toMinor(value, row.currency);
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("Price '" + amount + "' is out of range");
+            }
+
+            if (categories >= 0) {
+                Set<Long> ids = new LinkedHashSet<>();
+                String names = record.get(categories);
+                if (!names.isBlank()) {
+                    for (String name : names.split("\\|")) {
+                        Long categoryId = categoryIds.get(key(name));
+                        if (categoryId == null) {
+                            throw new IllegalArgumentException("Unknown category '" + name.trim() + "'");
+                        }
+                        ids.add(categoryId);
+                    }
+                }
+                row.categoryIds = ids.stream().mapToLong(Long::longValue).toArray();
+            }
+            return row;
+        }
+
+        private static String optional(List<String> record, int index) {
+            if (index < 0) {
+                return null;
+            }
+            String value = record.get(index).trim();
+            return value.isEmpty() ? null : value;
+        }
+
+        private static String text(String value, String column) {
+            if (value != null && value.length() > MAX_TEXT) {
+                throw new IllegalArgumentException("Column '" + column + "' is longer than " + MAX_TEXT + " characters");
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Linha validada; {@code id} recebe o id gerado depois da inserção. A intenção fica em {@code insert}, e não
+     * em {@code id == null}: se o lote for desfeito depois da inserção, a regravação linha a linha insere de novo.
+     */
+    private static final class Row {
+        final long line;
+        boolean insert;
+        Long id;
+        String name;
+        String description;
+        String imgUrl;
+        String currency;
+        long priceMinor;
+        /** Categorias da linha; {@code null} quando o arquivo não tem a coluna. */
+        long[] categoryIds;
+
+        Row(long line) {
+            this.line = line;
+        }
+    }
+
+    private static final class Written {
+        final List<Row> missing = new ArrayList<>();
+        final List<Long> inserted = new ArrayList<>();
+        final List<Long> updated = new ArrayList<>();
+    }
+
+    /** Produtos alterados, para o catálogo; além do limite, apenas indica que tudo deve ser relido. */
+    private static final class Touched {
+        private final Set<Long> ids = new HashSet<>();
+        private boolean all;
+
+        void addAll(List<Long> changed) {
+            if (!all) {
+                ids.addAll(changed);
+                if (ids.size() > MAX_CATALOG_REFRESH) {
+                    all = true;
+                    ids.clear();
+                }
+            }
+        }
+
+        void refresh(Catalog catalog) {
+            if (all) {
+                catalog.load();
+            } else {
+                catalog.refresh(ids, List.of());
+            }
+        }
+    }
+}
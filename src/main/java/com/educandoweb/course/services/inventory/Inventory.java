@@ -0,0 +1,314 @@
+package com.educandoweb.course.services.inventory;
+
+import com.educandoweb.course.dto.StockLevel;
+import com.educandoweb.course.services.exceptions.BadRequestException;
+import com.educandoweb.course.services.exceptions.OutOfStockException;
+import com.educandoweb.course.services.exceptions.ResourceNotFoundException;
+import com.educandoweb.course.sharding.Shards;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Estoque por produto e reservas de unidades, guardados em {@code tb_inventory} (no shard 0, quando há vários).
+ *
+ * Com {@code inventory.in-memory=true} (padrão) o estoque de cada produto é carregado na primeira consulta e as
+ * reservas passam a ser contadas em memória, em um {@link StripedStock} por produto, sem transação nem trava de
+ * linha: um produto em promoção deixa de serializar todos os pedidos em um único {@code UPDATE}. Os valores
+ * alterados são gravados em lote a cada {@code inventory.flush-interval-ms} e no encerramento. Esse modo supõe que
+ * esta instância é a única a alterar {@code tb_inventory}, e uma queda perde as alterações desde a última gravação
+ * (reservas perdidas deixam à venda unidades já vendidas); por isso o perfil {@code prd} o desliga.
+ *
+ * Com {@code inventory.in-memory=false} cada operação é um {@code UPDATE} condicional no banco, que também nunca
+ * deixa o estoque negativo e serve a várias instâncias.
+ */
+@Component
+public class Inventory {
+
+    private static final Logger log = LoggerFactory.getLogger(Inventory.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private Shards shards;
+
+    @Value("${inventory.in-memory:true}")
+    private boolean inMemory;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    private final LongAdder reservations = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder releases = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushFailures = new LongAdder();
+
+    /**
+     * Reserva unidades de um produto.
+     *
+     * @throws OutOfStockException Se não há {@code quantity} unidades disponíveis; nada é reservado.
+     */
+    public void reserve(Long productId, long quantity) {
+        checkQuantity(quantity);
+        boolean reserved = inMemory ? entry(productId).reserve(quantity) : shards.write(0, () -> reserveRow(productId, quantity));
+        if (!reserved) {
+            rejections.increment();
+            throw new OutOfStockException(productId, quantity);
+        }
+        reservations.increment();
+    }
+
+    /**
+     * Reserva as quantidades de vários produtos, como os itens de um pedido: ou todas são reservadas, ou nenhuma.
+     *
+     * @throws OutOfStockException Se algum produto não tem a quantidade pedida.
+     */
+    public void reserveAll(Map<Long, Long> quantities) {
+        if (!inMemory) {
+            quantities.values().forEach(Inventory::checkQuantity);
+            shards.write(0, () -> {
+                // todas as linhas na mesma transação: a exceção desfaz as reservas já feitas
+                quantities.forEach((productId, quantity) -> {
+                    if (!reserveRow(productId, quantity)) {
+                        rejections.increment();
+                        throw new OutOfStockException(productId, quantity);
+                    }
+                });
+                return null;
+            });
+            reservations.add(quantities.size());
+            return;
+        }
+        Map<Long, Long> done = new LinkedHashMap<>();
+        try {
+            quantities.forEach((productId, quantity) -> {
+                reserve(productId, quantity);
+                done.put(productId, quantity);
+            });
+        } catch (RuntimeException e) {
+            done.forEach(this::release);
+            throw e;
+        }
+    }
+
+    /**
+     * Devolve ao estoque disponível unidades reservadas de um produto, como no cancelamento de um pedido.
+     *
+     * @throws BadRequestException Se o produto não tem {@code quantity} unidades reservadas.
+     */
+    public void release(Long productId, long quantity) {
+        checkQuantity(quantity);
+        boolean released = inMemory ? entry(productId).release(quantity) : shards.write(0, () -> jdbcTemplate.update(
+                "UPDATE tb_inventory SET available = available + ?, reserved = reserved - ? WHERE product_id = ? AND reserved >= ?",
+                quantity, quantity, productId, quantity) > 0 || absent(productId));
+        if (!released) {
+            throw new BadRequestException("Product " + productId + " does not have " + quantity + " units reserved");
+        }
+        releases.increment();
+    }
+
+    /** Acrescenta unidades ao estoque disponível de um produto. */
+    public StockLevel addStock(Long productId, long quantity) {
+        checkQuantity(quantity);
+        if (inMemory) {
+            entry(productId).add(quantity);
+        } else {
+            shards.write(0, () -> {
+                if (jdbcTemplate.update("UPDATE tb_inventory SET available = available + ? WHERE product_id = ?", quantity, productId) == 0) {
+                    load(productId);
+                    jdbcTemplate.update("INSERT INTO tb_inventory (product_id, available, reserved) VALUES (?, ?, 0)", productId, quantity);
+                }
+                return null;
+            });
+        }
+        return stock(productId);
+    }
+
+    /** Estoque disponível e reservado de um produto. */
+    public StockLevel stock(Long productId) {
+        if (inMemory) {
+            Entry entry = entry(productId);
+            return new StockLevel(productId, entry.available.sum(), entry.reserved.sum());
+        }
+        long[] row = shards.read(0, () -> load(productId));
+        return new StockLevel(productId, row[0], row[1]);
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.flush-interval-ms:200}", initialDelayString = "${inventory.flush-interval-ms:200}")
+    public void run() {
+        if (inMemory) {
+            flush();
+        }
+    }
+
+    /**
+     * Grava no banco, em lote, o estoque dos produtos alterados desde a última gravação. Se a gravação falhar, os
+     * produtos continuam marcados e são gravados na próxima.
+     *
+     * @return Quantidade de produtos gravados.
+     */
+    public synchronized int flush() {
+        List<Entry> dirty = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            if (entry.dirty.getAndSet(false)) {
+                dirty.add(entry);
+            }
+        }
+        if (dirty.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> rows = new ArrayList<>(dirty.size());
+        for (Entry entry : dirty) {
+            // cada soma é não negativa, ainda que as duas não formem um instantâneo; a próxima gravação corrige
+            rows.add(new Object[]{entry.available.sum(), entry.reserved.sum(), entry.productId});
+        }
+        try {
+            shards.write(0, () -> {
+                int[] updated = jdbcTemplate.batchUpdate("UPDATE tb_inventory SET available = ?, reserved = ? WHERE product_id = ?", rows);
+                List<Object[]> missing = new ArrayList<>();
+                for (int i = 0; i < updated.length; i++) {
+                    if (updated[i] == 0) {
+                        Object[] row = rows.get(i);
+                        missing.add(new Object[]{row[2], row[0], row[1]});
+                    }
+                }
+                if (!missing.isEmpty()) {
+                    jdbcTemplate.batchUpdate("INSERT INTO tb_inventory (product_id, available, reserved) VALUES (?, ?, ?)", missing);
+                }
+                return null;
+            });
+            flushes.increment();
+        } catch (RuntimeException e) {
+            flushFailures.increment();
+            dirty.forEach(entry -> entry.dirty.set(true));
+            log.warn("Could not write back the stock of {} products; retrying on the next flush", dirty.size(), e);
+            return 0;
+        }
+        return dirty.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (inMemory) {
+            flush();
+        }
+    }
+
+    /** Métricas do estoque: produtos em memória, reservas aceitas e recusadas, devoluções e gravações. */
+    public Map<String, Number> stats() {
+        Map<String, Number> stats = new LinkedHashMap<>();
+        stats.put("products", entries.size());
+        stats.put("reservations", reservations.sum());
+        stats.put("rejections", rejections.sum());
+        stats.put("releases", releases.sum());
+        stats.put("flushes", flushes.sum());
+        stats.put("flushFailures", flushFailures.sum());
+        stats.put("dirtyProducts", entries.values().stream().filter(entry -> entry.dirty.get()).count());
+        return stats;
+    }
+
+    private Entry entry(Long productId) {
+        Entry entry = entries.get(productId);
+        if (entry != null) {
+            return entry;
+        }
+        long[] row = shards.read(0, () -> load(productId));
+        Entry loaded = new Entry(productId, row[0], row[1]);
+        entry = entries.putIfAbsent(productId, loaded);
+        return entry != null ? entry : loaded;
+    }
+
+    /** Estoque gravado do produto; zero se ainda não há linha em {@code tb_inventory}. */
+    private long[] load(Long productId) {
+        List<long[]> rows = jdbcTemplate.query("SELECT COALESCE(i.available, 0), COALESCE(i.reserved, 0) FROM tb_product p "
+                        + "LEFT JOIN tb_inventory i ON i.product_id = p.id WHERE p.id = ?",
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)}, productId);
+        if (rows.isEmpty()) {
+            throw new ResourceNotFoundException(productId);
+        }
+        return rows.get(0);
+    }
+
+    /**
+     * Reserva com um {@code UPDATE} condicional, na transação corrente do shard 0. Não abre transação própria:
+     * com vários shards {@link Shards#write} exige uma nova, que seria confirmada separadamente.
+     */
+    private boolean reserveRow(Long productId, long quantity) {
+        return jdbcTemplate.update(
+                "UPDATE tb_inventory SET available = available - ?, reserved = reserved + ? WHERE product_id = ? AND available >= ?",
+                quantity, quantity, productId, quantity) > 0 || absent(productId);
+    }
+
+    /** Falha com {@link ResourceNotFoundException} se o produto não existe; senão, {@code false}. */
+    private boolean absent(Long productId) {
+        load(productId);
+        return false;
+    }
+
+    private static void checkQuantity(long quantity) {
+        if (quantity <= 0) {
+            throw new BadRequestException("Quantity must be positive");
+        }
+    }
+
+    private static final class Entry {
+
+        private final Long productId;
+
+        private final StripedStock available;
+
+        private final StripedStock reserved;
+
+        private final AtomicBoolean dirty = new AtomicBoolean();
+
+        Entry(Long productId, long available, long reserved) {
+            this.productId = productId;
+            this.available = new StripedStock(available, StripedStock.defaultStripes());
+            this.reserved = new StripedStock(reserved, StripedStock.defaultStripes());
+        }
+
+        boolean reserve(long quantity) {
+            if (!available.tryTake(quantity)) {
+                return false;
+            }
+            reserved.put(quantity);
+            markDirty();
+            return true;
+        }
+
+        boolean release(long quantity) {
+            if (!reserved.tryTake(quantity)) {
+                return false;
+            }
+            available.put(quantity);
+            markDirty();
+            return true;
+        }
+
+        void add(long quantity) {
+            available.put(quantity);
+            markDirty();
+        }
+
+        /** Evita a escrita volátil quando o produto já está marcado, o caso comum em um produto disputado. */
+        private void markDirty() {
+            if (!dirty.get()) {
+                dirty.set(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.educandoweb.course.services.inventory;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Contador de unidades que nunca fica negativo, dividido em faixas para suportar muitas threads disputando o
+ * mesmo produto.
+ *
+ * Cada thread começa pela sua faixa e retira as unidades com compare-and-set, sem bloqueio; se a faixa não tem o
+ * suficiente, tenta as demais. Só quando nenhuma faixa sozinha tem a quantidade pedida (perto do fim do estoque
+ * ou em pedidos grandes) a retirada segue um caminho serializado, que esvazia as faixas até reunir a quantidade
+ * e devolve a sobra à faixa da thread. Como toda unidade sai de uma faixa por uma operação atômica que não passa
+ * de zero, a soma das retiradas nunca excede o que foi depositado. Uma retirada pode ser recusada enquanto outra
+ * reúne unidades ou logo antes de uma devolução concorrente, mas nunca concedida sem unidades.
+ *
+ * As faixas ficam em posições espaçadas de 128 bytes do mesmo array, para que faixas vizinhas não compartilhem
+ * linha de cache.
+ */
+public final class StripedStock {
+
+    /** Distância, em longs, entre duas faixas. */
+    private static final int PAD = 16;
+
+    private final AtomicLongArray cells;
+
+    private final int mask;
+
+    private final ReentrantLock gatherLock = new ReentrantLock();
+
+    /**
+     * @param units   Unidades iniciais, distribuídas entre as faixas.
+     * @param stripes Quantidade de faixas, arredondada para a potência de 2 seguinte.
+     */
+    public StripedStock(long units, int stripes) {
+        int size = 1;
+        while (size < stripes) {
+            size <<= 1;
+        }
+        this.cells = new AtomicLongArray(size * PAD);
+        this.mask = size - 1;
+        for (int stripe = 0; stripe < size; stripe++) {
+            cells.set(stripe * PAD, units / size + (stripe == 0 ? units % size : 0));
+        }
+    }
+
+    /** Quantidade de faixas padrão: uma por processador, até 64. */
+    public static int defaultStripes() {
+        return Math.min(Runtime.getRuntime().availableProcessors(), 64);
+    }
+
+    /**
+     * Retira {@code units} unidades, se houver.
+     *
+     * @return {@code false} se não há unidades suficientes; nesse caso nada é retirado.
+     */
+    public boolean tryTake(long units) {
+        int home = home();
+        for (int i = 0; i <= mask; i++) {
+            if (takeFrom((home + i) & mask, units)) {
+                return true;
+            }
+        }
+        return gather(units, home);
+    }
+
+    /** Deposita {@code units} unidades na faixa da thread. */
+    public void put(long units) {
+        cells.getAndAdd(home() * PAD, units);
+    }
+
+    /** Total de unidades. Não é um instantâneo atômico enquanto houver retiradas concorrentes. */
+    public long sum() {
+        long sum = 0;
+        for (int stripe = 0; stripe <= mask; stripe++) {
+            sum += cells.get(stripe * PAD);
+        }
+        return sum;
+    }
+
+    private boolean takeFrom(int stripe, long units) {
+        int index = stripe * PAD;
+        long current;
+        do {
+            current = cells.get(index);
+            if (current < units) {
+                return false;
+            }
+        } while (!cells.compareAndSet(index, current, current - units));
+        return true;
+    }
+
+    /** Caminho serializado: esvazia faixas até reunir {@code units} e devolve a sobra à faixa {@code home}. */
+    private boolean gather(long units, int home) {
+        gatherLock.lock();
+        try {
+            long gathered = 0;
+            for (int i = 0; i <= mask && gathered < units; i++) {
+                gathered += cells.getAndSet(((home + i) & mask) * PAD, 0);
+            }
+            boolean taken = gathered >= units;
+            long rest = taken ? gathered - units : gathered;
+            if (rest > 0) {
+                cells.getAndAdd(home * PAD, rest);
+            }
+            return taken;
+        } finally {
+            gatherLock.unlock();
+        }
+    }
+
+    private int home() {
+        int h = System.identityHashCode(Thread.currentThread());
+        h ^= h >>> 16;
+        h *= 0x45d9f3b;
+        h ^= h >>> 16;
+        return h & mask;
+    }
+}
@@ -0,0 +1,129 @@
+package com.educandoweb.course.services.lookup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Filtro de existência de identificadores baseado em um bitset compacto sobre a faixa de ids.
+ *
+ * Como os ids das entidades são gerados por IDENTITY e portanto densos, cada id ocupa um único bit.
+ * Um bit desligado garante que o id não existe, permitindo responder 404 sem consultar o banco.
+ * Um bit ligado significa apenas "talvez exista": a consulta ao banco continua sendo a fonte da verdade.
+ *
+ * O bitset cobre no máximo os ids até {@link #DEFAULT_MAX_ID} (8 MB), para que um único id muito alto não
+ * aloque um array do tamanho da faixa inteira: acima do limite o filtro não guarda nada e responde sempre
+ * "talvez exista".
+ *
+ * Leituras não usam bloqueio; escritas são serializadas e publicam um novo array quando o filtro cresce.
+ */
+public class IdExistenceFilter {
+
+    /** Maior id coberto por padrão. */
+    public static final long DEFAULT_MAX_ID = (1L << 26) - 1;
+
+    private final long maxId;
+
+    private volatile long[] words = new long[0];
+
+    private volatile boolean loaded;
+
+    public IdExistenceFilter() {
+        this(DEFAULT_MAX_ID);
+    }
+
+    /**
+     * @param maxId Maior id coberto pelo bitset; ids acima dele "talvez existam".
+     */
+    public IdExistenceFilter(long maxId) {
+        this.maxId = maxId;
+    }
+
+    /**
+     * Indica se o id pode existir. Antes da carga inicial e para ids acima do limite o filtro responde sempre
+     * {@code true}.
+     *
+     * @param id Identificador consultado.
+     * @return {@code false} somente quando é certo que o id não existe.
+     */
+    public boolean mightContain(Long id) {
+        if (!loaded || id == null || id > maxId) {
+            return true;
+        }
+        if (id <= 0) {
+            return false;
+        }
+        long[] w = words;
+        int index = wordIndex(id);
+        if (index >= w.length) {
+            return false;
+        }
+        return (w[index] & (1L << id)) != 0;
+    }
+
+    /**
+     * Remove ids repetidos e ids certamente inexistentes, preservando a ordem original.
+     *
+     * @param ids Identificadores pedidos.
+     * @return Identificadores que ainda precisam ser buscados no banco.
+     */
+    public List<Long> candidates(Collection<Long> ids) {
+        List<Long> result = new ArrayList<>(ids.size());
+        for (Long id : new LinkedHashSet<>(ids)) {
+            if (mightContain(id)) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    /** Marca o id como existente. Ids acima do limite são ignorados. */
+    public synchronized void add(Long id) {
+        if (id == null || id <= 0 || id > maxId) {
+            return;
+        }
+        int index = wordIndex(id);
+        long[] w = words;
+        if (index >= w.length) {
+            w = Arrays.copyOf(w, (int) Math.min(Math.max(index + 1, w.length * 2L), wordIndex(maxId) + 1L));
+        }
+        w[index] |= 1L << id;
+        words = w;
+    }
+
+    /** Marca o id como inexistente. */
+    public synchronized void remove(Long id) {
+        if (id == null || id <= 0 || id > maxId) {
+            return;
+        }
+        int index = wordIndex(id);
+        long[] w = words;
+        if (index < w.length) {
+            w[index] &= ~(1L << id);
+            words = w;
+        }
+    }
+
+    /**
+     * Carrega os ids existentes e habilita o filtro. Os bits já marcados por inserções concorrentes são preservados.
+     *
+     * @param ids Identificadores atualmente persistidos.
+     */
+    public synchronized void load(Collection<Long> ids) {
+        for (Long id : ids) {
+            add(id);
+        }
+        loaded = true;
+    }
+
+    /** Indica se a carga inicial já foi realizada. */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    private static int wordIndex(long id) {
+        return (int) (id >>> 6);
+    }
+}
@@ -0,0 +1,93 @@
+package com.educandoweb.course.services.lookup;
+
+import com.educandoweb.course.entities.Category;
+import com.educandoweb.course.entities.Order;
+import com.educandoweb.course.entities.Product;
+import com.educandoweb.course.entities.User;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Mantém os {@link IdFilters} a par das escritas feitas pelo JPA nesta instância, pelos eventos do Hibernate.
+ *
+ * Um id inserido é marcado imediatamente: um bit ligado a mais só custa uma consulta, e a entidade já precisa
+ * ser encontrada antes do commit. Um id excluído só é desmarcado depois do commit, para que uma exclusão desfeita
+ * não passe a responder 404. Escritas por JDBC (como a importação de produtos) atualizam os filtros diretamente.
+ */
+@Component
+public class IdFilterListener implements PostInsertEventListener, PostDeleteEventListener {
+
+    @Autowired
+    private IdFilters idFilters;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        IdExistenceFilter filter = filterFor(event.getEntity());
+        if (filter != null && event.getId() instanceof Long id) {
+            filter.add(id);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        IdExistenceFilter filter = filterFor(event.getEntity());
+        if (filter == null || !(event.getId() instanceof Long id)) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            // sem transação gerenciada pelo Spring a exclusão já foi efetivada
+            filter.remove(id);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                filter.remove(id);
+            }
+        });
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private IdExistenceFilter filterFor(Object entity) {
+        if (entity instanceof User) {
+            return idFilters.users();
+        }
+        if (entity instanceof Product) {
+            return idFilters.products();
+        }
+        if (entity instanceof Category) {
+            return idFilters.categories();
+        }
+        if (entity instanceof Order) {
+            return idFilters.orders();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,89 @@
+package com.educandoweb.course.services.lookup;
+
+import com.educandoweb.course.repositories.CategoryRepository;
+import com.educandoweb.course.repositories.OrderRepository;
+import com.educandoweb.course.repositories.ProductRepository;
+import com.educandoweb.course.repositories.UserRepository;
+import com.educandoweb.course.services.archive.OrderArchive;
+import com.educandoweb.course.sharding.Shards;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mantém um {@link IdExistenceFilter} por entidade.
+ *
+ * Os filtros são carregados quando a aplicação fica pronta (depois dos CommandLineRunner de carga de dados)
+ * e mantidos a cada inserção e exclusão feita por esta instância ({@link IdFilterListener}). Os ids de pedidos
+ * são lidos de todos os shards e incluem os pedidos arquivados, que continuam acessíveis pelo id.
+ * Escritas de outras instâncias não chegam aos filtros, por isso eles vêm desligados no perfil prd
+ * ({@code lookup.id-filter.enabled=false}): os filtros nunca são carregados e todas as consultas seguem para o
+ * banco. Só devem ser ligados quando uma única instância escreve no banco.
+ */
+@Component
+public class IdFilters {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderArchive orderArchive;
+
+    @Autowired
+    private Shards shards;
+
+    @Value("${lookup.id-filter.enabled:true}")
+    private boolean enabled;
+
+    private final IdExistenceFilter users = new IdExistenceFilter();
+    private final IdExistenceFilter products = new IdExistenceFilter();
+    private final IdExistenceFilter categories = new IdExistenceFilter();
+    private final IdExistenceFilter orders = new IdExistenceFilter();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        users.load(userRepository.findAllIds());
+        products.load(productRepository.findAllIds());
+        categories.load(categoryRepository.findAllIds());
+        List<Long> orderIds = new ArrayList<>();
+        shards.readAll(shard -> {
+            List<Long> ids = new ArrayList<>(orderRepository.findAllIds());
+            ids.addAll(orderArchive.findAllIds());
+            return ids;
+        }).forEach(orderIds::addAll);
+        orders.load(orderIds);
+    }
+
+    public IdExistenceFilter users() {
+        return users;
+    }
+
+    public IdExistenceFilter products() {
+        return products;
+    }
+
+    public IdExistenceFilter categories() {
+        return categories;
+    }
+
+    public IdExistenceFilter orders() {
+        return orders;
+    }
+}
@@ -0,0 +1,94 @@
+package com.educandoweb.course.services.outbox;
+
+import com.educandoweb.course.entities.Money;
+import com.educandoweb.course.entities.Order;
+import com.educandoweb.course.entities.OutboxEvent;
+import com.educandoweb.course.enums.OrderStatus;
+import com.educandoweb.course.repositories.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Grava os eventos de pedidos e pagamentos no outbox. Os métodos exigem uma transação em andamento, de modo
+ * que o evento é confirmado ou desfeito junto com a alteração que o originou.
+ */
+@Component
+public class Outbox {
+
+    public static final String ORDER_STATUS_CHANGED = "OrderStatusChanged";
+
+    public static final String PAYMENT_CREATED = "PaymentCreated";
+
+    @Autowired
+    private OutboxEventRepository repository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void orderStatusChanged(Order order, OrderStatus previous) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("orderId", order.getId());
+        payload.put("previousStatus", previous);
+        payload.put("orderStatus", order.getOrderStatus());
+        record(order.getId(), ORDER_STATUS_CHANGED, payload);
+    }
+
+    /**
+     * Grava em um único comando em lote o mesmo evento de {@link #orderStatusChanged(Order, OrderStatus)} para
+     * vários pedidos, alterados por um comando SQL sem carregar as entidades.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void orderStatusChanged(Collection<Long> orderIds, OrderStatus previous, OrderStatus current) {
+        OffsetDateTime now = Instant.now().atOffset(ZoneOffset.UTC);
+        List<Object[]> rows = new ArrayList<>(orderIds.size());
+        for (Long orderId : orderIds) {
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("orderId", orderId);
+            payload.put("previousStatus", previous);
+            payload.put("orderStatus", current);
+            rows.add(new Object[]{orderId, ORDER_STATUS_CHANGED, serialize(ORDER_STATUS_CHANGED, payload), now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO tb_outbox (aggregate_id, type, payload, created_at) VALUES (?, ?, ?, ?)", rows);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void paymentCreated(Order order) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("orderId", order.getId());
+        payload.put("clientId", order.getClient() != null ? order.getClient().getId() : null);
+        payload.put("moment", order.getPayment().getMoment());
+        payload.put("total", Money.toDecimal(order.getTotalMinor(), order.getCurrency()));
+        payload.put("currency", order.getCurrency());
+        record(order.getId(), PAYMENT_CREATED, payload);
+    }
+
+    private void record(Long orderId, String type, Map<String, Object> payload) {
+        repository.save(new OutboxEvent(null, orderId, type, serialize(type, payload), Instant.now()));
+    }
+
+    private String serialize(String type, Map<String, Object> payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize " + type + " event", e);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.educandoweb.course.services.outbox;
+
+import com.educandoweb.course.entities.OutboxEvent;
+import com.educandoweb.course.services.scheduling.LeaderLock;
+import com.educandoweb.course.sharding.ShardContext;
+import com.educandoweb.course.sharding.Shards;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Esvazia o outbox periodicamente, em lotes, entregando os eventos ao {@link OutboxSink} configurado.
+ *
+ * Os eventos são lidos em ordem de id e só são removidos depois que o lote foi entregue, o que dá entrega
+ * "pelo menos uma vez" e preserva a ordem dos eventos de cada pedido (ver {@code OrderRepository#findByIdForUpdate}).
+ * Para manter essa ordem apenas uma instância despacha por vez, a que obtém a {@link LeaderLock} {@value #LOCK}.
+ * A trava é renovada antes de cada lote e não é liberada ao final da execução: o líder continua despachando, e
+ * outra instância só assume quando o prazo ({@code outbox.dispatcher.lock-lease-ms}) vence. Cada shard tem o seu outbox, esvaziado em sequência; como todos os
+ * eventos de um pedido ficam no shard do pedido, a ordem por pedido se mantém.
+ */
+@Component
+public class OutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    static final String LOCK = "outbox-dispatcher";
+
+    private static final RowMapper<OutboxEvent> ROW_MAPPER = (rs, rowNum) -> new OutboxEvent(
+            rs.getLong("id"), rs.getLong("aggregate_id"), rs.getString("type"), rs.getString("payload"),
+            rs.getObject("created_at", OffsetDateTime.class).toInstant());
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private OutboxSink sink;
+
+    @Autowired
+    private Shards shards;
+
+    @Autowired
+    private LeaderLock leaderLock;
+
+    @Value("${outbox.dispatcher.enabled:true}")
+    private boolean enabled;
+
+    @Value("${outbox.dispatcher.batch-size:500}")
+    private int batchSize;
+
+    @Value("${outbox.dispatcher.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+
+    @Value("${outbox.dispatcher.lock-lease-ms:30000}")
+    private long leaseMillis;
+
+    private final LongAdder dispatched = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder notLeaderRuns = new LongAdder();
+    private final AtomicLong lastLagMillis = new AtomicLong();
+    private final LongAccumulator maxLagMillis = new LongAccumulator(Math::max, 0);
+
+    @Scheduled(fixedDelayString = "${outbox.dispatcher.interval-ms:200}")
+    public void dispatch() {
+        if (!enabled) {
+            return;
+        }
+        if (!leaderLock.tryAcquire(LOCK, Duration.ofMillis(leaseMillis))) {
+            notLeaderRuns.increment();
+            return;
+        }
+        for (int shard = 0; shard < shards.count(); shard++) {
+            boolean leader = ShardContext.call(shard, this::dispatchShard);
+            if (!leader) {
+                log.warn("Lost the {} lock; stopping this run", LOCK);
+                return;
+            }
+        }
+    }
+
+    /** Despacha os lotes de um shard; {@code false} se a trava foi perdida no caminho. */
+    private boolean dispatchShard() {
+        for (int run = 0; run < maxBatchesPerRun; run++) {
+            if (run > 0 && !leaderLock.tryAcquire(LOCK, Duration.ofMillis(leaseMillis))) {
+                return false;
+            }
+            List<OutboxEvent> batch = jdbcTemplate.query(
+                    "SELECT id, aggregate_id, type, payload, created_at FROM tb_outbox ORDER BY id FETCH FIRST ? ROWS ONLY",
+                    ROW_MAPPER, batchSize);
+            if (batch.isEmpty()) {
+                return true;
+            }
+            try {
+                sink.publish(batch);
+            } catch (Exception e) {
+                failures.increment();
+                log.warn("Outbox batch of {} events starting at id {} not delivered, retrying later: {}",
+                        batch.size(), batch.get(0).getId(), e.toString());
+                return true;
+            }
+            List<Long> ids = new ArrayList<>(batch.size());
+            for (OutboxEvent event : batch) {
+                ids.add(event.getId());
+            }
+            namedJdbcTemplate.update("DELETE FROM tb_outbox WHERE id IN (:ids)", Map.of("ids", ids));
+
+            long lag = Duration.between(batch.get(0).getCreatedAt(), Instant.now()).toMillis();
+            lastLagMillis.set(lag);
+            maxLagMillis.accumulate(lag);
+            dispatched.add(batch.size());
+            batches.increment();
+            if (batch.size() < batchSize) {
+                return true;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Métricas do despachante. {@code lastLagMillis} é a idade do evento mais antigo do último lote entregue;
+     * {@code pending} e {@code oldestPendingMillis} são lidos do banco no momento da chamada.
+     */
+    public Map<String, Number> stats() {
+        Map<String, Number> stats = new LinkedHashMap<>();
+        stats.put("dispatched", dispatched.sum());
+        stats.put("batches", batches.sum());
+        stats.put("failures", failures.sum());
+        stats.put("notLeaderRuns", notLeaderRuns.sum());
+        stats.put("lastLagMillis", lastLagMillis.get());
+        stats.put("maxLagMillis", maxLagMillis.get());
+        long pending = 0;
+        Instant oldest = null;
+        for (int shard = 0; shard < shards.count(); shard++) {
+            Object[] row = ShardContext.call(shard, () -> jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*), MIN(created_at) FROM tb_outbox",
+                    (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getObject(2, OffsetDateTime.class)}));
+            pending += (Long) row[0];
+            if (row[1] instanceof OffsetDateTime created && (oldest == null || created.toInstant().isBefore(oldest))) {
+                oldest = created.toInstant();
+            }
+        }
+        stats.put("pending", pending);
+        stats.put("oldestPendingMillis", oldest != null ? Duration.between(oldest, Instant.now()).toMillis() : 0L);
+        return stats;
+    }
+}
@@ -0,0 +1,21 @@
+package com.educandoweb.course.services.outbox;
+
+import com.educandoweb.course.entities.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * Destino dos eventos do outbox. A entrega é "pelo menos uma vez": se {@link #publish} lançar exceção, ou se a
+ * aplicação parar antes de os eventos serem removidos do outbox, o lote inteiro é entregue novamente. Os
+ * consumidores devem descartar repetições pelo id do evento.
+ */
+public interface OutboxSink {
+
+    /**
+     * Entrega um lote de eventos, em ordem crescente de id.
+     *
+     * @param events Eventos a entregar.
+     * @throws Exception se o lote não pôde ser entregue por completo.
+     */
+    void publish(List<OutboxEvent> events) throws Exception;
+}
@@ -0,0 +1,35 @@
+package com.educandoweb.course.services.outbox;
+
+import com.educandoweb.course.entities.OutboxEvent;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entrega os eventos a uma fila limitada em memória, para testes que inspecionam os eventos entregues. Nada na
+ * aplicação consome a fila: cheia, cada lote falha e o outbox só cresce. Não use fora dos testes.
+ */
+public class QueueOutboxSink implements OutboxSink {
+
+    private final BlockingQueue<OutboxEvent> queue;
+
+    public QueueOutboxSink(int capacity) {
+        queue = new LinkedBlockingQueue<>(capacity);
+    }
+
+    @Override
+    public void publish(List<OutboxEvent> events) throws InterruptedException {
+        for (OutboxEvent event : events) {
+            if (!queue.offer(event, 100, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Outbox queue is full");
+            }
+        }
+    }
+
+    /** Fila de onde os consumidores retiram os eventos. */
+    public BlockingQueue<OutboxEvent> queue() {
+        return queue;
+    }
+}
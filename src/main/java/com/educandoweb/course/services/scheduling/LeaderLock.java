@@ -0,0 +1,78 @@
+package com.educandoweb.course.services.scheduling;
+
+import com.educandoweb.course.sharding.Shards;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Trava de liderança para tarefas agendadas que devem rodar em uma única instância, guardada em
+ * {@code tb_scheduler_lock} (no shard 0, quando há vários).
+ *
+ * A trava é uma concessão com prazo: {@link #tryAcquire} a obtém quando está livre ou vencida e, se esta instância
+ * já é a dona, estende o prazo. Uma tarefa longa deve renová-la entre os blocos e parar quando a renovação falhar,
+ * e o prazo deve ser maior que o intervalo entre renovações. Se a instância cair, a trava fica livre quando o
+ * prazo vence. Os prazos são calculados com o relógio de cada instância, que devem estar sincronizados.
+ */
+@Component
+public class LeaderLock {
+
+    /** Identifica esta instância nas travas: processo e host, mais um sufixo único por execução. */
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID().toString().substring(0, 8);
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private Shards shards;
+
+    /**
+     * Obtém ou renova a trava.
+     *
+     * @param name  Nome da trava (até 64 caracteres).
+     * @param lease Prazo da concessão a partir de agora.
+     * @return {@code true} se esta instância é a dona da trava até o fim do prazo.
+     */
+    public boolean tryAcquire(String name, Duration lease) {
+        Instant now = Instant.now();
+        Map<String, Object> params = new HashMap<>();
+        params.put("name", name);
+        params.put("owner", owner);
+        params.put("now", now.atOffset(ZoneOffset.UTC));
+        params.put("until", now.plus(lease).atOffset(ZoneOffset.UTC));
+        int updated = shards.write(0, () -> namedJdbcTemplate.update("UPDATE tb_scheduler_lock "
+                + "SET locked_by = :owner, locked_until = :until WHERE name = :name AND (locked_until <= :now OR locked_by = :owner)", params));
+        if (updated > 0) {
+            return true;
+        }
+        try {
+            // transação própria: no Postgres uma violação de chave invalida o restante da transação
+            return shards.write(0, () -> namedJdbcTemplate.update("INSERT INTO tb_scheduler_lock (name, locked_by, locked_until) "
+                    + "SELECT :name, :owner, :until WHERE NOT EXISTS (SELECT 1 FROM tb_scheduler_lock WHERE name = :name)", params)) > 0;
+        } catch (DuplicateKeyException e) {
+            // outra instância criou a trava ao mesmo tempo
+            return false;
+        }
+    }
+
+    /** Libera a trava, se esta instância for a dona. */
+    public void release(String name) {
+        Map<String, Object> params = Map.of("name", name, "owner", owner, "now", Instant.now().atOffset(ZoneOffset.UTC));
+        shards.write(0, () -> namedJdbcTemplate.update(
+                "UPDATE tb_scheduler_lock SET locked_until = :now WHERE name = :name AND locked_by = :owner", params));
+    }
+
+    /** Identificador desta instância nas travas. */
+    public String owner() {
+        return owner;
+    }
+}
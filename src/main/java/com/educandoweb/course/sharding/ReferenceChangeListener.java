@@ -0,0 +1,146 @@
+package com.educandoweb.course.sharding;
+
+import com.educandoweb.course.entities.Category;
+import com.educandoweb.course.entities.Product;
+import com.educandoweb.course.entities.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionRemoveEvent;
+import org.hibernate.event.spi.PostCollectionRemoveEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Observa, pelos eventos do Hibernate, as escritas em {@link User}, {@link Product}, {@link Category} e na coleção
+ * de categorias dos produtos e, depois do commit, pede ao {@link ReferenceReplicator} que copie as linhas alteradas
+ * para os demais shards. Escritas feitas por JDBC precisam chamar o replicador diretamente.
+ */
+public class ReferenceChangeListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener,
+        PostCollectionRecreateEventListener, PostCollectionUpdateEventListener, PostCollectionRemoveEventListener {
+
+    private final ReferenceReplicator replicator;
+
+    public ReferenceChangeListener(ReferenceReplicator replicator, EntityManagerFactory entityManagerFactory) {
+        this.replicator = replicator;
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_RECREATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_UPDATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_REMOVE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        entityChanged(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        entityChanged(event.getEntity());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        entityChanged(event.getEntity());
+    }
+
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+        collectionChanged(event);
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+        collectionChanged(event);
+    }
+
+    @Override
+    public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+        collectionChanged(event);
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private void entityChanged(Object entity) {
+        if (entity instanceof User user) {
+            changed(user.getId(), null, null);
+        } else if (entity instanceof Product product) {
+            changed(null, product.getId(), null);
+        } else if (entity instanceof Category category) {
+            changed(null, null, category.getId());
+        }
+    }
+
+    private void collectionChanged(AbstractCollectionEvent event) {
+        String role = event.getCollection().getRole();
+        if (event.getAffectedOwnerOrNull() instanceof Product product && (role == null || role.endsWith(".categories"))) {
+            changed(null, product.getId(), null);
+        }
+    }
+
+    private void changed(Long userId, Long productId, Long categoryId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            replicator.replicate(idList(userId), idList(productId), idList(categoryId));
+            return;
+        }
+        Changes changes = (Changes) TransactionSynchronizationManager.getResource(this);
+        if (changes == null) {
+            changes = new Changes();
+            TransactionSynchronizationManager.bindResource(this, changes);
+            TransactionSynchronizationManager.registerSynchronization(changes);
+        }
+        if (userId != null) {
+            changes.users.add(userId);
+        }
+        if (productId != null) {
+            changes.products.add(productId);
+        }
+        if (categoryId != null) {
+            changes.categories.add(categoryId);
+        }
+    }
+
+    private static List<Long> idList(Long id) {
+        return id != null ? List.of(id) : List.of();
+    }
+
+    private final class Changes implements TransactionSynchronization {
+        private final Set<Long> users = new LinkedHashSet<>();
+        private final Set<Long> products = new LinkedHashSet<>();
+        private final Set<Long> categories = new LinkedHashSet<>();
+
+        @Override
+        public void afterCommit() {
+            replicator.replicate(users, products, categories);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(ReferenceChangeListener.this);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.educandoweb.course.sharding;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Copia as tabelas de referência (usuários, categorias, produtos e suas categorias) do shard 0 para os demais.
+ *
+ * Pedidos e itens têm chaves estrangeiras para usuários e produtos e são lidos com junções a essas tabelas, então
+ * cada shard precisa de uma cópia delas. As escritas vão sempre ao shard 0; depois do commit as linhas alteradas
+ * são relidas ali e aplicadas a cada shard com os mesmos ids ({@code UPDATE}, e {@code INSERT} quando a linha
+ * ainda não existe; linhas que sumiram do shard 0 são removidas). Falhas são registradas e contadas, sem desfazer
+ * a escrita já confirmada; {@link #replicateAll()} (executado na inicialização) recoloca os shards em dia.
+ */
+public class ReferenceReplicator {
+
+    private static final Logger log = LoggerFactory.getLogger(ReferenceReplicator.class);
+
+    private static final int CHUNK = 1000;
+
+    private static final Table USERS = new Table("tb_user", "name", "email", "phone", "password");
+
+    private static final Table CATEGORIES = new Table("tb_category", "name");
+
+    private static final Table PRODUCTS = new Table("tb_product", "name", "description", "price_minor", "currency", "img_url");
+
+    private final Shards shards;
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    private final LongAdder replicated = new LongAdder();
+
+    private final LongAdder failures = new LongAdder();
+
+    public ReferenceReplicator(Shards shards, NamedParameterJdbcTemplate jdbc) {
+        this.shards = shards;
+        this.jdbc = jdbc;
+    }
+
+    /** Replica as linhas informadas, lidas do shard 0 no momento da chamada. */
+    public void replicate(Collection<Long> users, Collection<Long> products, Collection<Long> categories) {
+        if (shards.count() == 1 || (users.isEmpty() && products.isEmpty() && categories.isEmpty())) {
+            return;
+        }
+        Snapshot snapshot = shards.read(0, () -> new Snapshot(
+                read(USERS, users), read(CATEGORIES, categories), read(PRODUCTS, products), readLinks(products)));
+        for (int shard = 1; shard < shards.count(); shard++) {
+            try {
+                shards.write(shard, () -> {
+                    apply(CATEGORIES, snapshot.categories);
+                    apply(PRODUCTS, snapshot.products);
+                    if (!products.isEmpty()) {
+                        jdbc.update("DELETE FROM tb_product_category WHERE product_id IN (:ids)", Map.of("ids", products));
+                        if (!snapshot.links.isEmpty()) {
+                            jdbc.getJdbcTemplate().batchUpdate(
+                                    "INSERT INTO tb_product_category (category_id, product_id) VALUES (?, ?)", snapshot.links);
+                        }
+                    }
+                    delete(PRODUCTS, products, snapshot.products);
+                    delete(CATEGORIES, categories, snapshot.categories);
+                    apply(USERS, snapshot.users);
+                    delete(USERS, users, snapshot.users);
+                    return null;
+                });
+                replicated.add(users.size() + products.size() + categories.size());
+            } catch (DataAccessException e) {
+                failures.increment();
+                log.error("Reference data not replicated to shard {} ({} users, {} products, {} categories); "
+                        + "it will be repaired by the next full replication", shard, users.size(), products.size(),
+                        categories.size(), e);
+            }
+        }
+    }
+
+    /** Replica todas as linhas das tabelas de referência, em blocos de {@value #CHUNK} ids. */
+    public void replicateAll() {
+        if (shards.count() == 1) {
+            return;
+        }
+        long start = System.nanoTime();
+        for (Table table : List.of(CATEGORIES, PRODUCTS, USERS)) {
+            long after = 0;
+            List<Long> ids;
+            do {
+                long from = after;
+                ids = shards.read(0, () -> jdbc.queryForList("SELECT id FROM " + table.name
+                        + " WHERE id > :after ORDER BY id FETCH FIRST " + CHUNK + " ROWS ONLY", Map.of("after", from), Long.class));
+                if (!ids.isEmpty()) {
+                    replicate(table == USERS ? ids : List.of(), table == PRODUCTS ? ids : List.of(),
+                            table == CATEGORIES ? ids : List.of());
+                    after = ids.get(ids.size() - 1);
+                }
+            } while (ids.size() == CHUNK);
+        }
+        log.info("Reference data replicated to {} shards in {} ms", shards.count() - 1, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /** Quantidade de shards, linhas replicadas com sucesso (somadas por shard de destino) e falhas de replicação. */
+    public Map<String, Number> stats() {
+        Map<String, Number> stats = new LinkedHashMap<>();
+        stats.put("shards", shards.count());
+        stats.put("replicated", replicated.sum());
+        stats.put("replicationFailures", failures.sum());
+        return stats;
+    }
+
+    private List<Object[]> read(Table table, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return jdbc.query("SELECT " + table.columns + ", id FROM " + table.name + " WHERE id IN (:ids)",
+                Map.of("ids", ids), (rs, rowNum) -> row(rs, table.width + 1));
+    }
+
+    private List<Object[]> readLinks(Collection<Long> products) {
+        if (products.isEmpty()) {
+            return List.of();
+        }
+        return jdbc.query("SELECT category_id, product_id FROM tb_product_category WHERE product_id IN (:ids)",
+                Map.of("ids", products), (rs, rowNum) -> row(rs, 2));
+    }
+
+    /** Atualiza as linhas existentes e insere as demais; o id é a última coluna de cada linha. */
+    private void apply(Table table, List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        int[] counts = jdbc.getJdbcTemplate().batchUpdate(table.update, rows);
+        List<Object[]> missing = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                missing.add(rows.get(i));
+            }
+        }
+        if (!missing.isEmpty()) {
+            jdbc.getJdbcTemplate().batchUpdate(table.insert, missing);
+        }
+    }
+
+    /** Remove as linhas pedidas que não existem mais no shard 0. */
+    private void delete(Table table, Collection<Long> ids, List<Object[]> rows) {
+        if (ids.size() == rows.size()) {
+            return;
+        }
+        Set<Long> gone = new HashSet<>(ids);
+        for (Object[] row : rows) {
+            gone.remove(((Number) row[table.width]).longValue());
+        }
+        if (!gone.isEmpty()) {
+            jdbc.update("DELETE FROM " + table.name + " WHERE id IN (:ids)", Map.of("ids", gone));
+        }
+    }
+
+    private static Object[] row(ResultSet rs, int width) throws SQLException {
+        Object[] row = new Object[width];
+        for (int i = 0; i < width; i++) {
+            row[i] = rs.getObject(i + 1);
+        }
+        return row;
+    }
+
+    private static final class Table {
+        final String name;
+        final String columns;
+        final int width;
+        final String update;
+        final String insert;
+
+        Table(String name, String... columns) {
+            this.name = name;
+            this.columns = String.join(", ", columns);
+            this.width = columns.length;
+            this.update = "UPDATE " + name + " SET " + String.join(" = ?, ", columns) + " = ? WHERE id = ?";
+            this.insert = "INSERT INTO " + name + " (" + this.columns + ", id) VALUES (" + "?, ".repeat(width) + "?)";
+        }
+    }
+
+    private record Snapshot(List<Object[]> users, List<Object[]> categories, List<Object[]> products, List<Object[]> links) {
+    }
+}
@@ -0,0 +1,38 @@
+package com.educandoweb.course.sharding;
+
+import java.util.function.Supplier;
+
+/**
+ * Shard da thread atual, consultado pelo {@link ShardRoutingDataSource} quando uma conexão física é obtida.
+ *
+ * Como o DataSource principal só obtém a conexão no primeiro comando SQL, o shard precisa estar definido antes
+ * desse comando e vale para toda a transação. Sem definição explícita, a thread usa o shard 0, que também guarda
+ * a cópia principal das tabelas de referência.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static int current() {
+        Integer shard = CURRENT.get();
+        return shard != null ? shard : 0;
+    }
+
+    /** Executa a ação com o shard informado, restaurando o anterior ao final. */
+    public static <T> T call(int shard, Supplier<T> action) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return action.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+}
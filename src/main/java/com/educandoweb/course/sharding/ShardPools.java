@@ -0,0 +1,35 @@
+package com.educandoweb.course.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.io.Closeable;
+import java.util.List;
+
+/**
+ * Pools de conexão dos shards, na ordem dos shards. O shard 0 é o banco configurado em {@code spring.datasource};
+ * os demais vêm de {@code sharding.urls}.
+ */
+public class ShardPools implements Closeable {
+
+    private final List<HikariDataSource> pools;
+
+    public ShardPools(List<HikariDataSource> pools) {
+        if (pools.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.pools = List.copyOf(pools);
+    }
+
+    public int size() {
+        return pools.size();
+    }
+
+    public HikariDataSource get(int shard) {
+        return pools.get(shard);
+    }
+
+    @Override
+    public void close() {
+        pools.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,319 @@
+package com.educandoweb.course.sharding;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Ponto de entrada do particionamento dos pedidos.
+ *
+ * Cada pedido (com itens, pagamento e eventos do outbox) fica no shard {@code client_id mod N}, e os ids de pedido
+ * de cada shard são intercalados ({@code id mod N} é o próprio shard, ver {@code ShardingConfig}). Assim, tanto a
+ * busca por cliente quanto a busca por id vão a um único shard sem consultar índice algum. Listagens e relatórios
+ * globais são distribuídos a todos os shards em paralelo e os resultados combinados aqui.
+ *
+ * Com um único shard (o padrão, {@code sharding.enabled=false}) as transações são as mesmas de antes: propagação
+ * {@code REQUIRED} e execução na própria thread. Com vários shards, cada operação abre uma transação nova
+ * ({@code REQUIRES_NEW}), pois uma transação em andamento está presa à conexão de outro shard.
+ */
+@Component
+public class Shards {
+
+    /** Linhas em trânsito por shard em {@link #merge}. */
+    private static final int MERGE_BUFFER = 1024;
+
+    @Autowired(required = false)
+    private ShardPools pools;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private int count;
+
+    private TransactionTemplate readTemplate;
+
+    private TransactionTemplate writeTemplate;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        count = pools != null ? pools.size() : 1;
+        int propagation = count > 1 ? TransactionDefinition.PROPAGATION_REQUIRES_NEW : TransactionDefinition.PROPAGATION_REQUIRED;
+        readTemplate = new TransactionTemplate(transactionManager);
+        readTemplate.setPropagationBehavior(propagation);
+        readTemplate.setReadOnly(true);
+        writeTemplate = new TransactionTemplate(transactionManager);
+        writeTemplate.setPropagationBehavior(propagation);
+        if (count > 1) {
+            AtomicInteger threads = new AtomicInteger();
+            ThreadFactory factory = r -> {
+                Thread thread = new Thread(r, "shard-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            // as consultas ficam limitadas pelos pools dos shards; o executor apenas não pode enfileirá-las
+            executor = Executors.newCachedThreadPool(factory);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    public int count() {
+        return count;
+    }
+
+    /** Shard dos pedidos do cliente. */
+    public int forClient(long clientId) {
+        return Math.floorMod(clientId, count);
+    }
+
+    /** Shard do pedido, derivado do próprio id. */
+    public int forOrder(long orderId) {
+        return Math.floorMod(orderId, count);
+    }
+
+    /** Executa a ação em uma transação somente leitura no shard informado, na thread atual. */
+    public <T> T read(int shard, Supplier<T> action) {
+        return ShardContext.call(shard, () -> readTemplate.execute(status -> action.get()));
+    }
+
+    /** Executa a ação em uma transação de escrita no shard informado, na thread atual. */
+    public <T> T write(int shard, Supplier<T> action) {
+        return ShardContext.call(shard, () -> writeTemplate.execute(status -> action.get()));
+    }
+
+    /**
+     * Executa a consulta em todos os shards, em paralelo, cada um na sua transação somente leitura.
+     *
+     * @return Resultados na ordem dos shards.
+     */
+    public <T> List<T> readAll(IntFunction<T> query) {
+        List<Integer> all = new ArrayList<>(count);
+        for (int shard = 0; shard < count; shard++) {
+            all.add(shard);
+        }
+        return readEach(all, query);
+    }
+
+    /**
+     * Executa a consulta nos shards informados, em paralelo. Nada do contexto da requisição (como
+     * {@code FieldSelection}) está disponível dentro da consulta: capture antes o que for necessário.
+     *
+     * @return Resultados na ordem dos shards informados.
+     */
+    public <T> List<T> readEach(Collection<Integer> shards, IntFunction<T> query) {
+        List<T> results = new ArrayList<>(shards.size());
+        if (executor == null || shards.size() == 1) {
+            for (int shard : shards) {
+                results.add(read(shard, () -> query.apply(shard)));
+            }
+            return results;
+        }
+        List<Future<T>> futures = new ArrayList<>(shards.size());
+        try {
+            for (int shard : shards) {
+                futures.add(executor.submit(() -> read(shard, () -> query.apply(shard))));
+            }
+            for (Future<T> future : futures) {
+                results.add(await(future));
+            }
+        } finally {
+            futures.forEach(f -> f.cancel(true));
+        }
+        return results;
+    }
+
+    /**
+     * Combina em uma única sequência ordenada as sequências já ordenadas de todos os shards. Cada shard é lido na
+     * sua própria thread e transação, com até {@value #MERGE_BUFFER} linhas à frente do consumidor, então a
+     * memória é constante. O fluxo retornado deve ser fechado: isso interrompe as leituras que ainda estiverem
+     * em andamento. Com um único shard, a sequência é lida diretamente, na transação do chamador.
+     */
+    public <T> Stream<T> merge(Comparator<? super T> order, IntFunction<Stream<T>> source) {
+        if (executor == null) {
+            return source.apply(0);
+        }
+        MergingIterator<T> iterator = new MergingIterator<>(order);
+        for (int shard = 0; shard < count; shard++) {
+            iterator.start(shard, source);
+        }
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                .onClose(iterator::cancel);
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a shard", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Shard query failed", cause);
+        }
+    }
+
+    /** Intercalação de k sequências ordenadas, cada uma produzida por uma thread em uma fila limitada. */
+    private final class MergingIterator<T> implements Iterator<T> {
+
+        private final Object end = new Object();
+
+        private final List<BlockingQueue<Object>> queues = new ArrayList<>();
+
+        private final List<Future<?>> producers = new ArrayList<>();
+
+        private final PriorityQueue<Head<T>> heads;
+
+        private volatile boolean cancelled;
+
+        private boolean primed;
+
+        MergingIterator(Comparator<? super T> order) {
+            this.heads = new PriorityQueue<>((a, b) -> {
+                int c = order.compare(a.value, b.value);
+                return c != 0 ? c : Integer.compare(a.shard, b.shard);
+            });
+        }
+
+        void start(int shard, IntFunction<Stream<T>> source) {
+            BlockingQueue<Object> queue = new ArrayBlockingQueue<>(MERGE_BUFFER);
+            queues.add(queue);
+            producers.add(executor.submit(() -> {
+                try {
+                    read(shard, () -> {
+                        try (Stream<T> rows = source.apply(shard)) {
+                            rows.forEachOrdered(row -> put(queue, row));
+                        }
+                        return null;
+                    });
+                    put(queue, end);
+                } catch (CancellationException e) {
+                    // consumidor fechou o fluxo
+                } catch (RuntimeException | Error e) {
+                    if (!cancelled) {
+                        put(queue, new Failure(e));
+                    }
+                }
+            }));
+        }
+
+        @Override
+        public boolean hasNext() {
+            prime();
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Head<T> head = heads.poll();
+            advance(head.shard);
+            return head.value;
+        }
+
+        void cancel() {
+            cancelled = true;
+            producers.forEach(p -> p.cancel(true));
+            queues.forEach(BlockingQueue::clear);
+        }
+
+        private void prime() {
+            if (!primed) {
+                primed = true;
+                for (int shard = 0; shard < queues.size(); shard++) {
+                    advance(shard);
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance(int shard) {
+            Object item = take(queues.get(shard));
+            if (item == end) {
+                return;
+            }
+            if (item instanceof Failure failure) {
+                cancel();
+                if (failure.error instanceof Error error) {
+                    throw error;
+                }
+                throw (RuntimeException) failure.error;
+            }
+            heads.add(new Head<>((T) item, shard));
+        }
+
+        private Object take(BlockingQueue<Object> queue) {
+            try {
+                return queue.take();
+            } catch (InterruptedException e) {
+                cancel();
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while merging shards", e);
+            }
+        }
+
+        private void put(BlockingQueue<Object> queue, Object item) {
+            if (cancelled) {
+                throw new CancellationException();
+            }
+            try {
+                while (!queue.offer(item, 100, TimeUnit.MILLISECONDS)) {
+                    if (cancelled) {
+                        throw new CancellationException();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException();
+            }
+        }
+    }
+
+    private record Head<T>(T value, int shard) {
+    }
+
+    private record Failure(Throwable error) {
+    }
+}
@@ -0,0 +1,14 @@
+-- Estoque por produto: available são as unidades que ainda podem ser reservadas e reserved as unidades já
+-- reservadas por pedidos. As reservas são contadas em memória (Inventory) e gravadas aqui em lotes periódicos;
+-- as restrições CHECK garantem, também no banco, que nenhuma gravação leve o estoque abaixo de zero.
+-- Produtos sem linha nesta tabela não têm unidades disponíveis.
+
+CREATE TABLE tb_inventory (
+    product_id BIGINT NOT NULL,
+    available BIGINT NOT NULL,
+    reserved BIGINT NOT NULL,
+    PRIMARY KEY (product_id),
+    CONSTRAINT fk_inventory_product FOREIGN KEY (product_id) REFERENCES tb_product (id),
+    CONSTRAINT ck_inventory_available CHECK (available >= 0),
+    CONSTRAINT ck_inventory_reserved CHECK (reserved >= 0)
+);
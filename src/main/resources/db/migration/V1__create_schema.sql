@@ -0,0 +1,60 @@
+-- Esquema inicial, equivalente ao gerado pelo Hibernate (ddl-auto=update) até esta versão.
+-- Bancos já existentes são registrados nesta versão via spring.flyway.baseline-on-migrate.
+
+CREATE TABLE tb_user (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    name VARCHAR(255),
+    email VARCHAR(255),
+    phone VARCHAR(255),
+    password VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE tb_category (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    name VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE tb_product (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    name VARCHAR(255),
+    description VARCHAR(255),
+    price FLOAT(53),
+    img_url VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE tb_product_category (
+    category_id BIGINT NOT NULL,
+    product_id BIGINT NOT NULL,
+    PRIMARY KEY (category_id, product_id),
+    CONSTRAINT fk_product_category_category FOREIGN KEY (category_id) REFERENCES tb_category (id),
+    CONSTRAINT fk_product_category_product FOREIGN KEY (product_id) REFERENCES tb_product (id)
+);
+
+CREATE TABLE tb_order (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    moment TIMESTAMP(6) WITH TIME ZONE,
+    order_status INTEGER,
+    client_id BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_order_client FOREIGN KEY (client_id) REFERENCES tb_user (id)
+);
+
+CREATE TABLE tb_order_item (
+    order_id BIGINT NOT NULL,
+    product_id BIGINT NOT NULL,
+    quantity INTEGER,
+    price FLOAT(53),
+    PRIMARY KEY (order_id, product_id),
+    CONSTRAINT fk_order_item_order FOREIGN KEY (order_id) REFERENCES tb_order (id),
+    CONSTRAINT fk_order_item_product FOREIGN KEY (product_id) REFERENCES tb_product (id)
+);
+
+CREATE TABLE tb_payment (
+    order_id BIGINT NOT NULL,
+    moment TIMESTAMP(6) WITH TIME ZONE,
+    PRIMARY KEY (order_id),
+    CONSTRAINT fk_payment_order FOREIGN KEY (order_id) REFERENCES tb_order (id)
+);
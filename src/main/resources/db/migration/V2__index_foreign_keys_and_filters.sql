@@ -0,0 +1,14 @@
+-- Índices para todas as chaves estrangeiras que não são prefixo de uma chave primária
+-- e para os filtros mais frequentes de pedidos.
+
+-- tb_product_category: category_id já é o prefixo da chave primária (category_id, product_id)
+CREATE INDEX idx_product_category_product ON tb_product_category (product_id);
+
+-- tb_order_item: order_id já é o prefixo da chave primária (order_id, product_id)
+CREATE INDEX idx_order_item_product ON tb_order_item (product_id);
+
+CREATE INDEX idx_order_client ON tb_order (client_id);
+
+CREATE INDEX idx_order_moment ON tb_order (moment);
+
+CREATE INDEX idx_order_status_moment ON tb_order (order_status, moment);
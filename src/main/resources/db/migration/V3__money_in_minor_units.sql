@@ -0,0 +1,12 @@
+-- Preços passam a ser guardados em ponto fixo: unidades menores da moeda (centavos) mais o código ISO 4217.
+-- Os valores existentes estão em reais, portanto são multiplicados por 100.
+
+ALTER TABLE tb_product ADD COLUMN price_minor BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE tb_product ADD COLUMN currency VARCHAR(3) DEFAULT 'BRL' NOT NULL;
+UPDATE tb_product SET price_minor = ROUND(price * 100) WHERE price IS NOT NULL;
+ALTER TABLE tb_product DROP COLUMN price;
+
+ALTER TABLE tb_order_item ADD COLUMN price_minor BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE tb_order_item ADD COLUMN currency VARCHAR(3) DEFAULT 'BRL' NOT NULL;
+UPDATE tb_order_item SET price_minor = ROUND(price * 100) WHERE price IS NOT NULL;
+ALTER TABLE tb_order_item DROP COLUMN price;
@@ -0,0 +1,12 @@
+-- Outbox transacional: eventos de pedidos e pagamentos gravados na mesma transação da alteração e
+-- removidos pelo despachante depois de entregues. aggregate_id não é chave estrangeira para que o evento
+-- sobreviva à remoção ou ao arquivamento do pedido.
+
+CREATE TABLE tb_outbox (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    aggregate_id BIGINT NOT NULL,
+    type VARCHAR(64) NOT NULL,
+    payload VARCHAR(4000) NOT NULL,
+    created_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (id)
+);
@@ -0,0 +1,6 @@
+-- Pedidos de um cliente, do mais recente para o mais antigo, paginados pela chave (moment, id).
+-- O índice contém todas as colunas lidas de tb_order na listagem (leitura somente do índice) e torna
+-- idx_order_client, seu prefixo, redundante.
+CREATE INDEX idx_order_client_moment ON tb_order (client_id, moment DESC, id DESC, order_status);
+
+DROP INDEX idx_order_client;
@@ -0,0 +1,5 @@
+-- Navegação de produtos por faixa de preço e por nome, paginada pela chave (valor, id).
+-- Os preços só são comparáveis dentro da mesma moeda, por isso a moeda é a primeira coluna.
+CREATE INDEX idx_product_currency_price ON tb_product (currency, price_minor, id);
+
+CREATE INDEX idx_product_name ON tb_product (name, id);
@@ -0,0 +1,5 @@
+-- Exportação de pedidos por período, em ordem de (moment, id), lida pelo índice sem ordenação adicional.
+-- Torna idx_order_moment, seu prefixo, redundante.
+CREATE INDEX idx_order_moment_id ON tb_order (moment, id);
+
+DROP INDEX idx_order_moment;
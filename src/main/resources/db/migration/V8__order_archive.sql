@@ -0,0 +1,38 @@
+-- Arquivo dos pedidos entregues ou cancelados há mais de um ano, movidos de tb_order, tb_order_item e
+-- tb_payment pelo OrderArchiver. As tabelas repetem as colunas das originais (o pedido mantém o seu id)
+-- e guardam o instante do arquivamento; as chaves estrangeiras para usuários e produtos são mantidas.
+
+CREATE TABLE tb_order_archive (
+    id BIGINT NOT NULL,
+    moment TIMESTAMP(6) WITH TIME ZONE,
+    order_status INTEGER,
+    client_id BIGINT,
+    archived_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_order_archive_client FOREIGN KEY (client_id) REFERENCES tb_user (id)
+);
+
+CREATE TABLE tb_order_item_archive (
+    order_id BIGINT NOT NULL,
+    product_id BIGINT NOT NULL,
+    quantity INTEGER,
+    price_minor BIGINT NOT NULL,
+    currency VARCHAR(3) NOT NULL,
+    PRIMARY KEY (order_id, product_id),
+    CONSTRAINT fk_order_item_archive_order FOREIGN KEY (order_id) REFERENCES tb_order_archive (id),
+    CONSTRAINT fk_order_item_archive_product FOREIGN KEY (product_id) REFERENCES tb_product (id)
+);
+
+CREATE TABLE tb_payment_archive (
+    order_id BIGINT NOT NULL,
+    moment TIMESTAMP(6) WITH TIME ZONE,
+    PRIMARY KEY (order_id),
+    CONSTRAINT fk_payment_archive_order FOREIGN KEY (order_id) REFERENCES tb_order_archive (id)
+);
+
+CREATE INDEX idx_order_archive_client ON tb_order_archive (client_id);
+
+-- relatórios que incluem o arquivo leem por período, na mesma ordem de idx_order_moment_id
+CREATE INDEX idx_order_archive_moment_id ON tb_order_archive (moment, id);
+
+CREATE INDEX idx_order_item_archive_product ON tb_order_item_archive (product_id);
@@ -0,0 +1,10 @@
+-- Travas das tarefas agendadas que devem rodar em apenas uma instância (ver LeaderLock). Cada linha é uma
+-- concessão com prazo: a instância locked_by é a líder até locked_until ou até liberar a trava.
+-- As linhas são criadas na primeira tentativa de obter cada trava.
+
+CREATE TABLE tb_scheduler_lock (
+    name VARCHAR(64) NOT NULL,
+    locked_by VARCHAR(255) NOT NULL,
+    locked_until TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (name)
+);
@@ -0,0 +1,69 @@
+package com.educandoweb.course;
+
+import com.educandoweb.course.accesslog.AccessLog;
+import com.educandoweb.course.accesslog.AccessLogFilter;
+import com.educandoweb.course.accesslog.RequestTiming;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Verifica a amostragem do log de acesso: requisições normais seguem a taxa, falhas e requisições lentas são
+ * sempre registradas.
+ */
+class AccessLogTests {
+
+	private final AccessLog accessLog = new AccessLog(16, 0.0, 50);
+
+	@AfterEach
+	void close() throws InterruptedException {
+		accessLog.close();
+	}
+
+	@Test
+	void onlySlowAndFailedRequestsAreKeptWhenSamplingIsOff() throws Exception {
+		AccessLogFilter filter = new AccessLogFilter(accessLog);
+
+		run(filter, (req, res) -> {
+			RequestTiming.statementExecuted(1_000);
+			res.getOutputStream().write(new byte[10]);
+		});
+		run(filter, (req, res) -> Thread.sleep(60));
+		assertThrows(IllegalStateException.class, () -> run(filter, (req, res) -> {
+			throw new IllegalStateException("boom");
+		}));
+
+		accessLog.close();
+		assertEquals(1L, accessLog.stats().get("sampledOut"));
+		assertEquals(2L, accessLog.stats().get("published"));
+		assertEquals(2L, accessLog.stats().get("written"));
+		assertEquals(0L, accessLog.stats().get("dropped"));
+	}
+
+	private static void run(AccessLogFilter filter, Handler handler) throws Exception {
+		FilterChain chain = (req, res) -> {
+			try {
+				handler.handle(req, res);
+			} catch (RuntimeException | IOException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		};
+		filter.doFilter(new MockHttpServletRequest("GET", "/orders/1"), new MockHttpServletResponse(), chain);
+	}
+
+	@FunctionalInterface
+	private interface Handler {
+		void handle(ServletRequest request, ServletResponse response) throws Exception;
+	}
+}
@@ -0,0 +1,119 @@
+package com.educandoweb.course;
+
+import com.educandoweb.course.enums.OrderStatus;
+import com.educandoweb.course.services.audit.AuditJournal;
+import com.educandoweb.course.services.audit.AuditJournalCompactor;
+import com.educandoweb.course.services.audit.AuditRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Verifica que o diário de auditoria sobrevive à reabertura (descartando um registro rasgado), troca de
+ * segmento ao encher e que a compactação preserva o histórico de cada pedido.
+ */
+class AuditJournalTests {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void historySurvivesReopenRollingAndCompaction() throws IOException {
+		// 4 registros por segmento
+		try (AuditJournal journal = AuditJournal.open(dir, 128)) {
+			for (long order = 1; order <= 5; order++) {
+				journal.append(order, 0, OrderStatus.WAITING_PAYMENT.getCode(), order);
+			}
+			journal.append(2, OrderStatus.WAITING_PAYMENT.getCode(), OrderStatus.PAID.getCode(), 10);
+			journal.append(2, OrderStatus.PAID.getCode(), OrderStatus.SHIPPED.getCode(), 11);
+			assertEquals(2, journal.segmentCount());
+			assertThrows(IOException.class, () -> AuditJournal.open(dir, 128));
+		}
+		corruptLastRecord();
+
+		try (AuditJournal journal = AuditJournal.open(dir, 128)) {
+			assertEquals(6, journal.records());
+			List<AuditRecord> history = journal.history(2);
+			assertEquals(List.of(OrderStatus.WAITING_PAYMENT, OrderStatus.PAID),
+					history.stream().map(AuditRecord::getOrderStatus).toList());
+			assertNull(history.get(0).getPreviousStatus());
+			journal.append(2, OrderStatus.PAID.getCode(), OrderStatus.DELIVERED.getCode(), 12);
+		}
+
+		Path compacted = AuditJournalCompactor.compact(dir);
+		try (Stream<Path> files = Files.list(dir)) {
+			assertEquals(List.of(compacted), files.filter(p -> p.toString().endsWith(".log")).toList());
+		}
+		try (AuditJournal journal = AuditJournal.open(dir, 128)) {
+			assertEquals(7, journal.records());
+			assertEquals(List.of(OrderStatus.WAITING_PAYMENT, OrderStatus.PAID, OrderStatus.DELIVERED),
+					journal.history(2).stream().map(AuditRecord::getOrderStatus).toList());
+			long sequence = journal.append(5, OrderStatus.WAITING_PAYMENT.getCode(), OrderStatus.CANCELED.getCode(), 13);
+			assertEquals(7, sequence);
+			assertEquals(2, journal.history(5).size());
+		}
+	}
+
+	@Test
+	void compactionMergesSortedRunsWithThePreviousCompactedFile() throws IOException {
+		try (AuditJournal journal = AuditJournal.open(dir, 128)) {
+			for (int i = 0; i < 10; i++) {
+				journal.append(10 - i % 4, 0, OrderStatus.WAITING_PAYMENT.getCode(), i);
+			}
+		}
+		// blocos de 3 registros: 10 registros viram 4 blocos intercalados
+		Path first = AuditJournalCompactor.compact(dir, 3);
+		assertEquals(List.of(7L, 7L, 8L, 8L, 9L, 9L, 9L, 10L, 10L, 10L), orderIds(first));
+
+		try (AuditJournal journal = AuditJournal.open(dir, 128)) {
+			journal.append(1, 0, OrderStatus.WAITING_PAYMENT.getCode(), 20);
+			journal.append(8, OrderStatus.WAITING_PAYMENT.getCode(), OrderStatus.PAID.getCode(), 21);
+		}
+		Path second = AuditJournalCompactor.compact(dir, 2);
+		assertEquals(List.of(1L, 7L, 7L, 8L, 8L, 8L, 9L, 9L, 9L, 10L, 10L, 10L), orderIds(second));
+		try (Stream<Path> files = Files.list(dir)) {
+			assertEquals(List.of(second), files.filter(p -> !p.getFileName().toString().equals(".lock")).toList());
+		}
+		try (AuditJournal journal = AuditJournal.open(dir, 128)) {
+			assertEquals(12, journal.records());
+			List<AuditRecord> history = journal.history(8);
+			assertEquals(List.of(OrderStatus.WAITING_PAYMENT, OrderStatus.WAITING_PAYMENT, OrderStatus.PAID),
+					history.stream().map(AuditRecord::getOrderStatus).toList());
+			assertEquals(12, journal.append(3, 0, OrderStatus.WAITING_PAYMENT.getCode(), 22));
+		}
+	}
+
+	/** Ids de pedido dos registros do arquivo compactado, na ordem do arquivo. */
+	private static List<Long> orderIds(Path compacted) throws IOException {
+		ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(compacted));
+		List<Long> ids = new ArrayList<>();
+		for (int offset = 0; offset < data.limit(); offset += 32) {
+			ids.add(data.getLong(offset));
+		}
+		return ids;
+	}
+
+	/** Simula uma escrita interrompida no último registro gravado. */
+	private void corruptLastRecord() throws IOException {
+		Path last;
+		try (Stream<Path> files = Files.list(dir)) {
+			last = files.filter(p -> p.getFileName().toString().startsWith("segment-")).sorted().reduce((a, b) -> b).orElseThrow();
+		}
+		try (FileChannel channel = FileChannel.open(last, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.wrap(new byte[] {(byte) 0xFF}), 2 * 32 + 20);
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package com.educandoweb.course;
+
+import com.educandoweb.course.dto.BatchResult;
+import com.educandoweb.course.entities.Category;
+import com.educandoweb.course.entities.Order;
+import com.educandoweb.course.entities.Product;
+import com.educandoweb.course.entities.User;
+import com.educandoweb.course.services.CategoryService;
+import com.educandoweb.course.services.OrderService;
+import com.educandoweb.course.services.ProductService;
+import com.educandoweb.course.services.UserService;
+import com.educandoweb.course.services.exceptions.BadRequestException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Verifica as buscas por vários ids: itens na ordem pedida e sem repetição, ids inexistentes em {@code missing},
+ * e recusa de listas ausentes, de ids vazios e de listas maiores que {@link BatchResult#MAX_IDS}, cada uma com
+ * sua mensagem.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class BatchLookupTests {
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private CategoryService categoryService;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Test
+	void itemsFollowRequestOrderAndUnknownIdsAreMissing() {
+		BatchResult<User> users = userService.findAllById(List.of(2L, 9999L, 1L, 2L));
+		assertEquals(List.of(2L, 1L), users.getItems().stream().map(User::getId).toList());
+		assertEquals(List.of(9999L), users.getMissing());
+
+		BatchResult<Product> products = productService.findAllById(List.of(3L, 1L, 9999L));
+		assertEquals(List.of(3L, 1L), products.getItems().stream().map(Product::getId).toList());
+		assertEquals(List.of(9999L), products.getMissing());
+
+		BatchResult<Category> categories = categoryService.findAllById(List.of(9999L, 2L, 1L));
+		assertEquals(List.of(2L, 1L), categories.getItems().stream().map(Category::getId).toList());
+		assertEquals(List.of(9999L), categories.getMissing());
+
+		BatchResult<Order> orders = orderService.findAllById(List.of(3L, 9999L, 1L));
+		assertEquals(List.of(3L, 1L), orders.getItems().stream().map(Order::getId).toList());
+		assertEquals(List.of(9999L), orders.getMissing());
+	}
+
+	@Test
+	void rejectsMissingListsEmptyIdsAndTooManyIds() {
+		List<Long> withEmpty = Arrays.asList(1L, null, 2L);
+		for (BatchLookup lookup : List.<BatchLookup>of(userService::findAllById, productService::findAllById,
+				categoryService::findAllById, orderService::findAllById)) {
+			assertEquals("Ids are required", assertThrows(BadRequestException.class, () -> lookup.find(null)).getMessage());
+			assertEquals("Ids must not be empty", assertThrows(BadRequestException.class, () -> lookup.find(withEmpty)).getMessage());
+		}
+
+		List<Long> atLimit = LongStream.rangeClosed(1, BatchResult.MAX_IDS).boxed().toList();
+		assertEquals(List.of(1L, 2L), userService.findAllById(atLimit).getItems().stream().map(User::getId).limit(2).toList());
+		List<Long> overLimit = LongStream.rangeClosed(1, BatchResult.MAX_IDS + 1).boxed().toList();
+		assertThrows(BadRequestException.class, () -> userService.findAllById(overLimit));
+		assertThrows(BadRequestException.class, () -> productService.findAllById(overLimit));
+		assertThrows(BadRequestException.class, () -> categoryService.findAllById(overLimit));
+		assertThrows(BadRequestException.class, () -> orderService.findAllById(overLimit));
+	}
+
+	private interface BatchLookup {
+		BatchResult<?> find(List<Long> ids);
+	}
+}
@@ -0,0 +1,227 @@
+package com.educandoweb.course;
+
+import com.educandoweb.course.dto.CategoryFacet;
+import com.educandoweb.course.entities.Category;
+import com.educandoweb.course.entities.Product;
+import com.educandoweb.course.jdbc.ConnectionMetrics;
+import com.educandoweb.course.repositories.CategoryRepository;
+import com.educandoweb.course.repositories.ProductRepository;
+import com.educandoweb.course.services.CategoryService;
+import com.educandoweb.course.services.ProductService;
+import com.educandoweb.course.services.catalog.Catalog;
+import com.educandoweb.course.services.catalog.CatalogSnapshot;
+import com.educandoweb.course.services.catalog.ProductFilter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica que o catálogo em memória serve as leituras sem obter conexões e que acompanha as escritas
+ * confirmadas (e somente elas), inclusive depois de uma atualização que falhou. O despachante do outbox fica desligado: as consultas periódicas dele também
+ * obtêm conexões e tornariam a contagem instável.
+ */
+@SpringBootTest(properties = {"outbox.dispatcher.enabled=false", "spring.datasource.url=jdbc:h2:mem:catalog",
+		"catalog.reload.initial-delay-ms=1", "catalog.reload.max-delay-ms=1"})
+@ActiveProfiles("test")
+@DirtiesContext
+class CatalogTests {
+
+	@Autowired
+	private Catalog catalog;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private CategoryService categoryService;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private CategoryRepository categoryRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private ConnectionMetrics connectionMetrics;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Test
+	void readsAreServedWithoutConnections() {
+		assertNotNull(catalog.current());
+		long before = connectionMetrics.snapshot().get("acquired").longValue();
+
+		Product product = productService.findById(1L);
+		productService.findAll();
+		categoryService.findAll();
+
+		assertEquals(before, connectionMetrics.snapshot().get("acquired").longValue());
+		assertEquals("The Lord of the Rings", product.getName());
+		assertEquals(new BigDecimal("90.50"), product.getPrice());
+		Category books = product.getCategories().iterator().next();
+		assertEquals(books.getName(), categoryService.findById(books.getId()).getName());
+
+		// os leitores recebem cópias: alterá-las não afeta a fotografia
+		books.setName("Changed by a reader");
+		categoryService.findById(books.getId()).setName("Changed by another reader");
+		assertNotSame(books, categoryService.findById(books.getId()));
+		assertEquals("Books", categoryService.findById(books.getId()).getName());
+		assertEquals("Books", productService.findById(1L).getCategories().iterator().next().getName());
+	}
+
+	@Test
+	void committedWritesAreVisibleAndRollbacksAreNot() {
+		Long id = transactionTemplate.execute(status -> {
+			Product p = new Product(null, "Catalog test", "Inserted by CatalogTests", new BigDecimal("12.34"), "");
+			p.addCategory(categoryRepository.getReferenceById(1L));
+			return productRepository.save(p).getId();
+		});
+		Product inserted = productService.findById(id);
+		assertEquals("Catalog test", inserted.getName());
+		assertEquals(1L, inserted.getCategories().iterator().next().getId());
+
+		transactionTemplate.executeWithoutResult(status -> {
+			productRepository.findById(id).orElseThrow().setName("Renamed");
+			status.setRollbackOnly();
+		});
+		assertEquals("Catalog test", productService.findById(id).getName());
+
+		transactionTemplate.executeWithoutResult(status -> categoryRepository.findById(1L).orElseThrow().setName("Gadgets"));
+		assertEquals("Gadgets", productService.findById(id).getCategories().iterator().next().getName());
+
+		transactionTemplate.executeWithoutResult(status -> {
+			Product p = productRepository.findById(id).orElseThrow();
+			p.removeCategory(p.getCategories().iterator().next());
+		});
+		assertTrue(productService.findById(id).getCategories().isEmpty());
+
+		productRepository.deleteById(id);
+		assertFalse(catalog.current().containsProduct(id));
+	}
+
+	@Test
+	void writesOutsideSpringTransactionsArePublishedOnlyAfterCommit() {
+		EntityManager em = entityManagerFactory.createEntityManager();
+		try {
+			em.getTransaction().begin();
+			Product p = new Product(null, "Plain JPA", "Inserted without Spring", new BigDecimal("1.00"), "");
+			em.persist(p);
+			em.flush();
+			assertFalse(catalog.current().containsProduct(p.getId()));
+			em.getTransaction().commit();
+			assertTrue(catalog.current().containsProduct(p.getId()));
+
+			em.getTransaction().begin();
+			em.remove(p);
+			em.flush();
+			em.getTransaction().rollback();
+			assertTrue(catalog.current().containsProduct(p.getId()));
+
+			em.getTransaction().begin();
+			em.remove(em.find(Product.class, p.getId()));
+			em.getTransaction().commit();
+			assertFalse(catalog.current().containsProduct(p.getId()));
+		} finally {
+			em.close();
+		}
+	}
+
+	@Test
+	void failedRefreshKeepsTheSnapshotUntilAFullReloadSucceeds() throws InterruptedException {
+		CatalogSnapshot before = catalog.current();
+		jdbcTemplate.execute("ALTER TABLE tb_category RENAME TO tb_category_away");
+		try {
+			catalog.refresh(List.of(), List.of(1L));
+			assertSame(before, catalog.current());
+			assertEquals(1, catalog.stats().get("reloadPending").intValue());
+
+			Thread.sleep(5);
+			catalog.reloadIfPending();
+			assertSame(before, catalog.current());
+			assertTrue(catalog.stats().get("reloadFailures").longValue() >= 1);
+		} finally {
+			jdbcTemplate.execute("ALTER TABLE tb_category_away RENAME TO tb_category");
+		}
+
+		Thread.sleep(5);
+		catalog.reloadIfPending();
+		assertNotSame(before, catalog.current());
+		assertEquals(0, catalog.stats().get("reloadPending").intValue());
+		assertEquals(before.categoryCount(), catalog.current().categoryCount());
+	}
+
+	@Test
+	void facetCountsMatchTheDatabaseAndFollowLinkChanges() {
+		for (ProductFilter filter : List.of(ProductFilter.ALL, productService.filter("o", null, null, null),
+				productService.filter(null, new BigDecimal("100"), new BigDecimal("1300"), null),
+				productService.filter("PC", null, new BigDecimal("2000"), "usd"))) {
+			assertEquals(countInDatabase(filter), counts(productService.facets(filter)), "filter " + filter.getName());
+		}
+
+		long electronics = counts(productService.facets(ProductFilter.ALL)).get(1L);
+		Long id = transactionTemplate.execute(status -> {
+			Product p = new Product(null, "Facet test", "Inserted by CatalogTests", new BigDecimal("5.00"), "");
+			p.addCategory(categoryRepository.getReferenceById(1L));
+			return productRepository.save(p).getId();
+		});
+		assertEquals(electronics + 1, counts(productService.facets(ProductFilter.ALL)).get(1L));
+		assertEquals(countInDatabase(ProductFilter.ALL), counts(productService.facets(ProductFilter.ALL)));
+
+		transactionTemplate.executeWithoutResult(status -> {
+			Product p = productRepository.findById(id).orElseThrow();
+			p.removeCategory(p.getCategories().iterator().next());
+		});
+		assertEquals(electronics, counts(productService.facets(ProductFilter.ALL)).get(1L));
+		productRepository.deleteById(id);
+	}
+
+	@Test
+	void pagesComeFromTheSortedIndexesAndFollowPriceChanges() {
+		long before = connectionMetrics.snapshot().get("acquired").longValue();
+		assertEquals(List.of(5L, 4L, 3L), ProductPageTests.walk(productService, new BigDecimal("100"), new BigDecimal("1300"), "price"));
+		assertEquals(List.of(3L, 4L, 5L, 2L, 1L), ProductPageTests.walk(productService, null, null, "name"));
+		assertEquals(before, connectionMetrics.snapshot().get("acquired").longValue());
+
+		transactionTemplate.executeWithoutResult(status -> productRepository.findById(5L).orElseThrow().setPrice(new BigDecimal("1225.00")));
+		assertEquals(List.of(4L, 5L, 3L), ProductPageTests.walk(productService, new BigDecimal("100"), new BigDecimal("1300"), "price"));
+		transactionTemplate.executeWithoutResult(status -> productRepository.findById(5L).orElseThrow().setPrice(new BigDecimal("100.99")));
+	}
+
+	private Map<Long, Long> countInDatabase(ProductFilter filter) {
+		String pattern = filter.getName() != null ? "%" + filter.getName().toLowerCase(Locale.ROOT) + "%" : null;
+		return counts(productRepository.countByCategory(pattern, filter.hasPriceRange() ? filter.getCurrency() : null,
+				filter.getMinPriceMinor(), filter.getMaxPriceMinor()));
+	}
+
+	private static Map<Long, Long> counts(List<CategoryFacet> facets) {
+		Map<Long, Long> counts = new TreeMap<>();
+		facets.forEach(f -> counts.put(f.getId(), f.getCount()));
+		return counts;
+	}
+}
@@ -0,0 +1,132 @@
+package com.educandoweb.course;
+
+import com.educandoweb.course.config.JacksonConfig;
+import com.educandoweb.course.dto.OrderSummary;
+import com.educandoweb.course.entities.Category;
+import com.educandoweb.course.entities.Order;
+import com.educandoweb.course.entities.OrderItem;
+import com.educandoweb.course.entities.Payment;
+import com.educandoweb.course.entities.Product;
+import com.educandoweb.course.entities.User;
+import com.educandoweb.course.enums.OrderStatus;
+import com.educandoweb.course.resources.fields.FieldSelection;
+import com.educandoweb.course.resources.fields.FieldSelectionFilter;
+import com.educandoweb.course.resources.json.DirectSerializationModule;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica que os serializadores diretos produzem o mesmo documento que o serializador de beans do Jackson, em
+ * JSON e em Smile, que a seleção de campos continua passando pelo serializador de beans e que trocar a moeda
+ * de um produto mantém o preço decimal.
+ */
+class DirectSerializationTests {
+
+	private final ObjectMapper beans = mapper(false).build();
+
+	private final ObjectMapper direct = mapper(true).build();
+
+	@Test
+	void directWritersMatchTheBeanSerializer() throws Exception {
+		assertEquals("DirectSerializer", direct.getSerializerProviderInstance().findValueSerializer(Order.class).getClass().getSimpleName());
+		List<Object> values = List.of(order(), jpyOrder(), new Order(7L, Instant.parse("1969-07-20T20:17:40.5Z"), OrderStatus.CANCELED, null),
+				List.of(product(1L, "BRL"), product(2L, "JPY")), summaries());
+		for (Object value : values) {
+			assertEquals(beans.writeValueAsString(value), direct.writeValueAsString(value));
+		}
+
+		ObjectMapper smileBeans = mapper(false).factory(new SmileFactory()).build();
+		ObjectMapper smileDirect = mapper(true).factory(new SmileFactory()).build();
+		assertEquals(smileBeans.readTree(smileBeans.writeValueAsBytes(order())),
+				smileDirect.readTree(smileDirect.writeValueAsBytes(order())));
+	}
+
+	@Test
+	void changingTheCurrencyKeepsTheDecimalPrice() {
+		Product p = new Product(1L, "Produto", null, new BigDecimal("1225.50"), null);
+		p.setCurrency("USD");
+		assertEquals(122550L, p.getPriceMinor());
+		p.setCurrency("JPY");
+		assertEquals(1226L, p.getPriceMinor());
+		assertEquals(new BigDecimal("1226"), p.getPrice());
+		p.setCurrency("BRL");
+		assertEquals(new BigDecimal("1226.00"), p.getPrice());
+	}
+
+	@Test
+	void fieldSelectionFallsBackToTheBeanSerializer() throws Exception {
+		SimpleFilterProvider filters = new SimpleFilterProvider()
+				.addFilter(FieldSelectionFilter.ID, new FieldSelectionFilter(FieldSelection.parse("id,items.quantity")));
+		String expected = beans.writer(filters).writeValueAsString(order());
+		assertEquals(expected, direct.writer(filters).writeValueAsString(order()));
+		assertTrue(expected.startsWith("{\"id\":1,\"items\":[{\"quantity\""), expected);
+	}
+
+	@Test
+	void mixedCurrenciesFailLikeTheBeanSerializer() {
+		Order order = order();
+		order.getItems().add(new OrderItem(order, product(9L, "JPY"), 1, new BigDecimal("500")));
+		assertThrows(JsonMappingException.class, () -> beans.writeValueAsString(order));
+		assertThrows(JsonMappingException.class, () -> direct.writeValueAsString(order));
+	}
+
+	private static Jackson2ObjectMapperBuilder mapper(boolean directSerialization) {
+		Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+		new JacksonConfig().fieldSelectionCustomizer().customize(builder);
+		if (directSerialization) {
+			builder.modulesToInstall(new DirectSerializationModule());
+		}
+		return builder;
+	}
+
+	private static Order order() {
+		User client = new User(1L, "Maria \"Mary\" Brown", "maria@gmail.com", null, "123456");
+		Order order = new Order(1L, Instant.parse("2019-06-20T19:53:07.123456Z"), OrderStatus.PAID, client);
+		for (int i = 1; i <= 3; i++) {
+			Product p = product((long) i, "BRL");
+			order.getItems().add(new OrderItem(order, p, i, p.getPrice()));
+		}
+		order.getItems().add(new OrderItem(order, product(4L, "BRL"), 2, new BigDecimal("0.05")));
+		order.setPayment(new Payment(1L, Instant.parse("2024-02-29T23:59:59Z"), order));
+		return order;
+	}
+
+	private static Order jpyOrder() {
+		Order order = new Order(2L, Instant.parse("2000-03-01T00:00:00Z"), OrderStatus.WAITING_PAYMENT, null);
+		Product p = product(5L, "JPY");
+		order.getItems().add(new OrderItem(order, p, 3, p.getPrice()));
+		return order;
+	}
+
+	private static Product product(Long id, String currency) {
+		Product p = new Product(id, "Produto ção " + id, id % 2 == 0 ? null : "Descrição\n" + id,
+				BigDecimal.valueOf(99_999 * id, 2), "https://img.example.com/" + id + ".png");
+		p.setCurrency(currency);
+		p.setPrice(BigDecimal.valueOf(99_999 * id, 2));
+		p.getCategories().add(new Category(2L, "Books"));
+		if (id % 2 == 0) {
+			p.getCategories().add(new Category(3L, "Computers"));
+		}
+		return p;
+	}
+
+	private static List<OrderSummary> summaries() {
+		OrderSummary paid = new OrderSummary(1L, Instant.parse("2019-06-20T19:53:07Z"), OrderStatus.PAID.getCode());
+		paid.setTotal(143_100L, "BRL");
+		OrderSummary refund = new OrderSummary(2L, Instant.parse("2099-12-31T23:59:59Z"), OrderStatus.DELIVERED.getCode());
+		refund.setTotal(-1_234L, "JPY");
+		return List.of(paid, refund);
+	}
+}
@@ -0,0 +1,108 @@
+package com.educandoweb.course;
+
+import com.educandoweb.course.config.JacksonConfig;
+import com.educandoweb.course.dto.BatchResult;
+import com.educandoweb.course.entities.Category;
+import com.educandoweb.course.entities.Order;
+import com.educandoweb.course.entities.OrderItem;
+import com.educandoweb.course.entities.Payment;
+import com.educandoweb.course.entities.Product;
+import com.educandoweb.course.entities.User;
+import com.educandoweb.course.enums.OrderStatus;
+import com.educandoweb.course.resources.fields.FieldSelection;
+import com.educandoweb.course.resources.fields.FieldSelectionFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica a seleção de campos: caminhos aninhados e através de listas, o envelope das buscas por vários ids e
+ * que as associações não pedidas nunca têm o getter chamado.
+ */
+class FieldSelectionTests {
+
+	private final ObjectMapper mapper = mapper();
+
+	@Test
+	void parsesNestedPaths() {
+		FieldSelection selection = FieldSelection.parse(" id, client.name ,items.product.categories,,");
+
+		assertFalse(selection.isAll());
+		assertTrue(selection.includes("id"));
+		assertTrue(selection.includes("client.name"));
+		assertFalse(selection.includes("client.email"));
+		assertFalse(selection.includes("payment"));
+		assertTrue(selection.includes("items.product"));
+		assertTrue(selection.includes("items.product.categories.name"));
+		assertFalse(selection.includes("items.quantity"));
+		assertTrue(FieldSelection.parse(" ").isAll());
+		assertTrue(FieldSelection.parse("client").includes("client.email"));
+	}
+
+	@Test
+	void writesOnlySelectedFieldsOfNestedObjectsAndLists() throws Exception {
+		assertEquals("{\"id\":1,\"client\":{\"name\":\"Maria Brown\"}}", write(order(), "id,client.name"));
+		assertEquals("{\"items\":[{\"quantity\":2,\"product\":{\"name\":\"Book\",\"categories\":[{\"name\":\"Books\"}]}}]}",
+				write(order(), "items.quantity,items.product.name,items.product.categories.name"));
+		assertEquals("[{\"id\":1,\"payment\":{\"id\":1}},{\"id\":1,\"payment\":{\"id\":1}}]",
+				write(List.of(order(), order()), "id,payment.id"));
+	}
+
+	@Test
+	void selectsInsideTheBatchEnvelope() throws Exception {
+		BatchResult<Order> result = new BatchResult<>(List.of(order()), List.of(9L));
+		String json = mapper.writer(filters(FieldSelection.parse("id").nestedIn("items", "missing"))).writeValueAsString(result);
+
+		assertEquals("{\"items\":[{\"id\":1}],\"missing\":[9]}", json);
+	}
+
+	@Test
+	void neverCallsTheGetterOfUnselectedAssociations() throws Exception {
+		Order order = new Order(1L, Instant.parse("2019-06-20T19:53:07Z"), OrderStatus.PAID, null) {
+			@Override
+			public User getClient() {
+				throw new IllegalStateException("client was not selected");
+			}
+
+			@Override
+			public Payment getPayment() {
+				throw new IllegalStateException("payment was not selected");
+			}
+		};
+
+		assertEquals("{\"id\":1,\"orderStatus\":\"PAID\"}", write(order, "id,orderStatus"));
+	}
+
+	private String write(Object value, String fields) throws Exception {
+		return mapper.writer(filters(FieldSelection.parse(fields))).writeValueAsString(value);
+	}
+
+	private static SimpleFilterProvider filters(FieldSelection selection) {
+		return new SimpleFilterProvider().addFilter(FieldSelectionFilter.ID, new FieldSelectionFilter(selection));
+	}
+
+	private static ObjectMapper mapper() {
+		Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+		new JacksonConfig().fieldSelectionCustomizer().customize(builder);
+		return builder.build();
+	}
+
+	private static Order order() {
+		Order order = new Order(1L, Instant.parse("2019-06-20T19:53:07Z"), OrderStatus.PAID,
+				new User(1L, "Maria Brown", "maria@gmail.com", "988888888", "123456"));
+		Product product = new Product(1L, "Book", "A book", new BigDecimal("90.50"), "");
+		product.getCategories().add(new Category(2L, "Books"));
+		order.getItems().add(new OrderItem(order, product, 2, product.getPrice()));
+		order.setPayment(new Payment(1L, Instant.parse("2019-06-20T21:53:07Z"), order));
+		return order;
+	}
+}
@@ -0,0 +1,103 @@
+package com.educandoweb.course;
+
+import com.educandoweb.course.services.lookup.IdExistenceFilter;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica o filtro de existência de ids: antes da carga tudo "talvez exista", os bits respeitam os limites das
+ * palavras de 64 bits, o array cresce e encolhe os bits sem perder os demais e não passa do limite de ids.
+ */
+class IdExistenceFilterTests {
+
+	@Test
+	void answersMaybeForEveryIdBeforeLoad() {
+		IdExistenceFilter filter = new IdExistenceFilter();
+		filter.add(5L);
+
+		assertFalse(filter.isLoaded());
+		assertTrue(filter.mightContain(5L));
+		assertTrue(filter.mightContain(6L));
+		assertTrue(filter.mightContain(-1L));
+
+		filter.load(List.of(7L));
+		assertTrue(filter.isLoaded());
+		assertTrue(filter.mightContain(5L));
+		assertTrue(filter.mightContain(7L));
+		assertFalse(filter.mightContain(6L));
+		assertFalse(filter.mightContain(0L));
+		assertFalse(filter.mightContain(-1L));
+		assertTrue(filter.mightContain(null));
+	}
+
+	@Test
+	void keepsBitsApartAcrossWordBoundaries() {
+		IdExistenceFilter filter = new IdExistenceFilter();
+		filter.load(List.of(63L, 64L));
+
+		assertTrue(filter.mightContain(63L));
+		assertTrue(filter.mightContain(64L));
+		assertFalse(filter.mightContain(62L));
+		assertFalse(filter.mightContain(65L));
+		assertFalse(filter.mightContain(127L));
+		assertFalse(filter.mightContain(128L));
+
+		filter.remove(64L);
+		assertFalse(filter.mightContain(64L));
+		assertTrue(filter.mightContain(63L));
+		filter.remove(63L);
+		assertFalse(filter.mightContain(63L));
+	}
+
+	@Test
+	void growsOnAddAndIgnoresRemovalsBeyondItsRange() {
+		IdExistenceFilter filter = new IdExistenceFilter();
+		filter.load(List.of(1L));
+		filter.add(10_000L);
+		filter.add(128L);
+
+		assertTrue(filter.mightContain(1L));
+		assertTrue(filter.mightContain(128L));
+		assertTrue(filter.mightContain(10_000L));
+		assertFalse(filter.mightContain(9_999L));
+		assertFalse(filter.mightContain(10_001L));
+		assertFalse(filter.mightContain(1_000_000L));
+
+		filter.remove(1_000_000L);
+		filter.remove(10_000L);
+		assertFalse(filter.mightContain(10_000L));
+		assertTrue(filter.mightContain(128L));
+	}
+
+	@Test
+	void answersMaybeBeyondItsCapInsteadOfGrowing() {
+		IdExistenceFilter filter = new IdExistenceFilter(1_000L);
+		filter.load(List.of(1L, 1_000L, Long.MAX_VALUE));
+
+		assertTrue(filter.mightContain(1_000L));
+		assertFalse(filter.mightContain(999L));
+		assertTrue(filter.mightContain(1_001L));
+		assertTrue(filter.mightContain(Long.MAX_VALUE));
+		filter.remove(Long.MAX_VALUE);
+		assertTrue(filter.mightContain(Long.MAX_VALUE));
+
+		IdExistenceFilter byDefault = new IdExistenceFilter();
+		byDefault.load(List.of(Long.MAX_VALUE - 1));
+		assertTrue(byDefault.mightContain(Long.MAX_VALUE));
+		assertFalse(byDefault.mightContain(IdExistenceFilter.DEFAULT_MAX_ID));
+	}
+
+	@Test
+	void candidatesDropDuplicatesAndUnknownIdsInRequestOrder() {
+		IdExistenceFilter filter = new IdExistenceFilter();
+		filter.load(List.of(1L, 2L, 70L));
+
+		assertEquals(List.of(70L, 1L, 2L), filter.candidates(Arrays.asList(70L, 3L, 1L, 70L, 2L, 500L)));
+	}
+}
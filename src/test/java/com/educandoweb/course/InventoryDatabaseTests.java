@@ -0,0 +1,59 @@
+package com.educandoweb.course;
+
+import com.educandoweb.course.services.exceptions.OutOfStockException;
+import com.educandoweb.course.services.inventory.Inventory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Verifica o estoque no banco ({@code inventory.in-memory=false}) com vários shards, em que cada escrita abre a
+ * própria transação: uma reserva de vários produtos em que um deles falta não deixa nenhuma reserva gravada.
+ */
+@SpringBootTest(properties = {"inventory.in-memory=false", "sharding.enabled=true",
+		"spring.datasource.url=jdbc:h2:mem:inventorydb0", "sharding.urls=jdbc:h2:mem:inventorydb1",
+		"outbox.dispatcher.enabled=false"})
+@ActiveProfiles("test")
+@DirtiesContext
+class InventoryDatabaseTests {
+
+	@Autowired
+	private Inventory inventory;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void reservationOfSeveralProductsIsAllOrNothing() {
+		inventory.addStock(2L, 5);
+		Map<Long, Long> items = new LinkedHashMap<>();
+		items.put(2L, 3L);
+		items.put(3L, 1L);
+
+		assertThrows(OutOfStockException.class, () -> inventory.reserveAll(items));
+		assertEquals(List.of(5L, 0L), row(2L));
+		assertEquals(1L, inventory.stats().get("rejections"));
+		assertEquals(0L, inventory.stats().get("reservations"));
+
+		inventory.addStock(3L, 1);
+		inventory.reserveAll(items);
+		assertEquals(List.of(2L, 3L), row(2L));
+		assertEquals(List.of(0L, 1L), row(3L));
+		assertEquals(2L, inventory.stats().get("reservations"));
+	}
+
+	private List<Long> row(Long productId) {
+		return jdbcTemplate.queryForObject("SELECT available, reserved FROM tb_inventory WHERE product_id = ?",
+				(rs, rowNum) -> List.of(rs.getLong(1), rs.getLong(2)), productId);
+	}
+}
@@ -0,0 +1,105 @@
+package com.educandoweb.course;
+
+import com.educandoweb.course.dto.StockLevel;
+import com.educandoweb.course.services.exceptions.BadRequestException;
+import com.educandoweb.course.services.exceptions.OutOfStockException;
+import com.educandoweb.course.services.exceptions.ResourceNotFoundException;
+import com.educandoweb.course.services.inventory.Inventory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica o estoque em memória: reservas concorrentes nunca passam do estoque, uma reserva de vários produtos é
+ * desfeita por inteiro quando um deles falta e a gravação em lote leva ao banco o estoque disponível e reservado.
+ */
+@SpringBootTest(properties = {"spring.datasource.url=jdbc:h2:mem:inventory", "inventory.flush-interval-ms=3600000",
+		"outbox.dispatcher.enabled=false"})
+@ActiveProfiles("test")
+@DirtiesContext
+class InventoryTests {
+
+	@Autowired
+	private Inventory inventory;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void concurrentReservationsNeverOversell() throws Exception {
+		inventory.addStock(1L, 1000);
+		AtomicInteger granted = new AtomicInteger();
+		AtomicInteger refused = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 8; t++) {
+			Thread thread = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				for (int i = 0; i < 300; i++) {
+					try {
+						inventory.reserve(1L, 1 + i % 3);
+						granted.addAndGet(1 + i % 3);
+					} catch (OutOfStockException e) {
+						refused.incrementAndGet();
+					}
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		StockLevel stock = inventory.stock(1L);
+		assertEquals(1000, stock.getAvailable() + stock.getReserved());
+		assertEquals(granted.get(), stock.getReserved());
+		assertEquals(0, stock.getAvailable());
+
+		inventory.release(1L, 10);
+		assertTrue(inventory.flush() >= 1);
+		assertEquals(List.of(10L, 990L), jdbcTemplate.queryForObject(
+				"SELECT available, reserved FROM tb_inventory WHERE product_id = 1", (rs, rowNum) -> List.of(rs.getLong(1), rs.getLong(2))));
+		assertEquals(0, inventory.flush());
+	}
+
+	@Test
+	void reservationOfSeveralProductsIsAllOrNothing() {
+		inventory.addStock(2L, 5);
+		Map<Long, Long> items = new LinkedHashMap<>();
+		items.put(2L, 3L);
+		items.put(3L, 1L);
+
+		assertThrows(OutOfStockException.class, () -> inventory.reserveAll(items));
+		assertEquals(5, inventory.stock(2L).getAvailable());
+		assertEquals(0, inventory.stock(2L).getReserved());
+
+		inventory.addStock(3L, 1);
+		inventory.reserveAll(items);
+		assertEquals(2, inventory.stock(2L).getAvailable());
+		assertEquals(1, inventory.stock(3L).getReserved());
+
+		assertThrows(BadRequestException.class, () -> inventory.release(2L, 4));
+		assertThrows(BadRequestException.class, () -> inventory.reserve(2L, 0));
+		assertThrows(ResourceNotFoundException.class, () -> inventory.reserve(99L, 1));
+	}
+}
@@ -0,0 +1,55 @@
+package com.educandoweb.course;
+
+import com.educandoweb.course.jdbc.ConnectionMetrics;
+import com.educandoweb.course.jdbc.MeasuredDataSource;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica a contabilidade de retenção de conexões: cada conexão conta uma vez, do momento em que é obtida até o
+ * primeiro {@code close()}, e as conexões em uso acompanham as obtenções e devoluções.
+ */
+class MeasuredDataSourceTests {
+
+	@Test
+	void holdTimeRunsFromAcquireToFirstClose() throws Exception {
+		JdbcDataSource h2 = new JdbcDataSource();
+		h2.setURL("jdbc:h2:mem:measured");
+		ConnectionMetrics metrics = new ConnectionMetrics();
+		MeasuredDataSource dataSource = new MeasuredDataSource(h2, metrics, null);
+
+		Connection held = dataSource.getConnection();
+		Connection brief = dataSource.getConnection();
+		assertEquals(2, metrics.inUse());
+		brief.close();
+		assertEquals(1, metrics.inUse());
+
+		try (Statement statement = held.createStatement(); ResultSet rs = statement.executeQuery("SELECT 1")) {
+			assertTrue(rs.next());
+		}
+		Thread.sleep(50);
+		held.close();
+		held.close();
+
+		Map<String, Number> snapshot = metrics.snapshot();
+		assertEquals(2L, snapshot.get("acquired"));
+		assertEquals(0, snapshot.get("inUse"));
+		long max = snapshot.get("maxHoldMicros").longValue();
+		long total = snapshot.get("totalHoldMicros").longValue();
+		assertTrue(max >= 50_000, "max hold " + max);
+		assertTrue(total >= max && total < max + 50_000, "total hold " + total);
+		assertEquals(total / 2, snapshot.get("meanHoldMicros").longValue(), 1);
+
+		metrics.reset();
+		assertEquals(0L, metrics.snapshot().get("acquired"));
+		assertEquals(0L, metrics.snapshot().get("maxHoldMicros"));
+	}
+}
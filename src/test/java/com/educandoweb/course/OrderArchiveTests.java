@@ -0,0 +1,160 @@
+package com.educandoweb.course;
+
+import com.educandoweb.course.dto.BatchResult;
+import com.educandoweb.course.entities.Order;
+import com.educandoweb.course.enums.OrderStatus;
+import com.educandoweb.course.repositories.OrderRepository;
+import com.educandoweb.course.repositories.UserRepository;
+import com.educandoweb.course.services.OrderService;
+import com.educandoweb.course.services.UserService;
+import com.educandoweb.course.services.archive.OrderArchiver;
+import com.educandoweb.course.services.exceptions.BadRequestException;
+import com.educandoweb.course.services.exceptions.DatabaseException;
+import com.educandoweb.course.services.export.ExportFormat;
+import com.educandoweb.course.services.export.OrderExporter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Verifica o arquivamento de pedidos: apenas pedidos entregues ou cancelados e antigos são movidos, com itens e
+ * pagamento, em blocos; continuam acessíveis pelo id, não podem ser alterados, só entram na exportação quando
+ * pedidos, o arquivador desiste da execução quando o banco está ocupado e só executa na instância que tem a
+ * trava.
+ */
+@SpringBootTest(properties = {"spring.datasource.url=jdbc:h2:mem:order-archive", "order-archive.enabled=false",
+		"order-archive.batch-size=1", "order-archive.pause-ms=0", "order-archive.max-busy-connections=0",
+		"order-archive.busy-wait-ms=50", "outbox.dispatcher.enabled=false"})
+@ActiveProfiles("test")
+@DirtiesContext
+class OrderArchiveTests {
+
+	@Autowired
+	private OrderArchiver archiver;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private OrderExporter exporter;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void movesOldFinishedOrdersAndKeepsThemReadable() throws Exception {
+		orderService.createPayment(3L);
+		orderService.updateStatus(3L, OrderStatus.SHIPPED);
+		orderService.updateStatus(3L, OrderStatus.DELIVERED);
+		orderService.updateStatus(2L, OrderStatus.CANCELED);
+		Long recentId = transactionTemplate.execute(status -> orderRepository.save(
+				new Order(null, Instant.now(), OrderStatus.CANCELED, userRepository.getReferenceById(1L))).getId());
+
+		assertEquals(2, archiver.archive());
+		assertEquals(List.of(1L, recentId), jdbcTemplate.queryForList("SELECT id FROM tb_order ORDER BY id", Long.class));
+		assertEquals(List.of(2L, 3L), jdbcTemplate.queryForList("SELECT id FROM tb_order_archive ORDER BY id", Long.class));
+		assertEquals(0, count("SELECT COUNT(*) FROM tb_order_item WHERE order_id IN (2, 3)"));
+		assertEquals(2, count("SELECT COUNT(*) FROM tb_order_item_archive"));
+		assertEquals(0, count("SELECT COUNT(*) FROM tb_payment WHERE order_id = 3"));
+		assertEquals(1, count("SELECT COUNT(*) FROM tb_payment_archive WHERE order_id = 3"));
+		assertEquals(3L, archiver.stats().get("chunks"));
+		assertEquals(2L, archiver.stats().get("stored"));
+
+		Order archived = orderService.findById(3L);
+		assertEquals(OrderStatus.DELIVERED, archived.getOrderStatus());
+		assertEquals(1L, archived.getClient().getId());
+		assertNotNull(archived.getPayment());
+		assertEquals("Rails for Dummies", archived.getItems().iterator().next().getProduct().getName());
+		assertEquals(new BigDecimal("201.98"), archived.getTotal());
+
+		BatchResult<Order> batch = orderService.findAllById(List.of(3L, 1L, 9L));
+		assertEquals(List.of(3L, 1L), batch.getItems().stream().map(Order::getId).toList());
+		assertEquals(List.of(9L), batch.getMissing());
+
+		assertThrows(BadRequestException.class, () -> orderService.updateStatus(3L, OrderStatus.PAID));
+		assertThrows(DatabaseException.class, () -> userService.delete(2L));
+
+		assertEquals(List.of(1L, recentId), exportedIds(false));
+		assertEquals(List.of(1L, 2L, 3L, recentId), exportedIds(true));
+	}
+
+	@Test
+	void yieldsWhileConnectionsAreBusy() throws Exception {
+		long yielded = archiver.stats().get("yieldedRuns").longValue();
+		try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+			statement.execute("SELECT 1");
+			assertEquals(0, archiver.archive());
+		}
+		assertEquals(yielded + 1, archiver.stats().get("yieldedRuns").longValue());
+	}
+
+	@Test
+	void runsOnlyOnTheInstanceHoldingTheLock() {
+		jdbcTemplate.update("DELETE FROM tb_scheduler_lock WHERE name = 'order-archive'");
+		jdbcTemplate.update("INSERT INTO tb_scheduler_lock (name, locked_by, locked_until) VALUES ('order-archive', 'other', ?)",
+				Instant.now().atOffset(ZoneOffset.UTC).plusHours(1));
+		long notLeader = archiver.stats().get("notLeaderRuns").longValue();
+		long chunks = archiver.stats().get("chunks").longValue();
+		try {
+			assertEquals(-1, archiver.archive());
+			assertEquals(notLeader + 1, archiver.stats().get("notLeaderRuns").longValue());
+			assertEquals(chunks, archiver.stats().get("chunks").longValue());
+		} finally {
+			jdbcTemplate.update("DELETE FROM tb_scheduler_lock WHERE name = 'order-archive'");
+		}
+	}
+
+	private long count(String sql) {
+		return jdbcTemplate.queryForObject(sql, Long.class);
+	}
+
+	private List<Long> exportedIds(boolean archived) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		exporter.export(Instant.EPOCH, Instant.parse("2100-01-01T00:00:00Z"), archived, ExportFormat.NDJSON, out);
+		return out.toString(StandardCharsets.UTF_8).lines()
+				.map(line -> {
+					try {
+						return objectMapper.readTree(line).get("id").asLong();
+					} catch (Exception e) {
+						throw new IllegalStateException(e);
+					}
+				}).toList();
+	}
+}
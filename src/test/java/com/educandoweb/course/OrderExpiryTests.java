@@ -0,0 +1,108 @@
+package com.educandoweb.course;
+
+import com.educandoweb.course.entities.Order;
+import com.educandoweb.course.enums.OrderStatus;
+import com.educandoweb.course.repositories.OrderRepository;
+import com.educandoweb.course.repositories.UserRepository;
+import com.educandoweb.course.services.OrderService;
+import com.educandoweb.course.services.audit.AuditRecord;
+import com.educandoweb.course.services.exceptions.BadRequestException;
+import com.educandoweb.course.services.expiry.OrderExpirer;
+import com.educandoweb.course.services.scheduling.LeaderLock;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica a expiração de pedidos que aguardam pagamento: só os antigos são cancelados, em blocos, com os mesmos
+ * eventos do outbox e registros de auditoria de uma alteração pela API, e apenas pela instância que tem a trava.
+ */
+@SpringBootTest(properties = {"spring.datasource.url=jdbc:h2:mem:order-expiry", "order-expiry.batch-size=1",
+		"order-expiry.pause-ms=0", "outbox.dispatcher.enabled=false"})
+@ActiveProfiles("test")
+@DirtiesContext
+class OrderExpiryTests {
+
+	@Autowired
+	private OrderExpirer expirer;
+
+	@Autowired
+	private LeaderLock leaderLock;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void cancelsOrdersWaitingForPaymentTooLong() throws Exception {
+		Long recentId = transactionTemplate.execute(status -> orderRepository.save(
+				new Order(null, Instant.now(), OrderStatus.WAITING_PAYMENT, userRepository.getReferenceById(1L))).getId());
+
+		assertEquals(2, expirer.expire());
+		assertEquals(List.of(2, 5, 5, 1), jdbcTemplate.queryForList(
+				"SELECT order_status FROM tb_order WHERE id IN (1, 2, 3, ?) ORDER BY id", Integer.class, recentId));
+		assertEquals(2L, expirer.stats().get("lastRunExpired"));
+		assertEquals(3L, expirer.stats().get("chunks"));
+
+		List<String> payloads = jdbcTemplate.queryForList(
+				"SELECT payload FROM tb_outbox WHERE type = 'OrderStatusChanged' ORDER BY aggregate_id", String.class);
+		assertEquals(2, payloads.size());
+		JsonNode event = objectMapper.readTree(payloads.get(0));
+		assertEquals(2L, event.get("orderId").asLong());
+		assertEquals("WAITING_PAYMENT", event.get("previousStatus").asText());
+		assertEquals("CANCELED", event.get("orderStatus").asText());
+
+		List<AuditRecord> history = orderService.history(3L);
+		assertEquals(OrderStatus.CANCELED, history.get(history.size() - 1).getOrderStatus());
+		assertThrows(BadRequestException.class, () -> orderService.createPayment(2L));
+	}
+
+	@Test
+	void runsOnlyOnTheInstanceHoldingTheLock() {
+		OffsetDateTime now = Instant.now().atOffset(ZoneOffset.UTC);
+		jdbcTemplate.update("DELETE FROM tb_scheduler_lock WHERE name = 'order-expiry'");
+		jdbcTemplate.update("INSERT INTO tb_scheduler_lock (name, locked_by, locked_until) VALUES ('order-expiry', 'other', ?)",
+				now.plusHours(1));
+		long notLeader = expirer.stats().get("notLeaderRuns").longValue();
+
+		assertEquals(-1, expirer.expire());
+		assertEquals(notLeader + 1, expirer.stats().get("notLeaderRuns").longValue());
+
+		// concessão vencida da outra instância: a trava pode ser tomada
+		jdbcTemplate.update("UPDATE tb_scheduler_lock SET locked_until = ? WHERE name = 'order-expiry'", now.minusSeconds(1));
+		assertTrue(leaderLock.tryAcquire("order-expiry", Duration.ofMinutes(1)));
+		assertEquals(leaderLock.owner(), jdbcTemplate.queryForObject(
+				"SELECT locked_by FROM tb_scheduler_lock WHERE name = 'order-expiry'", String.class));
+		leaderLock.release("order-expiry");
+	}
+}
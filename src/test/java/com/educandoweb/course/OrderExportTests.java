@@ -0,0 +1,113 @@
+package com.educandoweb.course;
+
+import com.educandoweb.course.entities.Order;
+import com.educandoweb.course.entities.OrderItem;
+import com.educandoweb.course.entities.Product;
+import com.educandoweb.course.enums.OrderStatus;
+import com.educandoweb.course.repositories.OrderItemRepository;
+import com.educandoweb.course.repositories.OrderRepository;
+import com.educandoweb.course.repositories.ProductRepository;
+import com.educandoweb.course.repositories.UserRepository;
+import com.educandoweb.course.services.exceptions.BadRequestException;
+import com.educandoweb.course.services.export.ExportFormat;
+import com.educandoweb.course.services.export.OrderExporter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Verifica a exportação de pedidos em NDJSON e CSV: ordem por momento, filtro de período, totais, pedidos sem
+ * itens e escape de CSV, com o contexto de persistência limpo a cada linha.
+ */
+@SpringBootTest(properties = {"order-export.clear-interval=1", "spring.datasource.url=jdbc:h2:mem:order-export"})
+@ActiveProfiles("test")
+@DirtiesContext
+class OrderExportTests {
+
+	private static final Instant FROM = Instant.EPOCH;
+	private static final Instant TO = Instant.parse("2100-01-01T00:00:00Z");
+
+	@Autowired
+	private OrderExporter exporter;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private OrderItemRepository orderItemRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Test
+	void exportsOrdersInMomentOrderInBothFormats() throws Exception {
+		Long emptyId = transactionTemplate.execute(status -> orderRepository.save(
+				new Order(null, Instant.parse("2020-01-01T00:00:00Z"), OrderStatus.CANCELED, userRepository.getReferenceById(2L))).getId());
+		Long tableId = transactionTemplate.execute(status -> {
+			Product table = productRepository.save(new Product(null, "Mesa, \"grande\"", "", new BigDecimal("10.00"), ""));
+			Order order = orderRepository.save(new Order(null, Instant.parse("2021-01-01T00:00:00Z"), OrderStatus.PAID,
+					userRepository.getReferenceById(1L)));
+			orderItemRepository.save(new OrderItem(order, table, 3, table.getPrice()));
+			return order.getId();
+		});
+
+		List<JsonNode> orders = export(FROM, TO, ExportFormat.NDJSON).lines().map(this::parse).toList();
+		assertEquals(List.of(1L, 2L, 3L, emptyId, tableId), orders.stream().map(o -> o.get("id").asLong()).toList());
+		assertEquals(1431.00, orders.get(0).get("total").doubleValue());
+		assertEquals(2, orders.get(0).get("items").size());
+		assertEquals(0, orders.get(3).get("items").size());
+		assertEquals(0.0, orders.get(3).get("total").doubleValue());
+		assertEquals(30.00, orders.get(4).get("total").doubleValue());
+
+		List<String> csv = export(Instant.parse("2019-07-01T00:00:00Z"), TO, ExportFormat.CSV).lines().toList();
+		assertEquals(List.of(
+				"order_id,moment,order_status,client_id,product_id,product_name,quantity,unit_price,currency,subtotal",
+				"2,2019-07-21T03:42:10Z,WAITING_PAYMENT,2,3,Macbook Pro,2,1250.00,BRL,2500.00",
+				"3,2019-07-22T15:21:22Z,WAITING_PAYMENT,1,5,Rails for Dummies,2,100.99,BRL,201.98",
+				emptyId + ",2020-01-01T00:00:00Z,CANCELED,2,,,,,,",
+				tableId + ",2021-01-01T00:00:00Z,PAID,1," + orders.get(4).get("items").get(0).get("productId").asLong()
+						+ ",\"Mesa, \"\"grande\"\"\",3,10.00,BRL,30.00"), csv);
+
+		assertEquals("", export(TO, TO.plusSeconds(1), ExportFormat.NDJSON));
+		assertThrows(BadRequestException.class, () -> export(TO, FROM, ExportFormat.CSV));
+		assertThrows(BadRequestException.class, () -> ExportFormat.parse("xml"));
+		assertEquals(Instant.parse("2019-07-01T00:00:00Z"), OrderExporter.parseBound("2019-07-01", null));
+	}
+
+	private String export(Instant from, Instant to, ExportFormat format) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		exporter.export(from, to, false, format, out);
+		return out.toString(StandardCharsets.UTF_8);
+	}
+
+	private JsonNode parse(String line) {
+		try {
+			return objectMapper.readTree(line);
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package com.educandoweb.course;
+
+import com.educandoweb.course.entities.OutboxEvent;
+import com.educandoweb.course.enums.OrderStatus;
+import com.educandoweb.course.services.OrderService;
+import com.educandoweb.course.services.exceptions.BadRequestException;
+import com.educandoweb.course.services.outbox.Outbox;
+import com.educandoweb.course.services.outbox.OutboxDispatcher;
+import com.educandoweb.course.services.outbox.OutboxSink;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Verifica que os eventos do outbox acompanham a transação da alteração, saem na ordem do pedido e são
+ * reenviados quando o destino falha. Transições de status recusadas não geram eventos, e só a instância que tem a
+ * trava do despachante entrega.
+ */
+@SpringBootTest(properties = {"outbox.sink=test", "outbox.dispatcher.interval-ms=3600000"})
+@ActiveProfiles("test")
+@DirtiesContext
+class OutboxTests {
+
+	@TestConfiguration
+	static class FlakySinkConfig {
+		@Bean
+		FlakySink flakySink() {
+			return new FlakySink();
+		}
+	}
+
+	static class FlakySink implements OutboxSink {
+		final List<OutboxEvent> received = new CopyOnWriteArrayList<>();
+		final AtomicBoolean failNext = new AtomicBoolean(true);
+
+		@Override
+		public void publish(List<OutboxEvent> events) {
+			received.addAll(events);
+			if (failNext.getAndSet(false)) {
+				throw new IllegalStateException("simulated outage");
+			}
+		}
+	}
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private OutboxDispatcher dispatcher;
+
+	@Autowired
+	private FlakySink sink;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void eventsAreDeliveredAtLeastOnceInOrderPerOrder() {
+		orderService.createPayment(3L);
+		orderService.updateStatus(3L, OrderStatus.SHIPPED);
+		assertThrows(BadRequestException.class, () -> orderService.createPayment(3L));
+		assertThrows(BadRequestException.class, () -> orderService.updateStatus(3L, OrderStatus.WAITING_PAYMENT));
+		assertThrows(BadRequestException.class, () -> orderService.updateStatus(3L, OrderStatus.CANCELED));
+		assertThrows(BadRequestException.class, () -> orderService.updateStatus(2L, OrderStatus.PAID));
+
+		dispatcher.dispatch();
+		assertEquals(3, sink.received.size());
+		dispatcher.dispatch();
+		dispatcher.dispatch();
+
+		// o primeiro lote falhou e foi reenviado por inteiro; a tentativa rejeitada não gerou evento
+		List<String> types = sink.received.stream().map(OutboxEvent::getType).toList();
+		assertEquals(List.of(Outbox.PAYMENT_CREATED, Outbox.ORDER_STATUS_CHANGED, Outbox.ORDER_STATUS_CHANGED,
+				Outbox.PAYMENT_CREATED, Outbox.ORDER_STATUS_CHANGED, Outbox.ORDER_STATUS_CHANGED), types);
+		assertEquals(0L, dispatcher.stats().get("pending"));
+		assertEquals(3L, dispatcher.stats().get("dispatched"));
+	}
+
+	@Test
+	void onlyTheLockHolderDispatches() {
+		jdbcTemplate.update("DELETE FROM tb_scheduler_lock WHERE name = 'outbox-dispatcher'");
+		jdbcTemplate.update("INSERT INTO tb_scheduler_lock (name, locked_by, locked_until) VALUES ('outbox-dispatcher', 'other', ?)",
+				OffsetDateTime.now(ZoneOffset.UTC).plusHours(1));
+		try {
+			long notLeader = dispatcher.stats().get("notLeaderRuns").longValue();
+			int received = sink.received.size();
+
+			dispatcher.dispatch();
+			assertEquals(notLeader + 1, dispatcher.stats().get("notLeaderRuns").longValue());
+			assertEquals(received, sink.received.size());
+		} finally {
+			jdbcTemplate.update("DELETE FROM tb_scheduler_lock WHERE name = 'outbox-dispatcher'");
+		}
+	}
+}
@@ -0,0 +1,131 @@
+package com.educandoweb.course;
+
+import com.educandoweb.course.dto.ImportReport;
+import com.educandoweb.course.entities.Category;
+import com.educandoweb.course.entities.Product;
+import com.educandoweb.course.services.ProductService;
+import com.educandoweb.course.services.exceptions.BadRequestException;
+import com.educandoweb.course.services.importer.ProductImporter;
+import com.educandoweb.course.services.lookup.IdFilters;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica a importação de produtos por CSV: inserções e atualizações em lotes, categorias, campos com aspas,
+ * erros por linha sem interromper a importação, a regravação linha a linha de um lote que falhou no banco e a
+ * visibilidade do resultado no catálogo.
+ */
+@SpringBootTest(properties = {"product-import.batch-size=2", "spring.datasource.url=jdbc:h2:mem:product-import"})
+@ActiveProfiles("test")
+@DirtiesContext
+class ProductImportTests {
+
+	@Autowired
+	private ProductImporter importer;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private IdFilters idFilters;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void insertsAndUpdatesInBatchesAndReportsBadLines() throws Exception {
+		String csv = "\uFEFF" + """
+				Id,Name,Description,Price,Currency,img_url,Categories
+				,Kindle,"E-reader, 6"" screen",499.90,BRL,,electronics|Books
+				1,The Lord of the Rings (special edition),,120.00,,,Books|Computers
+
+				,"Multi
+				line",,10,usd,,
+				,Bad price,,1.234,BRL,,
+				999999,Missing,,1.00,,,
+				,Unknown category,,1.00,,,Garden
+				,Too few fields
+				2,Smart TV 55,,2500,,,
+				""";
+		ImportReport report = importer.importCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+		assertEquals(8, report.getProcessed());
+		assertEquals(2, report.getInserted());
+		assertEquals(2, report.getUpdated());
+		assertEquals(4, report.getFailed());
+		Map<Long, String> errors = report.getErrors().stream()
+				.collect(Collectors.toMap(ImportReport.LineError::getLine, ImportReport.LineError::getMessage));
+		assertEquals(List.of(7L, 8L, 9L, 10L), errors.keySet().stream().sorted().toList());
+		assertTrue(errors.get(7L).contains("price"), errors.get(7L));
+		assertTrue(errors.get(8L).contains("999999"), errors.get(8L));
+		assertTrue(errors.get(9L).contains("Garden"), errors.get(9L));
+
+		Long kindleId = jdbcTemplate.queryForObject("SELECT id FROM tb_product WHERE name = 'Kindle'", Long.class);
+		Product kindle = productService.findById(kindleId);
+		assertEquals("E-reader, 6\" screen", kindle.getDescription());
+		assertEquals(new BigDecimal("499.90"), kindle.getPrice());
+		assertEquals(List.of("Books", "Electronics"), names(kindle));
+		assertTrue(idFilters.products().mightContain(kindleId));
+
+		Product lotr = productService.findById(1L);
+		assertEquals("The Lord of the Rings (special edition)", lotr.getName());
+		assertEquals(new BigDecimal("120.00"), lotr.getPrice());
+		assertEquals(List.of("Books", "Computers"), names(lotr));
+
+		Long multiId = jdbcTemplate.queryForObject("SELECT id FROM tb_product WHERE name = 'Multi\nline'", Long.class);
+		assertEquals("USD", productService.findById(multiId).getCurrency());
+
+		// com a coluna de categorias presente, uma célula vazia remove as categorias do produto
+		Product tv = productService.findById(2L);
+		assertEquals(new BigDecimal("2500.00"), tv.getPrice());
+		assertTrue(tv.getCategories().isEmpty());
+	}
+
+	@Test
+	void failedBatchIsRetriedRowByRowKeepingInserts() throws Exception {
+		// a ligação com Computers falha depois que os produtos do lote já receberam os ids gerados
+		jdbcTemplate.execute("ALTER TABLE tb_product_category ADD CONSTRAINT ck_import_test CHECK (category_id <> 3) NOCHECK");
+		ImportReport report;
+		try {
+			report = importer.importCsv(stream("name,price,categories\nFresh,1.00,Books\nPoison,2.00,Computers\n"));
+		} finally {
+			jdbcTemplate.execute("ALTER TABLE tb_product_category DROP CONSTRAINT ck_import_test");
+		}
+
+		assertEquals(1, report.getInserted());
+		assertEquals(0, report.getUpdated());
+		assertEquals(1, report.getFailed());
+		assertEquals(3L, report.getErrors().get(0).getLine());
+		assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tb_product WHERE name = 'Fresh'", Integer.class));
+	}
+
+	@Test
+	void rejectsInvalidHeaders() {
+		assertThrows(BadRequestException.class, () -> importer.importCsv(stream("name,price,color\nx,1,red\n")));
+		assertThrows(BadRequestException.class, () -> importer.importCsv(stream("id,description\n1,x\n")));
+		assertThrows(BadRequestException.class, () -> importer.importCsv(stream("")));
+	}
+
+	private static ByteArrayInputStream stream(String csv) {
+		return new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static List<String> names(Product product) {
+		return product.getCategories().stream().map(Category::getName).sorted().toList();
+	}
+}
@@ -0,0 +1,61 @@
+package com.educandoweb.course;
+
+import com.educandoweb.course.dto.KeysetPage;
+import com.educandoweb.course.entities.Product;
+import com.educandoweb.course.services.ProductService;
+import com.educandoweb.course.services.catalog.ProductFilter;
+import com.educandoweb.course.services.exceptions.BadRequestException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Verifica a paginação por chave de {@code /products} pelas consultas de faixa em {@code tb_product}
+ * (catálogo em memória desligado), em um banco próprio. O caminho pelo catálogo é verificado em {@link CatalogTests}.
+ */
+@SpringBootTest(properties = {"catalog.enabled=false", "spring.datasource.url=jdbc:h2:mem:product-page"})
+@ActiveProfiles("test")
+@DirtiesContext
+class ProductPageTests {
+
+	@Autowired
+	private ProductService productService;
+
+	@Test
+	void pagesWalkPriceBandsAndNamesInOrder() {
+		assertEquals(List.of(5L, 4L, 3L), walk(productService, new BigDecimal("100"), new BigDecimal("1300"), "price"));
+		assertEquals(List.of(1L, 5L, 4L, 3L, 2L), walk(productService, null, null, "price"));
+		assertEquals(List.of(3L, 4L, 5L, 2L, 1L), walk(productService, null, null, "name"));
+		assertEquals(List.of(3L, 4L, 2L), walk(productService, new BigDecimal("1200"), null, "name"));
+		assertEquals(List.of(), walk(productService, new BigDecimal("10000"), null, null));
+	}
+
+	@Test
+	void cursorsOfAnotherSortAreRejected() {
+		String next = productService.findPage(ProductFilter.ALL, "name", null, 1).getNext();
+		assertThrows(BadRequestException.class, () -> productService.findPage(ProductFilter.ALL, "price", next, 1));
+		assertThrows(BadRequestException.class, () -> productService.findPage(ProductFilter.ALL, "stock", null, 1));
+	}
+
+	/** Percorre todas as páginas, duas por vez, e devolve os ids na ordem recebida. */
+	static List<Long> walk(ProductService service, BigDecimal minPrice, BigDecimal maxPrice, String sort) {
+		ProductFilter filter = service.filter(null, minPrice, maxPrice, null);
+		List<Long> ids = new ArrayList<>();
+		String cursor = null;
+		do {
+			KeysetPage<Product> page = service.findPage(filter, sort, cursor, 2);
+			page.getItems().forEach(p -> ids.add(p.getId()));
+			cursor = page.getNext();
+		} while (cursor != null);
+		return ids;
+	}
+}
@@ -0,0 +1,79 @@
+package com.educandoweb.course;
+
+import com.educandoweb.course.resources.exceptions.ResourceExceptionHandler;
+import com.educandoweb.course.resources.exceptions.StandardError;
+import com.educandoweb.course.services.exceptions.BadRequestException;
+import com.educandoweb.course.services.exceptions.ResourceNotFoundException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica que os corpos pré-codificados de erro têm o mesmo conteúdo de um {@link StandardError} serializado
+ * e que cada tipo de erro é contado.
+ */
+class ResourceExceptionHandlerTests {
+
+	// como o Spring Boot configura o ObjectMapper da aplicação
+	private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+			.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+
+	private final ResourceExceptionHandler handler = new ResourceExceptionHandler();
+
+	@Test
+	void preEncodedBodiesMatchStandardError() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/products/\"q\\");
+		ResponseEntity<?> response = handler.badRequest(new BadRequestException("limit \"x\"\n is invalid"), request);
+
+		assertEquals(400, response.getStatusCode().value());
+		assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+		StandardError err = objectMapper.readValue((byte[]) response.getBody(), StandardError.class);
+		assertEquals(400, err.getStatus());
+		assertEquals("Bad request", err.getError());
+		assertEquals("limit \"x\"\n is invalid", err.getMessage());
+		assertEquals("/products/\"q\\", err.getPath());
+		String body = new String((byte[]) response.getBody(), StandardCharsets.UTF_8);
+		assertTrue(body.startsWith("{\"timestamp\":" + objectMapper.writeValueAsString(err.getTimestamp()) + ","), body);
+	}
+
+	@Test
+	void templateIsUsedOnlyWhenJsonIsTheNegotiatedType() {
+		for (String accept : new String[] { "*/*", "application/json", "application/*", "text/html, */*;q=0.1",
+				"application/cbor;q=0.5, application/json" }) {
+			assertInstanceOf(byte[].class, notFound(accept).getBody(), accept);
+		}
+		for (String accept : new String[] { "application/cbor, */*;q=0.8", "application/x-jackson-smile, */*",
+				"application/json;q=0.2, application/cbor", "text/html", "not a media type" }) {
+			assertInstanceOf(StandardError.class, notFound(accept).getBody(), accept);
+		}
+	}
+
+	private ResponseEntity<?> notFound(String accept) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users/9");
+		request.addHeader("Accept", accept);
+		return handler.resourceNotFound(new ResourceNotFoundException(9L), request);
+	}
+
+	@Test
+	void nonJsonRequestsGetAStandardErrorAndEveryResponseIsCounted() {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users/9");
+		request.addHeader("Accept", "application/cbor");
+		ResponseEntity<?> response = handler.resourceNotFound(new ResourceNotFoundException(9L), request);
+
+		StandardError err = assertInstanceOf(StandardError.class, response.getBody());
+		assertEquals("Resource not found. Id 9", err.getMessage());
+		handler.resourceNotFound(new ResourceNotFoundException(10L), new MockHttpServletRequest("GET", "/users/10"));
+		assertEquals(2L, handler.stats().get("Resource not found"));
+		assertEquals(0L, handler.stats().get("Bad request"));
+	}
+}
@@ -0,0 +1,83 @@
+package com.educandoweb.course;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Aplica as migrações em um banco H2 vazio e sobe o contexto com {@code ddl-auto=validate}: qualquer
+ * divergência entre o mapeamento das entidades e o esquema migrado impede o contexto de carregar e falha o build.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class SchemaMigrationTests {
+
+	private static final String[] TABLES = {"tb_user", "tb_category", "tb_product", "tb_product_category",
+			"tb_order", "tb_order_item", "tb_payment", "tb_order_archive", "tb_order_item_archive", "tb_payment_archive", "tb_inventory"};
+
+	@Autowired
+	private DataSource dataSource;
+
+	/**
+	 * Só contam a chave primária e os índices declarados nas migrações (prefixo {@code idx_}): o H2 cria
+	 * índices implícitos para as chaves estrangeiras, mas o Postgres não.
+	 */
+	@Test
+	void everyForeignKeyIsTheLeadingColumnOfAnIndex() throws Exception {
+		List<String> missing = new ArrayList<>();
+		try (Connection connection = dataSource.getConnection()) {
+			DatabaseMetaData meta = connection.getMetaData();
+			for (String table : TABLES) {
+				String name = meta.storesUpperCaseIdentifiers() ? table.toUpperCase(Locale.ROOT) : table;
+				Map<String, String> leadingColumns = leadingIndexColumns(meta, name);
+				try (ResultSet keys = meta.getImportedKeys(null, null, name)) {
+					while (keys.next()) {
+						String column = keys.getString("FKCOLUMN_NAME");
+						if (!leadingColumns.containsValue(column)) {
+							missing.add(table + "." + column.toLowerCase(Locale.ROOT));
+						}
+					}
+				}
+			}
+		}
+		assertTrue(missing.isEmpty(), "Foreign keys without index: " + missing);
+	}
+
+	private static Map<String, String> leadingIndexColumns(DatabaseMetaData meta, String table) throws Exception {
+		Map<String, String> leading = new HashMap<>();
+		try (ResultSet indexes = meta.getIndexInfo(null, null, table, false, false)) {
+			Map<String, TreeMap<Short, String>> columns = new HashMap<>();
+			while (indexes.next()) {
+				String index = indexes.getString("INDEX_NAME");
+				if (index != null && index.toLowerCase(Locale.ROOT).startsWith("idx_")) {
+					columns.computeIfAbsent(index, k -> new TreeMap<>())
+							.put(indexes.getShort("ORDINAL_POSITION"), indexes.getString("COLUMN_NAME"));
+				}
+			}
+			columns.forEach((index, ordered) -> leading.put(index, ordered.firstEntry().getValue()));
+		}
+		try (ResultSet primaryKey = meta.getPrimaryKeys(null, null, table)) {
+			while (primaryKey.next()) {
+				if (primaryKey.getShort("KEY_SEQ") == 1) {
+					leading.put(primaryKey.getString("PK_NAME"), primaryKey.getString("COLUMN_NAME"));
+				}
+			}
+		}
+		return leading;
+	}
+
+}
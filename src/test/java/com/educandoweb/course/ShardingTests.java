@@ -0,0 +1,168 @@
+package com.educandoweb.course;
+
+import com.educandoweb.course.dto.BatchResult;
+import com.educandoweb.course.dto.OrderSummary;
+import com.educandoweb.course.entities.Order;
+import com.educandoweb.course.entities.OutboxEvent;
+import com.educandoweb.course.entities.User;
+import com.educandoweb.course.enums.OrderStatus;
+import com.educandoweb.course.services.OrderService;
+import com.educandoweb.course.services.UserService;
+import com.educandoweb.course.services.exceptions.DatabaseException;
+import com.educandoweb.course.services.export.ExportFormat;
+import com.educandoweb.course.services.export.OrderExporter;
+import com.educandoweb.course.services.importer.ProductImporter;
+import com.educandoweb.course.services.outbox.OutboxDispatcher;
+import com.educandoweb.course.services.outbox.OutboxSink;
+import com.educandoweb.course.sharding.ShardPools;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Verifica o particionamento dos pedidos em três bancos H2: pedidos no shard do cliente com ids que indicam o
+ * shard, buscas em um único shard, listagens e exportação combinadas de todos, escrita e outbox no shard do
+ * pedido e cópia das tabelas de referência em todos os shards.
+ */
+@SpringBootTest(properties = {"sharding.enabled=true", "spring.datasource.url=jdbc:h2:mem:sharding0",
+		"sharding.urls=jdbc:h2:mem:sharding1,jdbc:h2:mem:sharding2", "outbox.sink=test",
+		"outbox.dispatcher.interval-ms=3600000"})
+@ActiveProfiles("test")
+@DirtiesContext
+class ShardingTests {
+
+	@TestConfiguration
+	static class CollectingSinkConfig {
+		@Bean
+		CollectingSink collectingSink() {
+			return new CollectingSink();
+		}
+	}
+
+	static class CollectingSink implements OutboxSink {
+		final List<OutboxEvent> received = new CopyOnWriteArrayList<>();
+
+		@Override
+		public void publish(List<OutboxEvent> events) {
+			received.addAll(events);
+		}
+	}
+
+	@Autowired
+	private ShardPools pools;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private OrderExporter exporter;
+
+	@Autowired
+	private ProductImporter importer;
+
+	@Autowired
+	private OutboxDispatcher dispatcher;
+
+	@Autowired
+	private CollectingSink sink;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void ordersLiveOnTheClientShardWithIdsThatNameIt() {
+		// cliente 1 -> shard 1, cliente 2 -> shard 2; ids gerados com id mod 3 = shard
+		assertEquals(List.of(), orderIds(0));
+		assertEquals(List.of(1L, 4L), orderIds(1));
+		assertEquals(List.of(2L), orderIds(2));
+		for (int shard = 1; shard < 3; shard++) {
+			assertEquals(count(0, "SELECT COUNT(*) FROM tb_user"), count(shard, "SELECT COUNT(*) FROM tb_user"));
+			assertEquals(count(0, "SELECT COUNT(*) FROM tb_product"), count(shard, "SELECT COUNT(*) FROM tb_product"));
+			assertEquals(6, count(shard, "SELECT COUNT(*) FROM tb_product_category"));
+		}
+	}
+
+	@Test
+	void lookupsGoToOneShardAndListingsMergeAll() throws Exception {
+		Order o3 = orderService.findById(4L);
+		assertEquals(1L, o3.getClient().getId());
+		assertEquals("Rails for Dummies", o3.getItems().iterator().next().getProduct().getName());
+
+		assertEquals(List.of(1L, 2L, 4L), orderService.findAll().stream().map(Order::getId).toList());
+		BatchResult<Order> batch = orderService.findAllById(List.of(4L, 2L, 7L));
+		assertEquals(List.of(4L, 2L), batch.getItems().stream().map(Order::getId).toList());
+		assertEquals(List.of(7L), batch.getMissing());
+		assertEquals(List.of(4L, 1L), orderService.findByClient(1L, null, 10).getItems().stream().map(OrderSummary::getId).toList());
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		exporter.export(Instant.EPOCH, Instant.parse("2100-01-01T00:00:00Z"), false, ExportFormat.NDJSON, out);
+		List<Long> exported = out.toString(StandardCharsets.UTF_8).lines()
+				.map(this::readId).toList();
+		assertEquals(List.of(1L, 2L, 4L), exported);
+	}
+
+	@Test
+	void writesAndOutboxStayOnTheOrderShard() {
+		orderService.updateStatus(2L, OrderStatus.CANCELED);
+		assertEquals(OrderStatus.CANCELED.getCode(), count(2, "SELECT order_status FROM tb_order WHERE id = 2"));
+		assertEquals(1, count(2, "SELECT COUNT(*) FROM tb_outbox"));
+
+		dispatcher.dispatch();
+		assertEquals(List.of(2L), sink.received.stream().map(OutboxEvent::getAggregateId).distinct().toList());
+		assertEquals(0L, dispatcher.stats().get("pending"));
+	}
+
+	@Test
+	void referenceWritesAreCopiedToEveryShard() throws Exception {
+		User user = userService.insert(new User(null, "Bob Grey", "bob@gmail.com", "966666666", "123456"));
+		importer.importCsv(new ByteArrayInputStream("id,name,price\n1,The Silmarillion,75.00\n,Kindle,499.90\n"
+				.getBytes(StandardCharsets.UTF_8)));
+		for (int shard = 0; shard < 3; shard++) {
+			assertEquals(1, count(shard, "SELECT COUNT(*) FROM tb_user WHERE id = " + user.getId()));
+			assertEquals(7500, count(shard, "SELECT price_minor FROM tb_product WHERE id = 1"));
+			assertEquals(1, count(shard, "SELECT COUNT(*) FROM tb_product WHERE name = 'Kindle'"));
+		}
+
+		// os pedidos do cliente 1 estão no shard 1, não no shard 0 onde o usuário é removido
+		assertThrows(DatabaseException.class, () -> userService.delete(1L));
+		userService.delete(user.getId());
+		for (int shard = 0; shard < 3; shard++) {
+			assertEquals(0, count(shard, "SELECT COUNT(*) FROM tb_user WHERE id = " + user.getId()));
+		}
+	}
+
+	private List<Long> orderIds(int shard) {
+		return new JdbcTemplate(pools.get(shard)).queryForList("SELECT id FROM tb_order ORDER BY id", Long.class);
+	}
+
+	private long count(int shard, String sql) {
+		return new JdbcTemplate(pools.get(shard)).queryForObject(sql, Long.class);
+	}
+
+	private long readId(String line) {
+		try {
+			return objectMapper.readTree(line).get("id").asLong();
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
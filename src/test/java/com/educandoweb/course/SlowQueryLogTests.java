@@ -0,0 +1,64 @@
+package com.educandoweb.course;
+
+import com.educandoweb.course.dto.SlowQuery;
+import com.educandoweb.course.jdbc.SlowQueryLog;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica que os comandos acima do limite são agregados pelo SQL normalizado, com os tipos dos parâmetros e o
+ * plano capturado, sem afetar a transação em que foram executados.
+ */
+@SpringBootTest(properties = {"slow-query.threshold-ms=0", "spring.datasource.url=jdbc:h2:mem:slow-query"})
+@ActiveProfiles("test")
+@DirtiesContext
+class SlowQueryLogTests {
+
+	private static final String COUNT_SQL = "SELECT COUNT(*) FROM tb_product WHERE price_minor > ? AND name <> 'x'";
+
+	@Autowired
+	private SlowQueryLog slowQueryLog;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Test
+	void slowStatementsAreAggregatedWithParametersAndPlan() {
+		slowQueryLog.reset();
+		Long count = transactionTemplate.execute(status -> {
+			jdbcTemplate.queryForObject(COUNT_SQL, Long.class, 10_000L);
+			jdbcTemplate.queryForObject(COUNT_SQL.replace("'x'", "'y'"), Long.class, 20_000L);
+			return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tb_product", Long.class);
+		});
+		assertEquals(5L, count);
+
+		SlowQuery query = slowQueryLog.top(500).stream()
+				.filter(q -> q.getSql().equals("SELECT COUNT(*) FROM tb_product WHERE price_minor > ? AND name <> ?"))
+				.findFirst().orElseThrow();
+		assertEquals(2L, query.getCount());
+		assertEquals("[Long]", query.getParameters());
+		assertNotNull(query.getPlan());
+		assertTrue(query.getPlan().toLowerCase(Locale.ROOT).contains("tb_product"), query.getPlan());
+	}
+
+	@Test
+	void normalizationReplacesLiteralsAndInLists() {
+		assertEquals("select p1_0.id from tb_product p1_0 where p1_0.id in (?...) and p1_0.name = ? and p1_0.price_minor > ?",
+				SlowQueryLog.normalize("select p1_0.id   from tb_product p1_0\n where p1_0.id in ( ?, ?, ? ) and p1_0.name = 'it''s' and p1_0.price_minor > 12.5"));
+		assertEquals("select \"t1\".x from t where x in (?...)", SlowQueryLog.normalize("/* q */ select \"t1\".x from t -- fim\n where x in (?)"));
+	}
+}
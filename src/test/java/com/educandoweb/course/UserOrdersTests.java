@@ -0,0 +1,49 @@
+package com.educandoweb.course;
+
+import com.educandoweb.course.dto.KeysetPage;
+import com.educandoweb.course.dto.OrderSummary;
+import com.educandoweb.course.services.OrderService;
+import com.educandoweb.course.services.exceptions.BadRequestException;
+import com.educandoweb.course.services.exceptions.ResourceNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Verifica a paginação por chave dos pedidos de um usuário e os totais somados no banco.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class UserOrdersTests {
+
+	@Autowired
+	private OrderService orderService;
+
+	@Test
+	void pagesFollowTheCursorFromNewestToOldest() {
+		KeysetPage<OrderSummary> first = orderService.findByClient(1L, null, 1);
+		assertEquals(List.of(3L), first.getItems().stream().map(OrderSummary::getId).toList());
+
+		KeysetPage<OrderSummary> second = orderService.findByClient(1L, first.getNext(), 1);
+		assertEquals(List.of(1L), second.getItems().stream().map(OrderSummary::getId).toList());
+		assertNull(second.getNext());
+
+		for (OrderSummary summary : orderService.findByClient(1L, null, 20).getItems()) {
+			assertEquals(orderService.findById(summary.getId()).getTotal(), summary.getTotal());
+		}
+	}
+
+	@Test
+	void unknownUsersAndBadCursorsAreRejected() {
+		assertThrows(ResourceNotFoundException.class, () -> orderService.findByClient(999L, null, 20));
+		assertThrows(BadRequestException.class, () -> orderService.findByClient(1L, "not-a-cursor", 20));
+		assertThrows(BadRequestException.class, () -> orderService.findByClient(1L, null, 0));
+	}
+}
@@ -0,0 +1,100 @@
+package com.educandoweb.course.benchmark;
+
+import com.educandoweb.course.config.JacksonConfig;
+import com.educandoweb.course.entities.*;
+import com.educandoweb.course.enums.OrderStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara custo de codificação/decodificação e tamanho do payload de um pedido típico em JSON, Smile e CBOR.
+ *
+ * Execução: {@code mvn test -Pbenchmark -Dtest=EncodingBenchmark}
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncodingBenchmark {
+
+    @Param({"json", "smile", "cbor"})
+    public String format;
+
+    private ObjectMapper mapper;
+    private Order order;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() throws Exception {
+        mapper = mapper(format);
+        order = typicalOrder(20);
+        encoded = mapper.writeValueAsBytes(order);
+    }
+
+    @Benchmark
+    public byte[] encode() throws Exception {
+        return mapper.writeValueAsBytes(order);
+    }
+
+    @Benchmark
+    public Order decode() throws Exception {
+        return mapper.readValue(encoded, Order.class);
+    }
+
+    @Test
+    void run() throws Exception {
+        Order sample = typicalOrder(20);
+        for (String f : new String[]{"json", "smile", "cbor"}) {
+            System.out.printf("payload %-5s %6d bytes%n", f, mapper(f).writeValueAsBytes(sample).length);
+        }
+        new Runner(new OptionsBuilder().include(getClass().getName()).build()).run();
+    }
+
+    /**
+     * Mapper montado como os dos conversores da aplicação: o builder do Spring (com o módulo JSR-310), as
+     * opções do Spring Boot, o filtro de seleção de campos e os serializadores diretos de {@link JacksonConfig}.
+     */
+    static ObjectMapper mapper(String format) {
+        JacksonConfig config = new JacksonConfig();
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS)
+                .modulesToInstall(config.directSerializationModule());
+        config.fieldSelectionCustomizer().customize(builder);
+        switch (format) {
+            case "smile" -> builder.factory(new SmileFactory());
+            case "cbor" -> builder.factory(new CBORFactory());
+            default -> { }
+        }
+        return builder.build();
+    }
+
+    static Order typicalOrder(int items) {
+        User client = new User(1L, "Maria Brown", "maria@gmail.com", "988888888", "123456");
+        Order order = new Order(1L, Instant.parse("2019-06-20T19:53:07Z"), OrderStatus.PAID, client);
+        Category books = new Category(2L, "Books");
+        Category computers = new Category(3L, "Computers");
+        for (int i = 1; i <= items; i++) {
+            Product p = new Product((long) i, "Product " + i, "Lorem ipsum dolor sit amet, consectetur adipiscing elit.",
+                    BigDecimal.valueOf(1000 + 100L * i, 2), "https://img.example.com/" + i + ".png");
+            p.getCategories().add(i % 2 == 0 ? books : computers);
+            order.getItems().add(new OrderItem(order, p, 1 + i % 3, p.getPrice()));
+        }
+        order.setPayment(new Payment(1L, Instant.parse("2019-06-20T21:53:07Z"), order));
+        return order;
+    }
+}
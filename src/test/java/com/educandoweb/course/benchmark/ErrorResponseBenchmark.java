@@ -0,0 +1,91 @@
+package com.educandoweb.course.benchmark;
+
+import com.educandoweb.course.resources.exceptions.ResourceExceptionHandler;
+import com.educandoweb.course.resources.exceptions.StandardError;
+import com.educandoweb.course.services.exceptions.ResourceNotFoundException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vazão de respostas 404 antes e depois do caminho rápido de erros: a implementação anterior (exceção com
+ * stack trace e {@link StandardError} serializado pelo Jackson) contra a atual (exceção sem stack trace e
+ * corpo pré-codificado do {@link ResourceExceptionHandler}). A exceção é lançada a {@code depth} quadros de
+ * profundidade, já que o custo de capturar o stack trace cresce com a pilha (uma requisição Spring MVC
+ * passa de cem quadros).
+ *
+ * Execução: {@code mvn test -Pbenchmark -Dtest=ErrorResponseBenchmark}
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ErrorResponseBenchmark {
+
+    @Param({"10", "150"})
+    public int depth;
+
+    private ObjectMapper objectMapper;
+    private ResourceExceptionHandler handler;
+    private MockHttpServletRequest request;
+    private long id;
+
+    @Setup
+    public void setup() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        handler = new ResourceExceptionHandler();
+        request = new MockHttpServletRequest("GET", "/products/999");
+        request.addHeader("Accept", "application/json");
+    }
+
+    /** Como antes: exceção com stack trace e {@link StandardError} novo passado pelo Jackson. */
+    @Benchmark
+    public byte[] before() throws Exception {
+        try {
+            throwAt(depth, false);
+            return null;
+        } catch (RuntimeException e) {
+            StandardError err = new StandardError(Instant.now(), 404, "Resource not found", e.getMessage(), request.getRequestURI());
+            return objectMapper.writeValueAsBytes(err);
+        }
+    }
+
+    @Benchmark
+    public Object after() {
+        try {
+            throwAt(depth, true);
+            return null;
+        } catch (ResourceNotFoundException e) {
+            return handler.resourceNotFound(e, request).getBody();
+        }
+    }
+
+    private void throwAt(int frames, boolean stackless) {
+        if (frames > 0) {
+            throwAt(frames - 1, stackless);
+            return;
+        }
+        long missing = ++id;
+        if (stackless) {
+            throw new ResourceNotFoundException(missing);
+        }
+        throw new RuntimeException("Resource not found. Id " + missing);
+    }
+
+    @Test
+    void run() throws Exception {
+        new Runner(new OptionsBuilder().include(getClass().getName()).addProfiler(GCProfiler.class).build()).run();
+    }
+}
@@ -0,0 +1,67 @@
+package com.educandoweb.course.benchmark;
+
+import com.educandoweb.course.entities.Product;
+import com.educandoweb.course.repositories.ProductRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mede o custo do flush com 10 mil produtos gerenciados, alterando um único produto por flush.
+ *
+ * Sem o enhancement o Hibernate compara o snapshot de todas as entidades a cada flush; com o dirty tracking
+ * gerado no bytecode apenas as entidades marcadas como alteradas são verificadas. Para comparar, execute
+ * {@code mvn test -Pbenchmark -Dtest=FlushBenchmarkTests} com e sem {@code -DskipEnhance}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "spring.jpa.properties.hibernate.format_sql=false"})
+@ActiveProfiles("test")
+class FlushBenchmarkTests {
+
+    private static final int ENTITIES = 10_000;
+    private static final int FLUSHES = 500;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductRepository repository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void flushWithTenThousandManagedEntities() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < ENTITIES; i++) {
+            rows.add(new Object[]{"Bench " + i, "Description " + i, 1000L + i, ""});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO tb_product (name, description, price_minor, img_url) VALUES (?, ?, ?, ?)", rows);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Product> products = repository.findAll();
+            for (int round = 0; round < 2; round++) {
+                long start = System.nanoTime();
+                for (int i = 0; i < FLUSHES; i++) {
+                    products.get(i).setName("Renamed " + round + " " + i);
+                    entityManager.flush();
+                }
+                long nanos = System.nanoTime() - start;
+                System.out.printf("flush with %d managed products: %d us/flush (round %d)%n",
+                        products.size(), nanos / FLUSHES / 1_000, round + 1);
+            }
+            status.setRollbackOnly();
+        });
+    }
+}
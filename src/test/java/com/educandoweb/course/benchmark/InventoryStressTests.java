@@ -0,0 +1,103 @@
+package com.educandoweb.course.benchmark;
+
+import com.educandoweb.course.services.exceptions.OutOfStockException;
+import com.educandoweb.course.services.inventory.Inventory;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongPredicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Reservas por segundo em um único produto disputado por 64 threads, com o estoque em memória
+ * ({@link Inventory}) e com um {@code UPDATE} condicional por reserva, como no modo
+ * {@code inventory.in-memory=false}. Em ambos o estoque acaba exatamente em zero, sem reservas além dele.
+ *
+ * Execução: {@code mvn test -Pbenchmark -Dtest=InventoryStressTests}
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {"spring.datasource.url=jdbc:h2:mem:inventory-stress", "spring.jpa.show-sql=false",
+        "outbox.dispatcher.enabled=false", "spring.datasource.hikari.maximum-pool-size=64"})
+@ActiveProfiles("test")
+@DirtiesContext
+class InventoryStressTests {
+
+    private static final int THREADS = 64;
+    private static final long IN_MEMORY_UNITS = 5_000_000;
+    private static final long DATABASE_UNITS = 50_000;
+
+    @Autowired
+    private Inventory inventory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void hotProductInMemory() throws Exception {
+        inventory.addStock(1L, IN_MEMORY_UNITS);
+        long granted = run("in-memory", quantity -> {
+            try {
+                inventory.reserve(1L, quantity);
+                return true;
+            } catch (OutOfStockException e) {
+                return false;
+            }
+        });
+
+        assertEquals(IN_MEMORY_UNITS, granted);
+        assertEquals(0, inventory.stock(1L).getAvailable());
+        inventory.flush();
+        assertEquals(IN_MEMORY_UNITS, jdbcTemplate.queryForObject("SELECT reserved FROM tb_inventory WHERE product_id = 1", Long.class));
+    }
+
+    @Test
+    void hotProductInDatabase() throws Exception {
+        jdbcTemplate.update("INSERT INTO tb_inventory (product_id, available, reserved) VALUES (2, ?, 0)", DATABASE_UNITS);
+        long granted = run("database", quantity -> jdbcTemplate.update(
+                "UPDATE tb_inventory SET available = available - ?, reserved = reserved + ? WHERE product_id = 2 AND available >= ?",
+                quantity, quantity, quantity) > 0);
+
+        assertEquals(DATABASE_UNITS, granted);
+        assertEquals(0L, jdbcTemplate.queryForObject("SELECT available FROM tb_inventory WHERE product_id = 2", Long.class));
+    }
+
+    /** Reserva uma unidade por vez em todas as threads até a primeira recusa de cada uma. */
+    private long run(String label, LongPredicate reserve) throws InterruptedException {
+        LongAdder granted = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (reserve.test(1)) {
+                    granted.increment();
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long nanos = System.nanoTime() - begin;
+        System.out.printf("%s: %d reservations by %d threads in %d ms, %,d reservations/s%n",
+                label, granted.sum(), THREADS, nanos / 1_000_000, granted.sum() * 1_000_000_000L / nanos);
+        return granted.sum();
+    }
+}
@@ -0,0 +1,96 @@
+package com.educandoweb.course.benchmark;
+
+import com.educandoweb.course.entities.Money;
+import com.educandoweb.course.entities.Order;
+import com.educandoweb.course.entities.OrderItem;
+import com.educandoweb.course.entities.Product;
+import com.educandoweb.course.enums.OrderStatus;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara a aritmética do total de um pedido com {@code Double} encaixotado (implementação anterior) e com
+ * unidades menores em {@code long} (implementação atual), incluindo a alocação por operação, e mede também
+ * {@link Order#getTotalMinor()} percorrendo as entidades.
+ *
+ * Execução: {@code mvn test -Pbenchmark -Dtest=MoneyBenchmark}
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+
+    @Param({"50", "1000"})
+    public int items;
+
+    private Order order;
+    private Double[] boxedPrices;
+    private long[] minorPrices;
+    private Integer[] quantities;
+
+    @Setup
+    public void setup() {
+        order = new Order(1L, Instant.now(), OrderStatus.PAID, null);
+        boxedPrices = new Double[items];
+        minorPrices = new long[items];
+        quantities = new Integer[items];
+        for (int i = 0; i < items; i++) {
+            BigDecimal price = BigDecimal.valueOf(1999 + 37L * i, 2);
+            Product p = new Product((long) i + 1, "Product " + i, null, price, null);
+            order.getItems().add(new OrderItem(order, p, 1 + i % 3, price));
+            boxedPrices[i] = price.doubleValue();
+            minorPrices[i] = 1999 + 37L * i;
+            quantities[i] = 1 + i % 3;
+        }
+    }
+
+    /** Mesma aritmética do antigo {@code getSubTotal()}/{@code getTotal()} com {@code Double}. */
+    @Benchmark
+    public Double boxedDouble() {
+        double sum = 0.0;
+        for (int i = 0; i < boxedPrices.length; i++) {
+            Double subTotal = boxedPrices[i] * quantities[i];
+            sum += subTotal;
+        }
+        return sum;
+    }
+
+    /** Mesma aritmética de {@code OrderItem.getSubTotalMinor()}/{@code Order.getTotalMinor()}. */
+    @Benchmark
+    public long minorUnits() {
+        long sum = 0L;
+        for (int i = 0; i < minorPrices.length; i++) {
+            sum = Money.plus(sum, Money.times(minorPrices[i], quantities[i]));
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long orderTotalMinor() {
+        return order.getTotalMinor();
+    }
+
+    @Test
+    void run() throws Exception {
+        double sum = 0.0;
+        long minor = 0L;
+        for (int i = 0; i < 1_000_000; i++) {
+            sum += 0.1;
+            minor += 10;
+        }
+        System.out.printf("1,000,000 x 0.10: double=%s minor units=%s%n", sum, BigDecimal.valueOf(minor, 2));
+        new Runner(new OptionsBuilder().include(getClass().getName()).addProfiler(GCProfiler.class).build()).run();
+    }
+}
@@ -0,0 +1,60 @@
+package com.educandoweb.course.benchmark;
+
+import com.educandoweb.course.config.JacksonConfig;
+import com.educandoweb.course.entities.Order;
+import com.educandoweb.course.resources.json.DirectSerializationModule;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara a serialização JSON de um pedido com 50 itens pelo serializador de beans do Jackson e pelos
+ * serializadores diretos de {@link DirectSerializationModule}, com o mesmo builder usado pela aplicação. A saída
+ * é descartada para medir apenas a serialização.
+ *
+ * Execução: {@code mvn test -Pbenchmark -Dtest=SerializationBenchmark}
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"beans", "direct"})
+    public String serializer;
+
+    private ObjectWriter writer;
+    private Order order;
+
+    @Setup
+    public void setup() {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        new JacksonConfig().fieldSelectionCustomizer().customize(builder);
+        if (serializer.equals("direct")) {
+            builder.modulesToInstall(new DirectSerializationModule());
+        }
+        writer = builder.build().writer();
+        order = EncodingBenchmark.typicalOrder(50);
+    }
+
+    @Benchmark
+    public void serialize() throws Exception {
+        writer.writeValue(OutputStream.nullOutputStream(), order);
+    }
+
+    @Test
+    void run() throws Exception {
+        new Runner(new OptionsBuilder().include(getClass().getName()).addProfiler(GCProfiler.class).build()).run();
+    }
+}